@@ -34,4 +34,18 @@ public interface AssertionPlugin
 	AssertionResponse perform(
 		Assertion assertion,
 		Instance instance);
+
+	/**
+	 * Estimates how long the supplied {@link Assertion} takes to perform.  Wildebeest performs the cheapest assertions
+	 * of a state first, and uses this estimate for an assertion until it has timed the assertion itself.
+	 *
+	 * @param assertion the Assertion to be performed.
+	 * @return the estimated cost of performing the Assertion, in microseconds.
+	 * @since 4.0
+	 */
+	default long estimateCost(
+		Assertion assertion)
+	{
+		return 1000;
+	}
 }
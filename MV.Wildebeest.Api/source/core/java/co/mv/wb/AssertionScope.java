@@ -0,0 +1,35 @@
+// Wildebeest Migration Framework
+// Copyright © 2013 - 2018, Matheson Ventures Pte Ltd
+//
+// This file is part of Wildebeest
+//
+// Wildebeest is free software: you can redistribute it and/or modify it under
+// the terms of the GNU General Public License v2 as published by the Free
+// Software Foundation.
+//
+// Wildebeest is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Wildebeest.  If not, see http://www.gnu.org/licenses/gpl-2.0.html
+
+
+package co.mv.wb;
+
+/**
+ * A scope in which the assertions of a state are checked against an {@link Instance}.  While the scope is open, an
+ * instance may share work between the assertions, such as reading it's catalog once rather than once per assertion.
+ * Anything shared is discarded when the scope is closed, so later assertions see the instance as it is then.
+ *
+ * @since 4.0
+ */
+public interface AssertionScope extends AutoCloseable
+{
+	/**
+	 * Closes this scope.
+	 *
+	 * @since 4.0
+	 */
+	@Override void close();
+}
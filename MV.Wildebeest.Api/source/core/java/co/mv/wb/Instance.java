@@ -16,6 +16,8 @@
 
 package co.mv.wb;
 
+import java.util.List;
+
 /**
  * Represents a specific instance of a Resource.
  *
@@ -23,4 +25,46 @@ package co.mv.wb;
  */
 public interface Instance
 {
+	/**
+	 * Opens a session against this Instance on the current thread, so that the work done until the session is closed
+	 * shares the same connection(s).  Sessions may be nested, and only the outermost session releases the
+	 * connection(s).  The default implementation is for instances that have no connections, and does nothing.
+	 *
+	 * @return the new session.
+	 * @since 4.0
+	 */
+	default InstanceSession openSession()
+	{
+		return () ->
+		{
+		};
+	}
+
+	/**
+	 * Opens a scope in which the supplied assertions of a state are checked, so that the instance can share work
+	 * between them.  Scopes may be opened from any thread and may overlap, and the shared work is discarded when the
+	 * last open scope is closed.  The default implementation shares nothing.
+	 *
+	 * @param assertions the assertions that are about to be checked.
+	 * @return the new scope.
+	 * @since 4.0
+	 */
+	default AssertionScope openAssertionScope(
+		List<Assertion> assertions)
+	{
+		return () ->
+		{
+		};
+	}
+
+	/**
+	 * Closes the connections that this Instance keeps open between operations, such as pooled database connections.
+	 * The instance may still be used afterwards, and opens new connections as they are needed.  The default
+	 * implementation is for instances that have no connections, and does nothing.
+	 *
+	 * @since 4.0
+	 */
+	default void closeConnections()
+	{
+	}
 }
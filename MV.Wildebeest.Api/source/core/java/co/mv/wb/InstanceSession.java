@@ -0,0 +1,68 @@
+// Wildebeest Migration Framework
+// Copyright © 2013 - 2018, Matheson Ventures Pte Ltd
+//
+// This file is part of Wildebeest
+//
+// Wildebeest is free software: you can redistribute it and/or modify it under
+// the terms of the GNU General Public License v2 as published by the Free
+// Software Foundation.
+//
+// Wildebeest is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Wildebeest.  If not, see http://www.gnu.org/licenses/gpl-2.0.html
+
+package co.mv.wb;
+
+/**
+ * A session against an {@link Instance}.  While a session is open, work done against the instance on the thread that
+ * opened the session shares the same underlying connection(s), so session-level settings and temporary objects created
+ * by one step are visible to the next.  Closing the session releases the connection(s).
+ *
+ * @since 4.0
+ */
+public interface InstanceSession extends AutoCloseable
+{
+	/**
+	 * Begins a transaction on this session, if the instance supports transactions and has been configured to use them
+	 * for migrations.  The transaction covers all the work done on the session's connection until it is committed or
+	 * rolled back.  Work done over other connections, such as creating and dropping databases, is not part of it.
+	 * The default implementation does not support transactions.
+	 *
+	 * @return true if a transaction was begun, or false if the work on this session will continue to be committed as
+	 * it is done, or will be committed along with a transaction that is already open on the session.  Only a caller
+	 * that receives true commits or rolls back.
+	 * @since 4.0
+	 */
+	default boolean beginTransaction()
+	{
+		return false;
+	}
+
+	/**
+	 * Commits the transaction begun by {@link #beginTransaction()}.
+	 *
+	 * @since 4.0
+	 */
+	default void commitTransaction()
+	{
+	}
+
+	/**
+	 * Rolls back the transaction begun by {@link #beginTransaction()}.
+	 *
+	 * @since 4.0
+	 */
+	default void rollbackTransaction()
+	{
+	}
+
+	/**
+	 * Closes this session.
+	 *
+	 * @since 4.0
+	 */
+	@Override void close();
+}
@@ -32,4 +32,16 @@ public class MigrationNotPossibleException extends Exception
 	public MigrationNotPossibleException()
 	{
 	}
+
+	/**
+	 * Creates a new MigrationNotPossibleException with a message describing why the migration cannot be performed.
+	 *
+	 * @param message the message describing why the migration cannot be performed.
+	 * @since 4.0
+	 */
+	public MigrationNotPossibleException(
+		String message)
+	{
+		super(message);
+	}
 }
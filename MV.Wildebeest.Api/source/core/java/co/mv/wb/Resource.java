@@ -66,6 +66,18 @@ public interface Resource
 	 */
 	List<Migration> getMigrations();
 
+	/**
+	 * Gets an index of the states defined for this Resource by ID and by name.  The default implementation builds a
+	 * new index on every call; implementations should override this to build the index once and reuse it.
+	 *
+	 * @return the index of the states defined for this Resource
+	 * @since 4.0
+	 */
+	default StateIndex getStateIndex()
+	{
+		return StateIndex.of(this.getStates());
+	}
+
 	/**
 	 * Gets the optional default target state for migrations where no migration is specified to Wildebeest.  This allows
 	 * users to migrate a resource to it's main / default state without having to first read the definition to figure
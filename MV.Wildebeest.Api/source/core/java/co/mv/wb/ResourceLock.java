@@ -0,0 +1,35 @@
+// Wildebeest Migration Framework
+// Copyright © 2013 - 2018, Matheson Ventures Pte Ltd
+//
+// This file is part of Wildebeest
+//
+// Wildebeest is free software: you can redistribute it and/or modify it under
+// the terms of the GNU General Public License v2 as published by the Free
+// Software Foundation.
+//
+// Wildebeest is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Wildebeest.  If not, see http://www.gnu.org/licenses/gpl-2.0.html
+
+
+package co.mv.wb;
+
+/**
+ * An exclusive lock on a resource in an {@link Instance}, held while the instance is migrated or it's state is
+ * changed, so that processes working on the same instance at the same time take turns.  The lock is released when it
+ * is closed.
+ *
+ * @since 4.0
+ */
+public interface ResourceLock extends AutoCloseable
+{
+	/**
+	 * Releases the lock.
+	 *
+	 * @since 4.0
+	 */
+	@Override void close();
+}
@@ -64,4 +64,26 @@ public interface ResourcePlugin
 		Resource resource,
 		Instance instance,
 		UUID stateId);
+
+	/**
+	 * Takes an exclusive lock on the supplied resource in the supplied {@link Instance}, waiting for as long as another
+	 * process holds it.  The lock is taken before the state of the instance is read for a migration or jump, and is
+	 * held until the work is done, so that a process that had to wait reads the state left by the one before it.
+	 * <p>
+	 * The lock is advisory: it only keeps out other processes that take it too.  The default implementation takes no
+	 * lock.
+	 *
+	 * @param resource the resource to lock in the specified {@link Instance}
+	 * @param instance the {@link Instance} in which to lock the resource
+	 * @return the lock, which must be closed to release it.
+	 * @since 4.0
+	 */
+	default ResourceLock lock(
+		Resource resource,
+		Instance instance)
+	{
+		return () ->
+		{
+		};
+	}
 }
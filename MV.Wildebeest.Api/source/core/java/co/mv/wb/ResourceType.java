@@ -18,14 +18,19 @@ package co.mv.wb;
 
 import co.mv.wb.framework.ArgumentNullException;
 
+import java.io.Serializable;
+
 /**
  * Identifies a type of {@link Resource}.  The resource's type is identified in the XML file, and is used to verify
- * which {@link Assertion}'s and {@link Migration}'s can be applied to the Resource.
+ * which {@link Assertion}'s and {@link Migration}'s can be applied to the Resource.  ResourceTypes are identified by
+ * their URI, so two instances with the same URI are equal.
  *
  * @since 4.0
  */
-public class ResourceType
+public class ResourceType implements Serializable
 {
+	private static final long serialVersionUID = 1L;
+
 
 	private final String uri;
 	private final String name;
@@ -69,4 +74,26 @@ public class ResourceType
 	{
 		return this.name;
 	}
+
+	@Override
+	public boolean equals(Object o)
+	{
+		if (this == o)
+		{
+			return true;
+		}
+
+		if (o == null || this.getClass() != o.getClass())
+		{
+			return false;
+		}
+
+		return this.uri.equals(((ResourceType)o).uri);
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return this.uri.hashCode();
+	}
 }
@@ -0,0 +1,131 @@
+// Wildebeest Migration Framework
+// Copyright © 2013 - 2018, Matheson Ventures Pte Ltd
+//
+// This file is part of Wildebeest
+//
+// Wildebeest is free software: you can redistribute it and/or modify it under
+// the terms of the GNU General Public License v2 as published by the Free
+// Software Foundation.
+//
+// Wildebeest is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Wildebeest.  If not, see http://www.gnu.org/licenses/gpl-2.0.html
+
+package co.mv.wb;
+
+import co.mv.wb.framework.ArgumentNullException;
+import co.mv.wb.framework.Util;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * An immutable index of the {@link State}'s of a {@link Resource} by ID and by name.  Where more than one state shares
+ * an ID or a name, the first declared state wins, consistent with a linear search of the state list.
+ *
+ * @since 4.0
+ */
+public final class StateIndex implements Serializable
+{
+	private static final long serialVersionUID = 1L;
+
+	private final Map<UUID, State> statesById;
+	private final Map<String, State> statesByName;
+
+	private StateIndex(
+		Map<UUID, State> statesById,
+		Map<String, State> statesByName)
+	{
+		if (statesById == null) throw new ArgumentNullException("statesById");
+		if (statesByName == null) throw new ArgumentNullException("statesByName");
+
+		this.statesById = statesById;
+		this.statesByName = statesByName;
+	}
+
+	/**
+	 * Builds a new StateIndex over the supplied list of {@link State}'s.
+	 *
+	 * @param states the States to index.
+	 * @return the new StateIndex.
+	 * @since 4.0
+	 */
+	public static StateIndex of(
+		List<State> states)
+	{
+		if (states == null) throw new ArgumentNullException("states");
+
+		Map<UUID, State> statesById = new HashMap<>();
+		Map<String, State> statesByName = new HashMap<>();
+
+		for (State state : states)
+		{
+			statesById.putIfAbsent(state.getStateId(), state);
+
+			if (state.getName().isPresent())
+			{
+				statesByName.putIfAbsent(state.getName().get(), state);
+			}
+		}
+
+		return new StateIndex(
+			Collections.unmodifiableMap(statesById),
+			Collections.unmodifiableMap(statesByName));
+	}
+
+	/**
+	 * Looks up a {@link State} by ID.
+	 *
+	 * @param stateId the ID of the State to look up.
+	 * @return the State with the supplied ID, if there is one.
+	 * @since 4.0
+	 */
+	public Optional<State> byId(
+		UUID stateId)
+	{
+		if (stateId == null) throw new ArgumentNullException("stateId");
+
+		return Optional.ofNullable(this.statesById.get(stateId));
+	}
+
+	/**
+	 * Looks up a {@link State} by name.
+	 *
+	 * @param name the name of the State to look up.
+	 * @return the State with the supplied name, if there is one.
+	 * @since 4.0
+	 */
+	public Optional<State> byName(
+		String name)
+	{
+		if (name == null) throw new ArgumentNullException("name");
+
+		return Optional.ofNullable(this.statesByName.get(name));
+	}
+
+	/**
+	 * Looks up a {@link State} by reference, following the same rules as {@link State#matchesStateRef(String)}: a
+	 * reference in UUID form is matched against state IDs, and any other reference against state names.
+	 *
+	 * @param stateRef the ID or name of the State to look up.
+	 * @return the State matching the supplied reference, if there is one.
+	 * @since 4.0
+	 */
+	public Optional<State> byRef(
+		String stateRef)
+	{
+		if (stateRef == null) throw new ArgumentNullException("stateRef");
+
+		return Util.isUUID(stateRef)
+			? this.byId(UUID.fromString(stateRef))
+			: this.byName(stateRef);
+	}
+}
@@ -19,8 +19,13 @@ package co.mv.wb.event;
 import co.mv.wb.framework.ArgumentNullException;
 import org.joda.time.DateTime;
 
+import java.util.Optional;
+import java.util.UUID;
+
 /**
- * Defines an event that is fired from Wildebeest to notify activity to external consumers.
+ * Defines an event that is fired from Wildebeest to notify activity to external consumers.  Events raised while an
+ * API operation is carried out carry the run ID of that operation, so that consumers can tell apart the events of
+ * operations that run at the same time.
  *
  * @since 4.0
  */
@@ -29,6 +34,7 @@ public final class Event
 	private final String eventUri;
 	private final DateTime raisedInstant;
 	private final EventBody eventBody;
+	private final UUID runId;
 
 	/**
 	 * Constructs a new Event with the supplied details.
@@ -51,6 +57,34 @@ public final class Event
 		this.eventUri = eventUri;
 		this.raisedInstant = raisedInstant;
 		this.eventBody = eventBody;
+		this.runId = null;
+	}
+
+	/**
+	 * Constructs a new Event with the supplied details, raised as part of the specified run.
+	 *
+	 * @param eventUri      the identifying URI of the event which can be used by consumers to route or process events
+	 *                      correctly
+	 * @param raisedInstant the instant when the event was raised
+	 * @param eventBody     the body of hte event conveying type-specific details
+	 * @param runId         the ID of the API operation during which the event was raised
+	 * @since 4.0
+	 */
+	public Event(
+		String eventUri,
+		DateTime raisedInstant,
+		EventBody eventBody,
+		UUID runId)
+	{
+		if (eventUri == null) throw new ArgumentNullException("name");
+		if (raisedInstant == null) throw new ArgumentNullException("raisedInstant");
+		if (eventBody == null) throw new ArgumentNullException("eventBody");
+		if (runId == null) throw new ArgumentNullException("runId");
+
+		this.eventUri = eventUri;
+		this.raisedInstant = raisedInstant;
+		this.eventBody = eventBody;
+		this.runId = runId;
 	}
 
 	/**
@@ -85,4 +119,34 @@ public final class Event
 	{
 		return this.eventBody;
 	}
+
+	/**
+	 * The ID of the API operation during which this event was raised.  Every event raised by one call to the API,
+	 * including any operations nested within it, carries the same run ID.
+	 *
+	 * @return the run ID, or empty if the event was not raised as part of an API operation.
+	 * @since 4.0
+	 */
+	public Optional<UUID> getRunId()
+	{
+		return Optional.ofNullable(this.runId);
+	}
+
+	/**
+	 * Returns a copy of this event raised as part of the specified run.
+	 *
+	 * @param runId the ID of the API operation during which the event was raised.
+	 * @return the copied Event.
+	 * @since 4.0
+	 */
+	public Event withRunId(UUID runId)
+	{
+		if (runId == null) throw new ArgumentNullException("runId");
+
+		return new Event(
+			this.eventUri,
+			this.raisedInstant,
+			this.eventBody,
+			runId);
+	}
 }
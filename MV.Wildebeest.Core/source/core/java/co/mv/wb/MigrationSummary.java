@@ -0,0 +1,101 @@
+// Wildebeest Migration Framework
+// Copyright © 2013 - 2018, Matheson Ventures Pte Ltd
+//
+// This file is part of Wildebeest
+//
+// Wildebeest is free software: you can redistribute it and/or modify it under
+// the terms of the GNU General Public License v2 as published by the Free
+// Software Foundation.
+//
+// Wildebeest is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Wildebeest.  If not, see http://www.gnu.org/licenses/gpl-2.0.html
+
+
+package co.mv.wb;
+
+import co.mv.wb.framework.ArgumentNullException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The outcome of migrating a set of instances together: which instances were migrated, and why each of the others
+ * could not be.
+ *
+ * @since 4.0
+ */
+public final class MigrationSummary
+{
+	private final List<String> succeeded;
+	private final Map<String, Exception> failed;
+
+	/**
+	 * Creates a new MigrationSummary.
+	 *
+	 * @param succeeded the names of the instances that were migrated.
+	 * @param failed    the names of the instances that could not be migrated, each with the exception that stopped
+	 *                  it.
+	 * @since 4.0
+	 */
+	public MigrationSummary(
+		List<String> succeeded,
+		Map<String, Exception> failed)
+	{
+		if (succeeded == null) throw new ArgumentNullException("succeeded");
+		if (failed == null) throw new ArgumentNullException("failed");
+
+		this.succeeded = Collections.unmodifiableList(new ArrayList<>(succeeded));
+		this.failed = Collections.unmodifiableMap(new LinkedHashMap<>(failed));
+	}
+
+	/**
+	 * Gets the names of the instances that were migrated.
+	 *
+	 * @return the names of the instances that were migrated.
+	 * @since 4.0
+	 */
+	public List<String> getSucceeded()
+	{
+		return this.succeeded;
+	}
+
+	/**
+	 * Gets the names of the instances that could not be migrated, each with the exception that stopped it.
+	 *
+	 * @return the failed instances.
+	 * @since 4.0
+	 */
+	public Map<String, Exception> getFailed()
+	{
+		return this.failed;
+	}
+
+	/**
+	 * Gets the total number of instances.
+	 *
+	 * @return the number of instances that were migrated or failed.
+	 * @since 4.0
+	 */
+	public int getInstanceCount()
+	{
+		return this.succeeded.size() + this.failed.size();
+	}
+
+	/**
+	 * Indicates whether every instance was migrated.
+	 *
+	 * @return true if no instance failed, and false otherwise.
+	 * @since 4.0
+	 */
+	public boolean isSuccessful()
+	{
+		return this.failed.isEmpty();
+	}
+}
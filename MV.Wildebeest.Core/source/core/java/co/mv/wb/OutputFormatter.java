@@ -18,6 +18,8 @@ package co.mv.wb;
 
 import co.mv.wb.framework.ArgumentNullException;
 
+import java.io.IOException;
+
 public class OutputFormatter
 {
 	private OutputFormatter()
@@ -112,6 +114,13 @@ public class OutputFormatter
 	// Migration
 	//
 
+	public static String unknownVerificationPolicy(String verificationPolicy)
+	{
+		return String.format(
+			"\"%s\" is not a verification policy.  Use every-step, final-state, or a number of steps to verify every nth step",
+			verificationPolicy);
+	}
+
 	public static String migrationStart(
 		Resource resource,
 		Migration migration,
@@ -173,6 +182,65 @@ public class OutputFormatter
 		return String.format("Migration failed: %s", e.getMessage());
 	}
 
+	public static String migrationSummary(MigrationSummary summary)
+	{
+		if (summary == null) throw new ArgumentNullException("summary");
+
+		StringBuilder result = new StringBuilder();
+
+		result.append(String.format(
+			"Migrated %d of %d instances%n",
+			summary.getSucceeded().size(),
+			summary.getInstanceCount()));
+
+		summary.getFailed().forEach((name, e) -> result.append(String.format(
+			"  %s: %s%n",
+			name,
+			OutputFormatter.failure(e))));
+
+		return result.toString();
+	}
+
+	private static String failure(Exception e)
+	{
+		if (e instanceof AssertionFailedException)
+		{
+			return OutputFormatter.assertionFailed((AssertionFailedException)e);
+		}
+		else if (e instanceof IndeterminateStateException)
+		{
+			return OutputFormatter.indeterminateState((IndeterminateStateException)e);
+		}
+		else if (e instanceof InvalidReferenceException)
+		{
+			return OutputFormatter.invalidReferenceException((InvalidReferenceException)e);
+		}
+		else if (e instanceof MigrationFailedException)
+		{
+			return OutputFormatter.migrationFailed((MigrationFailedException)e);
+		}
+		else if (e instanceof MigrationNotPossibleException)
+		{
+			return OutputFormatter.migrationNotPossible((MigrationNotPossibleException)e);
+		}
+		else if (e instanceof PluginNotFoundException)
+		{
+			return OutputFormatter.pluginNotFound((PluginNotFoundException)e);
+		}
+		else if (e instanceof TargetNotSpecifiedException)
+		{
+			return OutputFormatter.targetNotSpecified();
+		}
+		else if (e instanceof UnknownStateSpecifiedException)
+		{
+			return OutputFormatter.unknownStateSpecified((UnknownStateSpecifiedException)e);
+		}
+		else
+		{
+			return String.format("%s: %s", e.getClass().getSimpleName(), e.getMessage());
+		}
+	}
+
 	public static String invalidReferenceException(InvalidReferenceException e)
 	{
 		return String.format("Migration not possible: %s", e.getMessage());
@@ -219,4 +287,30 @@ public class OutputFormatter
 	{
 		return String.format("JumpState failed: %s", e.getMessage());
 	}
+
+	//
+	// Serve
+	//
+
+	public static String serving(
+		String host,
+		int port,
+		String tokenHeader,
+		String token)
+	{
+		return String.format(
+			"Serving on http://%s:%d/ until stopped%nSend the header \"%s: %s\" with every request",
+			host,
+			port,
+			tokenHeader,
+			token);
+	}
+
+	public static String serveFailed(
+		String host,
+		int port,
+		IOException e)
+	{
+		return String.format("Unable to serve on %s:%d: %s", host, port, e.getMessage());
+	}
 }
@@ -0,0 +1,162 @@
+// Wildebeest Migration Framework
+// Copyright © 2013 - 2018, Matheson Ventures Pte Ltd
+//
+// This file is part of Wildebeest
+//
+// Wildebeest is free software: you can redistribute it and/or modify it under
+// the terms of the GNU General Public License v2 as published by the Free
+// Software Foundation.
+//
+// Wildebeest is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Wildebeest.  If not, see http://www.gnu.org/licenses/gpl-2.0.html
+
+
+package co.mv.wb;
+
+import co.mv.wb.framework.ArgumentException;
+import co.mv.wb.framework.ArgumentNullException;
+
+/**
+ * Determines after which steps of a migration path the assertions of the state that was reached are performed.
+ * Whatever the policy, the state that the path finishes at is always verified.
+ *
+ * @since 4.0
+ */
+public final class VerificationPolicy
+{
+	private static final String EveryStepName = "every-step";
+	private static final String FinalStateName = "final-state";
+
+	private static final VerificationPolicy EveryStep = new VerificationPolicy(1);
+	private static final VerificationPolicy FinalState = new VerificationPolicy(0);
+
+	private final int interval;
+
+	private VerificationPolicy(
+		int interval)
+	{
+		this.interval = interval;
+	}
+
+	/**
+	 * Verifies the state reached by every step of the path.  This is the default policy.
+	 *
+	 * @return the every-step VerificationPolicy
+	 * @since 4.0
+	 */
+	public static VerificationPolicy everyStep()
+	{
+		return EveryStep;
+	}
+
+	/**
+	 * Verifies only the state that the path finishes at.
+	 *
+	 * @return the final-state VerificationPolicy
+	 * @since 4.0
+	 */
+	public static VerificationPolicy finalStateOnly()
+	{
+		return FinalState;
+	}
+
+	/**
+	 * Verifies the state reached by every nth step of the path, and the state that the path finishes at.
+	 *
+	 * @param n the number of steps between verifications.  Must be at least 1.
+	 * @return a VerificationPolicy that verifies every nth step
+	 * @since 4.0
+	 */
+	public static VerificationPolicy everyNSteps(
+		int n)
+	{
+		if (n < 1) throw new ArgumentException("n", "n must be at least 1");
+
+		return n == 1 ? EveryStep : new VerificationPolicy(n);
+	}
+
+	/**
+	 * Parses a VerificationPolicy from its textual form: "every-step", "final-state", or a number of steps n to
+	 * verify every nth step.
+	 *
+	 * @param value the textual form of the policy
+	 * @return the parsed VerificationPolicy
+	 * @since 4.0
+	 */
+	public static VerificationPolicy parse(
+		String value)
+	{
+		if (value == null) throw new ArgumentNullException("value");
+
+		String v = value.trim();
+
+		if (EveryStepName.equalsIgnoreCase(v))
+		{
+			return EveryStep;
+		}
+		else if (FinalStateName.equalsIgnoreCase(v))
+		{
+			return FinalState;
+		}
+
+		int n;
+
+		try
+		{
+			n = Integer.parseInt(v);
+		}
+		catch (NumberFormatException e)
+		{
+			throw new ArgumentException(
+				"value",
+				String.format(
+					"\"%s\" is not a verification policy.  Expected %s, %s or a number of steps",
+					value,
+					EveryStepName,
+					FinalStateName));
+		}
+
+		return VerificationPolicy.everyNSteps(n);
+	}
+
+	/**
+	 * Determines whether the state reached by the specified step of a path should be verified.
+	 *
+	 * @param step      the 1-based number of the step within the path
+	 * @param stepCount the total number of steps in the path
+	 * @return true if the state reached by the step should be verified, and false if not
+	 * @since 4.0
+	 */
+	public boolean shouldVerify(
+		int step,
+		int stepCount)
+	{
+		if (step == stepCount)
+		{
+			return true;
+		}
+
+		return this.interval != 0 && step % this.interval == 0;
+	}
+
+	@Override
+	public String toString()
+	{
+		if (this.interval == 0)
+		{
+			return FinalStateName;
+		}
+		else if (this.interval == 1)
+		{
+			return EveryStepName;
+		}
+		else
+		{
+			return Integer.toString(this.interval);
+		}
+	}
+}
@@ -214,10 +214,7 @@ public class Wildebeest
 		if (resource == null) throw new ArgumentNullException("resource");
 		if (stateRef == null) throw new ArgumentNullException("stateRef");
 
-		Optional<State> result = resource
-			.getStates().stream()
-			.filter(s -> s.matchesStateRef(stateRef))
-			.findFirst();
+		Optional<State> result = resource.getStateIndex().byRef(stateRef);
 
 		if (!result.isPresent())
 		{
@@ -229,6 +226,33 @@ public class Wildebeest
 		return result.get();
 	}
 
+	/**
+	 * Attempts to find the {@link State} with the supplied ID in the supplied {@link Resource}.
+	 *
+	 * @param resource the Resource in which to search for the State
+	 * @param stateId  the ID of the State to search for.
+	 * @return the State with the supplied ID.
+	 * @since 4.0
+	 */
+	public static State findState(
+		Resource resource,
+		UUID stateId) throws InvalidReferenceException
+	{
+		if (resource == null) throw new ArgumentNullException("resource");
+		if (stateId == null) throw new ArgumentNullException("stateId");
+
+		Optional<State> result = resource.getStateIndex().byId(stateId);
+
+		if (!result.isPresent())
+		{
+			throw InvalidReferenceException.oneReference(
+				EntityType.State,
+				stateId.toString());
+		}
+
+		return result.get();
+	}
+
 	public static String stateDisplayName(
 		UUID stateId,
 		String name)
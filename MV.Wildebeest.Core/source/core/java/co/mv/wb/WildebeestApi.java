@@ -18,13 +18,21 @@ package co.mv.wb;
 
 import java.io.File;
 import java.util.List;
+import java.util.Map;
 
 /**
- * The main programmatic API for working with Wildebeest.
+ * The main programmatic API for working with Wildebeest.  A WildebeestApi is a session: instances that it loads may
+ * hold resources such as pooled database connections until the session is closed.
+ * <p>
+ * A WildebeestApi is thread-safe.  Its plugins are fixed when it is built, and each operation keeps its working state
+ * to the calling thread, so one WildebeestApi may carry out any number of operations at once, such as migrations of
+ * different instances, without them waiting on each other.  Migrations and jumps of the same instance take turns
+ * through the lock of it's {@link ResourcePlugin}, even when they are run by different processes.  The events of each operation carry a run ID of their own, shared by any operation nested within it,
+ * so that the events of concurrent operations can be told apart.
  *
  * @since 4.0
  */
-public interface WildebeestApi
+public interface WildebeestApi extends AutoCloseable
 {
 	/**
 	 * Deserializes a {@link Resource} from the specified descriptor file.
@@ -61,6 +69,26 @@ public interface WildebeestApi
 		PluginBuildException,
 		XmlValidationException;
 
+	/**
+	 * Deserializes a set of {@link Instance}s: either every *.wbinstance.xml descriptor file in a directory, keyed by
+	 * file name, or each instance in an &lt;instances&gt; descriptor file, keyed by it's name attribute or, when it
+	 * has none, by the file name and it's position in the file.  A single-instance descriptor file is loaded as a set of
+	 * one.
+	 *
+	 * @param instancesFile the directory or descriptor file from which the instances should be deserialized
+	 * @return the deserialized instances, in a stable order.
+	 * @throws FileLoadException    if the specified file, or any file in the directory, cannot be loaded.
+	 * @throws LoaderFault          if an instance fails to be loaded.
+	 * @throws PluginBuildException if any plugin required while loading an instance fails to build.
+	 * @since 4.0
+	 */
+	Map<String, Instance> loadInstances(
+		File instancesFile) throws
+		FileLoadException,
+		LoaderFault,
+		PluginBuildException,
+		XmlValidationException;
+
 	/**
 	 * Performs the assertions for the instance's current state.
 	 *
@@ -129,6 +157,64 @@ public interface WildebeestApi
 		TargetNotSpecifiedException,
 		UnknownStateSpecifiedException;
 
+	/**
+	 * Migrates the instance of the resource from its current state to the specified target state, verifying the
+	 * states reached along the way as directed by the supplied {@link VerificationPolicy}.  The state that the
+	 * migration finishes at is always verified.
+	 *
+	 * @param resource           the {@link Resource} to migrate.
+	 * @param instance           the {@link Instance} of the resource to migrate.
+	 * @param targetState        the state to which the resource should be migrated, or null to use the default target
+	 *                           of the Resource.
+	 * @param verificationPolicy determines after which steps of the migration path the assertions are performed.
+	 * @throws AssertionFailedException       if one or more assertions of a verified state fail
+	 * @throws MigrationFailedException       if the migration operation fails for any reason.
+	 * @throws MigrationNotPossibleException  if the requested migration is not possible due to the lack of a
+	 *                                        migration path
+	 * @throws IndeterminateStateException    if the current state of the resource cannot be determined prior to
+	 *                                        migrating.
+	 * @throws TargetNotSpecifiedException    if no target state is specified and the resource does not have a default
+	 *                                        target.
+	 * @throws UnknownStateSpecifiedException if the specified state does not exist in the resource.
+	 * @since 4.0
+	 */
+	void migrate(
+		Resource resource,
+		Instance instance,
+		String targetState,
+		VerificationPolicy verificationPolicy) throws
+		AssertionFailedException,
+		IndeterminateStateException,
+		InvalidReferenceException,
+		MigrationFailedException,
+		MigrationNotPossibleException,
+		PluginNotFoundException,
+		TargetNotSpecifiedException,
+		UnknownStateSpecifiedException;
+
+	/**
+	 * Migrates each of a set of instances of the resource to the specified target state, with up to the specified
+	 * number of instances being migrated at once.  Each instance is migrated as by
+	 * {@link #migrate(Resource, Instance, String, VerificationPolicy)}, and an instance that cannot be migrated is
+	 * recorded in the returned summary without affecting the others.  The connections pooled by each instance are
+	 * closed once it has been migrated, so that migrating a large set does not hold connections open to all of them.
+	 *
+	 * @param resource           the {@link Resource} to migrate.
+	 * @param instances          the instances of the resource to migrate, keyed by name.
+	 * @param targetState        the state to which the instances should be migrated, or null to use the default
+	 *                           target of the Resource.
+	 * @param verificationPolicy determines after which steps of each migration path the assertions are performed.
+	 * @param parallelism        the maximum number of instances to migrate at once.
+	 * @return a summary of the instances that were migrated and of those that failed.
+	 * @since 4.0
+	 */
+	MigrationSummary migrateAll(
+		Resource resource,
+		Map<String, Instance> instances,
+		String targetState,
+		VerificationPolicy verificationPolicy,
+		int parallelism);
+
 	/**
 	 * Jumps the recorded state of the specified instance to the supplied target state.  This can be useful when you are
 	 * bringing a pre-existing resource under Wildebeest management, or if you need to align the tracked state with the
@@ -158,4 +244,22 @@ public interface WildebeestApi
 	 * @since 4.0
 	 */
 	String describePlugins();
+
+	/**
+	 * Releases the resources held by an instance that was loaded through this session, such as it's pooled database
+	 * connections, so that they are not kept until the session is closed.  The instance must not be used afterwards.
+	 *
+	 * @param instance the instance to close.
+	 * @since 4.0
+	 */
+	void closeInstance(
+		Instance instance);
+
+	/**
+	 * Ends this session, releasing the resources held by the instances that were loaded through it, such as pooled
+	 * database connections.
+	 *
+	 * @since 4.0
+	 */
+	@Override void close();
 }
@@ -0,0 +1,478 @@
+// Wildebeest Migration Framework
+// Copyright © 2013 - 2018, Matheson Ventures Pte Ltd
+//
+// This file is part of Wildebeest
+//
+// Wildebeest is free software: you can redistribute it and/or modify it under
+// the terms of the GNU General Public License v2 as published by the Free
+// Software Foundation.
+//
+// Wildebeest is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Wildebeest.  If not, see http://www.gnu.org/licenses/gpl-2.0.html
+
+
+package co.mv.wb.cli;
+
+import co.mv.wb.AssertionFailedException;
+import co.mv.wb.AssertionResult;
+import co.mv.wb.FileLoadException;
+import co.mv.wb.IndeterminateStateException;
+import co.mv.wb.Instance;
+import co.mv.wb.InvalidReferenceException;
+import co.mv.wb.JumpStateFailedException;
+import co.mv.wb.LoaderFault;
+import co.mv.wb.MigrationFailedException;
+import co.mv.wb.MigrationNotPossibleException;
+import co.mv.wb.MigrationSummary;
+import co.mv.wb.PluginBuildException;
+import co.mv.wb.PluginNotFoundException;
+import co.mv.wb.Resource;
+import co.mv.wb.TargetNotSpecifiedException;
+import co.mv.wb.UnknownStateSpecifiedException;
+import co.mv.wb.VerificationPolicy;
+import co.mv.wb.WildebeestApi;
+import co.mv.wb.XmlValidationException;
+import co.mv.wb.framework.ArgumentNullException;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A {@link WildebeestApi} that keeps the resources and instances it loads, and hands out the same ones again while
+ * their files are unchanged, so that a long-running process does not parse them again for each request and the
+ * connection pools of the instances are reused.  A file counts as changed when it's size or modification time
+ * changes, and a directory of instances when any file in it does.  Everything else is passed to the underlying
+ * WildebeestApi.
+ * <p>
+ * An instance that is replaced because it's file changed may still be in use by requests that loaded it before the
+ * change, so it is only closed once every request that was in progress when it was replaced has ended.  Requests are
+ * marked out with {@link #beginRequest()}.
+ *
+ * @since 4.0
+ */
+final class CachingWildebeestApi implements WildebeestApi
+{
+	private final WildebeestApi wildebeestApi;
+	private final Map<String, Entry<Resource>> resources;
+	private final Map<String, Entry<Instance>> instances;
+	private final Map<String, Entry<Map<String, Instance>>> instanceSets;
+	private final List<Request> activeRequests;
+	private final List<Retired> retired;
+	private long requestCount;
+
+	/**
+	 * Creates a new CachingWildebeestApi.
+	 *
+	 * @param wildebeestApi the WildebeestApi to load through and pass everything else to.
+	 * @since 4.0
+	 */
+	CachingWildebeestApi(
+		WildebeestApi wildebeestApi)
+	{
+		if (wildebeestApi == null) throw new ArgumentNullException("wildebeestApi");
+
+		this.wildebeestApi = wildebeestApi;
+		this.resources = new ConcurrentHashMap<>();
+		this.instances = new ConcurrentHashMap<>();
+		this.instanceSets = new ConcurrentHashMap<>();
+		this.activeRequests = new ArrayList<>();
+		this.retired = new ArrayList<>();
+		this.requestCount = 0;
+	}
+
+	/**
+	 * Marks the start of a request.  Instances that are replaced while the request is in progress are not closed until
+	 * the returned Request is closed.
+	 *
+	 * @return the Request, which must be closed when the request ends.
+	 * @since 4.0
+	 */
+	synchronized Request beginRequest()
+	{
+		this.requestCount++;
+
+		Request result = new Request(this.requestCount);
+		this.activeRequests.add(result);
+
+		return result;
+	}
+
+	@Override public Resource loadResource(
+		File resourceFile) throws
+		FileLoadException,
+		LoaderFault,
+		InvalidReferenceException,
+		PluginBuildException,
+		XmlValidationException
+	{
+		if (resourceFile == null) throw new ArgumentNullException("resourceFile");
+
+		String key = CachingWildebeestApi.key(resourceFile);
+		String stamp = CachingWildebeestApi.stamp(resourceFile);
+
+		Entry<Resource> entry = this.resources.get(key);
+		if (entry == null || !entry.stamp.equals(stamp))
+		{
+			entry = new Entry<>(stamp, this.wildebeestApi.loadResource(resourceFile));
+			this.resources.put(key, entry);
+		}
+
+		return entry.value;
+	}
+
+	@Override public Instance loadInstance(
+		File instanceFile) throws
+		FileLoadException,
+		LoaderFault,
+		PluginBuildException,
+		XmlValidationException
+	{
+		if (instanceFile == null) throw new ArgumentNullException("instanceFile");
+
+		String key = CachingWildebeestApi.key(instanceFile);
+		String stamp = CachingWildebeestApi.stamp(instanceFile);
+
+		Entry<Instance> entry = this.instances.get(key);
+		if (entry == null || !entry.stamp.equals(stamp))
+		{
+			entry = new Entry<>(stamp, this.wildebeestApi.loadInstance(instanceFile));
+
+			Entry<Instance> replaced = this.instances.put(key, entry);
+			if (replaced != null)
+			{
+				this.retire(
+					Collections.singletonList(replaced.value),
+					Collections.singletonList(entry.value));
+			}
+		}
+
+		return entry.value;
+	}
+
+	@Override public Map<String, Instance> loadInstances(
+		File instancesFile) throws
+		FileLoadException,
+		LoaderFault,
+		PluginBuildException,
+		XmlValidationException
+	{
+		if (instancesFile == null) throw new ArgumentNullException("instancesFile");
+
+		String key = CachingWildebeestApi.key(instancesFile);
+		String stamp = CachingWildebeestApi.stamp(instancesFile);
+
+		Entry<Map<String, Instance>> entry = this.instanceSets.get(key);
+		if (entry == null || !entry.stamp.equals(stamp))
+		{
+			entry = new Entry<>(stamp, this.wildebeestApi.loadInstances(instancesFile));
+
+			Entry<Map<String, Instance>> replaced = this.instanceSets.put(key, entry);
+			if (replaced != null)
+			{
+				this.retire(
+					replaced.value.values(),
+					entry.value.values());
+			}
+		}
+
+		return entry.value;
+	}
+
+	@Override public List<AssertionResult> assertState(
+		Resource resource,
+		Instance instance) throws
+		AssertionFailedException,
+		IndeterminateStateException,
+		PluginNotFoundException
+	{
+		return this.wildebeestApi.assertState(
+			resource,
+			instance);
+	}
+
+	@Override public void state(
+		Resource resource,
+		Instance instance) throws
+		AssertionFailedException,
+		IndeterminateStateException,
+		PluginNotFoundException
+	{
+		this.wildebeestApi.state(
+			resource,
+			instance);
+	}
+
+	@Override public void migrate(
+		Resource resource,
+		Instance instance,
+		String targetState) throws
+		AssertionFailedException,
+		IndeterminateStateException,
+		InvalidReferenceException,
+		MigrationFailedException,
+		MigrationNotPossibleException,
+		PluginNotFoundException,
+		TargetNotSpecifiedException,
+		UnknownStateSpecifiedException
+	{
+		this.wildebeestApi.migrate(
+			resource,
+			instance,
+			targetState);
+	}
+
+	@Override public void migrate(
+		Resource resource,
+		Instance instance,
+		String targetState,
+		VerificationPolicy verificationPolicy) throws
+		AssertionFailedException,
+		IndeterminateStateException,
+		InvalidReferenceException,
+		MigrationFailedException,
+		MigrationNotPossibleException,
+		PluginNotFoundException,
+		TargetNotSpecifiedException,
+		UnknownStateSpecifiedException
+	{
+		this.wildebeestApi.migrate(
+			resource,
+			instance,
+			targetState,
+			verificationPolicy);
+	}
+
+	@Override public MigrationSummary migrateAll(
+		Resource resource,
+		Map<String, Instance> instances,
+		String targetState,
+		VerificationPolicy verificationPolicy,
+		int parallelism)
+	{
+		return this.wildebeestApi.migrateAll(
+			resource,
+			instances,
+			targetState,
+			verificationPolicy,
+			parallelism);
+	}
+
+	@Override public void jumpstate(
+		Resource resource,
+		Instance instance,
+		String targetState) throws
+		AssertionFailedException,
+		IndeterminateStateException,
+		JumpStateFailedException,
+		PluginNotFoundException,
+		UnknownStateSpecifiedException
+	{
+		this.wildebeestApi.jumpstate(
+			resource,
+			instance,
+			targetState);
+	}
+
+	@Override public String describePlugins()
+	{
+		return this.wildebeestApi.describePlugins();
+	}
+
+	@Override public void closeInstance(
+		Instance instance)
+	{
+		this.wildebeestApi.closeInstance(instance);
+	}
+
+	/**
+	 * Forgets the resources and instances that have been loaded, and closes the underlying WildebeestApi, which closes
+	 * the instances that it loaded.
+	 *
+	 * @since 4.0
+	 */
+	@Override public void close()
+	{
+		this.resources.clear();
+		this.instances.clear();
+		this.instanceSets.clear();
+
+		synchronized (this)
+		{
+			this.retired.clear();
+		}
+
+		this.wildebeestApi.close();
+	}
+
+	private void retire(
+		Collection<Instance> replaced,
+		Collection<Instance> replacements)
+	{
+		synchronized (this)
+		{
+			// Any request begun up to now may be using the instances
+			for (Instance instance : replaced)
+			{
+				if (replacements.stream().noneMatch(x -> x == instance))
+				{
+					this.retired.add(new Retired(this.requestCount, instance));
+				}
+			}
+		}
+
+		this.closeReleased();
+	}
+
+	private void closeReleased()
+	{
+		List<Instance> released = new ArrayList<>();
+
+		synchronized (this)
+		{
+			long oldestActive = this.activeRequests
+				.stream()
+				.mapToLong(x -> x.number)
+				.min()
+				.orElse(Long.MAX_VALUE);
+
+			Iterator<Retired> iterator = this.retired.iterator();
+			while (iterator.hasNext())
+			{
+				Retired entry = iterator.next();
+
+				if (entry.lastRequest < oldestActive)
+				{
+					released.add(entry.instance);
+					iterator.remove();
+				}
+			}
+		}
+
+		for (Instance instance : released)
+		{
+			this.wildebeestApi.closeInstance(instance);
+		}
+	}
+
+	private void endRequest(
+		Request request)
+	{
+		synchronized (this)
+		{
+			this.activeRequests.remove(request);
+		}
+
+		this.closeReleased();
+	}
+
+	private static String key(
+		File file) throws
+		FileLoadException
+	{
+		try
+		{
+			return file.getCanonicalPath();
+		}
+		catch (IOException e)
+		{
+			throw new FileLoadException(file);
+		}
+	}
+
+	private static String stamp(
+		File file)
+	{
+		if (file.isDirectory())
+		{
+			File[] children = file.listFiles();
+			if (children == null)
+			{
+				return "";
+			}
+
+			Arrays.sort(children, Comparator.comparing(File::getName));
+
+			StringBuilder result = new StringBuilder();
+			for (File child : children)
+			{
+				result.append(child.getName()).append('|').append(CachingWildebeestApi.stamp(child)).append(';');
+			}
+
+			return result.toString();
+		}
+
+		return file.lastModified() + ":" + file.length();
+	}
+
+	/**
+	 * A request in progress, which keeps the instances that were replaced while it was in progress open until it is
+	 * closed.
+	 *
+	 * @since 4.0
+	 */
+	final class Request implements AutoCloseable
+	{
+		private final long number;
+		private boolean closed;
+
+		private Request(
+			long number)
+		{
+			this.number = number;
+			this.closed = false;
+		}
+
+		@Override public void close()
+		{
+			if (!this.closed)
+			{
+				this.closed = true;
+				CachingWildebeestApi.this.endRequest(this);
+			}
+		}
+	}
+
+	/**
+	 * An instance that has been replaced, and the last request that may still be using it.
+	 */
+	private static final class Retired
+	{
+		private final long lastRequest;
+		private final Instance instance;
+
+		private Retired(
+			long lastRequest,
+			Instance instance)
+		{
+			this.lastRequest = lastRequest;
+			this.instance = instance;
+		}
+	}
+
+	private static final class Entry<T>
+	{
+		private final String stamp;
+		private final T value;
+
+		private Entry(
+			String stamp,
+			T value)
+		{
+			this.stamp = stamp;
+			this.value = value;
+		}
+	}
+}
@@ -28,6 +28,9 @@ import picocli.CommandLine;
 	subcommands = CommandLine.HelpCommand.class)
 public class JumpStateCommand extends SharedCommands
 {
+	@CommandLine.Option(names = {"-i", "--instance"}, description = "Instance file", required = true)
+	String instance;
+
 	@CommandLine.Option(names = {"-t", "--target-state"}, description = "Target state")
 	String targetState;
 }
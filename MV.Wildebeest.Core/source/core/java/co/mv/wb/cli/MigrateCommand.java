@@ -23,6 +23,21 @@ import picocli.CommandLine;
 	subcommands = CommandLine.HelpCommand.class)
 public class MigrateCommand extends SharedCommands
 {
+	@CommandLine.Option(names = {"-i", "--instance"}, description = "Instance file")
+	String instance;
+
+	@CommandLine.Option(names = {"--instances"},
+		description = "Directory of instance files, or a file of many instances, to be migrated together instead of a single instance")
+	String instances;
+
+	@CommandLine.Option(names = {"--parallelism"},
+		description = "The number of instances to migrate at once when migrating many instances (default 4)")
+	int parallelism = 4;
+
 	@CommandLine.Option(names = {"-t", "--target-state"}, description = "Target state")
 	String targetState;
+
+	@CommandLine.Option(names = {"--verify"},
+		description = "When to verify the states reached: every-step (default), final-state, or a number of steps n to verify every nth step")
+	String verify;
 }
@@ -0,0 +1,40 @@
+// Wildebeest Migration Framework
+// Copyright © 2013 - 2018, Matheson Ventures Pte Ltd
+//
+// This file is part of Wildebeest
+//
+// Wildebeest is free software: you can redistribute it and/or modify it under
+// the terms of the GNU General Public License v2 as published by the Free
+// Software Foundation.
+//
+// Wildebeest is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Wildebeest.  If not, see http://www.gnu.org/licenses/gpl-2.0.html
+
+
+package co.mv.wb.cli;
+
+import picocli.CommandLine;
+
+@CommandLine.Command(name = "serve",
+	description = "Keep Wildebeest running, and carry out migrate, state, jumpstate and plugins requests made over HTTP",
+	subcommands = CommandLine.HelpCommand.class,
+	synopsisHeading = "%nUsage:%n%n",
+	descriptionHeading = "%nDescription:%n%n",
+	optionListHeading = "%nOptions:%n%n",
+	separator = " ")
+public class ServeCommand
+{
+	@CommandLine.Option(names = {"--host"},
+		description = "The address to listen on (default 127.0.0.1).  Requests name files on this machine, so only listen on other addresses behind a trusted network")
+	String host = WildebeestServer.DEFAULT_HOST;
+
+	@CommandLine.Option(names = {"-p", "--port"}, description = "The port to listen on (default 7070)")
+	int port = WildebeestServer.DEFAULT_PORT;
+
+	@CommandLine.Option(names = {"--threads"}, description = "The number of requests to carry out at once (default 8)")
+	int threads = WildebeestServer.DEFAULT_THREADS;
+}
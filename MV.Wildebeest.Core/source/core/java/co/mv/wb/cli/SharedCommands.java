@@ -29,8 +29,5 @@ public class SharedCommands
 	@CommandLine.Option(names = {"-r", "--resource"}, description = "Resource file", required = true)
 	String resource;
 
-	@CommandLine.Option(names = {"-i", "--instance"}, description = "Instance file", required = true)
-	String instance;
-
 }
 
@@ -23,4 +23,6 @@ import picocli.CommandLine;
 	subcommands = CommandLine.HelpCommand.class)
 public class StateCommand extends SharedCommands
 {
+	@CommandLine.Option(names = {"-i", "--instance"}, description = "Instance file", required = true)
+	String instance;
 }
@@ -26,26 +26,33 @@ import co.mv.wb.JumpStateFailedException;
 import co.mv.wb.LoaderFault;
 import co.mv.wb.MigrationFailedException;
 import co.mv.wb.MigrationNotPossibleException;
+import co.mv.wb.MigrationSummary;
 import co.mv.wb.OutputFormatter;
 import co.mv.wb.PluginBuildException;
 import co.mv.wb.PluginNotFoundException;
 import co.mv.wb.Resource;
 import co.mv.wb.TargetNotSpecifiedException;
 import co.mv.wb.UnknownStateSpecifiedException;
+import co.mv.wb.VerificationPolicy;
 import co.mv.wb.Wildebeest;
 import co.mv.wb.WildebeestApi;
 import co.mv.wb.XmlValidationException;
 import co.mv.wb.event.LoggingEventSink;
 import co.mv.wb.event.MigrationLogEventSink;
+import co.mv.wb.event.RedirectableEventSink;
 import co.mv.wb.event.TeeEventSink;
+import co.mv.wb.framework.ArgumentException;
 import co.mv.wb.framework.ArgumentNullException;
+import co.mv.wb.impl.WildebeestApiBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import picocli.CommandLine;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.PrintStream;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -64,12 +71,22 @@ import java.util.Optional;
 		JumpStateCommand.class,
 		StateCommand.class,
 		PluginsCommand.class,
+		ServeCommand.class,
 		CommandLine.HelpCommand.class
 	})
 public class WildebeestCommand
 {
+	/**
+	 * The environment variable that names the directory to cache compiled resources in.  Resources are not cached
+	 * unless it is set.
+	 *
+	 * @since 4.0
+	 */
+	public static final String RESOURCE_CACHE_ENV = "WILDEBEEST_RESOURCE_CACHE";
+
 	private final PrintStream output;
 	private final WildebeestApi wildebeestApi;
+	private final RedirectableEventSink outputEventSink;
 	private static final Logger LOG = LoggerFactory.getLogger(WildebeestCommand.class);
 
 	/**
@@ -81,22 +98,39 @@ public class WildebeestCommand
 	public static void main(String[] args)
 	{
 		PrintStream output = System.out;
+		RedirectableEventSink outputEventSink = new RedirectableEventSink(new PrintStreamEventSink(output));
 		TeeEventSink teeEventSink = new TeeEventSink(
 			new LoggingEventSink(LOG),
 			new MigrationLogEventSink(LOG),
-			new PrintStreamEventSink(output));
-		WildebeestApi wildebeestApi = Wildebeest
+			outputEventSink);
+		WildebeestApiBuilder wildebeestApiBuilder = Wildebeest
 			.wildebeestApi(teeEventSink)
 			.withFactoryPluginGroups()
 			.withFactoryResourcePlugins()
-			.withFactoryMigrationPlugins()
-			.get();
+			.withFactoryMigrationPlugins();
 
-		WildebeestCommand wb = new WildebeestCommand(
-			output,
-			wildebeestApi);
+		// The resource cache is opt-in, as its entries are deserialized from whatever directory it is pointed at
+		String resourceCacheDir = System.getenv(RESOURCE_CACHE_ENV);
+		if (resourceCacheDir != null && !resourceCacheDir.isEmpty())
+		{
+			wildebeestApiBuilder = wildebeestApiBuilder.withResourceCache(new File(resourceCacheDir));
+		}
 
-		wb.run(args);
+		WildebeestApi wildebeestApi = wildebeestApiBuilder.get();
+
+		try
+		{
+			WildebeestCommand wb = new WildebeestCommand(
+				output,
+				wildebeestApi,
+				outputEventSink);
+
+			wb.run(args);
+		}
+		finally
+		{
+			wildebeestApi.close();
+		}
 	}
 
 	/**
@@ -107,12 +141,36 @@ public class WildebeestCommand
 	public WildebeestCommand(
 		PrintStream output,
 		WildebeestApi wildebeestApi)
+	{
+		this(
+			output,
+			wildebeestApi,
+			new RedirectableEventSink(event ->
+			{
+			}));
+	}
+
+	/**
+	 * Creates a new WildebeestCommand instance.
+	 *
+	 * @param output          the stream to print output to.
+	 * @param wildebeestApi   the WildebeestApi to carry out commands with.
+	 * @param outputEventSink the EventSink through which the WildebeestApi prints events, which the serve command
+	 *                        redirects to the response of each request.
+	 * @since 4.0
+	 */
+	public WildebeestCommand(
+		PrintStream output,
+		WildebeestApi wildebeestApi,
+		RedirectableEventSink outputEventSink)
 	{
 		if (output == null) throw new ArgumentNullException("output");
 		if (wildebeestApi == null) throw new ArgumentNullException("wildebeestApi");
+		if (outputEventSink == null) throw new ArgumentNullException("outputEventSink");
 
 		this.output = output;
 		this.wildebeestApi = wildebeestApi;
+		this.outputEventSink = outputEventSink;
 	}
 
 	/**
@@ -173,6 +231,10 @@ public class WildebeestCommand
 			{
 				stateCommand(parsed);
 			}
+			else if (parsed.get(1).getCommand().getClass() == ServeCommand.class)
+			{
+				serveCommand(parsed);
+			}
 			else
 			{
 				WildebeestCommand.printBanner(this.output);
@@ -222,6 +284,43 @@ public class WildebeestCommand
 		return Optional.ofNullable(resource);
 	}
 
+	private static Optional<Map<String, Instance>> tryLoadInstances(
+		WildebeestApi wildebeestApi,
+		String instancesFilename,
+		PrintStream out)
+	{
+		if (wildebeestApi == null) throw new ArgumentNullException("wildebeestApi");
+		if (instancesFilename == null) throw new ArgumentNullException("instancesFilename");
+		if (out == null) throw new ArgumentNullException("out");
+
+		File instancesFile = new File(instancesFilename);
+
+		Map<String, Instance> instances = null;
+
+		try
+		{
+			instances = wildebeestApi.loadInstances(instancesFile);
+		}
+		catch (FileLoadException e)
+		{
+			out.println(OutputFormatter.fileLoad(e, "instance"));
+		}
+		catch (LoaderFault e)
+		{
+			out.println(OutputFormatter.loaderFault("instance"));
+		}
+		catch (PluginBuildException e)
+		{
+			out.println(OutputFormatter.pluginBuild(e));
+		}
+		catch (XmlValidationException e)
+		{
+			out.println(OutputFormatter.resourceValidation(e, "instance"));
+		}
+
+		return Optional.ofNullable(instances);
+	}
+
 	private static Optional<Instance> tryLoadInstance(
 		WildebeestApi wildebeestApi,
 		String instanceFilename,
@@ -301,15 +400,48 @@ public class WildebeestCommand
 		}
 
 		String resourceFilename = parsed.get(1).getParseResult().matchedOption("--resource").getValue();
-		String instanceFilename = parsed.get(1).getParseResult().matchedOption("--instance").getValue();
+		String instanceFilename = null;
 		String targetState = "";
 
+		if (parsed.get(1).getParseResult().hasMatchedOption("--instance"))
+		{
+			instanceFilename = parsed.get(1).getParseResult().matchedOption("--instance").getValue();
+		}
+
 		if (parsed.get(1).getParseResult().hasMatchedOption("--target-state"))
 		{
 			targetState = parsed.get(1).getParseResult().matchedOption("--target-state").getValue();
 		}
 
-		if (isNullOrWhiteSpace(resourceFilename) || isNullOrWhiteSpace(instanceFilename))
+		VerificationPolicy verificationPolicy = null;
+
+		if (parsed.get(1).getParseResult().hasMatchedOption("--verify"))
+		{
+			String verify = parsed.get(1).getParseResult().matchedOption("--verify").getValue();
+
+			try
+			{
+				verificationPolicy = VerificationPolicy.parse(verify);
+			}
+			catch (ArgumentException e)
+			{
+				this.output.println(OutputFormatter.unknownVerificationPolicy(verify));
+				return;
+			}
+		}
+
+		if (parsed.get(1).getParseResult().hasMatchedOption("--instances") && instanceFilename == null)
+		{
+			String instancesFilename = parsed.get(1).getParseResult().matchedOption("--instances").getValue();
+
+			this.migrateInstances(
+				resourceFilename,
+				instancesFilename,
+				targetState,
+				verificationPolicy == null ? VerificationPolicy.everyStep() : verificationPolicy,
+				((MigrateCommand)parsed.get(1).getCommand()).parallelism);
+		}
+		else if (isNullOrWhiteSpace(resourceFilename) || isNullOrWhiteSpace(instanceFilename))
 		{
 			WildebeestCommand.printBanner(this.output);
 			CommandLine.usage(this, this.output);
@@ -330,10 +462,21 @@ public class WildebeestCommand
 			{
 				try
 				{
-					this.wildebeestApi.migrate(
-						resource.get(),
-						instance.get(),
-						targetState);
+					if (verificationPolicy == null)
+					{
+						this.wildebeestApi.migrate(
+							resource.get(),
+							instance.get(),
+							targetState);
+					}
+					else
+					{
+						this.wildebeestApi.migrate(
+							resource.get(),
+							instance.get(),
+							targetState,
+							verificationPolicy);
+					}
 				}
 				catch (AssertionFailedException e)
 				{
@@ -371,6 +514,106 @@ public class WildebeestCommand
 		}
 	}
 
+	private void serveCommand(List<CommandLine> parsed)
+	{
+		//check is help requested
+		for (CommandLine c : parsed
+			)
+		{
+			if (c.getCommand().getClass() == CommandLine.HelpCommand.class)
+			{
+				CommandLine.usage(new ServeCommand(), this.output);
+				return;
+			}
+		}
+
+		ServeCommand serve = (ServeCommand)parsed.get(1).getCommand();
+
+		if (isNullOrWhiteSpace(serve.host) || serve.port < 0 || serve.threads < 1)
+		{
+			WildebeestCommand.printBanner(this.output);
+			CommandLine.usage(new ServeCommand(), this.output);
+			return;
+		}
+
+		WildebeestServer server;
+
+		try
+		{
+			server = WildebeestServer.start(
+				this.wildebeestApi,
+				this.outputEventSink,
+				serve.host,
+				serve.port,
+				serve.threads);
+		}
+		catch (IOException e)
+		{
+			this.output.println(OutputFormatter.serveFailed(serve.host, serve.port, e));
+			return;
+		}
+
+		this.output.println(OutputFormatter.serving(
+			serve.host,
+			server.getPort(),
+			WildebeestServer.TOKEN_HEADER,
+			server.getToken()));
+
+		// Requests are served until the process is stopped
+		Runtime.getRuntime().addShutdownHook(new Thread(server::close, "wb-serve-shutdown"));
+
+		try
+		{
+			server.awaitClose();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		finally
+		{
+			server.close();
+		}
+	}
+
+	private void migrateInstances(
+		String resourceFilename,
+		String instancesFilename,
+		String targetState,
+		VerificationPolicy verificationPolicy,
+		int parallelism)
+	{
+		if (isNullOrWhiteSpace(resourceFilename) || isNullOrWhiteSpace(instancesFilename) || parallelism < 1)
+		{
+			WildebeestCommand.printBanner(this.output);
+			CommandLine.usage(this, this.output);
+			return;
+		}
+
+		// The resource is loaded once and shared by every instance
+		Optional<Resource> resource = WildebeestCommand.tryLoadResource(
+			this.wildebeestApi,
+			resourceFilename,
+			this.output);
+
+		Optional<Map<String, Instance>> instances = WildebeestCommand.tryLoadInstances(
+			this.wildebeestApi,
+			instancesFilename,
+			this.output);
+
+		if (resource.isPresent() && instances.isPresent())
+		{
+			MigrationSummary summary = this.wildebeestApi.migrateAll(
+				resource.get(),
+				instances.get(),
+				targetState,
+				verificationPolicy,
+				parallelism);
+
+			this.output.print(OutputFormatter.migrationSummary(summary));
+		}
+	}
+
 	private void jumpstateCommand(List<CommandLine> parsed)
 	{
 		//check is help requested
@@ -0,0 +1,504 @@
+// Wildebeest Migration Framework
+// Copyright © 2013 - 2018, Matheson Ventures Pte Ltd
+//
+// This file is part of Wildebeest
+//
+// Wildebeest is free software: you can redistribute it and/or modify it under
+// the terms of the GNU General Public License v2 as published by the Free
+// Software Foundation.
+//
+// Wildebeest is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Wildebeest.  If not, see http://www.gnu.org/licenses/gpl-2.0.html
+
+
+package co.mv.wb.cli;
+
+import co.mv.wb.WildebeestApi;
+import co.mv.wb.event.RedirectableEventSink;
+import co.mv.wb.framework.ArgumentException;
+import co.mv.wb.framework.ArgumentNullException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Serves the migrate, state, jumpstate and plugins commands over HTTP from one long-running process, so that the
+ * plugins, XML schemas, resources, instances and their connection pools are set up once and reused by every request
+ * rather than paid for by every invocation of the command-line interface.
+ * <p>
+ * Each command is served at the path of it's name, such as /migrate.  The options of the command are given as query
+ * parameters named after their long names, such as resource=/path/to/resource.xml&amp;target-state=production, and a
+ * parameter without a value is passed as a flag.  Requests may not have a body.  The response is the plain text that
+ * the command-line interface would have printed, including the events raised while the command was carried out.  The
+ * state and plugins commands may be requested with GET or POST, and the migrate and jumpstate commands, which change
+ * instances, with POST only.
+ * <p>
+ * Requests name files on the machine that the server runs on, so the server listens on the loopback address unless
+ * told otherwise, and every request must carry the token that the server generates when it starts in the
+ * X-Wildebeest-Token header.  So that a web page cannot make requests to the server from a browser, requests are also
+ * refused if they carry an Origin header, or if their Host header names anything other than the loopback address or
+ * the address that the server listens on.
+ *
+ * @since 4.0
+ */
+public class WildebeestServer implements AutoCloseable
+{
+	/**
+	 * The address that the server listens on unless told otherwise.
+	 *
+	 * @since 4.0
+	 */
+	public static final String DEFAULT_HOST = "127.0.0.1";
+
+	/**
+	 * The port that the server listens on unless told otherwise.
+	 *
+	 * @since 4.0
+	 */
+	public static final int DEFAULT_PORT = 7070;
+
+	/**
+	 * The number of requests that the server carries out at once unless told otherwise.
+	 *
+	 * @since 4.0
+	 */
+	public static final int DEFAULT_THREADS = 8;
+
+	/**
+	 * The request header that carries the server's token.
+	 *
+	 * @since 4.0
+	 */
+	public static final String TOKEN_HEADER = "X-Wildebeest-Token";
+
+	private static final Logger LOG = LoggerFactory.getLogger(WildebeestServer.class);
+	private static final List<String> READ_COMMANDS = Arrays.asList("state", "plugins");
+	private static final List<String> WRITE_COMMANDS = Arrays.asList("migrate", "jumpstate");
+	private static final Pattern OPTION_NAME = Pattern.compile("[a-z][a-z-]*");
+	private static final int STOP_DELAY_SECONDS = 1;
+	private static final int DRAIN_TIMEOUT_SECONDS = 60;
+	private static final int TOKEN_BYTES = 32;
+	private static final Pattern IP_ADDRESS = Pattern.compile("[0-9.]+|.*:.*");
+
+	private final CachingWildebeestApi wildebeestApi;
+	private final RedirectableEventSink outputEventSink;
+	private final String host;
+	private final String token;
+	private final HttpServer httpServer;
+	private final ExecutorService executor;
+	private final CountDownLatch closed;
+
+	private WildebeestServer(
+		CachingWildebeestApi wildebeestApi,
+		RedirectableEventSink outputEventSink,
+		String host,
+		String token,
+		HttpServer httpServer,
+		ExecutorService executor)
+	{
+		this.wildebeestApi = wildebeestApi;
+		this.outputEventSink = outputEventSink;
+		this.host = host;
+		this.token = token;
+		this.httpServer = httpServer;
+		this.executor = executor;
+		this.closed = new CountDownLatch(1);
+	}
+
+	/**
+	 * Starts a new WildebeestServer, with a newly generated token.
+	 *
+	 * @param wildebeestApi   the WildebeestApi to carry out requests with.  Resources and instances loaded through it
+	 *                        are kept for as long as their files are unchanged.
+	 * @param outputEventSink the EventSink of the WildebeestApi that prints events, which is redirected to the
+	 *                        response for the duration of each request.
+	 * @param host            the address to listen on.
+	 * @param port            the port to listen on, or 0 to listen on any free port.
+	 * @param threads         the number of requests to carry out at once.
+	 * @return the running server.
+	 * @throws IOException if the server cannot listen on the supplied address and port.
+	 * @since 4.0
+	 */
+	public static WildebeestServer start(
+		WildebeestApi wildebeestApi,
+		RedirectableEventSink outputEventSink,
+		String host,
+		int port,
+		int threads) throws
+		IOException
+	{
+		if (wildebeestApi == null) throw new ArgumentNullException("wildebeestApi");
+		if (outputEventSink == null) throw new ArgumentNullException("outputEventSink");
+		if (host == null) throw new ArgumentNullException("host");
+		if (threads < 1) throw new ArgumentException("threads", "threads must be at least 1");
+
+		AtomicInteger threadCount = new AtomicInteger(0);
+		ExecutorService executor = Executors.newFixedThreadPool(
+			threads,
+			runnable ->
+			{
+				Thread thread = new Thread(runnable, "wb-serve-" + threadCount.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			});
+
+		HttpServer httpServer = HttpServer.create(new InetSocketAddress(host, port), 0);
+		httpServer.setExecutor(executor);
+
+		byte[] token = new byte[TOKEN_BYTES];
+		new SecureRandom().nextBytes(token);
+
+		WildebeestServer server = new WildebeestServer(
+			new CachingWildebeestApi(wildebeestApi),
+			outputEventSink,
+			host,
+			Base64.getUrlEncoder().withoutPadding().encodeToString(token),
+			httpServer,
+			executor);
+
+		httpServer.createContext("/", server::handle);
+		httpServer.start();
+
+		LOG.info(String.format("Listening on %s", httpServer.getAddress()));
+
+		return server;
+	}
+
+	/**
+	 * Gets the port that the server is listening on.
+	 *
+	 * @return the port that the server is listening on.
+	 * @since 4.0
+	 */
+	public int getPort()
+	{
+		return this.httpServer.getAddress().getPort();
+	}
+
+	/**
+	 * Gets the token that every request must carry in the {@link #TOKEN_HEADER} header.
+	 *
+	 * @return the token that every request must carry.
+	 * @since 4.0
+	 */
+	public String getToken()
+	{
+		return this.token;
+	}
+
+	/**
+	 * Waits until the server is closed.
+	 *
+	 * @throws InterruptedException if the calling thread is interrupted while waiting.
+	 * @since 4.0
+	 */
+	public void awaitClose() throws
+		InterruptedException
+	{
+		this.closed.await();
+	}
+
+	/**
+	 * Stops the server.  No new requests are accepted, and the requests in progress are given up to a minute to
+	 * complete.  The WildebeestApi that the server was started with is not closed.
+	 *
+	 * @since 4.0
+	 */
+	@Override public synchronized void close()
+	{
+		if (this.closed.getCount() == 0)
+		{
+			return;
+		}
+
+		this.httpServer.stop(STOP_DELAY_SECONDS);
+		this.executor.shutdown();
+
+		try
+		{
+			this.executor.awaitTermination(DRAIN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+
+		this.closed.countDown();
+	}
+
+	private void handle(
+		HttpExchange exchange) throws
+		IOException
+	{
+		try
+		{
+			// Checked first, so that nothing about the server is revealed to a request from a browser
+			if (!this.isAllowedHost(exchange.getRequestHeaders().getFirst("Host")))
+			{
+				WildebeestServer.respond(exchange, 403, String.format("Requests must be made to a loopback address%n"));
+				return;
+			}
+
+			if (exchange.getRequestHeaders().containsKey("Origin"))
+			{
+				WildebeestServer.respond(exchange, 403, String.format("Requests from web pages are not accepted%n"));
+				return;
+			}
+
+			if (!this.isValidToken(exchange.getRequestHeaders().getFirst(TOKEN_HEADER)))
+			{
+				WildebeestServer.respond(
+					exchange,
+					401,
+					String.format("The server's token must be supplied in the %s header%n", TOKEN_HEADER));
+				return;
+			}
+
+			String command = exchange.getRequestURI().getPath().replaceAll("^/+|/+$", "");
+			String method = exchange.getRequestMethod();
+
+			if (!READ_COMMANDS.contains(command) && !WRITE_COMMANDS.contains(command))
+			{
+				WildebeestServer.respond(exchange, 404, String.format("Unknown command \"%s\"%n", command));
+				return;
+			}
+
+			if (!"POST".equals(method) && !("GET".equals(method) && READ_COMMANDS.contains(command)))
+			{
+				exchange.getResponseHeaders().set("Allow", READ_COMMANDS.contains(command) ? "GET, POST" : "POST");
+				WildebeestServer.respond(
+					exchange,
+					405,
+					String.format("%s cannot be requested with %s%n", command, method));
+				return;
+			}
+
+			List<String> args = new ArrayList<>();
+			args.add(command);
+
+			try
+			{
+				// Options are only accepted in the query string, as bodies are what browsers send cross-site
+				if (WildebeestServer.hasBody(exchange))
+				{
+					throw new BadRequestException("Options must be given in the query string, not the request body");
+				}
+
+				WildebeestServer.addOptions(args, exchange.getRequestURI().getRawQuery());
+			}
+			catch (BadRequestException e)
+			{
+				WildebeestServer.respond(exchange, 400, e.getMessage() + System.lineSeparator());
+				return;
+			}
+
+			WildebeestServer.respond(exchange, 200, this.run(args));
+		}
+		catch (RuntimeException e)
+		{
+			LOG.error("Request failed", e);
+			WildebeestServer.respond(exchange, 500, String.format("Request failed: %s%n", e.getMessage()));
+		}
+		finally
+		{
+			exchange.close();
+		}
+	}
+
+	private boolean isAllowedHost(
+		String hostHeader)
+	{
+		if (hostHeader == null)
+		{
+			return false;
+		}
+
+		// Remove the port, which follows the closing bracket of an IPv6 address
+		String name = hostHeader.trim();
+		if (name.startsWith("["))
+		{
+			int end = name.indexOf(']');
+			if (end < 0)
+			{
+				return false;
+			}
+			name = name.substring(1, end);
+		}
+		else if (name.indexOf(':') >= 0)
+		{
+			name = name.substring(0, name.indexOf(':'));
+		}
+
+		if ("localhost".equalsIgnoreCase(name) || this.host.equalsIgnoreCase(name))
+		{
+			return true;
+		}
+
+		// Only addresses are resolved, as resolving a name is what DNS rebinding relies on
+		if (!IP_ADDRESS.matcher(name).matches())
+		{
+			return false;
+		}
+
+		try
+		{
+			return InetAddress.getByName(name).isLoopbackAddress();
+		}
+		catch (UnknownHostException e)
+		{
+			return false;
+		}
+	}
+
+	private boolean isValidToken(
+		String suppliedToken)
+	{
+		return suppliedToken != null && MessageDigest.isEqual(
+			this.token.getBytes(StandardCharsets.UTF_8),
+			suppliedToken.getBytes(StandardCharsets.UTF_8));
+	}
+
+	// The request and the redirection are only held for the scope of the command, and are never referenced in it
+	@SuppressWarnings("try")
+	private String run(
+		List<String> args)
+	{
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+		try (CachingWildebeestApi.Request request = this.wildebeestApi.beginRequest();
+			 PrintStream output = new PrintStream(buffer, true, StandardCharsets.UTF_8.name());
+			 RedirectableEventSink.Redirection redirection = this.outputEventSink.redirect(
+				 new PrintStreamEventSink(output)))
+		{
+			WildebeestCommand wb = new WildebeestCommand(
+				output,
+				this.wildebeestApi);
+
+			wb.run(args.toArray(new String[0]));
+		}
+		catch (UnsupportedEncodingException e)
+		{
+			throw new IllegalStateException(e);
+		}
+
+		return new String(buffer.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	private static void addOptions(
+		List<String> args,
+		String parameters) throws
+		BadRequestException
+	{
+		if (parameters == null || parameters.isEmpty())
+		{
+			return;
+		}
+
+		for (String parameter : parameters.split("&"))
+		{
+			if (parameter.isEmpty())
+			{
+				continue;
+			}
+
+			int separator = parameter.indexOf('=');
+			String name = WildebeestServer.decode(separator < 0 ? parameter : parameter.substring(0, separator));
+
+			if (!OPTION_NAME.matcher(name).matches())
+			{
+				throw new BadRequestException(String.format("\"%s\" is not an option name", name));
+			}
+
+			args.add("--" + name);
+
+			if (separator >= 0)
+			{
+				args.add(WildebeestServer.decode(parameter.substring(separator + 1)));
+			}
+		}
+	}
+
+	private static String decode(
+		String value) throws
+		BadRequestException
+	{
+		try
+		{
+			return URLDecoder.decode(value, StandardCharsets.UTF_8.name());
+		}
+		catch (UnsupportedEncodingException e)
+		{
+			throw new IllegalStateException(e);
+		}
+		catch (IllegalArgumentException e)
+		{
+			throw new BadRequestException(String.format("\"%s\" is not correctly encoded", value));
+		}
+	}
+
+	private static boolean hasBody(
+		HttpExchange exchange) throws
+		IOException
+	{
+		try (InputStream input = exchange.getRequestBody())
+		{
+			return input.read() != -1;
+		}
+	}
+
+	private static void respond(
+		HttpExchange exchange,
+		int status,
+		String text) throws
+		IOException
+	{
+		byte[] body = text.getBytes(StandardCharsets.UTF_8);
+
+		exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+		exchange.sendResponseHeaders(status, body.length);
+
+		try (OutputStream output = exchange.getResponseBody())
+		{
+			output.write(body);
+		}
+	}
+
+	private static final class BadRequestException extends Exception
+	{
+		private static final long serialVersionUID = 1L;
+
+		private BadRequestException(String message)
+		{
+			super(message);
+		}
+	}
+}
@@ -20,6 +20,8 @@ import co.mv.wb.framework.ArgumentNullException;
 import org.codehaus.jackson.annotate.JsonPropertyOrder;
 import org.joda.time.DateTime;
 
+import java.util.UUID;
+
 /**
  * Wire format object for serializing events to JSON via Jackson.
  *
@@ -28,12 +30,14 @@ import org.joda.time.DateTime;
 @JsonPropertyOrder(
 	{
 		"eventUri",
+		"runId",
 		"raisedInstant",
 		"eventBody"
 	})
 public class EventLog
 {
 	private final String eventUri;
+	private final UUID runId;
 	private final DateTime raisedInstant;
 	private final Object eventBody;
 
@@ -46,6 +50,7 @@ public class EventLog
 
 		return new EventLog(
 			event.getEventUri(),
+			event.getRunId().orElse(null),
 			event.getRaisedInstant(),
 			eventBody);
 	}
@@ -54,11 +59,13 @@ public class EventLog
 	 * Creates a new EventLog with the supplied properties.
 	 *
 	 * @param eventUri      the identifying URI for the event.
+	 * @param runId         the ID of the API operation during which the event was raised, or null.
 	 * @param raisedInstant the instant that the event was raised.
 	 * @param eventBody     the body of the event.
 	 */
 	private EventLog(
 		String eventUri,
+		UUID runId,
 		DateTime raisedInstant,
 		Object eventBody)
 	{
@@ -67,6 +74,7 @@ public class EventLog
 		if (eventBody == null) throw new ArgumentNullException("eventBody");
 
 		this.eventUri = eventUri;
+		this.runId = runId;
 		this.raisedInstant = raisedInstant;
 		this.eventBody = eventBody;
 	}
@@ -82,6 +90,17 @@ public class EventLog
 		return this.eventUri;
 	}
 
+	/**
+	 * Gets the ID of the API operation during which the event was raised.
+	 *
+	 * @return the run ID of the event, or null if it was not raised as part of an API operation.
+	 * @since 4.0
+	 */
+	public UUID getRunId()
+	{
+		return this.runId;
+	}
+
 	/**
 	 * Gets the raised instant of the event.
 	 *
@@ -0,0 +1,101 @@
+// Wildebeest Migration Framework
+// Copyright © 2013 - 2018, Matheson Ventures Pte Ltd
+//
+// This file is part of Wildebeest
+//
+// Wildebeest is free software: you can redistribute it and/or modify it under
+// the terms of the GNU General Public License v2 as published by the Free
+// Software Foundation.
+//
+// Wildebeest is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Wildebeest.  If not, see http://www.gnu.org/licenses/gpl-2.0.html
+
+
+package co.mv.wb.event;
+
+import co.mv.wb.framework.ArgumentNullException;
+
+/**
+ * An {@link EventSink} that passes each event to the EventSink redirected to on the thread that raised it, or to a
+ * default EventSink when there is no redirection.  A redirection is inherited by the threads started while it is in
+ * place, so the events of work that is spread over several threads, such as the migration of many instances at once,
+ * follow the redirection too.
+ *
+ * @since 4.0
+ */
+public class RedirectableEventSink implements EventSink
+{
+	private final EventSink defaultEventSink;
+	private final InheritableThreadLocal<EventSink> redirections;
+
+	/**
+	 * Creates a new RedirectableEventSink.
+	 *
+	 * @param defaultEventSink the EventSink that receives events raised on threads that have not been redirected.
+	 * @since 4.0
+	 */
+	public RedirectableEventSink(
+		EventSink defaultEventSink)
+	{
+		if (defaultEventSink == null) throw new ArgumentNullException("defaultEventSink");
+
+		this.defaultEventSink = defaultEventSink;
+		this.redirections = new InheritableThreadLocal<>();
+	}
+
+	/**
+	 * Redirects the events raised on the calling thread to the supplied EventSink, until the returned redirection is
+	 * closed.
+	 *
+	 * @param eventSink the EventSink to receive the events raised on the calling thread.
+	 * @return the redirection, which must be closed to restore the EventSink that was in place before.
+	 * @since 4.0
+	 */
+	public Redirection redirect(
+		EventSink eventSink)
+	{
+		if (eventSink == null) throw new ArgumentNullException("eventSink");
+
+		EventSink previous = this.redirections.get();
+		this.redirections.set(eventSink);
+
+		return () ->
+		{
+			if (previous == null)
+			{
+				this.redirections.remove();
+			}
+			else
+			{
+				this.redirections.set(previous);
+			}
+		};
+	}
+
+	@Override
+	public void onEvent(Event event)
+	{
+		EventSink eventSink = this.redirections.get();
+
+		(eventSink == null ? this.defaultEventSink : eventSink).onEvent(event);
+	}
+
+	/**
+	 * A redirection of events made by {@link #redirect(EventSink)}.
+	 *
+	 * @since 4.0
+	 */
+	public interface Redirection extends AutoCloseable
+	{
+		/**
+		 * Ends the redirection.
+		 *
+		 * @since 4.0
+		 */
+		@Override void close();
+	}
+}
@@ -20,10 +20,16 @@ import co.mv.wb.FaultException;
 import org.joda.time.DateTime;
 
 import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.sql.BatchUpdateException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -33,11 +39,15 @@ import java.util.List;
  */
 public class DatabaseHelper
 {
+	private static final int MAX_REPORTED_SQL_LENGTH = 200;
+
 	/**
 	 * Executes a SQL statement against the database represented by the supplied DataSource.
 	 *
-	 * @param dataSource the DataSource that represents the database to work with
-	 * @param sql        the SQL statement to execute against the target database.
+	 * @param dataSource      the DataSource that represents the database to work with
+	 * @param sql             the SQL statement to execute against the target database.
+	 * @param splitStatements if true, the SQL is split into ANSI SQL statements by a {@link SqlScriptReader} and each
+	 *                        statement is executed in turn.
 	 * @throws SQLException may be thrown due to a mal-formed SQL statement, connectivity problem,
 	 *                      or some other issue.
 	 * @since 1.0
@@ -51,53 +61,208 @@ public class DatabaseHelper
 		if (sql == null) throw new ArgumentNullException("sql");
 		if ("".equals(sql)) throw new IllegalArgumentException("sql cannot be empty");
 
+		if (splitStatements)
+		{
+			try
+			{
+				DatabaseHelper.executeScript(
+					dataSource,
+					new StringReader(sql),
+					SqlDialect.Ansi);
+			}
+			catch (IOException e)
+			{
+				// Reading from a String cannot fail
+				throw new FaultException(e);
+			}
+
+			return;
+		}
+
 		Connection conn = null;
 		PreparedStatement ps = null;
 
 		try
 		{
 			conn = dataSource.getConnection();
+			ps = conn.prepareStatement(sql);
+			ps.execute();
+		}
+		finally
+		{
+			DatabaseHelper.release(ps);
+			DatabaseHelper.release(conn);
+		}
+	}
+
+	/**
+	 * Executes a SQL script against the database represented by the supplied DataSource.  The script is split into
+	 * statements (or batches) according to the rules of its dialect, and the statements are read from the Reader and
+	 * executed one at a time on a single connection, so the whole script is never held in memory.
+	 *
+	 * @param dataSource the DataSource that represents the database to work with
+	 * @param script     the Reader to read the SQL script from.  The Reader is not closed.
+	 * @param dialect    the dialect of SQL that the script is written in.
+	 * @throws SQLException may be thrown due to a mal-formed SQL statement, connectivity problem,
+	 *                      or some other issue.
+	 * @throws IOException  if the script cannot be read.
+	 * @since 4.0
+	 */
+	public static void executeScript(
+		DataSource dataSource,
+		Reader script,
+		SqlDialect dialect) throws
+		IOException,
+		SQLException
+	{
+		DatabaseHelper.executeScript(
+			dataSource,
+			script,
+			dialect,
+			1);
+	}
+
+	/**
+	 * Executes a SQL script against the database represented by the supplied DataSource, sending runs of consecutive
+	 * DML statements (INSERT, UPDATE, DELETE, MERGE and REPLACE) to the database as JDBC batches of up to batchSize
+	 * statements.  Any other statement ends the current batch and is executed on its own.  If a batched statement
+	 * fails, the SQLException that is thrown identifies that statement by its position in the script.
+	 *
+	 * @param dataSource the DataSource that represents the database to work with
+	 * @param script     the Reader to read the SQL script from.  The Reader is not closed.
+	 * @param dialect    the dialect of SQL that the script is written in.
+	 * @param batchSize  the maximum number of statements to send in each batch.  A batchSize of 1 executes every
+	 *                   statement on its own.
+	 * @throws SQLException may be thrown due to a mal-formed SQL statement, connectivity problem,
+	 *                      or some other issue.
+	 * @throws IOException  if the script cannot be read.
+	 * @since 4.0
+	 */
+	public static void executeScript(
+		DataSource dataSource,
+		Reader script,
+		SqlDialect dialect,
+		int batchSize) throws
+		IOException,
+		SQLException
+	{
+		if (dataSource == null) throw new ArgumentNullException("dataSource");
+		if (script == null) throw new ArgumentNullException("script");
+		if (dialect == null) throw new ArgumentNullException("dialect");
+		if (batchSize < 1) throw new IllegalArgumentException("batchSize must be at least 1");
+
+		SqlScriptReader reader = new SqlScriptReader(script, dialect);
+
+		Connection conn = null;
+		Statement stmt = null;
+
+		// The statements in the current batch, and the position in the script of the first of them
+		List<String> batch = new ArrayList<>();
+		int batchStart = 0;
+		int position = 0;
+
+		try
+		{
+			String sql = reader.nextStatement();
 
-			if (splitStatements)
+			while (sql != null)
 			{
-				String[] statements = sql.split("\\;");
+				position++;
 
-				for (String statement : statements)
+				if (conn == null)
 				{
-					if (!"".equals(statement.trim()))
-					{
-						try
-						{
-							ps = conn.prepareStatement(statement);
-							ps.execute();
-						}
-						finally
-						{
-							DatabaseHelper.release(ps);
-						}
-					}
+					conn = dataSource.getConnection();
+					stmt = conn.createStatement();
 				}
-			}
 
-			else
-			{
-				try
+				if (batchSize > 1 && SqlScriptReader.isDml(sql))
 				{
-					ps = conn.prepareStatement(sql);
-					ps.execute();
+					if (batch.isEmpty())
+					{
+						batchStart = position;
+					}
+
+					stmt.addBatch(sql);
+					batch.add(sql);
+
+					if (batch.size() == batchSize)
+					{
+						DatabaseHelper.executeBatch(stmt, batch, batchStart);
+					}
 				}
-				finally
+				else
 				{
-					DatabaseHelper.release(ps);
+					if (!batch.isEmpty())
+					{
+						DatabaseHelper.executeBatch(stmt, batch, batchStart);
+					}
+
+					// Step through every result so that errors raised by later statements in a batch are reported
+					boolean isResultSet = stmt.execute(sql);
+					while (isResultSet || stmt.getUpdateCount() != -1)
+					{
+						isResultSet = stmt.getMoreResults();
+					}
 				}
+
+				sql = reader.nextStatement();
+			}
+
+			if (!batch.isEmpty())
+			{
+				DatabaseHelper.executeBatch(stmt, batch, batchStart);
 			}
 		}
 		finally
 		{
+			DatabaseHelper.release(stmt);
 			DatabaseHelper.release(conn);
 		}
 	}
 
+	private static void executeBatch(
+		Statement stmt,
+		List<String> batch,
+		int batchStart) throws SQLException
+	{
+		try
+		{
+			stmt.executeBatch();
+		}
+		catch (BatchUpdateException e)
+		{
+			// Drivers either stop at the failed statement or mark it as failed, so find the first that did not succeed
+			int[] updateCounts = e.getUpdateCounts() == null ? new int[0] : e.getUpdateCounts();
+			int failed = 0;
+			while (failed < updateCounts.length && updateCounts[failed] != Statement.EXECUTE_FAILED)
+			{
+				failed++;
+			}
+			failed = Math.min(failed, batch.size() - 1);
+
+			String sql = batch.get(failed);
+			if (sql.length() > MAX_REPORTED_SQL_LENGTH)
+			{
+				sql = sql.substring(0, MAX_REPORTED_SQL_LENGTH) + "...";
+			}
+
+			throw new SQLException(
+				String.format(
+					"statement %d of the script failed: %s%n%s",
+					batchStart + failed,
+					e.getMessage(),
+					sql),
+				e.getSQLState(),
+				e.getErrorCode(),
+				e);
+		}
+		finally
+		{
+			stmt.clearBatch();
+			batch.clear();
+		}
+	}
+
 	/**
 	 * Executes a SQL statement against the database represented by the supplied DataSource.
 	 *
@@ -276,6 +441,22 @@ public class DatabaseHelper
 		}
 	}
 
+	/**
+	 * If the supplied Statement reference is non-null, attempts to close that Statement.
+	 *
+	 * @param stmt the Statement to be closed.  Ignored if null is supplied.
+	 * @throws SQLException may be thrown due to a state exception, connectivity problem or some
+	 *                      other issue.
+	 * @since 4.0
+	 */
+	public static void release(Statement stmt) throws SQLException
+	{
+		if (stmt != null)
+		{
+			stmt.close();
+		}
+	}
+
 	/**
 	 * If the supplied ResultSet is non-null, attempts to close that ResultSet.
 	 *
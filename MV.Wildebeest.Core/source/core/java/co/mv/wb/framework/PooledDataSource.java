@@ -0,0 +1,664 @@
+// Wildebeest Migration Framework
+// Copyright © 2013 - 2018, Matheson Ventures Pte Ltd
+//
+// This file is part of Wildebeest
+//
+// Wildebeest is free software: you can redistribute it and/or modify it under
+// the terms of the GNU General Public License v2 as published by the Free
+// Software Foundation.
+//
+// Wildebeest is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Wildebeest.  If not, see http://www.gnu.org/licenses/gpl-2.0.html
+
+package co.mv.wb.framework;
+
+import co.mv.wb.FaultException;
+import co.mv.wb.InstanceSession;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.logging.Logger;
+
+/**
+ * A {@link DataSource} that keeps connections open after they are closed by the caller, and hands them out again to
+ * later callers, so that a physical connection (and it's TLS handshake and login) is not needed for every statement.
+ * <p>
+ * Up to maxIdle connections are kept open while they are not in use.  The number of connections in use at once is not
+ * limited.  When a connection is returned any open transaction is rolled back, and the auto-commit mode, read-only
+ * flag, transaction isolation and catalog are restored to the values the connection had when it was opened.
+ * Connections that have been idle for a while are validated before they are handed out again.
+ * <p>
+ * A session can be opened on a thread with {@link #openSession()}.  While it is open, every connection that thread
+ * gets from the PooledDataSource is a handle to the same physical connection, which is only returned to the pool when
+ * the session is closed.  A session can also hold a transaction open across everything done on it's connection.
+ * <p>
+ * Calling {@link Connection#abort(java.util.concurrent.Executor)} on a connection that is not held by a session aborts
+ * the physical connection, which is then never returned to the pool.  This is how a caller discards a connection whose
+ * database session is in a state that must not leak to later callers.
+ *
+ * @since 4.0
+ */
+public class PooledDataSource implements DataSource, AutoCloseable
+{
+	private static final long VALIDATE_AFTER_IDLE_MILLIS = 5000;
+	private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+	private final DataSource dataSource;
+	private final int maxIdle;
+	private final Deque<PhysicalConnection> idle;
+	private final ThreadLocal<Session> sessions;
+	private boolean closed;
+
+	/**
+	 * Creates a new PooledDataSource.
+	 *
+	 * @param dataSource the DataSource that physical connections are opened from.
+	 * @param maxIdle    the maximum number of idle connections to keep open.  Zero disables pooling, and every
+	 *                   connection is closed when the caller closes it.
+	 * @since 4.0
+	 */
+	public PooledDataSource(
+		DataSource dataSource,
+		int maxIdle)
+	{
+		if (dataSource == null) throw new ArgumentNullException("dataSource");
+		if (maxIdle < 0) throw new IllegalArgumentException("maxIdle cannot be negative");
+
+		this.dataSource = dataSource;
+		this.maxIdle = maxIdle;
+		this.idle = new ArrayDeque<>();
+		this.sessions = new ThreadLocal<>();
+		this.closed = false;
+	}
+
+	/**
+	 * Gets the maximum number of idle connections that this PooledDataSource keeps open.
+	 *
+	 * @return the maximum number of idle connections that this PooledDataSource keeps open.
+	 * @since 4.0
+	 */
+	public int getMaxIdle()
+	{
+		return this.maxIdle;
+	}
+
+	/**
+	 * Gets the number of connections that are currently open and waiting to be reused.
+	 *
+	 * @return the number of idle connections.
+	 * @since 4.0
+	 */
+	public synchronized int getIdleCount()
+	{
+		return this.idle.size();
+	}
+
+	/**
+	 * Opens a session on the current thread, so that connections got by this thread share one physical connection
+	 * until the session is closed.  The physical connection is taken from the pool when it is first needed.  If a
+	 * session is already open on this thread then the new session is nested in it, and closing the nested session
+	 * does nothing.
+	 *
+	 * @return the session.
+	 * @since 4.0
+	 */
+	public InstanceSession openSession()
+	{
+		Session session = this.sessions.get();
+
+		if (session == null)
+		{
+			session = new Session();
+			this.sessions.set(session);
+		}
+
+		session.depth++;
+
+		return new SessionHandle(session);
+	}
+
+	@Override public Connection getConnection() throws SQLException
+	{
+		Session session = this.sessions.get();
+
+		if (session == null)
+		{
+			return this.acquire().checkOut(false);
+		}
+
+		if (session.physical == null)
+		{
+			PhysicalConnection physical = this.acquire();
+
+			if (session.transaction)
+			{
+				try
+				{
+					physical.connection.setAutoCommit(false);
+				}
+				catch (SQLException e)
+				{
+					PooledDataSource.closeQuietly(physical.connection);
+					throw e;
+				}
+			}
+
+			session.physical = physical;
+		}
+
+		if (session.transaction)
+		{
+			session.transactionUsed = true;
+		}
+
+		return session.physical.checkOut(true);
+	}
+
+	private PhysicalConnection acquire() throws SQLException
+	{
+		PhysicalConnection physical;
+
+		while ((physical = this.poll()) != null)
+		{
+			if (physical.isUsable())
+			{
+				return physical;
+			}
+
+			PooledDataSource.closeQuietly(physical.connection);
+		}
+
+		Connection connection = this.dataSource.getConnection();
+		try
+		{
+			return new PhysicalConnection(connection);
+		}
+		catch (SQLException e)
+		{
+			PooledDataSource.closeQuietly(connection);
+			throw e;
+		}
+	}
+
+	/**
+	 * Opens a connection for a different user.  Connections for other users are not pooled.
+	 */
+	@Override public Connection getConnection(
+		String username,
+		String password) throws SQLException
+	{
+		return this.dataSource.getConnection(username, password);
+	}
+
+	/**
+	 * Closes all idle connections, without closing the PooledDataSource.  This is needed before dropping the
+	 * database that the connections are open to.  The connection held by a session on the current thread is also
+	 * closed, and the session takes a new connection if it needs one later.  This is refused if the session has an
+	 * open transaction that it's connection has been used in, as closing the connection would silently lose the
+	 * work done in the transaction.
+	 *
+	 * @throws IllegalStateException if the session on the current thread has a transaction open that it's connection
+	 *                               has been used in.
+	 * @since 4.0
+	 */
+	public void closeIdleConnections()
+	{
+		Session session = this.sessions.get();
+		if (session != null && session.physical != null)
+		{
+			if (session.transaction && session.transactionUsed)
+			{
+				throw new IllegalStateException(
+					"the connection held by this session has been used in an open transaction and cannot be closed");
+			}
+
+			PooledDataSource.closeQuietly(session.physical.connection);
+			session.physical = null;
+		}
+
+		List<PhysicalConnection> toClose;
+
+		synchronized (this)
+		{
+			toClose = new ArrayList<>(this.idle);
+			this.idle.clear();
+		}
+
+		for (PhysicalConnection physical : toClose)
+		{
+			PooledDataSource.closeQuietly(physical.connection);
+		}
+	}
+
+	/**
+	 * Closes all idle connections.  Connections that are in use are closed when they are returned.  The
+	 * PooledDataSource can still be used once closed, but no longer keeps connections open.
+	 *
+	 * @since 4.0
+	 */
+	@Override public void close()
+	{
+		synchronized (this)
+		{
+			this.closed = true;
+		}
+
+		this.closeIdleConnections();
+	}
+
+	@Override public PrintWriter getLogWriter() throws SQLException
+	{
+		return this.dataSource.getLogWriter();
+	}
+
+	@Override public void setLogWriter(PrintWriter out) throws SQLException
+	{
+		this.dataSource.setLogWriter(out);
+	}
+
+	@Override public void setLoginTimeout(int seconds) throws SQLException
+	{
+		this.dataSource.setLoginTimeout(seconds);
+	}
+
+	@Override public int getLoginTimeout() throws SQLException
+	{
+		return this.dataSource.getLoginTimeout();
+	}
+
+	@Override public Logger getParentLogger() throws SQLFeatureNotSupportedException
+	{
+		return this.dataSource.getParentLogger();
+	}
+
+	@Override public <T> T unwrap(Class<T> iface) throws SQLException
+	{
+		if (iface.isInstance(this))
+		{
+			return iface.cast(this);
+		}
+
+		return this.dataSource.unwrap(iface);
+	}
+
+	@Override public boolean isWrapperFor(Class<?> iface) throws SQLException
+	{
+		return iface.isInstance(this) || this.dataSource.isWrapperFor(iface);
+	}
+
+	private synchronized PhysicalConnection poll()
+	{
+		return this.idle.pollFirst();
+	}
+
+	private void closeSession(
+		Session session)
+	{
+		session.depth--;
+
+		if (session.depth == 0)
+		{
+			this.sessions.remove();
+			session.transaction = false;
+			session.transactionUsed = false;
+
+			if (session.physical != null)
+			{
+				this.giveBack(session.physical);
+				session.physical = null;
+			}
+		}
+	}
+
+	private void giveBack(
+		PhysicalConnection physical)
+	{
+		if (physical.reset())
+		{
+			synchronized (this)
+			{
+				if (!this.closed && this.idle.size() < this.maxIdle)
+				{
+					physical.returnedAt = System.currentTimeMillis();
+					this.idle.addFirst(physical);
+					return;
+				}
+			}
+		}
+
+		PooledDataSource.closeQuietly(physical.connection);
+	}
+
+	private static void closeQuietly(
+		Connection connection)
+	{
+		try
+		{
+			connection.close();
+		}
+		catch (SQLException e)
+		{
+			// The connection is being discarded, so there is nothing more to do with it
+		}
+	}
+
+	/**
+	 * A physical connection, along with the settings it had when it was opened so they can be restored when it is
+	 * returned to the pool.
+	 */
+	private final class PhysicalConnection
+	{
+		private final Connection connection;
+		private final boolean autoCommit;
+		private final boolean readOnly;
+		private final int transactionIsolation;
+		private final String catalog;
+		private long returnedAt;
+
+		private PhysicalConnection(
+			Connection connection) throws SQLException
+		{
+			this.connection = connection;
+			this.autoCommit = connection.getAutoCommit();
+			this.readOnly = connection.isReadOnly();
+			this.transactionIsolation = connection.getTransactionIsolation();
+			this.catalog = connection.getCatalog();
+			this.returnedAt = System.currentTimeMillis();
+		}
+
+		private boolean isUsable()
+		{
+			try
+			{
+				if (System.currentTimeMillis() - this.returnedAt < VALIDATE_AFTER_IDLE_MILLIS)
+				{
+					return !this.connection.isClosed();
+				}
+
+				return this.connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+			}
+			catch (SQLException e)
+			{
+				return false;
+			}
+		}
+
+		private Connection checkOut(
+			boolean pinned)
+		{
+			return (Connection)Proxy.newProxyInstance(
+				PooledDataSource.class.getClassLoader(),
+				new Class<?>[] {Connection.class},
+				new CheckedOutConnection(this, pinned));
+		}
+
+		private boolean reset()
+		{
+			try
+			{
+				if (this.connection.isClosed())
+				{
+					return false;
+				}
+
+				if (!this.connection.getAutoCommit())
+				{
+					this.connection.rollback();
+				}
+				if (this.connection.getAutoCommit() != this.autoCommit)
+				{
+					this.connection.setAutoCommit(this.autoCommit);
+				}
+				if (this.connection.isReadOnly() != this.readOnly)
+				{
+					this.connection.setReadOnly(this.readOnly);
+				}
+				if (this.connection.getTransactionIsolation() != this.transactionIsolation)
+				{
+					this.connection.setTransactionIsolation(this.transactionIsolation);
+				}
+				if (this.catalog != null && !this.catalog.equals(this.connection.getCatalog()))
+				{
+					this.connection.setCatalog(this.catalog);
+				}
+
+				this.connection.clearWarnings();
+
+				return true;
+			}
+			catch (SQLException e)
+			{
+				return false;
+			}
+		}
+	}
+
+	/**
+	 * A session open on a thread, and the physical connection that it holds.
+	 */
+	private static final class Session
+	{
+		private int depth;
+		private boolean transaction;
+		private boolean transactionUsed;
+		private PhysicalConnection physical;
+	}
+
+	/**
+	 * The InstanceSession handed to callers for a session.  Transactions are begun lazily: if the session does not yet
+	 * hold a connection, auto-commit is turned off when it takes one.
+	 */
+	private final class SessionHandle implements InstanceSession
+	{
+		private final Session session;
+		private boolean closed;
+
+		private SessionHandle(
+			Session session)
+		{
+			this.session = session;
+			this.closed = false;
+		}
+
+		@Override public boolean beginTransaction()
+		{
+			// Work done in a nested session, such as a migration of an external resource, joins the open transaction,
+			// which is committed or rolled back by whoever began it
+			if (this.session.transaction)
+			{
+				return false;
+			}
+
+			try
+			{
+				if (this.session.physical != null)
+				{
+					this.session.physical.connection.setAutoCommit(false);
+				}
+			}
+			catch (SQLException e)
+			{
+				throw new FaultException(e);
+			}
+
+			this.session.transaction = true;
+			this.session.transactionUsed = false;
+
+			return true;
+		}
+
+		@Override public void commitTransaction()
+		{
+			this.endTransaction(true);
+		}
+
+		@Override public void rollbackTransaction()
+		{
+			this.endTransaction(false);
+		}
+
+		@Override public void close()
+		{
+			if (!this.closed)
+			{
+				this.closed = true;
+				PooledDataSource.this.closeSession(this.session);
+			}
+		}
+
+		private void endTransaction(
+			boolean commit)
+		{
+			if (!this.session.transaction)
+			{
+				throw new IllegalStateException("no transaction is open on this session");
+			}
+
+			this.session.transaction = false;
+
+			PhysicalConnection physical = this.session.physical;
+			if (physical == null)
+			{
+				// Nothing was done in the transaction, as the connection cannot be closed once it has been used in it
+				return;
+			}
+
+			try
+			{
+				if (commit)
+				{
+					physical.connection.commit();
+				}
+				else
+				{
+					physical.connection.rollback();
+				}
+
+				physical.connection.setAutoCommit(true);
+			}
+			catch (SQLException e)
+			{
+				// The connection is in an unknown state, so it is not used again
+				PooledDataSource.closeQuietly(physical.connection);
+				this.session.physical = null;
+
+				throw new FaultException(e);
+			}
+		}
+	}
+
+	/**
+	 * The handle given to a caller for a physical connection.  Closing the handle returns the physical connection to
+	 * the pool, unless the connection is pinned to a session, and the handle cannot be used after that.
+	 */
+	private final class CheckedOutConnection implements InvocationHandler
+	{
+		private final boolean pinned;
+		private PhysicalConnection physical;
+
+		private CheckedOutConnection(
+			PhysicalConnection physical,
+			boolean pinned)
+		{
+			this.physical = physical;
+			this.pinned = pinned;
+		}
+
+		@Override public Object invoke(
+			Object proxy,
+			Method method,
+			Object[] args) throws Throwable
+		{
+			String name = method.getName();
+
+			if ("close".equals(name) && method.getParameterCount() == 0)
+			{
+				PhysicalConnection returning = this.release();
+				if (returning != null && !this.pinned)
+				{
+					PooledDataSource.this.giveBack(returning);
+				}
+				return null;
+			}
+
+			if ("abort".equals(name) && method.getParameterCount() == 1 && !this.pinned)
+			{
+				PhysicalConnection aborting = this.release();
+				if (aborting != null)
+				{
+					try
+					{
+						aborting.connection.abort((Executor)args[0]);
+					}
+					catch (SQLException e)
+					{
+						PooledDataSource.closeQuietly(aborting.connection);
+						throw e;
+					}
+				}
+				return null;
+			}
+
+			if ("isClosed".equals(name) && method.getParameterCount() == 0)
+			{
+				PhysicalConnection current = this.current();
+				return current == null || current.connection.isClosed();
+			}
+
+			if ("equals".equals(name) && method.getParameterCount() == 1)
+			{
+				return proxy == args[0];
+			}
+
+			if ("hashCode".equals(name) && method.getParameterCount() == 0)
+			{
+				return System.identityHashCode(proxy);
+			}
+
+			PhysicalConnection current = this.current();
+
+			if (current == null)
+			{
+				throw new SQLException("connection is closed");
+			}
+
+			try
+			{
+				return method.invoke(current.connection, args);
+			}
+			catch (InvocationTargetException e)
+			{
+				throw e.getCause();
+			}
+		}
+
+		private synchronized PhysicalConnection current()
+		{
+			return this.physical;
+		}
+
+		private synchronized PhysicalConnection release()
+		{
+			PhysicalConnection result = this.physical;
+			this.physical = null;
+
+			return result;
+		}
+	}
+}
@@ -0,0 +1,58 @@
+// Wildebeest Migration Framework
+// Copyright © 2013 - 2018, Matheson Ventures Pte Ltd
+//
+// This file is part of Wildebeest
+//
+// Wildebeest is free software: you can redistribute it and/or modify it under
+// the terms of the GNU General Public License v2 as published by the Free
+// Software Foundation.
+//
+// Wildebeest is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Wildebeest.  If not, see http://www.gnu.org/licenses/gpl-2.0.html
+
+package co.mv.wb.framework;
+
+/**
+ * The dialects of SQL understood by {@link SqlScriptReader} when splitting a script into the statements or batches
+ * to be executed.
+ *
+ * @since 4.0
+ */
+public enum SqlDialect
+{
+	/**
+	 * Statements are terminated by semicolons.  Strings are quoted with single quotes, identifiers with double quotes,
+	 * and comments are written with -- or a /* block.
+	 *
+	 * @since 4.0
+	 */
+	Ansi,
+
+	/**
+	 * As for {@link #Ansi}, plus dollar-quoted strings such as function bodies, E'' strings with backslash escapes,
+	 * and nested block comments.
+	 *
+	 * @since 4.0
+	 */
+	PostgreSql,
+
+	/**
+	 * As for {@link #Ansi}, plus backtick-quoted identifiers, backslash escapes in strings, # comments and DELIMITER
+	 * commands that change the statement terminator.
+	 *
+	 * @since 4.0
+	 */
+	MySql,
+
+	/**
+	 * Scripts are split into batches by GO lines, as they are by sqlcmd, and semicolons do not split a batch.
+	 * Identifiers may also be quoted with square brackets.
+	 *
+	 * @since 4.0
+	 */
+	SqlServer
+}
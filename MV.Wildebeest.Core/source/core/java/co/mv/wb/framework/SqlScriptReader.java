@@ -0,0 +1,625 @@
+// Wildebeest Migration Framework
+// Copyright © 2013 - 2018, Matheson Ventures Pte Ltd
+//
+// This file is part of Wildebeest
+//
+// Wildebeest is free software: you can redistribute it and/or modify it under
+// the terms of the GNU General Public License v2 as published by the Free
+// Software Foundation.
+//
+// Wildebeest is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Wildebeest.  If not, see http://www.gnu.org/licenses/gpl-2.0.html
+
+package co.mv.wb.framework;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Splits a SQL script into the individual statements (or, for SQL Server, batches) to be executed, reading the script
+ * lazily from a {@link Reader}.  Only the statement currently being read is held in memory, so arbitrarily large
+ * scripts can be executed.
+ * <p>
+ * Terminators inside string literals, quoted identifiers, comments and dollar-quoted bodies do not split statements.
+ * Comments are kept in the statement text, but statements that contain nothing except whitespace and comments are
+ * skipped.
+ *
+ * @since 4.0
+ */
+public class SqlScriptReader implements Closeable
+{
+	private static final Pattern GO_LINE = Pattern.compile(
+		"\\s*GO(?:\\s+(\\d+))?\\s*(?:--.*)?",
+		Pattern.CASE_INSENSITIVE);
+	private static final Pattern DELIMITER_LINE = Pattern.compile(
+		"\\s*DELIMITER\\s+(\\S+)\\s*",
+		Pattern.CASE_INSENSITIVE);
+
+	private static final Pattern DML_KEYWORD = Pattern.compile(
+		"(?:INSERT|UPDATE|DELETE|MERGE|REPLACE)\\b",
+		Pattern.CASE_INSENSITIVE);
+
+	private static final int EOF = -1;
+	private static final int INITIAL_PUSHBACK_CAPACITY = 64;
+
+	private final Reader reader;
+	private final SqlDialect dialect;
+	private final StringBuilder statement;
+	private char[] pushback;
+	private int pushbackLength;
+	private String delimiter;
+	private boolean atLineStart;
+	private boolean significant;
+	private String repeatedBatch;
+	private int repeatCount;
+
+	/**
+	 * Creates a new SqlScriptReader.
+	 *
+	 * @param reader  the Reader to read the script from.
+	 * @param dialect the dialect the script is written in.
+	 * @since 4.0
+	 */
+	public SqlScriptReader(
+		Reader reader,
+		SqlDialect dialect)
+	{
+		if (reader == null) throw new ArgumentNullException("reader");
+		if (dialect == null) throw new ArgumentNullException("dialect");
+
+		this.reader = reader instanceof BufferedReader ? reader : new BufferedReader(reader);
+		this.dialect = dialect;
+		this.statement = new StringBuilder();
+		this.pushback = new char[INITIAL_PUSHBACK_CAPACITY];
+		this.pushbackLength = 0;
+		this.delimiter = dialect == SqlDialect.SqlServer ? null : ";";
+		this.atLineStart = true;
+		this.significant = false;
+		this.repeatedBatch = null;
+		this.repeatCount = 0;
+	}
+
+	/**
+	 * Reads the next statement from the script.
+	 *
+	 * @return the text of the next statement, without its terminator, or null if there are no more statements in the
+	 * script.
+	 * @throws IOException if the script cannot be read.
+	 * @since 4.0
+	 */
+	public String nextStatement() throws IOException
+	{
+		if (this.repeatCount > 0)
+		{
+			this.repeatCount--;
+			return this.repeatedBatch;
+		}
+
+		while (true)
+		{
+			if (this.atLineStart && this.readCommandLine())
+			{
+				if (this.dialect == SqlDialect.SqlServer && this.significant)
+				{
+					return this.takeStatement();
+				}
+
+				continue;
+			}
+
+			int c = this.read();
+
+			if (c == EOF)
+			{
+				return this.significant ? this.takeStatement() : null;
+			}
+
+			this.atLineStart = c == '\n';
+
+			if (c == '\'')
+			{
+				this.append(c);
+				this.readQuoted('\'', this.backslashEscapes());
+			}
+			else if (c == '"')
+			{
+				this.append(c);
+				this.readQuoted('"', this.dialect == SqlDialect.MySql);
+			}
+			else if (c == '`' && this.dialect == SqlDialect.MySql)
+			{
+				this.append(c);
+				this.readQuoted('`', false);
+			}
+			else if (c == '[' && this.dialect == SqlDialect.SqlServer)
+			{
+				this.append(c);
+				this.readQuoted(']', false);
+			}
+			else if (c == '-' && this.peek() == '-' && this.isLineComment())
+			{
+				this.readLineComment(c);
+			}
+			else if (c == '#' && this.dialect == SqlDialect.MySql)
+			{
+				this.readLineComment(c);
+			}
+			else if (c == '/' && this.peek() == '*')
+			{
+				this.readBlockComment();
+			}
+			else if (c == '$' && this.dialect == SqlDialect.PostgreSql && !this.followsIdentifier())
+			{
+				this.append(c);
+				this.readDollarQuoted();
+			}
+			else
+			{
+				this.append(c);
+
+				if (this.endsWithDelimiter())
+				{
+					this.statement.setLength(this.statement.length() - this.delimiter.length());
+
+					// The leading characters of a longer delimiter may have been taken as significant
+					boolean significant = this.significant;
+					String result = this.takeStatement();
+					if (significant && !result.isEmpty())
+					{
+						return result;
+					}
+				}
+				else if (!Character.isWhitespace(c))
+				{
+					this.significant = true;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns whether the supplied statement, as returned by {@link #nextStatement()}, is a DML statement that can be
+	 * sent to the database in a JDBC batch.  Leading comments and whitespace are skipped.
+	 *
+	 * @param statement the statement to check.
+	 * @return true if the statement begins with INSERT, UPDATE, DELETE, MERGE or REPLACE.
+	 * @since 4.0
+	 */
+	public static boolean isDml(
+		String statement)
+	{
+		if (statement == null) throw new ArgumentNullException("statement");
+
+		int i = 0;
+		while (i < statement.length())
+		{
+			if (Character.isWhitespace(statement.charAt(i)))
+			{
+				i++;
+			}
+			else if (statement.startsWith("--", i) || statement.startsWith("#", i))
+			{
+				int end = statement.indexOf('\n', i);
+				i = end == -1 ? statement.length() : end + 1;
+			}
+			else if (statement.startsWith("/*", i) && !statement.startsWith("/*!", i))
+			{
+				int end = statement.indexOf("*/", i + 2);
+				i = end == -1 ? statement.length() : end + 2;
+			}
+			else
+			{
+				break;
+			}
+		}
+
+		Matcher matcher = DML_KEYWORD.matcher(statement);
+		matcher.region(i, statement.length());
+
+		return matcher.lookingAt();
+	}
+
+	/**
+	 * Closes the underlying Reader.
+	 *
+	 * @throws IOException if the Reader cannot be closed.
+	 * @since 4.0
+	 */
+	@Override public void close() throws IOException
+	{
+		this.reader.close();
+	}
+
+	//
+	// Line commands
+	//
+
+	/**
+	 * At the start of a line, checks whether the line is a client command such as GO or DELIMITER, and if so handles
+	 * it.  Otherwise what was read of the line is pushed back to be read as SQL.  Only as much of the line is read as is
+	 * needed to rule the command out, so that long lines of SQL are not read twice.
+	 */
+	private boolean readCommandLine() throws IOException
+	{
+		this.atLineStart = false;
+
+		String keyword;
+		if (this.dialect == SqlDialect.SqlServer)
+		{
+			keyword = "GO";
+		}
+		else if (this.dialect == SqlDialect.MySql)
+		{
+			keyword = "DELIMITER";
+		}
+		else
+		{
+			return false;
+		}
+
+		StringBuilder line = new StringBuilder();
+		int c = this.read();
+		while (c != EOF && c != '\n' && Character.isWhitespace(c))
+		{
+			line.append((char)c);
+			c = this.read();
+		}
+
+		int matched = 0;
+		while (c != EOF && matched < keyword.length() && Character.toUpperCase(c) == keyword.charAt(matched))
+		{
+			line.append((char)c);
+			matched++;
+			c = this.read();
+		}
+
+		// GO may be followed directly by a comment
+		boolean candidate = matched == keyword.length()
+			&& (c == EOF || Character.isWhitespace(c) || (c == '-' && this.dialect == SqlDialect.SqlServer));
+		if (!candidate)
+		{
+			if (c != EOF)
+			{
+				line.append((char)c);
+			}
+			this.unread(line);
+			return false;
+		}
+
+		while (c != EOF)
+		{
+			line.append((char)c);
+			if (c == '\n')
+			{
+				break;
+			}
+			c = this.read();
+		}
+
+		String text = SqlScriptReader.stripLineEnd(line);
+
+		if (this.dialect == SqlDialect.SqlServer)
+		{
+			Matcher matcher = GO_LINE.matcher(text);
+			if (matcher.matches())
+			{
+				if (this.significant && matcher.group(1) != null)
+				{
+					this.repeatCount = Integer.parseInt(matcher.group(1)) - 1;
+					this.repeatedBatch = this.statement.toString().trim();
+				}
+				this.atLineStart = true;
+				return true;
+			}
+		}
+		else
+		{
+			Matcher matcher = DELIMITER_LINE.matcher(text);
+			if (matcher.matches())
+			{
+				this.delimiter = matcher.group(1);
+				this.atLineStart = true;
+				return true;
+			}
+		}
+
+		this.unread(line);
+		return false;
+	}
+
+	private static String stripLineEnd(
+		StringBuilder line)
+	{
+		int end = line.length();
+		while (end > 0 && (line.charAt(end - 1) == '\n' || line.charAt(end - 1) == '\r'))
+		{
+			end--;
+		}
+
+		return line.substring(0, end);
+	}
+
+	//
+	// Quoted text and comments
+	//
+
+	private void readQuoted(
+		char close,
+		boolean backslashEscapes) throws IOException
+	{
+		int c;
+		while ((c = this.read()) != EOF)
+		{
+			this.append(c);
+
+			if (backslashEscapes && c == '\\')
+			{
+				int escaped = this.read();
+				if (escaped == EOF)
+				{
+					break;
+				}
+				this.append(escaped);
+			}
+			else if (c == close)
+			{
+				if (this.peek() != close)
+				{
+					break;
+				}
+
+				// A doubled closing quote is an escaped quote
+				this.append(this.read());
+			}
+		}
+
+		this.significant = true;
+	}
+
+	private void readLineComment(
+		int first) throws IOException
+	{
+		this.append(first);
+
+		int c;
+		while ((c = this.read()) != EOF)
+		{
+			this.append(c);
+			if (c == '\n')
+			{
+				this.atLineStart = true;
+				break;
+			}
+		}
+	}
+
+	private void readBlockComment() throws IOException
+	{
+		this.append('/');
+		this.append(this.read());
+
+		// MySQL executes the contents of /*! ... */ comments
+		if (this.dialect == SqlDialect.MySql && this.peek() == '!')
+		{
+			this.significant = true;
+		}
+
+		int depth = 1;
+		int previous = EOF;
+		int c;
+		while (depth > 0 && (c = this.read()) != EOF)
+		{
+			this.append(c);
+
+			if (previous == '*' && c == '/')
+			{
+				depth--;
+				c = EOF;
+			}
+			else if (previous == '/' && c == '*' && this.dialect == SqlDialect.PostgreSql)
+			{
+				depth++;
+				c = EOF;
+			}
+
+			previous = c;
+		}
+	}
+
+	private void readDollarQuoted() throws IOException
+	{
+		// Read the tag between the two dollar signs.  If it is not a valid tag then this is not a dollar quote.
+		StringBuilder tag = new StringBuilder();
+		int c;
+		while ((c = this.read()) != EOF && c != '$')
+		{
+			tag.append((char)c);
+
+			boolean valid = tag.length() == 1
+				? Character.isLetter(c) || c == '_'
+				: Character.isLetterOrDigit(c) || c == '_';
+			if (!valid)
+			{
+				this.unread(tag.toString());
+				return;
+			}
+		}
+
+		if (c == EOF)
+		{
+			this.unread(tag.toString());
+			return;
+		}
+
+		String quote = "$" + tag + "$";
+		this.statement.append(tag).append('$');
+
+		// Read the body, up to and including the closing quote
+		int bodyStart = this.statement.length();
+		while ((c = this.read()) != EOF)
+		{
+			this.append(c);
+
+			if (c == '$'
+				&& this.statement.length() - bodyStart >= quote.length()
+				&& this.endsWith(quote))
+			{
+				break;
+			}
+		}
+
+		this.significant = true;
+	}
+
+	//
+	// Helpers
+	//
+
+	private boolean backslashEscapes()
+	{
+		if (this.dialect == SqlDialect.MySql)
+		{
+			return true;
+		}
+
+		if (this.dialect == SqlDialect.PostgreSql)
+		{
+			// E'...' strings, where the E is not the end of a longer identifier
+			int length = this.statement.length();
+			if (length >= 2)
+			{
+				char prefix = this.statement.charAt(length - 2);
+				if (prefix == 'E' || prefix == 'e')
+				{
+					return length == 2 || !SqlScriptReader.isIdentifierChar(this.statement.charAt(length - 3));
+				}
+			}
+		}
+
+		return false;
+	}
+
+	private boolean isLineComment() throws IOException
+	{
+		if (this.dialect != SqlDialect.MySql)
+		{
+			return true;
+		}
+
+		// MySQL requires whitespace after the second dash
+		this.read();
+		int next = this.peek();
+		this.unread('-');
+
+		return next == EOF || Character.isWhitespace(next);
+	}
+
+	private boolean followsIdentifier()
+	{
+		int length = this.statement.length();
+
+		return length > 0 && SqlScriptReader.isIdentifierChar(this.statement.charAt(length - 1));
+	}
+
+	private static boolean isIdentifierChar(
+		char c)
+	{
+		return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+	}
+
+	private boolean endsWithDelimiter()
+	{
+		return this.delimiter != null && this.endsWith(this.delimiter);
+	}
+
+	private boolean endsWith(
+		String suffix)
+	{
+		int offset = this.statement.length() - suffix.length();
+		if (offset < 0)
+		{
+			return false;
+		}
+
+		for (int i = 0; i < suffix.length(); i++)
+		{
+			if (this.statement.charAt(offset + i) != suffix.charAt(i))
+			{
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private String takeStatement()
+	{
+		String result = this.statement.toString().trim();
+
+		this.statement.setLength(0);
+		this.significant = false;
+
+		return result;
+	}
+
+	private void append(
+		int c)
+	{
+		this.statement.append((char)c);
+	}
+
+	//
+	// Reading
+	//
+
+	private int read() throws IOException
+	{
+		if (this.pushbackLength > 0)
+		{
+			return this.pushback[--this.pushbackLength];
+		}
+
+		return this.reader.read();
+	}
+
+	private int peek() throws IOException
+	{
+		int c = this.read();
+		if (c != EOF)
+		{
+			this.unread((char)c);
+		}
+
+		return c;
+	}
+
+	private void unread(
+		CharSequence text)
+	{
+		// The pushback buffer is a stack, so the first character of the text is pushed last to be read first
+		for (int i = text.length() - 1; i >= 0; i--)
+		{
+			this.unread(text.charAt(i));
+		}
+	}
+
+	private void unread(
+		char c)
+	{
+		if (this.pushbackLength == this.pushback.length)
+		{
+			this.pushback = Arrays.copyOf(this.pushback, this.pushback.length * 2);
+		}
+
+		this.pushback[this.pushbackLength++] = c;
+	}
+}
@@ -0,0 +1,126 @@
+// Wildebeest Migration Framework
+// Copyright © 2013 - 2018, Matheson Ventures Pte Ltd
+//
+// This file is part of Wildebeest
+//
+// Wildebeest is free software: you can redistribute it and/or modify it under
+// the terms of the GNU General Public License v2 as published by the Free
+// Software Foundation.
+//
+// Wildebeest is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Wildebeest.  If not, see http://www.gnu.org/licenses/gpl-2.0.html
+
+
+package co.mv.wb.impl;
+
+import co.mv.wb.Assertion;
+import co.mv.wb.AssertionPlugin;
+import co.mv.wb.framework.ArgumentNullException;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides the order in which the assertions of a state are performed: cheapest first, so that a failing state is
+ * found to be failing as soon as possible.  The cost of an assertion is what it's plugin estimates until the assertion
+ * has been timed, and after that a running average of how long it has actually taken.  Timings are kept for the life
+ * of the API and may be recorded from any thread.
+ *
+ * @since 4.0
+ */
+final class AssertionScheduler
+{
+	private final Map<UUID, Long> costs;
+
+	AssertionScheduler()
+	{
+		this.costs = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * Reorders the assertions, and their plugins alongside, from the cheapest to the most expensive.  Assertions of
+	 * equal cost keep their existing order.
+	 *
+	 * @param assertions       the assertions to be performed.
+	 * @param assertionPlugins the plugin for each assertion, at the same position.
+	 * @since 4.0
+	 */
+	void order(
+		List<Assertion> assertions,
+		List<AssertionPlugin> assertionPlugins)
+	{
+		if (assertions == null) throw new ArgumentNullException("assertions");
+		if (assertionPlugins == null) throw new ArgumentNullException("assertionPlugins");
+
+		List<Integer> order = new ArrayList<>();
+		List<Long> costs = new ArrayList<>();
+		for (int i = 0; i < assertions.size(); i++)
+		{
+			order.add(i);
+			costs.add(this.estimateCost(assertions.get(i), assertionPlugins.get(i)));
+		}
+
+		order.sort(Comparator.comparing(costs::get));
+
+		List<Assertion> orderedAssertions = new ArrayList<>();
+		List<AssertionPlugin> orderedAssertionPlugins = new ArrayList<>();
+		for (int i : order)
+		{
+			orderedAssertions.add(assertions.get(i));
+			orderedAssertionPlugins.add(assertionPlugins.get(i));
+		}
+
+		assertions.clear();
+		assertions.addAll(orderedAssertions);
+		assertionPlugins.clear();
+		assertionPlugins.addAll(orderedAssertionPlugins);
+	}
+
+	/**
+	 * Estimates the cost of performing an assertion.
+	 *
+	 * @param assertion       the assertion.
+	 * @param assertionPlugin the plugin that performs the assertion.
+	 * @return the estimated cost in microseconds.
+	 * @since 4.0
+	 */
+	long estimateCost(
+		Assertion assertion,
+		AssertionPlugin assertionPlugin)
+	{
+		if (assertion == null) throw new ArgumentNullException("assertion");
+		if (assertionPlugin == null) throw new ArgumentNullException("assertionPlugin");
+
+		Long cost = this.costs.get(assertion.getAssertionId());
+
+		return cost != null ? cost : assertionPlugin.estimateCost(assertion);
+	}
+
+	/**
+	 * Records how long an assertion took to perform.
+	 *
+	 * @param assertion    the assertion that was performed.
+	 * @param elapsedNanos the time that it took, in nanoseconds.
+	 * @since 4.0
+	 */
+	void record(
+		Assertion assertion,
+		long elapsedNanos)
+	{
+		if (assertion == null) throw new ArgumentNullException("assertion");
+
+		long cost = TimeUnit.NANOSECONDS.toMicros(elapsedNanos);
+
+		// Recent timings count for as much as all earlier timings together
+		this.costs.merge(assertion.getAssertionId(), cost, (previous, latest) -> (previous + latest) / 2);
+	}
+}
@@ -0,0 +1,77 @@
+// Wildebeest Migration Framework
+// Copyright © 2013 - 2018, Matheson Ventures Pte Ltd
+//
+// This file is part of Wildebeest
+//
+// Wildebeest is free software: you can redistribute it and/or modify it under
+// the terms of the GNU General Public License v2 as published by the Free
+// Software Foundation.
+//
+// Wildebeest is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Wildebeest.  If not, see http://www.gnu.org/licenses/gpl-2.0.html
+
+package co.mv.wb.impl;
+
+import co.mv.wb.Resource;
+import co.mv.wb.framework.ArgumentNullException;
+
+import java.io.Serializable;
+import java.util.Optional;
+
+/**
+ * A loaded {@link Resource} together with its precomputed {@link MigrationGraph}, as stored in the
+ * {@link ResourceCache}.
+ *
+ * @since 4.0
+ */
+public final class CompiledResource implements Serializable
+{
+	private static final long serialVersionUID = 1L;
+
+	private final Resource resource;
+	private final MigrationGraph migrationGraph;
+
+	/**
+	 * Creates a new CompiledResource.
+	 *
+	 * @param resource       the loaded Resource.
+	 * @param migrationGraph the MigrationGraph for the Resource, or null if the Resource's migrations refer to states
+	 *                       that do not exist and no graph could be built.
+	 * @since 4.0
+	 */
+	public CompiledResource(
+		Resource resource,
+		MigrationGraph migrationGraph)
+	{
+		if (resource == null) throw new ArgumentNullException("resource");
+
+		this.resource = resource;
+		this.migrationGraph = migrationGraph;
+	}
+
+	/**
+	 * Gets the loaded Resource.
+	 *
+	 * @return the loaded Resource.
+	 * @since 4.0
+	 */
+	public Resource getResource()
+	{
+		return this.resource;
+	}
+
+	/**
+	 * Gets the precomputed MigrationGraph for the Resource, if one could be built.
+	 *
+	 * @return the optional MigrationGraph for the Resource.
+	 * @since 4.0
+	 */
+	public Optional<MigrationGraph> getMigrationGraph()
+	{
+		return Optional.ofNullable(this.migrationGraph);
+	}
+}
@@ -0,0 +1,487 @@
+// Wildebeest Migration Framework
+// Copyright © 2013 - 2018, Matheson Ventures Pte Ltd
+//
+// This file is part of Wildebeest
+//
+// Wildebeest is free software: you can redistribute it and/or modify it under
+// the terms of the GNU General Public License v2 as published by the Free
+// Software Foundation.
+//
+// Wildebeest is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Wildebeest.  If not, see http://www.gnu.org/licenses/gpl-2.0.html
+
+package co.mv.wb.impl;
+
+import co.mv.wb.EntityType;
+import co.mv.wb.InvalidReferenceException;
+import co.mv.wb.Migration;
+import co.mv.wb.MigrationNotPossibleException;
+import co.mv.wb.Resource;
+import co.mv.wb.State;
+import co.mv.wb.StateIndex;
+import co.mv.wb.framework.ArgumentNullException;
+
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * An immutable adjacency index over the {@link Migration}'s of a {@link Resource}, keyed by the ID of the
+ * {@link State} each migration starts from.  The non-existent state is represented by a null state ID throughout.
+ *
+ * The index is built in a single pass over the resource's migrations, resolving each state reference once through the
+ * resource's {@link StateIndex}.  Path planning and migration never need to rescan the migration list or resolve state
+ * references again.
+ *
+ * Graphs are serializable so that they can be stored in the {@link ResourceCache} along with the resource they were
+ * built for.  {@link #isCurrentFor(Resource)} tells whether a graph still matches its resource.
+ *
+ * @since 4.0
+ */
+public final class MigrationGraph implements Serializable
+{
+	private static final long serialVersionUID = 1L;
+
+	private final StateIndex stateIndex;
+	private final List<Migration> migrations;
+	private final Map<UUID, List<Edge>> edges;
+	private final Map<Migration, Edge> edgesByMigration;
+
+	private MigrationGraph(
+		StateIndex stateIndex,
+		List<Migration> migrations,
+		Map<UUID, List<Edge>> edges,
+		Map<Migration, Edge> edgesByMigration)
+	{
+		if (stateIndex == null) throw new ArgumentNullException("stateIndex");
+		if (migrations == null) throw new ArgumentNullException("migrations");
+		if (edges == null) throw new ArgumentNullException("edges");
+		if (edgesByMigration == null) throw new ArgumentNullException("edgesByMigration");
+
+		this.stateIndex = stateIndex;
+		this.migrations = migrations;
+		this.edges = edges;
+		this.edgesByMigration = edgesByMigration;
+	}
+
+	/**
+	 * Builds the MigrationGraph for the supplied {@link Resource}.  Outgoing migrations for each state are kept in the
+	 * order in which they are declared on the resource.
+	 *
+	 * @param resource the Resource to build the graph for.
+	 * @return the MigrationGraph for the supplied Resource.
+	 * @throws InvalidReferenceException if any migration refers to a state that is not defined by the Resource.
+	 * @since 4.0
+	 */
+	public static MigrationGraph build(
+		Resource resource) throws
+		InvalidReferenceException
+	{
+		if (resource == null) throw new ArgumentNullException("resource");
+
+		StateIndex stateIndex = resource.getStateIndex();
+
+		Map<UUID, List<Edge>> edges = new HashMap<>();
+		Map<Migration, Edge> edgesByMigration = new IdentityHashMap<>();
+
+		for (Migration migration : resource.getMigrations())
+		{
+			State fromState = MigrationGraph.resolve(
+				stateIndex,
+				migration,
+				migration.getFromState().orElse(null));
+			State toState = MigrationGraph.resolve(
+				stateIndex,
+				migration,
+				migration.getToState().orElse(null));
+
+			Edge edge = new Edge(migration, fromState, toState);
+
+			edges
+				.computeIfAbsent(edge.fromStateId, k -> new ArrayList<>())
+				.add(edge);
+			edgesByMigration.put(migration, edge);
+		}
+
+		return new MigrationGraph(
+			stateIndex,
+			new ArrayList<>(resource.getMigrations()),
+			edges,
+			edgesByMigration);
+	}
+
+	/**
+	 * Determines whether this graph still describes the supplied {@link Resource}: that is, whether it was built from
+	 * the same state index and the same migrations, in the same order, as the resource currently has.
+	 *
+	 * @param resource the Resource to check.
+	 * @return true if this graph can be used for the Resource without being rebuilt, otherwise false.
+	 * @since 4.0
+	 */
+	public boolean isCurrentFor(
+		Resource resource)
+	{
+		if (resource == null) throw new ArgumentNullException("resource");
+
+		if (resource.getStateIndex() != this.stateIndex)
+		{
+			return false;
+		}
+
+		List<Migration> current = resource.getMigrations();
+
+		if (current.size() != this.migrations.size())
+		{
+			return false;
+		}
+
+		for (int i = 0; i < current.size(); i++)
+		{
+			if (current.get(i) != this.migrations.get(i))
+			{
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Enumerates every simple (cycle-free) path from one state to another.  Paths are returned in depth-first order,
+	 * following outgoing migrations in the order in which they are declared on the resource.
+	 *
+	 * @param fromStateId   the ID of the state to start from, or null for the non-existent state.
+	 * @param targetStateId the ID of the state to finish at, or null for the non-existent state.
+	 * @return the list of all paths from the source to the target.
+	 * @since 4.0
+	 */
+	public List<List<Migration>> findAllPaths(
+		UUID fromStateId,
+		UUID targetStateId)
+	{
+		List<List<Migration>> result = new ArrayList<>();
+
+		List<Migration> path = new ArrayList<>();
+		Set<UUID> onPath = new HashSet<>();
+		Deque<Frame> stack = new ArrayDeque<>();
+
+		onPath.add(fromStateId);
+		stack.push(new Frame(fromStateId, this.outgoing(fromStateId)));
+
+		while (!stack.isEmpty())
+		{
+			Frame frame = stack.peek();
+
+			if (frame.next == frame.edges.size())
+			{
+				// All outgoing migrations have been explored, so backtrack
+				stack.pop();
+				onPath.remove(frame.stateId);
+
+				if (!stack.isEmpty())
+				{
+					path.remove(path.size() - 1);
+				}
+
+				continue;
+			}
+
+			Edge edge = frame.edges.get(frame.next);
+			frame.next++;
+
+			if (edge.toStateId == null)
+			{
+				if (targetStateId == null)
+				{
+					result.add(MigrationGraph.append(path, edge.migration));
+				}
+			}
+			else if (onPath.contains(edge.toStateId))
+			{
+				// Circular path detected
+			}
+			else if (edge.toStateId.equals(targetStateId))
+			{
+				result.add(MigrationGraph.append(path, edge.migration));
+			}
+			else
+			{
+				path.add(edge.migration);
+				onPath.add(edge.toStateId);
+				stack.push(new Frame(edge.toStateId, this.outgoing(edge.toStateId)));
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Finds the shortest path from one state to another with a breadth-first search, in time linear in the number of
+	 * states and migrations.  If more than one path shares the shortest length then there is no single correct way
+	 * to migrate, and the path is reported as ambiguous.
+	 *
+	 * @param fromStateId   the ID of the state to start from, or null for the non-existent state.
+	 * @param targetStateId the ID of the state to finish at, or null for the non-existent state.
+	 * @return the shortest path from the source to the target.
+	 * @throws MigrationNotPossibleException if there is no path from the source to the target, or if there is more
+	 *                                       than one shortest path.
+	 * @since 4.0
+	 */
+	public List<Migration> findShortestPath(
+		UUID fromStateId,
+		UUID targetStateId) throws
+		MigrationNotPossibleException
+	{
+		Map<UUID, Integer> distance = new HashMap<>();
+		Map<UUID, Integer> pathCount = new HashMap<>();
+		Map<UUID, Edge> via = new HashMap<>();
+		Map<UUID, UUID> previous = new HashMap<>();
+		Queue<UUID> queue = new LinkedList<>();
+
+		if (MigrationGraph.same(fromStateId, targetStateId))
+		{
+			return new ArrayList<>();
+		}
+
+		distance.put(fromStateId, 0);
+		pathCount.put(fromStateId, 1);
+		queue.add(fromStateId);
+
+		boolean nonExistentReached = false;
+		int nonExistentDistance = 0;
+		int nonExistentPathCount = 0;
+		Edge nonExistentVia = null;
+		UUID nonExistentPrevious = null;
+
+		while (!queue.isEmpty())
+		{
+			UUID stateId = queue.poll();
+			int stateDistance = distance.get(stateId);
+			int statePathCount = pathCount.get(stateId);
+
+			for (Edge edge : this.outgoing(stateId))
+			{
+				if (edge.toStateId == null)
+				{
+					// The non-existent state is terminal - no migrations lead out of it on this path
+					if (!nonExistentReached)
+					{
+						nonExistentReached = true;
+						nonExistentDistance = stateDistance + 1;
+						nonExistentPathCount = statePathCount;
+						nonExistentVia = edge;
+						nonExistentPrevious = stateId;
+					}
+					else if (nonExistentDistance == stateDistance + 1)
+					{
+						nonExistentPathCount = Math.min(2, nonExistentPathCount + statePathCount);
+					}
+				}
+				else if (!distance.containsKey(edge.toStateId))
+				{
+					distance.put(edge.toStateId, stateDistance + 1);
+					pathCount.put(edge.toStateId, statePathCount);
+					via.put(edge.toStateId, edge);
+					previous.put(edge.toStateId, stateId);
+					queue.add(edge.toStateId);
+				}
+				else if (distance.get(edge.toStateId) == stateDistance + 1)
+				{
+					// Counts are capped at two, which is all we need to know to detect ambiguity
+					pathCount.put(edge.toStateId, Math.min(2, pathCount.get(edge.toStateId) + statePathCount));
+				}
+			}
+		}
+
+		Edge lastEdge;
+		UUID lastStateId;
+		int count;
+
+		if (targetStateId == null)
+		{
+			if (!nonExistentReached)
+			{
+				throw new MigrationNotPossibleException("no path to the target state");
+			}
+
+			lastEdge = nonExistentVia;
+			lastStateId = nonExistentPrevious;
+			count = nonExistentPathCount;
+		}
+		else
+		{
+			if (!via.containsKey(targetStateId))
+			{
+				throw new MigrationNotPossibleException("no path to the target state");
+			}
+
+			lastEdge = via.get(targetStateId);
+			lastStateId = previous.get(targetStateId);
+			count = pathCount.get(targetStateId);
+		}
+
+		if (count > 1)
+		{
+			throw new MigrationNotPossibleException("multiple shortest paths to the target state");
+		}
+
+		List<Migration> result = new ArrayList<>();
+		result.add(lastEdge.migration);
+
+		UUID stateId = lastStateId;
+		while (!MigrationGraph.same(stateId, fromStateId))
+		{
+			result.add(via.get(stateId).migration);
+			stateId = previous.get(stateId);
+		}
+
+		Collections.reverse(result);
+
+		return result;
+	}
+
+	/**
+	 * Gets the {@link State} that the supplied {@link Migration} starts from, as resolved when the graph was built.
+	 *
+	 * @param migration a Migration from the Resource this graph was built for.
+	 * @return the State the Migration starts from, or null if it starts from the non-existent state.
+	 * @since 4.0
+	 */
+	public State getFromState(
+		Migration migration)
+	{
+		return this.getEdge(migration).fromState;
+	}
+
+	/**
+	 * Gets the {@link State} that the supplied {@link Migration} finishes at, as resolved when the graph was built.
+	 *
+	 * @param migration a Migration from the Resource this graph was built for.
+	 * @return the State the Migration finishes at, or null if it finishes at the non-existent state.
+	 * @since 4.0
+	 */
+	public State getToState(
+		Migration migration)
+	{
+		return this.getEdge(migration).toState;
+	}
+
+	private Edge getEdge(
+		Migration migration)
+	{
+		if (migration == null) throw new ArgumentNullException("migration");
+
+		Edge edge = this.edgesByMigration.get(migration);
+
+		if (edge == null)
+		{
+			throw new IllegalArgumentException("migration is not part of this graph");
+		}
+
+		return edge;
+	}
+
+	private List<Edge> outgoing(
+		UUID stateId)
+	{
+		return this.edges.getOrDefault(stateId, Collections.emptyList());
+	}
+
+	private static State resolve(
+		StateIndex stateIndex,
+		Migration migration,
+		String stateRef) throws
+		InvalidReferenceException
+	{
+		if (stateRef == null)
+		{
+			return null;
+		}
+
+		Optional<State> state = stateIndex.byRef(stateRef);
+
+		if (!state.isPresent())
+		{
+			throw InvalidReferenceException.oneReference(
+				EntityType.State,
+				stateRef,
+				EntityType.Migration,
+				migration.getMigrationId().toString());
+		}
+
+		return state.get();
+	}
+
+	private static List<Migration> append(
+		List<Migration> path,
+		Migration migration)
+	{
+		List<Migration> result = new ArrayList<>(path.size() + 1);
+		result.addAll(path);
+		result.add(migration);
+
+		return result;
+	}
+
+	private static boolean same(
+		UUID a,
+		UUID b)
+	{
+		return a == null ? b == null : a.equals(b);
+	}
+
+	private static class Edge implements Serializable
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final Migration migration;
+		private final State fromState;
+		private final State toState;
+		private final UUID fromStateId;
+		private final UUID toStateId;
+
+		private Edge(
+			Migration migration,
+			State fromState,
+			State toState)
+		{
+			this.migration = migration;
+			this.fromState = fromState;
+			this.toState = toState;
+			this.fromStateId = fromState == null ? null : fromState.getStateId();
+			this.toStateId = toState == null ? null : toState.getStateId();
+		}
+	}
+
+	private static class Frame
+	{
+		private final UUID stateId;
+		private final List<Edge> edges;
+		private int next;
+
+		private Frame(
+			UUID stateId,
+			List<Edge> edges)
+		{
+			this.stateId = stateId;
+			this.edges = edges;
+			this.next = 0;
+		}
+	}
+}
@@ -0,0 +1,247 @@
+// Wildebeest Migration Framework
+// Copyright © 2013 - 2018, Matheson Ventures Pte Ltd
+//
+// This file is part of Wildebeest
+//
+// Wildebeest is free software: you can redistribute it and/or modify it under
+// the terms of the GNU General Public License v2 as published by the Free
+// Software Foundation.
+//
+// Wildebeest is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Wildebeest.  If not, see http://www.gnu.org/licenses/gpl-2.0.html
+
+
+package co.mv.wb.impl;
+
+import co.mv.wb.AssertionResult;
+import co.mv.wb.Instance;
+import co.mv.wb.Resource;
+import co.mv.wb.State;
+import co.mv.wb.framework.ArgumentNullException;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Remembers what has been read from each instance during a single API operation, so that it is read once rather than
+ * at every step: the current {@link State} of the instance for each resource, and the result of each assertion checked
+ * against each state.  A cache is bound to the calling thread; nested operations on the same thread join the
+ * outermost cache, which is discarded when the outermost operation completes.  Any change to an instance, such as a
+ * migration or a change to it's tracked state, must be followed by a call to {@link #invalidate(Instance)}.
+ *
+ * @since 4.0
+ */
+final class OperationCache implements AutoCloseable
+{
+	private final ThreadLocal<OperationCache> scope;
+	private final UUID runId;
+	private final Map<Instance, Map<Resource, Optional<State>>> states;
+	private final Map<Instance, Map<List<UUID>, AssertionResult>> assertionResults;
+	private final Set<Instance> locked;
+	private int depth;
+
+	private OperationCache(
+		ThreadLocal<OperationCache> scope)
+	{
+		if (scope == null) throw new ArgumentNullException("scope");
+
+		this.scope = scope;
+		this.runId = UUID.randomUUID();
+		this.states = new IdentityHashMap<>();
+		this.assertionResults = new IdentityHashMap<>();
+		this.locked = Collections.newSetFromMap(new IdentityHashMap<>());
+		this.depth = 0;
+	}
+
+	/**
+	 * Opens the cache for the calling thread, joining the cache of any enclosing operation.
+	 *
+	 * @param scope the thread-local slot that holds the cache for the operation in progress.
+	 * @return the cache to use, which must be closed when the operation completes.
+	 * @since 4.0
+	 */
+	static OperationCache open(
+		ThreadLocal<OperationCache> scope)
+	{
+		if (scope == null) throw new ArgumentNullException("scope");
+
+		OperationCache cache = scope.get();
+
+		if (cache == null)
+		{
+			cache = new OperationCache(scope);
+			scope.set(cache);
+		}
+
+		cache.depth++;
+
+		return cache;
+	}
+
+	/**
+	 * Gets the ID of the operation, which identifies the events raised while it is carried out.
+	 *
+	 * @return the run ID of the operation.
+	 * @since 4.0
+	 */
+	UUID getRunId()
+	{
+		return this.runId;
+	}
+
+	/**
+	 * Gets the remembered current state of the instance for the resource.
+	 *
+	 * @param resource the resource definition.
+	 * @param instance the instance.
+	 * @return the remembered state, which is empty if the instance is in the non-existent state, or null if no state
+	 * has been remembered.
+	 * @since 4.0
+	 */
+	Optional<State> getCurrentState(
+		Resource resource,
+		Instance instance)
+	{
+		if (resource == null) throw new ArgumentNullException("resource");
+		if (instance == null) throw new ArgumentNullException("instance");
+
+		Map<Resource, Optional<State>> byResource = this.states.get(instance);
+
+		return byResource == null ? null : byResource.get(resource);
+	}
+
+	/**
+	 * Remembers the current state of the instance for the resource.
+	 *
+	 * @param resource the resource definition.
+	 * @param instance the instance.
+	 * @param state    the current state, or null if the instance is in the non-existent state.
+	 * @since 4.0
+	 */
+	void putCurrentState(
+		Resource resource,
+		Instance instance,
+		State state)
+	{
+		if (resource == null) throw new ArgumentNullException("resource");
+		if (instance == null) throw new ArgumentNullException("instance");
+
+		this.states
+			.computeIfAbsent(instance, x -> new HashMap<>())
+			.put(resource, Optional.ofNullable(state));
+	}
+
+	/**
+	 * Gets the remembered result of checking an assertion of a state against the instance.
+	 *
+	 * @param instance    the instance.
+	 * @param stateId     the ID of the state that the assertion belongs to.
+	 * @param assertionId the ID of the assertion.
+	 * @return the remembered result, or null if the assertion has not been checked.
+	 * @since 4.0
+	 */
+	AssertionResult getAssertionResult(
+		Instance instance,
+		UUID stateId,
+		UUID assertionId)
+	{
+		if (instance == null) throw new ArgumentNullException("instance");
+		if (stateId == null) throw new ArgumentNullException("stateId");
+		if (assertionId == null) throw new ArgumentNullException("assertionId");
+
+		Map<List<UUID>, AssertionResult> byAssertion = this.assertionResults.get(instance);
+
+		return byAssertion == null ? null : byAssertion.get(Arrays.asList(stateId, assertionId));
+	}
+
+	/**
+	 * Remembers the result of checking an assertion of a state against the instance.
+	 *
+	 * @param instance the instance.
+	 * @param stateId  the ID of the state that the assertion belongs to.
+	 * @param result   the result of the assertion.
+	 * @since 4.0
+	 */
+	void putAssertionResult(
+		Instance instance,
+		UUID stateId,
+		AssertionResult result)
+	{
+		if (instance == null) throw new ArgumentNullException("instance");
+		if (stateId == null) throw new ArgumentNullException("stateId");
+		if (result == null) throw new ArgumentNullException("result");
+
+		this.assertionResults
+			.computeIfAbsent(instance, x -> new HashMap<>())
+			.put(Arrays.asList(stateId, result.getAssertionId()), result);
+	}
+
+	/**
+	 * Forgets everything remembered about the instance, so that it is read again on next use.
+	 *
+	 * @param instance the instance that has changed.
+	 * @since 4.0
+	 */
+	void invalidate(
+		Instance instance)
+	{
+		if (instance == null) throw new ArgumentNullException("instance");
+
+		this.states.remove(instance);
+		this.assertionResults.remove(instance);
+	}
+
+	/**
+	 * Records that the operation holds the lock on the instance, so that nested operations on the same instance do not
+	 * try to take it again.
+	 *
+	 * @param instance the instance to be locked.
+	 * @return true if the lock should be taken, or false if the operation already holds it.
+	 * @since 4.0
+	 */
+	boolean addLocked(
+		Instance instance)
+	{
+		if (instance == null) throw new ArgumentNullException("instance");
+
+		return this.locked.add(instance);
+	}
+
+	/**
+	 * Records that the operation has released the lock on the instance.
+	 *
+	 * @param instance the instance that has been unlocked.
+	 * @since 4.0
+	 */
+	void removeLocked(
+		Instance instance)
+	{
+		if (instance == null) throw new ArgumentNullException("instance");
+
+		this.locked.remove(instance);
+	}
+
+	@Override
+	public void close()
+	{
+		this.depth--;
+
+		if (this.depth == 0)
+		{
+			this.states.clear();
+			this.assertionResults.clear();
+			this.scope.remove();
+		}
+	}
+}
@@ -0,0 +1,115 @@
+// Wildebeest Migration Framework
+// Copyright © 2013 - 2018, Matheson Ventures Pte Ltd
+//
+// This file is part of Wildebeest
+//
+// Wildebeest is free software: you can redistribute it and/or modify it under
+// the terms of the GNU General Public License v2 as published by the Free
+// Software Foundation.
+//
+// Wildebeest is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Wildebeest.  If not, see http://www.gnu.org/licenses/gpl-2.0.html
+
+
+package co.mv.wb.impl;
+
+import co.mv.wb.AssertionPlugin;
+import co.mv.wb.MigrationPlugin;
+import co.mv.wb.PluginGroup;
+import co.mv.wb.ResourcePlugin;
+import co.mv.wb.ResourceType;
+import co.mv.wb.framework.ArgumentNullException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable snapshot of the plugins available to a {@link WildebeestApiImpl}.  The registry is complete when it is
+ * constructed and is never modified afterwards, so it may be read from any number of threads without locking.
+ *
+ * @since 4.0
+ */
+public final class PluginRegistry
+{
+	private final List<PluginGroup> pluginGroups;
+	private final Map<ResourceType, ResourcePlugin> resourcePlugins;
+	private final List<AssertionPlugin> assertionPlugins;
+	private final Map<String, MigrationPlugin> migrationPlugins;
+
+	/**
+	 * Creates a new PluginRegistry holding copies of the supplied collections.
+	 *
+	 * @param pluginGroups     the plugin groups.
+	 * @param resourcePlugins  the ResourcePlugins, keyed by the ResourceType that each handles.
+	 * @param assertionPlugins the AssertionPlugins.
+	 * @param migrationPlugins the MigrationPlugins, keyed by the URI of the migration type that each handles.
+	 * @since 4.0
+	 */
+	public PluginRegistry(
+		List<PluginGroup> pluginGroups,
+		Map<ResourceType, ResourcePlugin> resourcePlugins,
+		List<AssertionPlugin> assertionPlugins,
+		Map<String, MigrationPlugin> migrationPlugins)
+	{
+		if (pluginGroups == null) throw new ArgumentNullException("pluginGroups");
+		if (resourcePlugins == null) throw new ArgumentNullException("resourcePlugins");
+		if (assertionPlugins == null) throw new ArgumentNullException("assertionPlugins");
+		if (migrationPlugins == null) throw new ArgumentNullException("migrationPlugins");
+
+		this.pluginGroups = Collections.unmodifiableList(new ArrayList<>(pluginGroups));
+		this.resourcePlugins = Collections.unmodifiableMap(new HashMap<>(resourcePlugins));
+		this.assertionPlugins = Collections.unmodifiableList(new ArrayList<>(assertionPlugins));
+		this.migrationPlugins = Collections.unmodifiableMap(new HashMap<>(migrationPlugins));
+	}
+
+	/**
+	 * Gets the plugin groups.
+	 *
+	 * @return the plugin groups.
+	 * @since 4.0
+	 */
+	public List<PluginGroup> getPluginGroups()
+	{
+		return this.pluginGroups;
+	}
+
+	/**
+	 * Gets the ResourcePlugins, keyed by the ResourceType that each handles.
+	 *
+	 * @return the ResourcePlugins.
+	 * @since 4.0
+	 */
+	public Map<ResourceType, ResourcePlugin> getResourcePlugins()
+	{
+		return this.resourcePlugins;
+	}
+
+	/**
+	 * Gets the AssertionPlugins.
+	 *
+	 * @return the AssertionPlugins.
+	 * @since 4.0
+	 */
+	public List<AssertionPlugin> getAssertionPlugins()
+	{
+		return this.assertionPlugins;
+	}
+
+	/**
+	 * Gets the MigrationPlugins, keyed by the URI of the migration type that each handles.
+	 *
+	 * @return the MigrationPlugins.
+	 * @since 4.0
+	 */
+	public Map<String, MigrationPlugin> getMigrationPlugins()
+	{
+		return this.migrationPlugins;
+	}
+}
@@ -0,0 +1,421 @@
+// Wildebeest Migration Framework
+// Copyright © 2013 - 2018, Matheson Ventures Pte Ltd
+//
+// This file is part of Wildebeest
+//
+// Wildebeest is free software: you can redistribute it and/or modify it under
+// the terms of the GNU General Public License v2 as published by the Free
+// Software Foundation.
+//
+// Wildebeest is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Wildebeest.  If not, see http://www.gnu.org/licenses/gpl-2.0.html
+
+package co.mv.wb.impl;
+
+import co.mv.wb.About;
+import co.mv.wb.Resource;
+import co.mv.wb.Wildebeest;
+import co.mv.wb.framework.ArgumentNullException;
+import co.mv.wb.plugin.base.dom.DomPlugins;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * An on-disk cache of compiled resources, so that a resource definition that has not changed since it was last loaded
+ * does not need to be read, validated and parsed again.  Each entry is the Java serialized form of a
+ * {@link CompiledResource}, stored in the cache directory under the hash of the resource file.
+ * <p>
+ * Entries are keyed by a SHA-256 hash of the cache format version, the build of Wildebeest, the canonical path of the
+ * resource file and the file's contents.  The path is part of the key because resources resolve relative references,
+ * such as external resource migrations, against the directory they are loaded from.  The build is part of the key
+ * because a different build may compile the same file into a different resource without changing the shape of the
+ * serialized classes, so an entry written by it would still deserialize.  The build is identified by the Wildebeest
+ * version together with the location, size and modification time of the jars (or class files) that the model,
+ * loaders and plugins are loaded from, so any rebuild of them misses the entries of the previous build.
+ * <p>
+ * The cache is best-effort: entries that cannot be read are ignored, and resources that cannot be serialized (for
+ * example because a plugin's migrations are not {@link java.io.Serializable}) are simply not cached.  Entries are only
+ * deserialized into Wildebeest's own classes and a small set of JDK value and collection classes; an entry that names
+ * any other class is treated as a miss without the class being loaded.  Resources that use plugins from outside
+ * Wildebeest are therefore not taken from the cache.  Even so, the cache directory should only be writable by the
+ * user that runs Wildebeest.
+ *
+ * @since 4.0
+ */
+public final class ResourceCache
+{
+	private static final int FORMAT_VERSION = 1;
+	private static final String BUILD_FINGERPRINT = ResourceCache.buildFingerprint();
+	private static final String ENTRY_SUFFIX = ".wbc";
+	private static final String ALLOWED_PACKAGE = "co.mv.wb.";
+	private static final Set<String> ALLOWED_CLASSES = new HashSet<>(Arrays.asList(
+		"java.io.File",
+		"java.lang.Boolean",
+		"java.lang.Byte",
+		"java.lang.Character",
+		"java.lang.Double",
+		"java.lang.Enum",
+		"java.lang.Float",
+		"java.lang.Integer",
+		"java.lang.Long",
+		"java.lang.Number",
+		"java.lang.Short",
+		"java.lang.String",
+		"java.util.ArrayList",
+		"java.util.Arrays$ArrayList",
+		"java.util.Collections$EmptyList",
+		"java.util.Collections$EmptyMap",
+		"java.util.Collections$EmptySet",
+		"java.util.Collections$SingletonList",
+		"java.util.Collections$SingletonMap",
+		"java.util.Collections$SingletonSet",
+		"java.util.Collections$UnmodifiableCollection",
+		"java.util.Collections$UnmodifiableList",
+		"java.util.Collections$UnmodifiableMap",
+		"java.util.Collections$UnmodifiableRandomAccessList",
+		"java.util.Collections$UnmodifiableSet",
+		"java.util.HashMap",
+		"java.util.HashSet",
+		"java.util.IdentityHashMap",
+		"java.util.LinkedHashMap",
+		"java.util.LinkedHashSet",
+		"java.util.LinkedList",
+		"java.util.TreeMap",
+		"java.util.TreeSet",
+		"java.util.UUID"));
+
+	private final File cacheDir;
+
+	/**
+	 * Creates a new ResourceCache that stores it's entries in the supplied directory.  The directory is created when
+	 * the first entry is stored.
+	 *
+	 * @param cacheDir the directory to store cache entries in.
+	 * @since 4.0
+	 */
+	public ResourceCache(
+		File cacheDir)
+	{
+		if (cacheDir == null) throw new ArgumentNullException("cacheDir");
+
+		this.cacheDir = cacheDir;
+	}
+
+	/**
+	 * Gets the directory that this cache stores it's entries in.
+	 *
+	 * @return the directory that this cache stores it's entries in.
+	 * @since 4.0
+	 */
+	public File getCacheDir()
+	{
+		return this.cacheDir;
+	}
+
+	/**
+	 * Computes the cache key for the supplied resource file, from it's current contents.
+	 *
+	 * @param resourceFile the resource file to compute the key for.
+	 * @return the cache key for the resource file.
+	 * @throws IOException if the resource file cannot be read.
+	 * @since 4.0
+	 */
+	public String key(
+		File resourceFile) throws
+		IOException
+	{
+		if (resourceFile == null) throw new ArgumentNullException("resourceFile");
+
+		MessageDigest digest = ResourceCache.sha256();
+
+		digest.update(String.format(
+			"%d\n%s\n%s\n",
+			FORMAT_VERSION,
+			BUILD_FINGERPRINT,
+			resourceFile.getCanonicalPath()).getBytes(StandardCharsets.UTF_8));
+
+		byte[] buffer = new byte[64 * 1024];
+		try (InputStream in = new FileInputStream(resourceFile))
+		{
+			int read;
+			while ((read = in.read(buffer)) != -1)
+			{
+				digest.update(buffer, 0, read);
+			}
+		}
+
+		StringBuilder result = new StringBuilder();
+		for (byte b : digest.digest())
+		{
+			result.append(String.format("%02x", b));
+		}
+
+		return result.toString();
+	}
+
+	/**
+	 * Gets the cached entry with the supplied key.
+	 *
+	 * @param key the key of the entry, as computed by {@link #key(File)}.
+	 * @return the cached CompiledResource, or null if there is no usable entry for the key.
+	 * @since 4.0
+	 */
+	public CompiledResource get(
+		String key)
+	{
+		if (key == null) throw new ArgumentNullException("key");
+
+		File entryFile = this.entryFile(key);
+
+		if (!entryFile.isFile())
+		{
+			return null;
+		}
+
+		try (ObjectInputStream in = new AllowedClassesInputStream(new BufferedInputStream(new FileInputStream(
+			entryFile))))
+		{
+			if (in.readInt() != FORMAT_VERSION || !key.equals(in.readUTF()))
+			{
+				return null;
+			}
+
+			return (CompiledResource)in.readObject();
+		}
+		catch (IOException | ClassNotFoundException | ClassCastException e)
+		{
+			// Stale or corrupt entries are misses, and will be overwritten by the next put
+			return null;
+		}
+	}
+
+	/**
+	 * Stores the supplied entry under the supplied key, replacing any existing entry.  The entry is written to a
+	 * temporary file and then moved into place, so concurrent readers never see a partially written entry.  If the
+	 * entry cannot be written it is silently not cached.
+	 *
+	 * @param key      the key of the entry, as computed by {@link #key(File)}.
+	 * @param compiled the CompiledResource to store.
+	 * @since 4.0
+	 */
+	public void put(
+		String key,
+		CompiledResource compiled)
+	{
+		if (key == null) throw new ArgumentNullException("key");
+		if (compiled == null) throw new ArgumentNullException("compiled");
+
+		File tempFile = null;
+		try
+		{
+			Files.createDirectories(this.cacheDir.toPath());
+
+			tempFile = File.createTempFile(key, ".tmp", this.cacheDir);
+
+			try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(
+				tempFile))))
+			{
+				out.writeInt(FORMAT_VERSION);
+				out.writeUTF(key);
+				out.writeObject(compiled);
+			}
+
+			try
+			{
+				Files.move(
+					tempFile.toPath(),
+					this.entryFile(key).toPath(),
+					StandardCopyOption.ATOMIC_MOVE,
+					StandardCopyOption.REPLACE_EXISTING);
+			}
+			catch (AtomicMoveNotSupportedException e)
+			{
+				Files.move(
+					tempFile.toPath(),
+					this.entryFile(key).toPath(),
+					StandardCopyOption.REPLACE_EXISTING);
+			}
+
+			tempFile = null;
+		}
+		catch (IOException e)
+		{
+			// Includes NotSerializableException - the resource is simply not cached
+		}
+		finally
+		{
+			if (tempFile != null)
+			{
+				tempFile.delete();
+			}
+		}
+	}
+
+	/**
+	 * Identifies the build of Wildebeest that is running, from it's version and the code that compiles resources: the
+	 * model, the DOM loaders and the factory plugins.
+	 *
+	 * @return the fingerprint of the running build.
+	 * @since 4.0
+	 */
+	static String buildFingerprint()
+	{
+		StringBuilder result = new StringBuilder(new About().getVersionFullDotted());
+
+		for (Class<?> type : Arrays.asList(Resource.class, DomPlugins.class, Wildebeest.class))
+		{
+			result.append('\n').append(ResourceCache.codeStamp(type));
+		}
+
+		return result.toString();
+	}
+
+	/**
+	 * Gets the location, size and modification time of the jar, or for an unpackaged build the class file, that the
+	 * supplied class was loaded from.
+	 */
+	private static String codeStamp(
+		Class<?> type)
+	{
+		URL url = type.getResource(type.getSimpleName() + ".class");
+		if (url == null)
+		{
+			return type.getName();
+		}
+
+		try
+		{
+			// A class in a jar has a URL of the form jar:file:/path/to.jar!/co/mv/wb/Type.class
+			URL location = url;
+			if ("jar".equals(location.getProtocol()))
+			{
+				String path = location.getPath();
+				location = new URL(path.substring(0, path.indexOf("!/")));
+			}
+
+			if (!"file".equals(location.getProtocol()))
+			{
+				return url.toString();
+			}
+
+			File file = new File(location.toURI());
+
+			return String.format("%s:%d:%d", file.getPath(), file.lastModified(), file.length());
+		}
+		catch (MalformedURLException | URISyntaxException | IllegalArgumentException | IndexOutOfBoundsException e)
+		{
+			return url.toString();
+		}
+	}
+
+	/**
+	 * Returns whether an entry may name the supplied class.
+	 *
+	 * @param className the name of the class, as written in the serialized stream.
+	 * @return true if the class may be deserialized.
+	 * @since 4.0
+	 */
+	static boolean isAllowedClass(
+		String className)
+	{
+		if (className == null) throw new ArgumentNullException("className");
+
+		// Arrays are allowed when their element type is: "[I" is an int[], and "[Ljava.lang.String;" a String[]
+		String elementName = className.replaceFirst("^\\[+", "");
+
+		if (elementName.length() == 1)
+		{
+			return "ZBCSIJFD".contains(elementName);
+		}
+
+		if (elementName.length() < className.length())
+		{
+			if (!elementName.startsWith("L") || !elementName.endsWith(";"))
+			{
+				return false;
+			}
+
+			elementName = elementName.substring(1, elementName.length() - 1);
+		}
+
+		return elementName.startsWith(ALLOWED_PACKAGE) || ALLOWED_CLASSES.contains(elementName);
+	}
+
+	private File entryFile(
+		String key)
+	{
+		return new File(this.cacheDir, key + ENTRY_SUFFIX);
+	}
+
+	private static MessageDigest sha256()
+	{
+		try
+		{
+			return MessageDigest.getInstance("SHA-256");
+		}
+		catch (NoSuchAlgorithmException e)
+		{
+			// Every Java platform is required to support SHA-256
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Refuses to resolve any class that an entry may not name, before the class is loaded or any of it's code runs.
+	 */
+	private static final class AllowedClassesInputStream extends ObjectInputStream
+	{
+		private AllowedClassesInputStream(
+			InputStream in) throws
+			IOException
+		{
+			super(in);
+		}
+
+		@Override protected Class<?> resolveClass(
+			ObjectStreamClass desc) throws
+			IOException,
+			ClassNotFoundException
+		{
+			if (!ResourceCache.isAllowedClass(desc.getName()))
+			{
+				throw new InvalidClassException(desc.getName(), "not allowed in a resource cache entry");
+			}
+
+			return super.resolveClass(desc);
+		}
+
+		@Override protected Class<?> resolveProxyClass(
+			String[] interfaces) throws
+			IOException
+		{
+			throw new InvalidClassException("proxy", "not allowed in a resource cache entry");
+		}
+	}
+}
@@ -26,11 +26,13 @@ import co.mv.wb.WildebeestApi;
 import co.mv.wb.event.EventSink;
 import co.mv.wb.framework.ArgumentNullException;
 
+import java.io.File;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.function.Function;
 
 /**
  * A fluent builder for WildebeestApi implementation.
@@ -39,11 +41,13 @@ import java.util.stream.Collectors;
  */
 public class WildebeestApiBuilder
 {
-	private final WildebeestApiImpl wildebeestApi;
+	private final EventSink eventSink;
 	private final List<PluginGroup> pluginGroups;
 	private final Map<ResourceType, ResourcePlugin> resourcePlugins;
-	private final Map<String, MigrationPlugin> migrationPlugins;
+	private final List<Function<WildebeestApi, List<MigrationPlugin>>> migrationPlugins;
 	private final List<AssertionPlugin> assertionPlugins;
+	private final ResourceCache resourceCache;
+	private final int assertionParallelism;
 
 	/**
 	 * Creates a new WildebeestApiBuilder with the specified PrintStream for Wildebeest to output to.
@@ -58,31 +62,37 @@ public class WildebeestApiBuilder
 		if (eventSink == null) throw new ArgumentNullException("eventSink");
 
 		return new WildebeestApiBuilder(
-			new WildebeestApiImpl(eventSink),
+			eventSink,
 			new ArrayList<>(),
 			new HashMap<>(),
-			new HashMap<>(),
-			new ArrayList<>());
+			new ArrayList<>(),
+			new ArrayList<>(),
+			null,
+			1);
 	}
 
 	private WildebeestApiBuilder(
-		WildebeestApiImpl wildebeestApi,
+		EventSink eventSink,
 		List<PluginGroup> pluginGroups,
 		Map<ResourceType, ResourcePlugin> resourcePlugins,
-		Map<String, MigrationPlugin> migrationPlugins,
-		List<AssertionPlugin> assertionPlugins)
+		List<Function<WildebeestApi, List<MigrationPlugin>>> migrationPlugins,
+		List<AssertionPlugin> assertionPlugins,
+		ResourceCache resourceCache,
+		int assertionParallelism)
 	{
-		if (wildebeestApi == null) throw new ArgumentNullException("wildebeestApi");
+		if (eventSink == null) throw new ArgumentNullException("eventSink");
 		if (pluginGroups == null) throw new ArgumentNullException("pluginGroups");
 		if (resourcePlugins == null) throw new ArgumentNullException("resourcePlugins");
 		if (migrationPlugins == null) throw new ArgumentNullException("migrationPlugins");
 		if (assertionPlugins == null) throw new ArgumentNullException("assertionPlugins");
 
-		this.wildebeestApi = wildebeestApi;
+		this.eventSink = eventSink;
 		this.pluginGroups = pluginGroups;
 		this.resourcePlugins = resourcePlugins;
 		this.migrationPlugins = migrationPlugins;
 		this.assertionPlugins = assertionPlugins;
+		this.resourceCache = resourceCache;
+		this.assertionParallelism = assertionParallelism;
 	}
 
 	/**
@@ -97,11 +107,13 @@ public class WildebeestApiBuilder
 		updated.addAll(Wildebeest.getPluginGroups());
 
 		return new WildebeestApiBuilder(
-			this.wildebeestApi,
+			this.eventSink,
 			updated,
 			this.resourcePlugins,
 			this.migrationPlugins,
-			this.assertionPlugins);
+			this.assertionPlugins,
+			this.resourceCache,
+			this.assertionParallelism);
 	}
 
 	/**
@@ -117,11 +129,13 @@ public class WildebeestApiBuilder
 		updated.putAll(Wildebeest.getResourcePlugins());
 
 		return new WildebeestApiBuilder(
-			this.wildebeestApi,
+			this.eventSink,
 			this.pluginGroups,
 			updated,
 			this.migrationPlugins,
-			this.assertionPlugins);
+			this.assertionPlugins,
+			this.resourceCache,
+			this.assertionParallelism);
 	}
 
 	/**
@@ -141,11 +155,13 @@ public class WildebeestApiBuilder
 		updated.put(resourceType, resourcePlugin);
 
 		return new WildebeestApiBuilder(
-			this.wildebeestApi,
+			this.eventSink,
 			this.pluginGroups,
 			updated,
 			this.migrationPlugins,
-			this.assertionPlugins);
+			this.assertionPlugins,
+			this.resourceCache,
+			this.assertionParallelism);
 	}
 
 	/**
@@ -162,11 +178,13 @@ public class WildebeestApiBuilder
 		updated.addAll(Wildebeest.getAssertionPlugins());
 
 		return new WildebeestApiBuilder(
-			this.wildebeestApi,
+			this.eventSink,
 			this.pluginGroups,
 			this.resourcePlugins,
 			this.migrationPlugins,
-			updated);
+			updated,
+			this.resourceCache,
+			this.assertionParallelism);
 	}
 
 	/**
@@ -186,11 +204,13 @@ public class WildebeestApiBuilder
 		updated.add(assertionPlugin);
 
 		return new WildebeestApiBuilder(
-			this.wildebeestApi,
+			this.eventSink,
 			this.pluginGroups,
 			this.resourcePlugins,
 			this.migrationPlugins,
-			updated);
+			updated,
+			this.resourceCache,
+			this.assertionParallelism);
 	}
 
 	/**
@@ -202,23 +222,19 @@ public class WildebeestApiBuilder
 	 */
 	public WildebeestApiBuilder withFactoryMigrationPlugins()
 	{
-		Map<String, MigrationPlugin> updated = new HashMap<>(this.migrationPlugins);
-
-		Map<String, MigrationPlugin> factory = Wildebeest
-			.getMigrationPlugins(this.wildebeestApi)
-			.stream()
-			.collect(Collectors.toMap(
-				x -> Wildebeest.getPluginHandlerUri(x),
-				x -> x));
-
-		updated.putAll(factory);
+		// Some factory plugins, such as ExternalResourceMigrationPlugin, drive the WildebeestApi that they belong to,
+		// so they are created along with it
+		List<Function<WildebeestApi, List<MigrationPlugin>>> updated = new ArrayList<>(this.migrationPlugins);
+		updated.add(Wildebeest::getMigrationPlugins);
 
 		return new WildebeestApiBuilder(
-			this.wildebeestApi,
+			this.eventSink,
 			this.pluginGroups,
 			this.resourcePlugins,
 			updated,
-			this.assertionPlugins);
+			this.assertionPlugins,
+			this.resourceCache,
+			this.assertionParallelism);
 	}
 
 	/**
@@ -233,33 +249,103 @@ public class WildebeestApiBuilder
 	{
 		if (migrationPlugin == null) throw new ArgumentNullException("migrationPlugin");
 
-		Map<String, MigrationPlugin> updated = new HashMap<>(this.migrationPlugins);
-
-		updated.put(
-			Wildebeest.getPluginHandlerUri(migrationPlugin),
-			migrationPlugin);
+		List<Function<WildebeestApi, List<MigrationPlugin>>> updated = new ArrayList<>(this.migrationPlugins);
+		updated.add(wildebeestApi -> Collections.singletonList(migrationPlugin));
 
 		return new WildebeestApiBuilder(
-			this.wildebeestApi,
+			this.eventSink,
 			this.pluginGroups,
 			this.resourcePlugins,
 			updated,
-			this.assertionPlugins);
+			this.assertionPlugins,
+			this.resourceCache,
+			this.assertionParallelism);
+	}
+
+	/**
+	 * Fluently configures the builder to cache compiled resources in the supplied directory, so that unchanged
+	 * resource files are not read, validated and parsed again on every load.  A new builder is returned and the
+	 * original builder is left unmutated.
+	 *
+	 * @param cacheDir the directory to store compiled resources in.
+	 * @return a new WildebeestApiBuilder with the state of the original plus the new state
+	 * @since 4.0
+	 */
+	public WildebeestApiBuilder withResourceCache(File cacheDir)
+	{
+		if (cacheDir == null) throw new ArgumentNullException("cacheDir");
+
+		return new WildebeestApiBuilder(
+			this.eventSink,
+			this.pluginGroups,
+			this.resourcePlugins,
+			this.migrationPlugins,
+			this.assertionPlugins,
+			new ResourceCache(cacheDir),
+			this.assertionParallelism);
+	}
+
+	/**
+	 * Fluently configures the builder to perform up to the supplied number of assertions at once when the state of an
+	 * instance is checked.  A new builder is returned and the original builder is left unmutated.
+	 *
+	 * @param assertionParallelism the maximum number of assertions to perform at once.  One performs assertions one
+	 *                             after another.
+	 * @return a new WildebeestApiBuilder with the state of the original plus the new state
+	 * @since 4.0
+	 */
+	public WildebeestApiBuilder withAssertionParallelism(int assertionParallelism)
+	{
+		if (assertionParallelism < 1) throw new IllegalArgumentException("assertionParallelism must be at least 1");
+
+		return new WildebeestApiBuilder(
+			this.eventSink,
+			this.pluginGroups,
+			this.resourcePlugins,
+			this.migrationPlugins,
+			this.assertionPlugins,
+			this.resourceCache,
+			assertionParallelism);
 	}
 
 	/**
-	 * Builds a new {@link WildebeestApi} with the plugins that were registered to this builder.
+	 * Builds a new {@link WildebeestApi} with the plugins that were registered to this builder.  The plugins are
+	 * captured in an immutable {@link PluginRegistry}, so later changes to this builder do not affect the returned
+	 * WildebeestApi, and each call returns a separate WildebeestApi.
 	 *
 	 * @return a new WildebeestApi instance with the plugins that were registered to
 	 * this builder.
 	 */
 	public WildebeestApi get()
 	{
-		this.wildebeestApi.setPluginGroups(pluginGroups);
-		this.wildebeestApi.setResourcePlugins(this.resourcePlugins);
-		this.wildebeestApi.setMigrationPlugins(this.migrationPlugins);
-		this.wildebeestApi.setAssertionPlugins(this.assertionPlugins);
+		return new WildebeestApiImpl(
+			this.eventSink,
+			wildebeestApi -> new PluginRegistry(
+				this.pluginGroups,
+				this.resourcePlugins,
+				this.assertionPlugins,
+				WildebeestApiBuilder.migrationPlugins(this.migrationPlugins, wildebeestApi)),
+			this.resourceCache,
+			this.assertionParallelism);
+	}
+
+	private static Map<String, MigrationPlugin> migrationPlugins(
+		List<Function<WildebeestApi, List<MigrationPlugin>>> migrationPlugins,
+		WildebeestApi wildebeestApi)
+	{
+		// Plugins added later replace earlier plugins for the same URI
+		Map<String, MigrationPlugin> result = new HashMap<>();
+
+		for (Function<WildebeestApi, List<MigrationPlugin>> source : migrationPlugins)
+		{
+			for (MigrationPlugin migrationPlugin : source.apply(wildebeestApi))
+			{
+				result.put(
+					Wildebeest.getPluginHandlerUri(migrationPlugin),
+					migrationPlugin);
+			}
+		}
 
-		return this.wildebeestApi;
+		return result;
 	}
 }
@@ -22,17 +22,20 @@ import co.mv.wb.AssertionFaultException;
 import co.mv.wb.AssertionPlugin;
 import co.mv.wb.AssertionResponse;
 import co.mv.wb.AssertionResult;
+import co.mv.wb.AssertionScope;
 import co.mv.wb.AssertionType;
 import co.mv.wb.EntityType;
 import co.mv.wb.FileLoadException;
 import co.mv.wb.IndeterminateStateException;
 import co.mv.wb.Instance;
+import co.mv.wb.InstanceSession;
 import co.mv.wb.InvalidReferenceException;
 import co.mv.wb.LoaderFault;
 import co.mv.wb.Migration;
 import co.mv.wb.MigrationFailedException;
 import co.mv.wb.MigrationNotPossibleException;
 import co.mv.wb.MigrationPlugin;
+import co.mv.wb.MigrationSummary;
 import co.mv.wb.MigrationType;
 import co.mv.wb.PluginBuildException;
 import co.mv.wb.PluginGroup;
@@ -40,40 +43,58 @@ import co.mv.wb.PluginNotFoundException;
 import co.mv.wb.PluginType;
 import co.mv.wb.PluginTypeInfo;
 import co.mv.wb.Resource;
+import co.mv.wb.ResourceLock;
 import co.mv.wb.ResourcePlugin;
 import co.mv.wb.ResourceType;
+import co.mv.wb.ResourceTypeService;
 import co.mv.wb.State;
+import co.mv.wb.StateIndex;
 import co.mv.wb.TargetNotSpecifiedException;
 import co.mv.wb.UnknownStateSpecifiedException;
+import co.mv.wb.VerificationPolicy;
 import co.mv.wb.Wildebeest;
 import co.mv.wb.WildebeestApi;
 import co.mv.wb.XmlValidationException;
+import co.mv.wb.event.Event;
 import co.mv.wb.event.EventSink;
 import co.mv.wb.event.Events;
 import co.mv.wb.framework.ArgumentException;
 import co.mv.wb.framework.ArgumentNullException;
 import co.mv.wb.framework.Util;
 import co.mv.wb.plugin.base.ImmutableAssertionResult;
-import co.mv.wb.plugin.base.dom.DomInstanceLoader;
+import co.mv.wb.plugin.base.dom.DomParser;
 import co.mv.wb.plugin.base.dom.DomPlugins;
-import co.mv.wb.plugin.base.dom.DomResourceLoader;
 import org.reflections.Reflections;
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 
-import javax.xml.transform.Source;
 import javax.xml.transform.stream.StreamSource;
-import javax.xml.validation.Schema;
-import javax.xml.validation.SchemaFactory;
-import javax.xml.validation.Validator;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -86,114 +107,105 @@ public class WildebeestApiImpl implements WildebeestApi
 {
 	private static final String RESOURCE_XSD = "resource.xsd";
 	private static final String INSTANCE_XSD = "instance.xsd";
+	private static final String INSTANCE_FILE_SUFFIX = ".wbinstance.xml";
+	private static final long STREAMING_RESOURCE_THRESHOLD = 8 * 1024 * 1024;
 
 	private final EventSink eventSink;
+	private final PluginRegistry pluginRegistry;
+	private final ResourceCache resourceCache;
+	private final int assertionParallelism;
 
-	private List<PluginGroup> pluginGroups;
-	private Map<ResourceType, ResourcePlugin> resourcePlugins;
-	private List<AssertionPlugin> assertionPlugins;
-	private Map<String, MigrationPlugin> migrationPlugins;
+	private final Map<Resource, MigrationGraph> migrationGraphs;
+	private final List<AutoCloseable> loadedInstances;
+	private final ThreadLocal<OperationCache> operations;
+	private volatile ExecutorService assertionExecutor;
+	private final AssertionScheduler assertionScheduler;
 
 	/**
-	 * Creates a new WildebeestApiImpl using the supplied {@link EventSink} for user output and the supplied
-	 * ResourceHelper.
+	 * Creates a new WildebeestApiImpl.  Everything that the WildebeestApiImpl is configured with is fixed when it is
+	 * constructed, so it may be shared by any number of threads.
 	 *
-	 * @param eventSink the event sink that should be used to output all events to the user.
-	 * @since 1.0
+	 * @param eventSink            the event sink that should be used to output all events to the user.
+	 * @param pluginRegistry       creates the registry of plugins that the WildebeestApiImpl will use.  It is given
+	 *                             the new WildebeestApiImpl, for plugins that drive the API that they belong to.
+	 * @param resourceCache        the {@link ResourceCache} that {@link #loadResource(File)} uses to skip reading,
+	 *                             validating and parsing resource files that have not changed since they were last
+	 *                             loaded, or null to load every resource from it's file.
+	 * @param assertionParallelism the number of assertions that may be performed at once when the assertions of a
+	 *                             state are checked.  With a parallelism of one the assertions are performed one after
+	 *                             another on the calling thread.  With a higher parallelism they are performed on a
+	 *                             bounded pool of threads, each using it's own connection, so the assertions see only
+	 *                             what has been committed.
+	 * @since 4.0
 	 */
-	public WildebeestApiImpl(EventSink eventSink)
+	public WildebeestApiImpl(
+		EventSink eventSink,
+		Function<WildebeestApi, PluginRegistry> pluginRegistry,
+		ResourceCache resourceCache,
+		int assertionParallelism)
 	{
 		if (eventSink == null) throw new ArgumentNullException("eventSink");
+		if (pluginRegistry == null) throw new ArgumentNullException("pluginRegistry");
+		if (assertionParallelism < 1) throw new IllegalArgumentException("assertionParallelism must be at least 1");
 
 		this.eventSink = eventSink;
-		this.pluginGroups = null;
-		this.resourcePlugins = null;
-		this.assertionPlugins = null;
-		this.migrationPlugins = null;
+		this.resourceCache = resourceCache;
+		this.assertionParallelism = assertionParallelism;
+		this.migrationGraphs = Collections.synchronizedMap(new WeakHashMap<>());
+		this.loadedInstances = new ArrayList<>();
+		this.operations = new ThreadLocal<>();
+		this.assertionExecutor = null;
+		this.assertionScheduler = new AssertionScheduler();
+		this.pluginRegistry = pluginRegistry.apply(this);
 	}
 
-	private List<PluginGroup> getPluginGroups()
+	private ExecutorService getAssertionExecutor()
 	{
-		if (this.pluginGroups == null)
-		{
-			throw new IllegalStateException("pluginGroups not set");
-		}
-
-		return this.pluginGroups;
-	}
-
-	public void setPluginGroups(List<PluginGroup> pluginGroups)
-	{
-		if (pluginGroups == null) throw new ArgumentNullException("pluginGroups");
-
-		this.pluginGroups = pluginGroups;
-	}
+		ExecutorService assertionExecutor = this.assertionExecutor;
 
-	private Map<ResourceType, ResourcePlugin> getResourcePlugins()
-	{
-		if (this.resourcePlugins == null)
+		if (assertionExecutor == null)
 		{
-			throw new IllegalStateException("resourcePlugins not set");
-		}
-
-		return this.resourcePlugins;
-	}
-
-	/**
-	 * Sets the set of {@link ResourcePlugin}'s that the WildebeestApiImpl will use.
-	 *
-	 * @param resourcePlugins the set of ResourcePlugins that the WildebeestApiImpl will use.
-	 * @since 4.0
-	 */
-	public void setResourcePlugins(Map<ResourceType, ResourcePlugin> resourcePlugins)
-	{
-		if (resourcePlugins == null) throw new ArgumentNullException("resourcePlugins");
-
-		this.resourcePlugins = resourcePlugins;
-	}
-
-	private List<AssertionPlugin> getAssertionPlugins()
-	{
-		if (this.assertionPlugins == null)
-		{
-			throw new IllegalStateException("assertionPlugins not set");
-		}
-
-		return this.assertionPlugins;
-	}
-
-	public void setAssertionPlugins(List<AssertionPlugin> assertionPlugins)
-	{
-		if (assertionPlugins == null) throw new ArgumentNullException("assertionPlugins");
-
-		this.assertionPlugins = assertionPlugins;
-	}
+			synchronized (this)
+			{
+				assertionExecutor = this.assertionExecutor;
 
-	private Map<String, MigrationPlugin> getMigrationPlugins()
-	{
-		if (this.migrationPlugins == null)
-		{
-			throw new IllegalStateException("migrationPlugins not set");
+				if (assertionExecutor == null)
+				{
+					AtomicInteger threadCount = new AtomicInteger(0);
+
+					assertionExecutor = Executors.newFixedThreadPool(
+						this.assertionParallelism,
+						runnable ->
+						{
+							Thread thread = new Thread(runnable, "wb-assertion-" + threadCount.incrementAndGet());
+							thread.setDaemon(true);
+							return thread;
+						});
+
+					this.assertionExecutor = assertionExecutor;
+				}
+			}
 		}
 
-		return this.migrationPlugins;
+		return assertionExecutor;
 	}
 
 	/**
-	 * Sets the set of {@link MigrationPlugin}'s that the WildebeestApiImpl will use.
+	 * Raises an event to the event sink, stamped with the run ID of the API operation in progress on this thread.
 	 *
-	 * @param migrationPlugins the set of MigrationPlugins that the WildebeestApi will use.
-	 * @since 4.0
+	 * @param event the event to raise.
 	 */
-	public void setMigrationPlugins(Map<String, MigrationPlugin> migrationPlugins)
+	private void raise(Event event)
 	{
-		if (migrationPlugins == null) throw new ArgumentNullException("migrationPlugins");
+		OperationCache operation = this.operations.get();
 
-		this.migrationPlugins = migrationPlugins;
+		this.eventSink.onEvent(operation == null ? event : event.withRunId(operation.getRunId()));
 	}
 
+
 	/**
-	 * Loads the {@link Resource} from the supplied File.
+	 * Loads the {@link Resource} from the supplied File.  If a {@link ResourceCache} has been set and it holds an
+	 * entry for the current contents of the file, the Resource and it's migration graph are taken from the cache.
 	 *
 	 * @param resourceFile the descriptor file from which the Resource should be deserialized.
 	 * @return the loaded Resource.
@@ -217,30 +229,109 @@ public class WildebeestApiImpl implements WildebeestApi
 		// Get the absolute file for this resource - this ensures that getParentFile works correctly
 		resourceFile = resourceFile.getAbsoluteFile();
 
-		// Load Resource
-		String resourceXml;
+		ResourceCache resourceCache = this.resourceCache;
+
+		if (resourceCache == null)
+		{
+			return WildebeestApiImpl.parseResource(resourceFile);
+		}
+
+		String cacheKey;
 		try
 		{
-			resourceXml = Util.readAllText(resourceFile);
+			cacheKey = resourceCache.key(resourceFile);
 		}
 		catch (IOException ex)
 		{
 			throw new FileLoadException(resourceFile);
 		}
 
-		Resource resource = null;
+		CompiledResource compiled = resourceCache.get(cacheKey);
+
+		if (compiled == null)
+		{
+			Resource resource = WildebeestApiImpl.parseResource(resourceFile);
+
+			MigrationGraph migrationGraph;
+			try
+			{
+				migrationGraph = MigrationGraph.build(resource);
+			}
+			catch (InvalidReferenceException e)
+			{
+				// Reported when the resource is migrated
+				migrationGraph = null;
+			}
+
+			compiled = new CompiledResource(resource, migrationGraph);
+			resourceCache.put(cacheKey, compiled);
+		}
 
-		if (resourceXml != null)
+		if (compiled.getMigrationGraph().isPresent())
 		{
-			WildebeestApiImpl.validateResourceXml(resourceXml);
-			DomResourceLoader resourceLoader = DomPlugins.resourceLoader(
-				ResourceTypeServiceBuilder
-					.create()
-					.withFactoryResourceTypes()
-					.build(),
-				resourceXml);
-
-			resource = resourceLoader.load(resourceFile.getParentFile());
+			this.migrationGraphs.put(compiled.getResource(), compiled.getMigrationGraph().get());
+		}
+
+		return compiled.getResource();
+	}
+
+	private static Resource parseResource(
+		File resourceFile) throws
+		FileLoadException,
+		InvalidReferenceException,
+		LoaderFault,
+		PluginBuildException,
+		XmlValidationException
+	{
+		ResourceTypeService resourceTypeService = ResourceTypeServiceBuilder
+			.create()
+			.withFactoryResourceTypes()
+			.build();
+
+		Resource resource;
+
+		if (resourceFile.length() > WildebeestApiImpl.STREAMING_RESOURCE_THRESHOLD)
+		{
+			// Very large resources are validated and then loaded in two streaming passes, so that the document is
+			// never held in memory as a whole
+			try
+			{
+				XmlSchemaCache.validate(
+					new StreamSource(resourceFile),
+					WildebeestApiImpl.RESOURCE_XSD);
+			}
+			catch (IOException ex)
+			{
+				throw new FileLoadException(resourceFile);
+			}
+			catch (SAXException e)
+			{
+				// Validation failed
+				throw new XmlValidationException(e.getMessage());
+			}
+
+			resource = DomPlugins
+				.streamingResourceLoader(resourceTypeService, resourceFile)
+				.load(resourceFile.getParentFile());
+		}
+		else
+		{
+			// Parse and validate the resource descriptor in a single pass
+			Document resourceXd;
+			try (InputStream resourceStream = new FileInputStream(resourceFile))
+			{
+				resourceXd = DomParser.parse(
+					new InputSource(resourceStream),
+					XmlSchemaCache.getSchema(WildebeestApiImpl.RESOURCE_XSD));
+			}
+			catch (IOException ex)
+			{
+				throw new FileLoadException(resourceFile);
+			}
+
+			resource = DomPlugins
+				.resourceLoader(resourceTypeService, resourceXd)
+				.load(resourceFile.getParentFile());
 		}
 
 		return resource;
@@ -272,29 +363,161 @@ public class WildebeestApiImpl implements WildebeestApi
 	{
 		if (instanceFile == null) throw new ArgumentNullException("instanceFile");
 
-		// Load Instance
-		String instanceXml;
-		try
+		// Parse and validate the instance descriptor in a single pass
+		Document instanceXd;
+		try (InputStream instanceStream = new FileInputStream(instanceFile))
 		{
-			instanceXml = Util.readAllText(instanceFile);
+			instanceXd = DomParser.parse(
+				new InputSource(instanceStream),
+				XmlSchemaCache.getSchema(WildebeestApiImpl.INSTANCE_XSD));
 		}
 		catch (IOException ex)
 		{
 			throw new FileLoadException(instanceFile);
 		}
 
-		Instance instance = null;
+		// Load Instance
+		Instance instance = DomPlugins
+			.instanceLoader(instanceXd)
+			.load();
+
+		this.registerInstance(instance);
 
-		if (instanceXml != null)
+		return instance;
+	}
+
+	public Map<String, Instance> loadInstances(
+		File instancesFile) throws
+		FileLoadException,
+		LoaderFault,
+		PluginBuildException,
+		XmlValidationException
+	{
+		if (instancesFile == null) throw new ArgumentNullException("instancesFile");
+
+		Map<String, Instance> instances = new LinkedHashMap<>();
+
+		if (instancesFile.isDirectory())
+		{
+			File[] instanceFiles = instancesFile.listFiles((dir, name) -> name.endsWith(INSTANCE_FILE_SUFFIX));
+			if (instanceFiles == null)
+			{
+				throw new FileLoadException(instancesFile);
+			}
+
+			Arrays.sort(instanceFiles, Comparator.comparing(File::getName));
+
+			for (File instanceFile : instanceFiles)
+			{
+				instances.put(
+					instanceFile.getName(),
+					this.loadInstance(instanceFile));
+			}
+		}
+		else
 		{
-			validateInstanceXml(instanceXml);
-			DomInstanceLoader instanceLoader = new DomInstanceLoader(
-				DomPlugins.instanceBuilders(),
-				instanceXml);
-			instance = instanceLoader.load();
+			Document instancesXd;
+			try (InputStream instancesStream = new FileInputStream(instancesFile))
+			{
+				instancesXd = DomParser.parse(
+					new InputSource(instancesStream),
+					XmlSchemaCache.getSchema(WildebeestApiImpl.INSTANCE_XSD));
+			}
+			catch (IOException ex)
+			{
+				throw new FileLoadException(instancesFile);
+			}
+
+			instances.putAll(DomPlugins
+				.instanceLoader(instancesXd)
+				.loadAll(instancesFile.getName() + "#"));
+
+			for (Instance instance : instances.values())
+			{
+				this.registerInstance(instance);
+			}
 		}
 
-		return instance;
+		return instances;
+	}
+
+	private void registerInstance(
+		Instance instance)
+	{
+		// Instances that hold resources, such as pooled connections, are released when this session is closed
+		if (instance instanceof AutoCloseable)
+		{
+			synchronized (this.loadedInstances)
+			{
+				this.loadedInstances.add((AutoCloseable)instance);
+			}
+		}
+	}
+
+	@Override public void closeInstance(
+		Instance instance)
+	{
+		if (instance == null) throw new ArgumentNullException("instance");
+
+		if (!(instance instanceof AutoCloseable))
+		{
+			return;
+		}
+
+		boolean registered;
+		synchronized (this.loadedInstances)
+		{
+			registered = this.loadedInstances.removeIf(x -> x == instance);
+		}
+
+		if (registered)
+		{
+			try
+			{
+				((AutoCloseable)instance).close();
+			}
+			catch (Exception e)
+			{
+				// As in close(), a failure to release an instance does not stop the caller
+			}
+		}
+	}
+
+	/**
+	 * Closes the instances that have been loaded through this WildebeestApiImpl, releasing their pooled connections,
+	 * and stops the threads used to perform assertions in parallel.
+	 *
+	 * @since 4.0
+	 */
+	@Override public void close()
+	{
+		synchronized (this)
+		{
+			if (this.assertionExecutor != null)
+			{
+				this.assertionExecutor.shutdown();
+				this.assertionExecutor = null;
+			}
+		}
+
+		List<AutoCloseable> instances;
+		synchronized (this.loadedInstances)
+		{
+			instances = new ArrayList<>(this.loadedInstances);
+			this.loadedInstances.clear();
+		}
+
+		for (AutoCloseable instance : instances)
+		{
+			try
+			{
+				instance.close();
+			}
+			catch (Exception e)
+			{
+				// Keep closing the remaining instances
+			}
+		}
 	}
 
 	/**
@@ -320,59 +543,293 @@ public class WildebeestApiImpl implements WildebeestApi
 		Instance instance) throws
 		IndeterminateStateException,
 		PluginNotFoundException
+	{
+		return this.assertState(
+			resource,
+			instance,
+			false);
+	}
+
+	/**
+	 * Performs the assertions of the current state of the instance, cheapest first.  An assertion that appears more
+	 * than once in the state is performed once.
+	 *
+	 * @param resource the resource definition.
+	 * @param instance the instance to check.
+	 * @param failFast true to stop at the first failed assertion, in which case the results of the assertions that
+	 *                 were not performed are left out.
+	 * @return the results, in seqNum order.
+	 */
+	// The assertion scope is held while the assertions are checked, and is only ever closed, never referenced
+	@SuppressWarnings("try")
+	private List<AssertionResult> assertState(
+		Resource resource,
+		Instance instance,
+		boolean failFast) throws
+		IndeterminateStateException,
+		PluginNotFoundException
 	{
 		if (resource == null) throw new ArgumentNullException("resource");
 		if (instance == null) throw new ArgumentNullException("instance");
 
-		State state = this.currentState(resource, instance);
+		try (OperationCache operation = OperationCache.open(this.operations))
+		{
+			State state = this.currentState(resource, instance);
+
+			// An assertion may be added to a state more than once, for example by reference and through a group
+			List<Assertion> assertions = new ArrayList<>();
+			Set<UUID> assertionIds = new HashSet<>();
+			state.getAssertions()
+				.stream()
+				.sorted(Comparator.comparingInt(Assertion::getSeqNum))
+				.filter(x -> assertionIds.add(x.getAssertionId()))
+				.forEach(assertions::add);
+
+			// Assertions that have already been checked against this state in the same operation are not checked again
+			List<Assertion> unchecked = new ArrayList<>();
+			List<AssertionPlugin> assertionPlugins = new ArrayList<>();
+			boolean failed = false;
+			for (Assertion assertion : assertions)
+			{
+				AssertionResult assertionResult = operation.getAssertionResult(
+					instance,
+					state.getStateId(),
+					assertion.getAssertionId());
+
+				if (assertionResult == null)
+				{
+					unchecked.add(assertion);
+					assertionPlugins.add(this.getAssertionPlugin(assertion));
+				}
+				else if (!assertionResult.getResult())
+				{
+					failed = true;
+				}
+			}
+
+			if (!unchecked.isEmpty() && !(failFast && failed))
+			{
+				this.assertionScheduler.order(unchecked, assertionPlugins);
+
+				int parallelism = this.assertionParallelism;
+
+				List<AssertionResult> checked;
+
+				// The instance may share work, such as reading it's catalog, between the assertions checked in one scope
+				try (AssertionScope scope = instance.openAssertionScope(unchecked))
+				{
+					checked = parallelism > 1 && unchecked.size() > 1
+						? this.performAssertionsInParallel(state, unchecked, assertionPlugins, instance, failFast)
+						: this.performAssertions(state, unchecked, assertionPlugins, instance, failFast);
+				}
+
+				for (AssertionResult assertionResult : checked)
+				{
+					operation.putAssertionResult(instance, state.getStateId(), assertionResult);
+				}
+			}
+
+			List<AssertionResult> result = new ArrayList<>();
+			for (Assertion assertion : assertions)
+			{
+				AssertionResult assertionResult = operation.getAssertionResult(
+					instance,
+					state.getStateId(),
+					assertion.getAssertionId());
+
+				if (assertionResult != null)
+				{
+					result.add(assertionResult);
+				}
+			}
+
+			return result;
+		}
+	}
 
+
+	private List<AssertionResult> performAssertions(
+		State state,
+		List<Assertion> assertions,
+		List<AssertionPlugin> assertionPlugins,
+		Instance instance,
+		boolean failFast)
+	{
 		List<AssertionResult> result = new ArrayList<>();
 
-		for (Assertion assertion : state.getAssertions())
+		for (int i = 0; i < assertions.size(); i++)
 		{
-			AssertionPlugin assertionPlugin = this.getAssertionPlugin(assertion);
+			Assertion assertion = assertions.get(i);
 
-			eventSink.onEvent(Events.assertionStart(
+			this.raise(Events.assertionStart(
 				state,
 				assertion));
 
+			AssertionResult assertionResult;
+
 			try
 			{
-				AssertionResponse response = assertionPlugin.perform(
+				AssertionResponse response = this.performAssertion(
 					assertion,
+					assertionPlugins.get(i),
 					instance);
 
-				if (response.getResult())
+				assertionResult = this.assertionResult(state, assertion, response);
+			}
+			catch (Exception e)
+			{
+				throw new AssertionFaultException(
+					assertion.getAssertionId(),
+					e);
+			}
+
+			result.add(assertionResult);
+
+			if (failFast && !assertionResult.getResult())
+			{
+				break;
+			}
+		}
+
+		return result;
+	}
+
+
+	private List<AssertionResult> performAssertionsInParallel(
+		State state,
+		List<Assertion> assertions,
+		List<AssertionPlugin> assertionPlugins,
+		Instance instance,
+		boolean failFast)
+	{
+		CompletionService<AssertionResponse> completion = new ExecutorCompletionService<>(this.getAssertionExecutor());
+		List<Future<AssertionResponse>> responses = new ArrayList<>();
+
+		try
+		{
+			// Every assertion is started in schedule order
+			for (int i = 0; i < assertions.size(); i++)
+			{
+				Assertion assertion = assertions.get(i);
+				AssertionPlugin assertionPlugin = assertionPlugins.get(i);
+
+				this.raise(Events.assertionStart(
+					state,
+					assertion));
+
+				responses.add(completion.submit(() -> this.performAssertion(assertion, assertionPlugin, instance)));
+			}
+
+			List<AssertionResult> result = new ArrayList<>();
+
+			for (int i = 0; i < assertions.size(); i++)
+			{
+				// When failing fast the results are taken as they complete, so that a failure is seen as soon as it
+				// happens.  Otherwise they are taken in the order they were started.
+				Future<AssertionResponse> response;
+				try
 				{
-					eventSink.onEvent(Events.assertionComplete(
-						state,
-						assertion));
+					response = failFast ? completion.take() : responses.get(i);
 				}
-				else
+				catch (InterruptedException e)
 				{
-					eventSink.onEvent(Events.assertionFailed(
-						state,
-						assertion,
-						response.getMessage()));
+					Thread.currentThread().interrupt();
+					throw new AssertionFaultException(
+						assertions.get(i).getAssertionId(),
+						e);
 				}
 
-				result.add(new ImmutableAssertionResult(
-					assertion.getAssertionId(),
-					response.getResult(),
-					response.getMessage()));
+				Assertion assertion = assertions.get(responses.indexOf(response));
+				AssertionResult assertionResult;
+
+				try
+				{
+					assertionResult = this.assertionResult(state, assertion, response.get());
+				}
+				catch (ExecutionException e)
+				{
+					throw new AssertionFaultException(
+						assertion.getAssertionId(),
+						e.getCause() instanceof Exception ? (Exception)e.getCause() : e);
+				}
+				catch (InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+					throw new AssertionFaultException(
+						assertion.getAssertionId(),
+						e);
+				}
+
+				result.add(assertionResult);
+
+				if (failFast && !assertionResult.getResult())
+				{
+					break;
+				}
 			}
-			catch (Exception e)
+
+			return result;
+		}
+		finally
+		{
+			// Anything still running once a result has failed or faulted is no longer needed
+			for (Future<AssertionResponse> response : responses)
 			{
-				throw new AssertionFaultException(
-					assertion.getAssertionId(),
-					e);
+				response.cancel(true);
 			}
 		}
+	}
+
+	private AssertionResponse performAssertion(
+		Assertion assertion,
+		AssertionPlugin assertionPlugin,
+		Instance instance)
+	{
+		long start = System.nanoTime();
+
+		try
+		{
+			return assertionPlugin.perform(
+				assertion,
+				instance);
+		}
+		finally
+		{
+			this.assertionScheduler.record(
+				assertion,
+				System.nanoTime() - start);
+		}
+	}
 
-		return result;
+
+	private AssertionResult assertionResult(
+		State state,
+		Assertion assertion,
+		AssertionResponse response)
+	{
+		if (response.getResult())
+		{
+			this.raise(Events.assertionComplete(
+				state,
+				assertion));
+		}
+		else
+		{
+			this.raise(Events.assertionFailed(
+				state,
+				assertion,
+				response.getMessage()));
+		}
+
+		return new ImmutableAssertionResult(
+			assertion.getAssertionId(),
+			response.getResult(),
+			response.getMessage());
 	}
 
 	// TODO: Should be a response
+	// The operation cache is held while the state is read and asserted, and is only ever closed, never referenced
+	@SuppressWarnings("try")
 	public void state(
 		Resource resource,
 		Instance instance) throws
@@ -383,13 +840,16 @@ public class WildebeestApiImpl implements WildebeestApi
 		if (resource == null) throw new ArgumentNullException("resource");
 		if (instance == null) throw new ArgumentNullException("instance");
 
-		State state = this.currentState(resource, instance);
-
-		if (state != null)
+		try (OperationCache operation = OperationCache.open(this.operations))
 		{
-			this.assertStateAndThrowIfFailed(
-				resource,
-				instance);
+			State state = this.currentState(resource, instance);
+
+			if (state != null)
+			{
+				this.assertStateAndThrowIfFailed(
+					resource,
+					instance);
+			}
 		}
 	}
 
@@ -406,9 +866,34 @@ public class WildebeestApiImpl implements WildebeestApi
 		PluginNotFoundException,
 		TargetNotSpecifiedException,
 		UnknownStateSpecifiedException
+	{
+		this.migrate(
+			resource,
+			instance,
+			targetState,
+			VerificationPolicy.everyStep());
+	}
+
+	// TODO: Should be a response
+	// The lock is held for the whole migration, and is only ever released, never referenced
+	@SuppressWarnings("try")
+	public void migrate(
+		Resource resource,
+		Instance instance,
+		String targetState,
+		VerificationPolicy verificationPolicy) throws
+		AssertionFailedException,
+		IndeterminateStateException,
+		InvalidReferenceException,
+		MigrationFailedException,
+		MigrationNotPossibleException,
+		PluginNotFoundException,
+		TargetNotSpecifiedException,
+		UnknownStateSpecifiedException
 	{
 		if (resource == null) throw new ArgumentNullException("resource");
 		if (instance == null) throw new ArgumentNullException("instance");
+		if (verificationPolicy == null) throw new ArgumentNullException("verificationPolicy");
 
 		ResourcePlugin resourcePlugin = this.getResourcePlugin(
 			resource.getType());
@@ -435,8 +920,125 @@ public class WildebeestApiImpl implements WildebeestApi
 			throw new UnknownStateSpecifiedException(ts);
 		}
 
+		// One session carries every migration step, state update and assertion, and the current state is probed once
+		// and then tracked as each step is applied
+		// The instance is locked before it's state is read, so that a process that waited on the lock reads the state
+		// left by the one before it, and has nothing to do if that process has already reached the target
+		try (OperationCache operation = OperationCache.open(this.operations);
+			 ResourceLock lock = this.lock(resourcePlugin, resource, instance);
+			 InstanceSession session = instance.openSession())
+		{
+			this.migrateInSession(
+				resource,
+				instance,
+				session,
+				resourcePlugin,
+				targetStateId,
+				verificationPolicy);
+		}
+	}
+
+	public MigrationSummary migrateAll(
+		Resource resource,
+		Map<String, Instance> instances,
+		String targetState,
+		VerificationPolicy verificationPolicy,
+		int parallelism)
+	{
+		if (resource == null) throw new ArgumentNullException("resource");
+		if (instances == null) throw new ArgumentNullException("instances");
+		if (verificationPolicy == null) throw new ArgumentNullException("verificationPolicy");
+		if (parallelism < 1) throw new ArgumentException("parallelism", "parallelism must be at least 1");
+
+		List<String> succeeded = new ArrayList<>();
+		Map<String, Exception> failed = new LinkedHashMap<>();
+
+		if (instances.isEmpty())
+		{
+			return new MigrationSummary(succeeded, failed);
+		}
+
+		AtomicInteger threadCount = new AtomicInteger(0);
+		ExecutorService executor = Executors.newFixedThreadPool(
+			Math.min(parallelism, instances.size()),
+			runnable ->
+			{
+				Thread thread = new Thread(runnable, "wb-migration-" + threadCount.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			});
+
+		try
+		{
+			// Each instance is migrated on it's own, and whatever stops one instance is recorded against it alone
+			Map<String, Future<?>> migrations = new LinkedHashMap<>();
+			for (Map.Entry<String, Instance> instance : instances.entrySet())
+			{
+				migrations.put(
+					instance.getKey(),
+					executor.submit(() ->
+					{
+						try
+						{
+							this.migrate(
+								resource,
+								instance.getValue(),
+								targetState,
+								verificationPolicy);
+						}
+						finally
+						{
+							// Otherwise every instance in a large set would hold it's connections open until the end
+							instance.getValue().closeConnections();
+						}
+						return null;
+					}));
+			}
+
+			for (Map.Entry<String, Future<?>> migration : migrations.entrySet())
+			{
+				try
+				{
+					migration.getValue().get();
+					succeeded.add(migration.getKey());
+				}
+				catch (ExecutionException e)
+				{
+					failed.put(
+						migration.getKey(),
+						e.getCause() instanceof Exception ? (Exception)e.getCause() : e);
+				}
+				catch (InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+					failed.put(migration.getKey(), e);
+				}
+			}
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+
+		return new MigrationSummary(succeeded, failed);
+	}
+
+	private void migrateInSession(
+		Resource resource,
+		Instance instance,
+		InstanceSession session,
+		ResourcePlugin resourcePlugin,
+		UUID targetStateId,
+		VerificationPolicy verificationPolicy) throws
+		AssertionFailedException,
+		IndeterminateStateException,
+		InvalidReferenceException,
+		MigrationFailedException,
+		MigrationNotPossibleException,
+		PluginNotFoundException
+	{
 		// Resolve the current state
-		State currentState = resourcePlugin.currentState(
+		State currentState = this.currentState(
 			resource,
 			instance);
 
@@ -452,17 +1054,11 @@ public class WildebeestApiImpl implements WildebeestApi
 		}
 		else
 		{
-			List<List<Migration>> paths = WildebeestApiImpl.findPaths(resource, currentStateId, targetStateId);
-
-			if (paths.size() != 1)
-			{
-				throw new RuntimeException("multiple possible paths found");
-			}
-
-			List<Migration> path = paths.get(0);
-
 			validateMigrationStates(resource);
 
+			MigrationGraph graph = this.getMigrationGraph(resource);
+			List<Migration> path = graph.findShortestPath(currentStateId, targetStateId);
+
 			if (currentState != null)
 			{
 				this.assertStateAndThrowIfFailed(
@@ -470,63 +1066,90 @@ public class WildebeestApiImpl implements WildebeestApi
 					instance);
 			}
 
+			int step = 0;
+
 			for (Migration migration : path)
 			{
+				step++;
+
 				String migrationTypeUri = migration.getClass().getAnnotation(MigrationType.class).uri();
 				MigrationPlugin migrationPlugin = this.getMigrationPlugin(migrationTypeUri);
 
-				State fromState = migration.getFromState().isPresent()
-					? Wildebeest.findState(resource, migration.getFromState().get())
-					: null;
-				State toState = migration.getToState().isPresent()
-					? Wildebeest.findState(resource, migration.getToState().get())
-					: null;
+				State fromState = graph.getFromState(migration);
+				State toState = graph.getToState(migration);
 
-				// Migrate to the next state
-				eventSink.onEvent(Events.migrationStart(
-					migration,
-					fromState,
-					toState));
+				// Where the instance supports it, the migration and the state update are committed together
+				boolean transaction = session.beginTransaction();
 
 				try
 				{
-					migrationPlugin.perform(
-						eventSink,
+					// Migrate to the next state
+					this.raise(Events.migrationStart(
 						migration,
-						instance);
-				}
-				catch (Exception e)
-				{
-					eventSink.onEvent(Events.migrationFailed(
+						fromState,
+						toState));
+
+					try
+					{
+						migrationPlugin.perform(
+							this::raise,
+							migration,
+							instance);
+					}
+					catch (Exception e)
+					{
+						this.raise(Events.migrationFailed(
+							migration,
+							fromState,
+							toState,
+							e.getMessage()));
+						throw e;
+					}
+
+					this.raise(Events.migrationComplete(
 						migration,
 						fromState,
-						toState,
-						e.getMessage()));
-					throw e;
-				}
+						toState));
 
-				eventSink.onEvent(Events.migrationComplete(
-					migration,
-					fromState,
-					toState));
+					// Update the state
+					// TODO: This will fail if toState is null (i.e. non-existant).  In this case the state-tracking record should be removed
+					this.setStateId(
+						resourcePlugin,
+						resource,
+						instance,
+						toState.getStateId());
+
+					if (transaction)
+					{
+						transaction = false;
+						session.commitTransaction();
+					}
+				}
+				finally
+				{
+					if (transaction)
+					{
+						session.rollbackTransaction();
+					}
 
-				// Update the state
-				// TODO: This will fail if toState is null (i.e. non-existant).  In this case the state-tracking record should be removed
-				resourcePlugin.setStateId(
-					eventSink,
-					resource,
-					instance,
-					toState.getStateId());
+					// The migration itself may have changed the tracked state
+					this.invalidateInstance(instance);
+				}
 
-				// Assert the new state
-				this.assertStateAndThrowIfFailed(
-					resource,
-					instance);
+				// Assert the new state, unless the policy defers verification to a later step
+				if (verificationPolicy.shouldVerify(step, path.size()))
+				{
+					this.assertStateAndThrowIfFailed(
+						resource,
+						instance);
+				}
 			}
 		}
 	}
 
 	// TODO: Response object
+	// The lock is held while the state is set, and is only ever released, never referenced
+	@SuppressWarnings("try")
 	public void jumpstate(
 		Resource resource,
 		Instance instance,
@@ -555,22 +1178,47 @@ public class WildebeestApiImpl implements WildebeestApi
 			throw new UnknownStateSpecifiedException(targetState);
 		}
 
-		eventSink.onEvent(Events.jumpStateStart(state));
+		try (OperationCache operation = OperationCache.open(this.operations))
+		{
+			this.raise(Events.jumpStateStart(state));
 
-		// TODO: Apply the assertions for the target state BEFORE we set it - this will let us check if it will actually pass once we jump state.
+			// TODO: Apply the assertions for the target state BEFORE we set it - this will let us check if it will actually pass once we jump state.
 
-		resourcePlugin.setStateId(
-			eventSink,
-			resource,
-			instance,
-			state.getStateId());
+			try (ResourceLock lock = this.lock(resourcePlugin, resource, instance);
+				 InstanceSession session = instance.openSession())
+			{
+				boolean transaction = session.beginTransaction();
 
-		// Assert the new state
-		this.assertStateAndThrowIfFailed(
-			resource,
-			instance);
+				try
+				{
+					this.setStateId(
+						resourcePlugin,
+						resource,
+						instance,
+						state.getStateId());
+
+					if (transaction)
+					{
+						transaction = false;
+						session.commitTransaction();
+					}
+				}
+				finally
+				{
+					if (transaction)
+					{
+						session.rollbackTransaction();
+					}
+				}
+
+				// Assert the new state
+				this.assertStateAndThrowIfFailed(
+					resource,
+					instance);
+			}
 
-		eventSink.onEvent(Events.jumpStateComplete(state));
+			this.raise(Events.jumpStateComplete(state));
+		}
 	}
 
 	@Override
@@ -582,7 +1230,7 @@ public class WildebeestApiImpl implements WildebeestApi
 
 		output.append("<groups>");
 
-		this.getPluginGroups()
+		this.pluginRegistry.getPluginGroups()
 			.stream()
 			.forEach(x -> output
 				.append("<group ")
@@ -665,7 +1313,8 @@ public class WildebeestApiImpl implements WildebeestApi
 
 	/**
 	 * Helper function to find the applicable ResourcePlugin and query it for the current {@link State}} of an instance
-	 * in a single hit.
+	 * in a single hit.  Within an API operation the state is probed once and remembered until the tracked state of the
+	 * instance changes.
 	 *
 	 * @param resource the resource definition.
 	 * @param instance the instance definition.
@@ -679,16 +1328,123 @@ public class WildebeestApiImpl implements WildebeestApi
 		IndeterminateStateException,
 		PluginNotFoundException
 	{
+		OperationCache operation = this.operations.get();
+
+		if (operation != null)
+		{
+			Optional<State> known = operation.getCurrentState(resource, instance);
+
+			if (known != null)
+			{
+				return known.orElse(null);
+			}
+		}
+
 		ResourcePlugin resourcePlugin = this.getResourcePlugin(
 			resource.getType());
 
-		return resourcePlugin.currentState(
+		State result = resourcePlugin.currentState(
 			resource,
 			instance);
+
+		if (operation != null)
+		{
+			operation.putCurrentState(resource, instance, result);
+		}
+
+		return result;
+	}
+
+	private void setStateId(
+		ResourcePlugin resourcePlugin,
+		Resource resource,
+		Instance instance,
+		UUID stateId)
+	{
+		try
+		{
+			resourcePlugin.setStateId(
+				this::raise,
+				resource,
+				instance,
+				stateId);
+		}
+		finally
+		{
+			this.invalidateInstance(instance);
+		}
+	}
+
+	private ResourceLock lock(
+		ResourcePlugin resourcePlugin,
+		Resource resource,
+		Instance instance)
+	{
+		OperationCache operation = this.operations.get();
+
+		// A nested operation on the same instance, such as the migration of an external resource, already holds the
+		// lock
+		if (!operation.addLocked(instance))
+		{
+			return () ->
+			{
+			};
+		}
+
+		ResourceLock lock;
+
+		try
+		{
+			lock = resourcePlugin.lock(
+				resource,
+				instance);
+		}
+		catch (RuntimeException e)
+		{
+			operation.removeLocked(instance);
+			throw e;
+		}
+
+		return () ->
+		{
+			try
+			{
+				lock.close();
+			}
+			finally
+			{
+				operation.removeLocked(instance);
+			}
+		};
+	}
+
+	private void invalidateInstance(
+		Instance instance)
+	{
+		OperationCache operation = this.operations.get();
+
+		if (operation != null)
+		{
+			operation.invalidate(instance);
+		}
 	}
 
 
 	// TODO: Make assertState return a failed response object rather than throwing an exception
+	private MigrationGraph getMigrationGraph(
+		Resource resource) throws
+		InvalidReferenceException
+	{
+		MigrationGraph graph = this.migrationGraphs.get(resource);
+
+		if (graph == null || !graph.isCurrentFor(resource))
+		{
+			graph = MigrationGraph.build(resource);
+		}
+
+		return graph;
+	}
+
 	private void assertStateAndThrowIfFailed(
 		Resource resource,
 		Instance instance) throws
@@ -700,7 +1456,11 @@ public class WildebeestApiImpl implements WildebeestApi
 
 		State state = this.currentState(resource, instance);
 
-		List<AssertionResult> assertionResults = assertState(resource, instance);
+		// Only whether the state holds is needed, so checking stops at the first failed assertion
+		List<AssertionResult> assertionResults = this.assertState(
+			resource,
+			instance,
+			true);
 
 		// If any assertions failed, throw
 		if (assertionResults.stream().anyMatch(x -> !x.getResult()))
@@ -709,6 +1469,18 @@ public class WildebeestApiImpl implements WildebeestApi
 		}
 	}
 
+	/**
+	 * Enumerates every path of migrations through the supplied {@link Resource} from one state to another.
+	 *
+	 * @param resource    the resource that we are looking for a migration path through.
+	 * @param fromState   the optional starting point for the migration.  If this is null it indicates we are migrating
+	 *                    from the non-existent state.
+	 * @param targetState the optional target state for the migration.  If this is null it means we're migrating to the
+	 *                    non-existent state.
+	 * @return the list of all cycle-free paths from the starting point to the target.
+	 * @throws InvalidReferenceException if any migration in the resource refers to an unknown state.
+	 * @since 4.0
+	 */
 	public static List<List<Migration>> findPaths(
 		Resource resource,
 		UUID fromState,
@@ -717,95 +1489,9 @@ public class WildebeestApiImpl implements WildebeestApi
 	{
 		if (resource == null) throw new ArgumentNullException("resource");
 
-		return findPaths(resource, fromState, targetState, new ArrayList<>());
-	}
-
-	/**
-	 * @param resource      the resource that we are looking for a migration path through.
-	 * @param fromStateId   the optional starting point for this recursive iteration of the path finding algorithm.  If
-	 *                      this is null it indicates we are migrating from the non-existent state.
-	 * @param targetStateId the optional target state for the migration.  If this is null it means we're migrating to
-	 *                      the non-existent state.
-	 * @param currPath      the path that we've built up so far on the current recursive search.
-	 * @return
-	 */
-	private static List<List<Migration>> findPaths(
-		Resource resource,
-		UUID fromStateId,
-		UUID targetStateId,
-		List<Migration> currPath) throws
-		InvalidReferenceException
-	{
-		if (resource == null) throw new ArgumentNullException("resource");
-		if (currPath == null) throw new ArgumentNullException("currPath");
-
-		List<List<Migration>> paths = new ArrayList<>();
-		List<Migration> possibleMigrations = findPossibleMigrations(fromStateId, resource.getMigrations());
-
-		for (Migration migration : possibleMigrations)
-		{
-			List<Migration> newPath = new ArrayList<>(currPath);
-
-			// TODO: the toString() approach is not an optimal nor robust way to do this - find a better way
-			if (migration.getToState().isPresent() && newPath.toString().contains(migration.getToState().get()))
-			{
-				// Circular path detected
-				break;
-			}
-
-			newPath.add(migration);
-
-			if (migration.getToState().isPresent())
-			{
-				UUID toStateId = Wildebeest.findState(resource, migration.getToState().get()).getStateId();
-
-				// If we've arrived at the target, then this is a complete path
-				if (targetStateId != null && targetStateId.equals(toStateId))
-				{
-					// Register the complete path
-					paths.add(newPath);
-				}
-
-				// Otherwise recurse to look for more paths
-				else
-				{
-					// Add all complete path found to paths
-					paths.addAll(findPaths(
-						resource,
-						toStateId,
-						targetStateId,
-						newPath
-					));
-				}
-			}
-			else
-			{
-				if (targetStateId == null)
-				{
-					// A complete path found
-					paths.add(newPath);
-				}
-			}
-		}
-
-		return paths;
-	}
-
-	private static List<Migration> findPossibleMigrations(
-		UUID fromState,
-		List<Migration> migrations)
-	{
-		return migrations.parallelStream().filter(m ->
-		{
-			if (fromState != null)
-			{
-				return m.getFromState().isPresent() && m.getFromState().get().equals(fromState.toString());
-			}
-			else
-			{
-				return !m.getFromState().isPresent();
-			}
-		}).collect(Collectors.toList());
+		return MigrationGraph
+			.build(resource)
+			.findAllPaths(fromState, targetState);
 	}
 
 	private static void validateXml(
@@ -818,17 +1504,9 @@ public class WildebeestApiImpl implements WildebeestApi
 
 		try
 		{
-			SchemaFactory factory = SchemaFactory.newInstance("http://www.w3.org/XML/XMLSchema/v1.1");
-
-			Schema schema;
-			try (InputStream schemaStream = WildebeestApiImpl.class.getResource(xsdResourceName).openStream())
-			{
-				schema = factory.newSchema(new StreamSource(schemaStream));
-			}
-
-			Validator validator = schema.newValidator();
-			Source source = new StreamSource(new StringReader(xml));
-			validator.validate(source);
+			XmlSchemaCache.validate(
+				new StreamSource(new StringReader(xml)),
+				xsdResourceName);
 		}
 		catch (IOException e)
 		{
@@ -855,7 +1533,7 @@ public class WildebeestApiImpl implements WildebeestApi
 		if (resource == null) throw new ArgumentNullException("resource");
 
 		List<Migration> migrations = resource.getMigrations();
-		List<State> states = resource.getStates();
+		StateIndex stateIndex = resource.getStateIndex();
 
 		for (Migration m : migrations)
 		{
@@ -872,21 +1550,11 @@ public class WildebeestApiImpl implements WildebeestApi
 */
 			}
 
-			// If either of the terminals are not set then they are valid
-			boolean fromIsValid = !m.getFromState().isPresent();
-			boolean toIsValid = !m.getToState().isPresent();
-
-			// Search the states for those that match the non-empty references on the migration.
-			for (State s : states)
-			{
-				fromIsValid |= s.matchesStateRef(m.getFromState().orElse(null));
-				toIsValid |= s.matchesStateRef(m.getToState().orElse(null));
-
-				if (fromIsValid && toIsValid)
-				{
-					break;
-				}
-			}
+			// If either of the terminals are not set then they are valid, otherwise they must match a state
+			boolean fromIsValid = !m.getFromState().isPresent() ||
+				stateIndex.byRef(m.getFromState().get()).isPresent();
+			boolean toIsValid = !m.getToState().isPresent() ||
+				stateIndex.byRef(m.getToState().get()).isPresent();
 
 			// If after checking all states in the resource either the from or to references do not match a state, then
 			// the migration  definition is invalid as it is referring to an unknown state.  Craft a message specifying
@@ -935,11 +1603,11 @@ public class WildebeestApiImpl implements WildebeestApi
 	{
 		if (resourceType == null) throw new ArgumentNullException("resourceType");
 
-		ResourcePlugin resourcePlugin = this.getResourcePlugins().get(resourceType);
+		ResourcePlugin resourcePlugin = this.pluginRegistry.getResourcePlugins().get(resourceType);
 
 		if (resourcePlugin == null)
 		{
-			List<String> knownUris = this.getResourcePlugins().keySet()
+			List<String> knownUris = this.pluginRegistry.getResourcePlugins().keySet()
 				.stream()
 				.map(x -> x.getUri())
 				.collect(Collectors.toList());
@@ -995,8 +1663,6 @@ public class WildebeestApiImpl implements WildebeestApi
 	{
 		if (assertion == null) throw new ArgumentNullException("assertion");
 
-		List<PluginTypeInfo> pluginTypeInfos = this.getAssertionPluginTypeInfos();
-
 		// Get the URI of the supplied assertion
 		AssertionType assertionType = assertion.getClass().getAnnotation(AssertionType.class);
 		if (assertionType == null)
@@ -1007,14 +1673,15 @@ public class WildebeestApiImpl implements WildebeestApi
 		}
 
 		// Find the single plugin, if any, that declares support for Assertion identified by the supplied URI
-		Optional<AssertionPlugin> plugin = this.getAssertionPlugins()
+		Optional<AssertionPlugin> plugin = this.pluginRegistry.getAssertionPlugins()
 			.stream()
 			.filter(x -> Wildebeest.getPluginHandlerUri(x).equals(assertionType.uri()))
 			.findFirst();
 
 		if (!plugin.isPresent())
 		{
-			List<String> knownUris = pluginTypeInfos
+			// Scanning for the known assertion types is slow, so it is only done when the lookup has already failed
+			List<String> knownUris = WildebeestApiImpl.getAssertionPluginTypeInfos()
 				.stream()
 				.map(x -> x.getUri())
 				.collect(Collectors.toList());
@@ -1041,9 +1708,9 @@ public class WildebeestApiImpl implements WildebeestApi
 	{
 		if (uri == null) throw new ArgumentNullException("uri");
 
-		if (!this.getMigrationPlugins().containsKey(uri))
+		if (!this.pluginRegistry.getMigrationPlugins().containsKey(uri))
 		{
-			List<String> knownUris = new ArrayList<>(this.getMigrationPlugins().keySet());
+			List<String> knownUris = new ArrayList<>(this.pluginRegistry.getMigrationPlugins().keySet());
 
 			throw new PluginNotFoundException(
 				PluginType.Migration,
@@ -1051,7 +1718,7 @@ public class WildebeestApiImpl implements WildebeestApi
 				knownUris);
 		}
 
-		return this.getMigrationPlugins().get(uri);
+		return this.pluginRegistry.getMigrationPlugins().get(uri);
 	}
 
 	private static List<PluginTypeInfo> getMigrationTypeInfos()
@@ -0,0 +1,173 @@
+// Wildebeest Migration Framework
+// Copyright © 2013 - 2018, Matheson Ventures Pte Ltd
+//
+// This file is part of Wildebeest
+//
+// Wildebeest is free software: you can redistribute it and/or modify it under
+// the terms of the GNU General Public License v2 as published by the Free
+// Software Foundation.
+//
+// Wildebeest is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Wildebeest.  If not, see http://www.gnu.org/licenses/gpl-2.0.html
+
+package co.mv.wb.impl;
+
+import co.mv.wb.framework.ArgumentNullException;
+import org.xml.sax.SAXException;
+
+import javax.xml.transform.Source;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import javax.xml.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A process-wide cache of compiled XSD 1.1 {@link Schema}'s, loaded from classpath resources alongside this class.
+ * Each schema is compiled once on first use.  Compiled schemas are thread-safe, but {@link Validator}'s are not, so
+ * validators are pooled per schema and each is used by one thread at a time.
+ *
+ * @since 4.0
+ */
+public final class XmlSchemaCache
+{
+	private static final String XSD_1_1 = "http://www.w3.org/XML/XMLSchema/v1.1";
+	private static final int MAX_POOLED_VALIDATORS = 16;
+
+	private static final ConcurrentMap<String, CachedSchema> SCHEMAS = new ConcurrentHashMap<>();
+
+	private XmlSchemaCache()
+	{
+	}
+
+	/**
+	 * Gets the compiled {@link Schema} for the supplied XSD resource, compiling it on first use.
+	 *
+	 * @param xsdResourceName the name of the XSD classpath resource, relative to this class.
+	 * @return the compiled Schema.
+	 * @since 4.0
+	 */
+	public static Schema getSchema(
+		String xsdResourceName)
+	{
+		if (xsdResourceName == null) throw new ArgumentNullException("xsdResourceName");
+
+		return XmlSchemaCache.getCachedSchema(xsdResourceName).schema;
+	}
+
+	/**
+	 * Validates the supplied XML source against the XSD resource, using a pooled {@link Validator}.
+	 *
+	 * @param source          the XML document to validate.
+	 * @param xsdResourceName the name of the XSD classpath resource, relative to this class.
+	 * @throws SAXException if the document does not pass validation.
+	 * @throws IOException  if the document cannot be read.
+	 * @since 4.0
+	 */
+	public static void validate(
+		Source source,
+		String xsdResourceName) throws
+		IOException,
+		SAXException
+	{
+		if (source == null) throw new ArgumentNullException("source");
+		if (xsdResourceName == null) throw new ArgumentNullException("xsdResourceName");
+
+		CachedSchema cachedSchema = XmlSchemaCache.getCachedSchema(xsdResourceName);
+
+		Validator validator = cachedSchema.borrow();
+		try
+		{
+			validator.validate(source);
+		}
+		finally
+		{
+			cachedSchema.giveBack(validator);
+		}
+	}
+
+	private static CachedSchema getCachedSchema(
+		String xsdResourceName)
+	{
+		return SCHEMAS.computeIfAbsent(xsdResourceName, XmlSchemaCache::compile);
+	}
+
+	private static CachedSchema compile(
+		String xsdResourceName)
+	{
+		URL xsdUrl = XmlSchemaCache.class.getResource(xsdResourceName);
+		if (xsdUrl == null)
+		{
+			throw new IllegalArgumentException(String.format("schema resource %s not found", xsdResourceName));
+		}
+
+		try (InputStream schemaStream = xsdUrl.openStream())
+		{
+			// SchemaFactory is not thread-safe, so each compilation uses its own
+			SchemaFactory factory = SchemaFactory.newInstance(XSD_1_1);
+
+			return new CachedSchema(factory.newSchema(new StreamSource(schemaStream, xsdUrl.toExternalForm())));
+		}
+		catch (IOException | SAXException e)
+		{
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static final class CachedSchema
+	{
+		private final Schema schema;
+		private final Queue<Validator> validators;
+		private final AtomicInteger pooledCount;
+
+		private CachedSchema(
+			Schema schema)
+		{
+			this.schema = schema;
+			this.validators = new ConcurrentLinkedQueue<>();
+			this.pooledCount = new AtomicInteger(0);
+		}
+
+		private Validator borrow()
+		{
+			Validator validator = this.validators.poll();
+
+			if (validator == null)
+			{
+				validator = this.schema.newValidator();
+			}
+			else
+			{
+				this.pooledCount.decrementAndGet();
+			}
+
+			return validator;
+		}
+
+		private void giveBack(
+			Validator validator)
+		{
+			validator.reset();
+
+			if (this.pooledCount.incrementAndGet() <= MAX_POOLED_VALIDATORS)
+			{
+				this.validators.offer(validator);
+			}
+			else
+			{
+				this.pooledCount.decrementAndGet();
+			}
+		}
+	}
+}
@@ -19,6 +19,7 @@ package co.mv.wb.plugin.base;
 import co.mv.wb.Assertion;
 import co.mv.wb.framework.ArgumentNullException;
 
+import java.io.Serializable;
 import java.util.UUID;
 
 /**
@@ -26,8 +27,10 @@ import java.util.UUID;
  *
  * @since 1.0
  */
-public abstract class BaseAssertion implements Assertion
+public abstract class BaseAssertion implements Assertion, Serializable
 {
+	private static final long serialVersionUID = 1L;
+
 	private final UUID assertionId;
 	private final int seqNum;
 
@@ -19,6 +19,7 @@ package co.mv.wb.plugin.base;
 import co.mv.wb.Migration;
 import co.mv.wb.framework.ArgumentNullException;
 
+import java.io.Serializable;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -27,8 +28,10 @@ import java.util.UUID;
  *
  * @since 1.0
  */
-public abstract class BaseMigration implements Migration
+public abstract class BaseMigration implements Migration, Serializable
 {
+	private static final long serialVersionUID = 1L;
+
 	private final UUID migrationId;
 	private final String fromState;
 	private final String toState;
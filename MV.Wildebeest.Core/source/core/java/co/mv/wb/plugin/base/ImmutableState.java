@@ -20,6 +20,7 @@ import co.mv.wb.Assertion;
 import co.mv.wb.State;
 import co.mv.wb.framework.ArgumentNullException;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -30,8 +31,10 @@ import java.util.UUID;
  *
  * @since 1.0
  */
-public class ImmutableState implements State
+public class ImmutableState implements State, Serializable
 {
+	private static final long serialVersionUID = 1L;
+
 
 	private final UUID stateId;
 	private final String name;
@@ -20,8 +20,13 @@ import co.mv.wb.Migration;
 import co.mv.wb.Resource;
 import co.mv.wb.ResourceType;
 import co.mv.wb.State;
+import co.mv.wb.StateIndex;
 import co.mv.wb.framework.ArgumentNullException;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -32,14 +37,17 @@ import java.util.UUID;
  *
  * @since 1.0
  */
-public final class ResourceImpl implements Resource
+public final class ResourceImpl implements Resource, Serializable
 {
+	private static final long serialVersionUID = 1L;
+
 	private final UUID resourceId;
 	private final ResourceType type;
 	private final String name;
-	private final List<State> states;
+	private final StateList states;
 	private final List<Migration> migrations;
 	private final String defaultTarget;
+	private volatile IndexedStates indexedStates;
 
 	/**
 	 * Creates a new concrete Resource instance.
@@ -63,9 +71,10 @@ public final class ResourceImpl implements Resource
 		this.resourceId = resourceId;
 		this.type = type;
 		this.name = name;
-		this.states = new ArrayList<>();
+		this.states = new StateList();
 		this.migrations = new ArrayList<>();
 		this.defaultTarget = defaultTarget;
+		this.indexedStates = null;
 	}
 
 	@Override public UUID getResourceId()
@@ -89,6 +98,27 @@ public final class ResourceImpl implements Resource
 		return this.states;
 	}
 
+	/**
+	 * Gets the index of the states defined for this Resource.  The index is built on first use and reused until the
+	 * state list is next modified.
+	 *
+	 * @return the index of the states defined for this Resource
+	 * @since 4.0
+	 */
+	@Override public StateIndex getStateIndex()
+	{
+		IndexedStates current = this.indexedStates;
+		int version = this.states.getVersion();
+
+		if (current == null || current.version != version)
+		{
+			current = new IndexedStates(version, StateIndex.of(this.states));
+			this.indexedStates = current;
+		}
+
+		return current.index;
+	}
+
 	@Override public List<Migration> getMigrations()
 	{
 		return this.migrations;
@@ -99,4 +129,71 @@ public final class ResourceImpl implements Resource
 	{
 		return Optional.ofNullable(this.defaultTarget);
 	}
+
+	private void writeObject(
+		ObjectOutputStream out) throws
+		IOException
+	{
+		// Bring the index up to date so that it can be written along with the states
+		this.getStateIndex();
+
+		out.defaultWriteObject();
+	}
+
+	private void readObject(
+		ObjectInputStream in) throws
+		IOException,
+		ClassNotFoundException
+	{
+		in.defaultReadObject();
+
+		// The modification count of the state list is not serialized, so re-stamp the index that was read with the
+		// list's new version to keep it in use
+		IndexedStates current = this.indexedStates;
+		if (current != null)
+		{
+			this.indexedStates = new IndexedStates(this.states.getVersion(), current.index);
+		}
+	}
+
+	/**
+	 * The list of states for a resource, which tracks modifications so that the state index can tell when it needs to
+	 * be rebuilt.
+	 */
+	private static final class StateList extends ArrayList<State>
+	{
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public State set(
+			int index,
+			State element)
+		{
+			// ArrayList does not count replacement as a structural modification, but the index must be rebuilt
+			this.modCount++;
+
+			return super.set(index, element);
+		}
+
+		private int getVersion()
+		{
+			return this.modCount;
+		}
+	}
+
+	private static final class IndexedStates implements Serializable
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final int version;
+		private final StateIndex index;
+
+		private IndexedStates(
+			int version,
+			StateIndex index)
+		{
+			this.version = version;
+			this.index = index;
+		}
+	}
 }
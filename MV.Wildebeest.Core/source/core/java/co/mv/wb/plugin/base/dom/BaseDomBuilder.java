@@ -130,7 +130,7 @@ public abstract class BaseDomBuilder implements DomBuilder
 	 */
 	protected Optional<Integer> tryGetInteger(String xpath)
 	{
-		Optional<Integer> result = null;
+		Optional<Integer> result = Optional.empty();
 		Optional<String> raw = this.tryGetString(xpath);
 
 		if (raw.isPresent())
@@ -142,7 +142,39 @@ public abstract class BaseDomBuilder implements DomBuilder
 			}
 			catch (NumberFormatException e)
 			{
-				result = Optional.empty();
+				// Treated as missing
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Attempts to retrieve the boolean value identified by the supplied xpath expression, relative to the Element held
+	 * by this builder.  Values are read as XML Schema booleans, so "true" and "1" are true, and "false" and "0" are
+	 * false.
+	 *
+	 * @param xpath the xpath expression to the Element that contains the value to be
+	 *              returned.
+	 * @return the value identified by the supplied xpath if it was able to be obtained, or an empty Optional otherwise
+	 * @since 4.0
+	 */
+	protected Optional<Boolean> tryGetBoolean(String xpath)
+	{
+		Optional<Boolean> result = Optional.empty();
+		Optional<String> raw = this.tryGetString(xpath);
+
+		if (raw.isPresent())
+		{
+			String value = raw.get().trim();
+
+			if ("true".equals(value) || "1".equals(value))
+			{
+				result = Optional.of(true);
+			}
+			else if ("false".equals(value) || "0".equals(value))
+			{
+				result = Optional.of(false);
 			}
 		}
 
@@ -25,6 +25,7 @@ import co.mv.wb.PluginBuildException;
 import co.mv.wb.framework.ArgumentNullException;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
+import org.w3c.dom.Node;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 
@@ -33,6 +34,9 @@ import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import java.io.IOException;
 import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -42,8 +46,10 @@ import java.util.Map;
  */
 public class DomInstanceLoader implements InstanceLoader
 {
+	private static final String ELT_INSTANCES = "instances";
 	private static final String ELT_INSTANCE = "instance";
 	private static final String ATT_INSTANCE_TYPE = "type";
+	private static final String ATT_INSTANCE_NAME = "name";
 
 	private static final String ELT_HOST_NAME = "hostName";
 	private static final String ELT_PORT = "port";
@@ -53,6 +59,7 @@ public class DomInstanceLoader implements InstanceLoader
 
 	private final Map<String, InstanceBuilder> instanceBuilders;
 	private final String instanceXml;
+	private final Document instanceXd;
 
 	/**
 	 * Creates a new DomInstanceLoader.
@@ -70,12 +77,111 @@ public class DomInstanceLoader implements InstanceLoader
 
 		this.instanceBuilders = instanceBuilders;
 		this.instanceXml = instanceXml;
+		this.instanceXd = null;
+	}
+
+	/**
+	 * Creates a new DomInstanceLoader for an instance document that has already been parsed, typically by
+	 * {@link DomParser} so that it was validated as it was parsed.
+	 *
+	 * @param instanceBuilders the set of available {@link InstanceBuilder}s.
+	 * @param instanceXd       the parsed XML representation of the {@link Instance} to be loaded.
+	 * @since 4.0
+	 */
+	public DomInstanceLoader(
+		Map<String, InstanceBuilder> instanceBuilders,
+		Document instanceXd)
+	{
+		if (instanceBuilders == null) throw new ArgumentNullException("instanceBuilders");
+		if (instanceXd == null) throw new ArgumentNullException("instanceXd");
+
+		this.instanceBuilders = instanceBuilders;
+		this.instanceXml = null;
+		this.instanceXd = instanceXd;
 	}
 
 	@Override
 	public Instance load() throws
 		LoaderFault,
 		PluginBuildException
+	{
+		Document instanceXd = this.instanceXd != null
+			? this.instanceXd
+			: this.parseInstanceXml();
+
+		Element instanceXe = instanceXd.getDocumentElement();
+		Instance instance = null;
+
+		if (ELT_INSTANCE.equals(instanceXe.getTagName()))
+		{
+			instance = buildInstance(
+				this.instanceBuilders,
+				instanceXe);
+		}
+
+		return instance;
+	}
+
+	/**
+	 * Loads every {@link Instance} described by the document: each instance of an instances document, or the single
+	 * instance of an instance document.  Each is keyed by it's name attribute or, if it has none, by it's 1-based
+	 * position in the document appended to the supplied prefix.
+	 *
+	 * @param unnamedPrefix the prefix of the key of an instance that has no name.
+	 * @return the loaded instances, in document order.
+	 * @since 4.0
+	 */
+	public Map<String, Instance> loadAll(
+		String unnamedPrefix) throws
+		LoaderFault,
+		PluginBuildException
+	{
+		if (unnamedPrefix == null) throw new ArgumentNullException("unnamedPrefix");
+
+		Document instanceXd = this.instanceXd != null
+			? this.instanceXd
+			: this.parseInstanceXml();
+
+		Element rootXe = instanceXd.getDocumentElement();
+		List<Element> instanceXes = new ArrayList<>();
+
+		if (ELT_INSTANCES.equals(rootXe.getTagName()))
+		{
+			for (Node node = rootXe.getFirstChild(); node != null; node = node.getNextSibling())
+			{
+				if (node instanceof Element && ELT_INSTANCE.equals(((Element)node).getTagName()))
+				{
+					instanceXes.add((Element)node);
+				}
+			}
+		}
+		else if (ELT_INSTANCE.equals(rootXe.getTagName()))
+		{
+			instanceXes.add(rootXe);
+		}
+
+		Map<String, Instance> instances = new LinkedHashMap<>();
+
+		for (int i = 0; i < instanceXes.size(); i++)
+		{
+			Element instanceXe = instanceXes.get(i);
+
+			String name = instanceXe.hasAttribute(ATT_INSTANCE_NAME)
+				? instanceXe.getAttribute(ATT_INSTANCE_NAME)
+				: unnamedPrefix + (i + 1);
+
+			instances.put(
+				name,
+				buildInstance(
+					this.instanceBuilders,
+					instanceXe));
+		}
+
+		return instances;
+	}
+
+	private Document parseInstanceXml() throws
+		LoaderFault
 	{
 		InputSource inputSource = new InputSource(new StringReader(this.instanceXml));
 		DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
@@ -90,27 +196,14 @@ public class DomInstanceLoader implements InstanceLoader
 			throw new LoaderFault(e);
 		}
 
-		Document resourceXd;
 		try
 		{
-			resourceXd = db.parse(inputSource);
+			return db.parse(inputSource);
 		}
 		catch (IOException | SAXException e)
 		{
 			throw new LoaderFault(e);
 		}
-
-		Element instanceXe = resourceXd.getDocumentElement();
-		Instance instance = null;
-
-		if (ELT_INSTANCE.equals(instanceXe.getTagName()))
-		{
-			instance = buildInstance(
-				this.instanceBuilders,
-				instanceXe);
-		}
-
-		return instance;
 	}
 
 	private static Instance buildInstance(
@@ -0,0 +1,108 @@
+// Wildebeest Migration Framework
+// Copyright © 2013 - 2018, Matheson Ventures Pte Ltd
+//
+// This file is part of Wildebeest
+//
+// Wildebeest is free software: you can redistribute it and/or modify it under
+// the terms of the GNU General Public License v2 as published by the Free
+// Software Foundation.
+//
+// Wildebeest is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Wildebeest.  If not, see http://www.gnu.org/licenses/gpl-2.0.html
+
+package co.mv.wb.plugin.base.dom;
+
+import co.mv.wb.LoaderFault;
+import co.mv.wb.XmlValidationException;
+import co.mv.wb.framework.ArgumentNullException;
+import org.w3c.dom.Document;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.validation.Schema;
+import java.io.IOException;
+
+/**
+ * Parses XML descriptors into DOM {@link Document}'s, validating them against an XML schema in the same pass.
+ *
+ * @since 4.0
+ */
+public class DomParser
+{
+	private static final ErrorHandler STRICT_ERROR_HANDLER = new ErrorHandler()
+	{
+		@Override
+		public void warning(SAXParseException exception)
+		{
+		}
+
+		@Override
+		public void error(SAXParseException exception) throws SAXException
+		{
+			throw exception;
+		}
+
+		@Override
+		public void fatalError(SAXParseException exception) throws SAXException
+		{
+			throw exception;
+		}
+	};
+
+	/**
+	 * Parses the supplied XML into a DOM Document, validating it against the supplied {@link Schema} as it is parsed.
+	 *
+	 * @param inputSource the XML document to parse.
+	 * @param schema      the Schema that the document must conform to.
+	 * @return the parsed Document.
+	 * @throws IOException            if the XML document cannot be read.
+	 * @throws LoaderFault            if the parser cannot be configured.
+	 * @throws XmlValidationException if the XML document is malformed or does not conform to the Schema.
+	 * @since 4.0
+	 */
+	public static Document parse(
+		InputSource inputSource,
+		Schema schema) throws
+		IOException,
+		LoaderFault,
+		XmlValidationException
+	{
+		if (inputSource == null) throw new ArgumentNullException("inputSource");
+		if (schema == null) throw new ArgumentNullException("schema");
+
+		DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+		dbf.setNamespaceAware(true);
+		dbf.setSchema(schema);
+
+		DocumentBuilder db;
+		try
+		{
+			db = dbf.newDocumentBuilder();
+		}
+		catch (ParserConfigurationException e)
+		{
+			throw new LoaderFault(e);
+		}
+
+		db.setErrorHandler(STRICT_ERROR_HANDLER);
+
+		try
+		{
+			return db.parse(inputSource);
+		}
+		catch (SAXException e)
+		{
+			// Validation failed
+			throw new XmlValidationException(e.getMessage());
+		}
+	}
+}
@@ -44,7 +44,9 @@ import co.mv.wb.plugin.sqlserver.dom.SqlServerSchemaDoesNotExistDomAssertionBuil
 import co.mv.wb.plugin.sqlserver.dom.SqlServerSchemaExistsDomAssertionBuilder;
 import co.mv.wb.plugin.sqlserver.dom.SqlServerTableDoesNotExistDomAssertionBuilder;
 import co.mv.wb.plugin.sqlserver.dom.SqlServerTableExistsDomAssertionBuilder;
+import org.w3c.dom.Document;
 
+import java.io.File;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -155,6 +157,45 @@ public class DomPlugins
 			resourceXml);
 	}
 
+	/**
+	 * Returns a {@link DomResourceLoader} for the supplied parsed resource document, configured with the standard
+	 * builders.
+	 *
+	 * @param resourceTypeService the {@link ResourceTypeService} to use to lookup resource types.
+	 * @param resourceXd          the parsed &lt;resource&gt; document to be loaded by the DomResourceLoader.
+	 * @return a DomResourceLoader configured with the standard builders.
+	 * @since 4.0
+	 */
+	public static DomResourceLoader resourceLoader(
+		ResourceTypeService resourceTypeService,
+		Document resourceXd)
+	{
+		return new DomResourceLoader(
+			resourceTypeService,
+			DomPlugins.assertionBuilders(),
+			DomPlugins.migrationBuilders(),
+			resourceXd);
+	}
+
+	/**
+	 * Returns a {@link StaxResourceLoader} for the supplied resource file, configured with the standard builders.
+	 *
+	 * @param resourceTypeService the {@link ResourceTypeService} to use to lookup resource types.
+	 * @param resourceFile        the file containing the &lt;resource&gt; XML to be streamed by the StaxResourceLoader.
+	 * @return a StaxResourceLoader configured with the standard builders.
+	 * @since 4.0
+	 */
+	public static StaxResourceLoader streamingResourceLoader(
+		ResourceTypeService resourceTypeService,
+		File resourceFile)
+	{
+		return new StaxResourceLoader(
+			resourceTypeService,
+			DomPlugins.assertionBuilders(),
+			DomPlugins.migrationBuilders(),
+			resourceFile);
+	}
+
 	/**
 	 * Returns a {@link DomInstanceLoader} for the supplied instance XML, configured with the standard builders.
 	 *
@@ -169,4 +210,20 @@ public class DomPlugins
 			DomPlugins.instanceBuilders(),
 			instanceXml);
 	}
+
+	/**
+	 * Returns a {@link DomInstanceLoader} for the supplied parsed instance document, configured with the standard
+	 * builders.
+	 *
+	 * @param instanceXd the parsed &lt;instance&gt; document to be loaded by the DomInstanceLoader.
+	 * @return a DomInstanceLoader configured with the standard builders.
+	 * @since 4.0
+	 */
+	public static DomInstanceLoader instanceLoader(
+		Document instanceXd)
+	{
+		return new DomInstanceLoader(
+			DomPlugins.instanceBuilders(),
+			instanceXd);
+	}
 }
@@ -93,6 +93,7 @@ public class DomResourceLoader implements ResourceLoader
 	private final Map<String, AssertionBuilder> assertionBuilders;
 	private final Map<String, MigrationBuilder> migrationBuilders;
 	private final String resourceXml;
+	private final Document resourceXd;
 
 	/**
 	 * Creates a new DomResourceBuilder.
@@ -118,6 +119,35 @@ public class DomResourceLoader implements ResourceLoader
 		this.assertionBuilders = assertionBuilders;
 		this.migrationBuilders = migrationBuilders;
 		this.resourceXml = resourceXml;
+		this.resourceXd = null;
+	}
+
+	/**
+	 * Creates a new DomResourceBuilder for a resource document that has already been parsed, typically by
+	 * {@link DomParser} so that it was validated as it was parsed.
+	 *
+	 * @param resourceTypeService the {@link ResourceTypeService} to use to look up resource types.
+	 * @param assertionBuilders   the set of available {@link AssertionBuilder}s.
+	 * @param migrationBuilders   the set of available {@link MigrationBuilder}s.
+	 * @param resourceXd          the parsed XML representation of the {@link Resource} to be loaded.
+	 * @since 4.0
+	 */
+	public DomResourceLoader(
+		ResourceTypeService resourceTypeService,
+		Map<String, AssertionBuilder> assertionBuilders,
+		Map<String, MigrationBuilder> migrationBuilders,
+		Document resourceXd)
+	{
+		if (resourceTypeService == null) throw new ArgumentNullException("resourceTypeService");
+		if (assertionBuilders == null) throw new ArgumentNullException("assertionBuilders");
+		if (migrationBuilders == null) throw new ArgumentNullException("migrationBuilders");
+		if (resourceXd == null) throw new ArgumentNullException("resourceXd");
+
+		this.resourceTypeService = resourceTypeService;
+		this.assertionBuilders = assertionBuilders;
+		this.migrationBuilders = migrationBuilders;
+		this.resourceXml = null;
+		this.resourceXd = resourceXd;
 	}
 
 	@Override
@@ -128,27 +158,9 @@ public class DomResourceLoader implements ResourceLoader
 	{
 		if (baseDir == null) throw new ArgumentNullException("baseDir");
 
-		InputSource inputSource = new InputSource(new StringReader(this.resourceXml));
-		DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-		DocumentBuilder db;
-		try
-		{
-			db = dbf.newDocumentBuilder();
-		}
-		catch (ParserConfigurationException e)
-		{
-			throw new LoaderFault(e);
-		}
-
-		Document resourceXd;
-		try
-		{
-			resourceXd = db.parse(inputSource);
-		}
-		catch (IOException | SAXException e)
-		{
-			throw new LoaderFault(e);
-		}
+		Document resourceXd = this.resourceXd != null
+			? this.resourceXd
+			: this.parseResourceXml();
 
 		Element resourceXe = resourceXd.getDocumentElement();
 		Resource resource = null;
@@ -347,7 +359,32 @@ public class DomResourceLoader implements ResourceLoader
 		return resource;
 	}
 
-	private List<Assertion> findReferredAssertionGroup(
+	private Document parseResourceXml() throws
+		LoaderFault
+	{
+		InputSource inputSource = new InputSource(new StringReader(this.resourceXml));
+		DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+		DocumentBuilder db;
+		try
+		{
+			db = dbf.newDocumentBuilder();
+		}
+		catch (ParserConfigurationException e)
+		{
+			throw new LoaderFault(e);
+		}
+
+		try
+		{
+			return db.parse(inputSource);
+		}
+		catch (IOException | SAXException e)
+		{
+			throw new LoaderFault(e);
+		}
+	}
+
+	static List<Assertion> findReferredAssertionGroup(
 		String ref,
 		HashMap<String, List<Assertion>> assertionGroupsMap,
 		EntityType referrerEntityType,
@@ -367,7 +404,7 @@ public class DomResourceLoader implements ResourceLoader
 		return groupAssertions;
 	}
 
-	private Assertion findReferredAssertion(
+	static Assertion findReferredAssertion(
 		String ref,
 		HashMap<String, Assertion> assertionsMap,
 		EntityType referrerEntityType,
@@ -419,23 +456,31 @@ public class DomResourceLoader implements ResourceLoader
 	{
 		if (element == null) throw new ArgumentNullException("element");
 
+		return DomResourceLoader.buildState(
+			UUID.fromString(element.getAttribute(XA_STATE_ID)),
+			element.hasAttribute(XA_STATE_NAME) ? element.getAttribute(XA_STATE_NAME) : null,
+			element.hasAttribute(XA_STATE_DESCRIPTION) ? element.getAttribute(XA_STATE_DESCRIPTION) : null);
+	}
+
+	static State buildState(
+		UUID id,
+		String name,
+		String description)
+	{
+		if (id == null) throw new ArgumentNullException("id");
+
 		final State result;
-		final UUID id = UUID.fromString(element.getAttribute(XA_STATE_ID));
-		String name = null;
-		String description = null;
 		int condition = 0;
 
 		// TODO: Optimize this logic - we can resolve the optionality of name and description at the time of parsing, and then always call the three-arg constructor,
 
-		if (element.hasAttribute(XA_STATE_NAME))
+		if (name != null)
 		{
-			name = element.getAttribute(XA_STATE_NAME);
 			condition++;
 		}
 
-		if (element.hasAttribute(XA_STATE_DESCRIPTION))
+		if (description != null)
 		{
-			description = element.getAttribute(XA_STATE_DESCRIPTION);
 			condition++;
 		}
 
@@ -454,7 +499,7 @@ public class DomResourceLoader implements ResourceLoader
 		return result;
 	}
 
-	private static Assertion buildAssertion(
+	static Assertion buildAssertion(
 		Map<String, AssertionBuilder> assertionBuilders,
 		Element element,
 		int seqNum) throws
@@ -485,7 +530,7 @@ public class DomResourceLoader implements ResourceLoader
 		return builder.build(id, seqNum);
 	}
 
-	private static Migration buildMigration(
+	static Migration buildMigration(
 		Map<String, MigrationBuilder> migrationBuilders,
 		Element element,
 		File baseDir) throws
@@ -0,0 +1,519 @@
+// Wildebeest Migration Framework
+// Copyright © 2013 - 2018, Matheson Ventures Pte Ltd
+//
+// This file is part of Wildebeest
+//
+// Wildebeest is free software: you can redistribute it and/or modify it under
+// the terms of the GNU General Public License v2 as published by the Free
+// Software Foundation.
+//
+// Wildebeest is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Wildebeest.  If not, see http://www.gnu.org/licenses/gpl-2.0.html
+
+package co.mv.wb.plugin.base.dom;
+
+import co.mv.wb.Assertion;
+import co.mv.wb.AssertionBuilder;
+import co.mv.wb.EntityType;
+import co.mv.wb.InvalidReferenceException;
+import co.mv.wb.LoaderFault;
+import co.mv.wb.MigrationBuilder;
+import co.mv.wb.PluginBuildException;
+import co.mv.wb.Resource;
+import co.mv.wb.ResourceLoader;
+import co.mv.wb.ResourceType;
+import co.mv.wb.ResourceTypeService;
+import co.mv.wb.State;
+import co.mv.wb.framework.ArgumentNullException;
+import co.mv.wb.plugin.base.ResourceImpl;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Loads {@link Resource}'s from XML definitions by streaming through the document with StAX, as an alternative to
+ * {@link DomResourceLoader} for very large resource definitions.
+ * <p>
+ * Only the element for the individual assertion or migration currently being loaded is materialised as a DOM
+ * fragment, so that the same {@link AssertionBuilder}'s and {@link MigrationBuilder}'s can be used.  Each fragment is
+ * discarded once it has been built, so memory use does not grow with the size of the document beyond the Resource
+ * itself.  Assertion sequence numbers are the position of the assertion among its sibling elements.
+ *
+ * @since 4.0
+ */
+public class StaxResourceLoader implements ResourceLoader
+{
+	private static final String XE_RESOURCE = "resource";
+	private static final String XA_RESOURCE_TYPE = "type";
+	private static final String XA_RESOURCE_ID = "id";
+	private static final String XA_RESOURCE_NAME = "name";
+	private static final String XA_RESOURCE_DEFAULT_TARGET = "defaultTarget";
+
+	private static final String XE_ASSERTION_GROUPS = "assertionGroups";
+	private static final String XA_ASSERTION_GROUP_NAME = "name";
+	private static final String XA_ASSERTION_GROUP_ID = "id";
+
+	private static final String XE_STATES = "states";
+
+	private static final String XA_STATE_ID = "id";
+	private static final String XA_STATE_NAME = "name";
+	private static final String XA_STATE_DESCRIPTION = "description";
+
+	private static final String XE_ASSERTIONS = "assertions";
+	private static final String XA_ASSERTION_ID = "id";
+	private static final String XA_ASSERTION_NAME = "name";
+
+	private static final String XE_ASSERTION_REF = "assertionRef";
+	private static final String XA_ASSERTION_REF_TYPE = "type";
+	private static final String XA_ASSERTION_REF_TYPE_SINGLE = "single";
+	private static final String XA_ASSERTION_REF_REF = "ref";
+
+	private static final String XE_MIGRATIONS = "migrations";
+
+	private final ResourceTypeService resourceTypeService;
+	private final Map<String, AssertionBuilder> assertionBuilders;
+	private final Map<String, MigrationBuilder> migrationBuilders;
+	private final File resourceFile;
+	private final String resourceXml;
+
+	/**
+	 * Creates a new StaxResourceLoader that streams the resource definition from a file.
+	 *
+	 * @param resourceTypeService the {@link ResourceTypeService} to use to look up resource types.
+	 * @param assertionBuilders   the set of available {@link AssertionBuilder}s.
+	 * @param migrationBuilders   the set of available {@link MigrationBuilder}s.
+	 * @param resourceFile        the file containing the XML representation of the {@link Resource} to be loaded.
+	 * @since 4.0
+	 */
+	public StaxResourceLoader(
+		ResourceTypeService resourceTypeService,
+		Map<String, AssertionBuilder> assertionBuilders,
+		Map<String, MigrationBuilder> migrationBuilders,
+		File resourceFile)
+	{
+		if (resourceTypeService == null) throw new ArgumentNullException("resourceTypeService");
+		if (assertionBuilders == null) throw new ArgumentNullException("assertionBuilders");
+		if (migrationBuilders == null) throw new ArgumentNullException("migrationBuilders");
+		if (resourceFile == null) throw new ArgumentNullException("resourceFile");
+
+		this.resourceTypeService = resourceTypeService;
+		this.assertionBuilders = assertionBuilders;
+		this.migrationBuilders = migrationBuilders;
+		this.resourceFile = resourceFile;
+		this.resourceXml = null;
+	}
+
+	/**
+	 * Creates a new StaxResourceLoader that streams the resource definition from a string.
+	 *
+	 * @param resourceTypeService the {@link ResourceTypeService} to use to look up resource types.
+	 * @param assertionBuilders   the set of available {@link AssertionBuilder}s.
+	 * @param migrationBuilders   the set of available {@link MigrationBuilder}s.
+	 * @param resourceXml         the XML representation of the {@link Resource} to be loaded.
+	 * @since 4.0
+	 */
+	public StaxResourceLoader(
+		ResourceTypeService resourceTypeService,
+		Map<String, AssertionBuilder> assertionBuilders,
+		Map<String, MigrationBuilder> migrationBuilders,
+		String resourceXml)
+	{
+		if (resourceTypeService == null) throw new ArgumentNullException("resourceTypeService");
+		if (assertionBuilders == null) throw new ArgumentNullException("assertionBuilders");
+		if (migrationBuilders == null) throw new ArgumentNullException("migrationBuilders");
+		if (resourceXml == null) throw new ArgumentNullException("resourceXml");
+
+		this.resourceTypeService = resourceTypeService;
+		this.assertionBuilders = assertionBuilders;
+		this.migrationBuilders = migrationBuilders;
+		this.resourceFile = null;
+		this.resourceXml = resourceXml;
+	}
+
+	@Override
+	public Resource load(File baseDir) throws
+		LoaderFault,
+		PluginBuildException,
+		InvalidReferenceException
+	{
+		if (baseDir == null) throw new ArgumentNullException("baseDir");
+
+		XMLInputFactory xif = XMLInputFactory.newInstance();
+		xif.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		xif.setProperty(XMLInputFactory.IS_COALESCING, false);
+
+		DocumentBuilder db;
+		try
+		{
+			db = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+		}
+		catch (ParserConfigurationException e)
+		{
+			throw new LoaderFault(e);
+		}
+
+		try (InputStream resourceStream = this.resourceFile == null ? null : new FileInputStream(this.resourceFile))
+		{
+			XMLStreamReader reader = resourceStream == null
+				? xif.createXMLStreamReader(new StringReader(this.resourceXml))
+				: xif.createXMLStreamReader(resourceStream);
+
+			try
+			{
+				return this.loadResource(reader, db, baseDir);
+			}
+			finally
+			{
+				reader.close();
+			}
+		}
+		catch (IOException | XMLStreamException e)
+		{
+			throw new LoaderFault(e);
+		}
+	}
+
+	private Resource loadResource(
+		XMLStreamReader reader,
+		DocumentBuilder db,
+		File baseDir) throws
+		InvalidReferenceException,
+		LoaderFault,
+		PluginBuildException,
+		XMLStreamException
+	{
+		reader.nextTag();
+
+		if (!XE_RESOURCE.equals(reader.getLocalName()))
+		{
+			return null;
+		}
+
+		UUID id = UUID.fromString(reader.getAttributeValue(null, XA_RESOURCE_ID));
+		String typeUri = reader.getAttributeValue(null, XA_RESOURCE_TYPE);
+		ResourceType type = this.resourceTypeService.forUri(typeUri);
+		String name = StaxResourceLoader.orEmpty(reader.getAttributeValue(null, XA_RESOURCE_NAME));
+		String defaultTarget = reader.getAttributeValue(null, XA_RESOURCE_DEFAULT_TARGET);
+
+		Resource resource = new ResourceImpl(
+			id,
+			type,
+			name,
+			defaultTarget);
+
+		HashMap<String, Assertion> assertionsMap = new HashMap<>();
+		HashMap<String, List<Assertion>> assertionGroupsMap = new HashMap<>();
+
+		while (StaxResourceLoader.nextChildElement(reader))
+		{
+			switch (reader.getLocalName())
+			{
+				case XE_ASSERTIONS:
+					this.loadAssertions(reader, db, assertionsMap);
+					break;
+				case XE_ASSERTION_GROUPS:
+					this.loadAssertionGroups(reader, db, assertionsMap, assertionGroupsMap);
+					break;
+				case XE_STATES:
+					this.loadStates(reader, db, resource, assertionsMap, assertionGroupsMap);
+					break;
+				case XE_MIGRATIONS:
+					while (StaxResourceLoader.nextChildElement(reader))
+					{
+						resource.getMigrations().add(DomResourceLoader.buildMigration(
+							this.migrationBuilders,
+							StaxResourceLoader.readFragment(reader, db),
+							baseDir));
+					}
+					break;
+				default:
+					StaxResourceLoader.skipElement(reader);
+					break;
+			}
+		}
+
+		return resource;
+	}
+
+	private void loadAssertions(
+		XMLStreamReader reader,
+		DocumentBuilder db,
+		Map<String, Assertion> assertionsMap) throws
+		LoaderFault,
+		PluginBuildException,
+		XMLStreamException
+	{
+		int seqNum = 0;
+
+		while (StaxResourceLoader.nextChildElement(reader))
+		{
+			Element asrXe = StaxResourceLoader.readFragment(reader, db);
+			Assertion asr = DomResourceLoader.buildAssertion(this.assertionBuilders, asrXe, seqNum);
+			seqNum++;
+
+			assertionsMap.put(asrXe.getAttribute(XA_ASSERTION_ID), asr);
+			if (!asrXe.getAttribute(XA_ASSERTION_NAME).trim().isEmpty())
+			{
+				assertionsMap.put(asrXe.getAttribute(XA_ASSERTION_NAME), asr);
+			}
+		}
+	}
+
+	private void loadAssertionGroups(
+		XMLStreamReader reader,
+		DocumentBuilder db,
+		HashMap<String, Assertion> assertionsMap,
+		HashMap<String, List<Assertion>> assertionGroupsMap) throws
+		InvalidReferenceException,
+		LoaderFault,
+		PluginBuildException,
+		XMLStreamException
+	{
+		while (StaxResourceLoader.nextChildElement(reader))
+		{
+			String groupName = StaxResourceLoader.orEmpty(reader.getAttributeValue(null, XA_ASSERTION_GROUP_NAME));
+			String groupId = StaxResourceLoader.orEmpty(reader.getAttributeValue(null, XA_ASSERTION_GROUP_ID));
+
+			List<Assertion> assertions = new ArrayList<>();
+			int seqNum = 0;
+
+			while (StaxResourceLoader.nextChildElement(reader))
+			{
+				if (XE_ASSERTION_REF.equals(reader.getLocalName()) &&
+					XA_ASSERTION_REF_TYPE_SINGLE.equals(reader.getAttributeValue(null, XA_ASSERTION_REF_TYPE)))
+				{
+					assertions.add(DomResourceLoader.findReferredAssertion(
+						StaxResourceLoader.orEmpty(reader.getAttributeValue(null, XA_ASSERTION_REF_REF)),
+						assertionsMap,
+						EntityType.AssertionGroup,
+						groupId));
+					StaxResourceLoader.skipElement(reader);
+				}
+				else
+				{
+					assertions.add(DomResourceLoader.buildAssertion(
+						this.assertionBuilders,
+						StaxResourceLoader.readFragment(reader, db),
+						seqNum));
+				}
+
+				seqNum++;
+			}
+
+			assertionGroupsMap.put(groupName, assertions);
+			assertionGroupsMap.put(groupId, assertions);
+		}
+	}
+
+	private void loadStates(
+		XMLStreamReader reader,
+		DocumentBuilder db,
+		Resource resource,
+		HashMap<String, Assertion> assertionsMap,
+		HashMap<String, List<Assertion>> assertionGroupsMap) throws
+		InvalidReferenceException,
+		LoaderFault,
+		PluginBuildException,
+		XMLStreamException
+	{
+		while (StaxResourceLoader.nextChildElement(reader))
+		{
+			State state = DomResourceLoader.buildState(
+				UUID.fromString(reader.getAttributeValue(null, XA_STATE_ID)),
+				reader.getAttributeValue(null, XA_STATE_NAME),
+				reader.getAttributeValue(null, XA_STATE_DESCRIPTION));
+			resource.getStates().add(state);
+
+			while (StaxResourceLoader.nextChildElement(reader))
+			{
+				if (!XE_ASSERTIONS.equals(reader.getLocalName()))
+				{
+					StaxResourceLoader.skipElement(reader);
+					continue;
+				}
+
+				int seqNum = 0;
+
+				while (StaxResourceLoader.nextChildElement(reader))
+				{
+					if (XE_ASSERTION_REF.equals(reader.getLocalName()))
+					{
+						String ref = StaxResourceLoader.orEmpty(reader.getAttributeValue(null, XA_ASSERTION_REF_REF));
+
+						if (XA_ASSERTION_REF_TYPE_SINGLE.equals(reader.getAttributeValue(null, XA_ASSERTION_REF_TYPE)))
+						{
+							state.getAssertions().add(DomResourceLoader.findReferredAssertion(
+								ref,
+								assertionsMap,
+								EntityType.State,
+								state.getStateId().toString()));
+						}
+						else
+						{
+							state.getAssertions().addAll(DomResourceLoader.findReferredAssertionGroup(
+								ref,
+								assertionGroupsMap,
+								EntityType.State,
+								state.getStateId().toString()));
+						}
+
+						StaxResourceLoader.skipElement(reader);
+					}
+					else
+					{
+						state.getAssertions().add(DomResourceLoader.buildAssertion(
+							this.assertionBuilders,
+							StaxResourceLoader.readFragment(reader, db),
+							seqNum));
+					}
+
+					seqNum++;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Advances the reader to the start of the next child element of the current element.
+	 *
+	 * @return true if the reader is positioned on the next child element, or false if the reader has reached the end
+	 * of the current element.
+	 */
+	private static boolean nextChildElement(
+		XMLStreamReader reader) throws
+		XMLStreamException
+	{
+		while (reader.hasNext())
+		{
+			int event = reader.next();
+
+			if (event == XMLStreamConstants.START_ELEMENT)
+			{
+				return true;
+			}
+
+			if (event == XMLStreamConstants.END_ELEMENT)
+			{
+				return false;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Advances the reader from the start of the current element to its end, skipping its content.
+	 */
+	private static void skipElement(
+		XMLStreamReader reader) throws
+		XMLStreamException
+	{
+		int depth = 1;
+
+		while (depth > 0)
+		{
+			int event = reader.next();
+
+			if (event == XMLStreamConstants.START_ELEMENT)
+			{
+				depth++;
+			}
+			else if (event == XMLStreamConstants.END_ELEMENT)
+			{
+				depth--;
+			}
+		}
+	}
+
+	/**
+	 * Reads the current element and its content into a standalone DOM document, leaving the reader positioned at the
+	 * end of the element.
+	 */
+	private static Element readFragment(
+		XMLStreamReader reader,
+		DocumentBuilder db) throws
+		XMLStreamException
+	{
+		Document fragmentXd = db.newDocument();
+		Element element = StaxResourceLoader.readElement(reader, fragmentXd);
+		fragmentXd.appendChild(element);
+
+		return element;
+	}
+
+	private static Element readElement(
+		XMLStreamReader reader,
+		Document document) throws
+		XMLStreamException
+	{
+		Element element = document.createElement(StaxResourceLoader.qualifiedName(
+			reader.getPrefix(),
+			reader.getLocalName()));
+
+		for (int i = 0; i < reader.getAttributeCount(); i++)
+		{
+			element.setAttribute(
+				StaxResourceLoader.qualifiedName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i)),
+				reader.getAttributeValue(i));
+		}
+
+		while (true)
+		{
+			int event = reader.next();
+
+			switch (event)
+			{
+				case XMLStreamConstants.START_ELEMENT:
+					element.appendChild(StaxResourceLoader.readElement(reader, document));
+					break;
+				case XMLStreamConstants.CHARACTERS:
+				case XMLStreamConstants.SPACE:
+					element.appendChild(document.createTextNode(reader.getText()));
+					break;
+				case XMLStreamConstants.CDATA:
+					element.appendChild(document.createCDATASection(reader.getText()));
+					break;
+				case XMLStreamConstants.END_ELEMENT:
+					return element;
+				default:
+					break;
+			}
+		}
+	}
+
+	private static String qualifiedName(
+		String prefix,
+		String localName)
+	{
+		return prefix == null || prefix.isEmpty()
+			? localName
+			: prefix + ":" + localName;
+	}
+
+	private static String orEmpty(
+		String value)
+	{
+		return value == null ? "" : value;
+	}
+}
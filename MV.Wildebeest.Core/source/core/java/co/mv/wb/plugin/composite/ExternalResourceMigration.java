@@ -51,6 +51,8 @@ import java.util.UUID;
 )
 public class ExternalResourceMigration extends BaseMigration
 {
+	private static final long serialVersionUID = 1L;
+
 	private final File baseDir;
 	private final String fileName;
 	private final String target;
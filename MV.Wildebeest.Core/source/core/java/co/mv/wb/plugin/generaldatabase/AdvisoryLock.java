@@ -0,0 +1,206 @@
+// Wildebeest Migration Framework
+// Copyright © 2013 - 2018, Matheson Ventures Pte Ltd
+//
+// This file is part of Wildebeest
+//
+// Wildebeest is free software: you can redistribute it and/or modify it under
+// the terms of the GNU General Public License v2 as published by the Free
+// Software Foundation.
+//
+// Wildebeest is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Wildebeest.  If not, see http://www.gnu.org/licenses/gpl-2.0.html
+
+
+package co.mv.wb.plugin.generaldatabase;
+
+import co.mv.wb.FaultException;
+import co.mv.wb.ResourceLock;
+import co.mv.wb.framework.ArgumentNullException;
+import co.mv.wb.framework.DatabaseHelper;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.UUID;
+
+/**
+ * A {@link ResourceLock} that is a database-native advisory lock, such as PostgreSQL's pg_advisory_lock(), MySQL's
+ * GET_LOCK() or SQL Server's sp_getapplock.  Advisory locks belong to the database session that took them, so the
+ * lock keeps a connection of it's own open until it is released.  The lock is taken over the administrative
+ * connection of the instance, because the database itself may not exist yet.
+ *
+ * @since 4.0
+ */
+public final class AdvisoryLock implements ResourceLock
+{
+	private static final String LOCK_NAME_PREFIX = "co.mv.wb:";
+
+	private final Connection conn;
+	private final String releaseSql;
+	private final Object key;
+
+	private AdvisoryLock(
+		Connection conn,
+		String releaseSql,
+		Object key)
+	{
+		this.conn = conn;
+		this.releaseSql = releaseSql;
+		this.key = key;
+	}
+
+	/**
+	 * Takes an advisory lock, waiting for as long as another session holds it.
+	 *
+	 * @param dataSource the DataSource to open the lock's connection from.
+	 * @param acquireSql the SQL that takes the lock.  It has a single parameter for the key, and returns a single row
+	 *                   whose first column is 1 if the lock was taken.
+	 * @param releaseSql the SQL that releases the lock.  It has a single parameter for the key.
+	 * @param key        the key that identifies the lock.
+	 * @return the lock, which must be closed to release it.
+	 * @since 4.0
+	 */
+	public static AdvisoryLock acquire(
+		DataSource dataSource,
+		String acquireSql,
+		String releaseSql,
+		Object key)
+	{
+		if (dataSource == null) throw new ArgumentNullException("dataSource");
+		if (acquireSql == null) throw new ArgumentNullException("acquireSql");
+		if (releaseSql == null) throw new ArgumentNullException("releaseSql");
+		if (key == null) throw new ArgumentNullException("key");
+
+		Connection conn = null;
+		PreparedStatement ps = null;
+		ResultSet rs = null;
+		boolean acquired = false;
+
+		try
+		{
+			conn = dataSource.getConnection();
+			ps = conn.prepareStatement(acquireSql);
+			ps.setObject(1, key);
+			rs = ps.executeQuery();
+
+			if (!rs.next() || rs.getInt(1) != 1)
+			{
+				throw new SQLException(String.format("Unable to acquire the advisory lock %s", key));
+			}
+
+			acquired = true;
+
+			return new AdvisoryLock(conn, releaseSql, key);
+		}
+		catch (SQLException e)
+		{
+			throw new FaultException(e);
+		}
+		finally
+		{
+			try
+			{
+				DatabaseHelper.release(rs);
+				DatabaseHelper.release(ps);
+
+				if (!acquired)
+				{
+					DatabaseHelper.release(conn);
+				}
+			}
+			catch (SQLException e)
+			{
+				throw new FaultException(e);
+			}
+		}
+	}
+
+	/**
+	 * Gets the name of the advisory lock for the database of the supplied instance.  The lock covers the whole
+	 * database, so that every resource tracked in it is migrated by one process at a time.
+	 *
+	 * @param instance  the DatabaseInstance to lock.
+	 * @param maxLength the longest name that the database accepts.  Longer names are shortened to a hash.
+	 * @return the name of the lock.
+	 * @since 4.0
+	 */
+	public static String lockName(
+		DatabaseInstance instance,
+		int maxLength)
+	{
+		if (instance == null) throw new ArgumentNullException("instance");
+
+		String name = LOCK_NAME_PREFIX + instance.getDatabaseName();
+
+		return name.length() <= maxLength
+			? name
+			: LOCK_NAME_PREFIX + UUID.nameUUIDFromBytes(name.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Gets the numeric key of the advisory lock for the database of the supplied instance, for databases whose
+	 * advisory locks are identified by a number.
+	 *
+	 * @param instance the DatabaseInstance to lock.
+	 * @return the key of the lock.
+	 * @since 4.0
+	 */
+	public static long lockKey(
+		DatabaseInstance instance)
+	{
+		if (instance == null) throw new ArgumentNullException("instance");
+
+		return UUID
+			.nameUUIDFromBytes((LOCK_NAME_PREFIX + instance.getDatabaseName()).getBytes(StandardCharsets.UTF_8))
+			.getMostSignificantBits();
+	}
+
+	@Override
+	public void close()
+	{
+		PreparedStatement ps = null;
+		boolean released = false;
+
+		try
+		{
+			ps = this.conn.prepareStatement(this.releaseSql);
+			ps.setObject(1, this.key);
+			ps.execute();
+
+			released = true;
+		}
+		catch (SQLException e)
+		{
+			throw new FaultException(e);
+		}
+		finally
+		{
+			try
+			{
+				DatabaseHelper.release(ps);
+
+				if (released)
+				{
+					DatabaseHelper.release(this.conn);
+				}
+				else
+				{
+					// The session may still hold the lock, so the physical connection is discarded rather than being
+					// returned to a pool: ending the session releases the lock
+					this.conn.abort(Runnable::run);
+				}
+			}
+			catch (SQLException e)
+			{
+				throw new FaultException(e);
+			}
+		}
+	}
+}
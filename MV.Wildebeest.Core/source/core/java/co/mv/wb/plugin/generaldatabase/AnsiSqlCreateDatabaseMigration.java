@@ -47,6 +47,8 @@ import java.util.UUID;
 )
 public class AnsiSqlCreateDatabaseMigration extends BaseMigration
 {
+	private static final long serialVersionUID = 1L;
+
 	public AnsiSqlCreateDatabaseMigration(
 		UUID migrationId,
 		String fromState,
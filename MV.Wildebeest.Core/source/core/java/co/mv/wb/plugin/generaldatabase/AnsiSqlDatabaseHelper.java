@@ -19,6 +19,8 @@ package co.mv.wb.plugin.generaldatabase;
 import co.mv.wb.framework.ArgumentNullException;
 import co.mv.wb.framework.DatabaseHelper;
 
+import java.util.Optional;
+
 /**
  * Helper functions for common operations on an ANSI-SQL compliant database system.
  *
@@ -26,6 +28,16 @@ import co.mv.wb.framework.DatabaseHelper;
  */
 public class AnsiSqlDatabaseHelper
 {
+	/**
+	 * Returns whether the table exists in the schema of the supplied database.  Inside an assertion scope the answer
+	 * is taken from the scope's {@link CatalogSnapshot}.
+	 *
+	 * @param db         the AnsiSqlDatabaseInstance to check.
+	 * @param schemaName the name of the schema that should contain the table.
+	 * @param tableName  the name of the table to check for.
+	 * @return true if the table exists.
+	 * @since 4.0
+	 */
 	public static boolean tableExists(
 		AnsiSqlDatabaseInstance db,
 		String schemaName,
@@ -37,6 +49,12 @@ public class AnsiSqlDatabaseHelper
 		if (tableName == null) throw new ArgumentNullException("tableName");
 		if ("".equals(tableName)) throw new IllegalArgumentException("tableName cannot be empty");
 
+		Optional<CatalogSnapshot> catalog = CatalogSnapshotCache.get(db);
+		if (catalog.isPresent())
+		{
+			return catalog.get().tableExists(schemaName.toLowerCase(), tableName.toLowerCase());
+		}
+
 		return DatabaseHelper.rowExists(
 			db.getAppDataSource(),
 			String.format(
@@ -44,4 +62,27 @@ public class AnsiSqlDatabaseHelper
 				schemaName.toLowerCase(),
 				tableName.toLowerCase()));
 	}
+
+	/**
+	 * Reads a {@link CatalogSnapshot} of every table in the supplied database from information_schema.
+	 *
+	 * @param db the AnsiSqlDatabaseInstance to read.
+	 * @return the snapshot.
+	 * @since 4.0
+	 */
+	public static CatalogSnapshot readCatalog(
+		AnsiSqlDatabaseInstance db)
+	{
+		if (db == null) throw new ArgumentNullException("db");
+
+		if (!db.databaseExists())
+		{
+			return CatalogSnapshot.noDatabase();
+		}
+
+		return CatalogSnapshot.read(
+			db.getAppDataSource(),
+			"SELECT table_schema, table_name FROM information_schema.tables;",
+			true);
+	}
 }
@@ -46,6 +46,8 @@ import java.util.UUID;
 )
 public class AnsiSqlDropDatabaseMigration extends BaseMigration
 {
+	private static final long serialVersionUID = 1L;
+
 	public AnsiSqlDropDatabaseMigration(
 		UUID migrationId,
 		String fromState,
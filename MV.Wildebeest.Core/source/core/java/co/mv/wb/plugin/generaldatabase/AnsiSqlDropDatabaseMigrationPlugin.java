@@ -66,6 +66,12 @@ public class AnsiSqlDropDatabaseMigrationPlugin implements MigrationPlugin
 				String.format("database \"%s\" does not exist", instanceT.getDatabaseName()));
 		}
 
+		// Pooled connections to the database would stop it from being dropped
+		instanceT.closeIdleAppConnections();
+
+		// The state table is dropped along with the database
+		StateTableCache.forget(instanceT.getAppDataSource());
+
 		try
 		{
 			DatabaseHelper.execute(
@@ -47,6 +47,8 @@ import java.util.UUID;
 )
 public class AnsiSqlTableDoesNotExistAssertion extends BaseAssertion
 {
+	private static final long serialVersionUID = 1L;
+
 	private final String schemaName;
 	private final String tableName;
 
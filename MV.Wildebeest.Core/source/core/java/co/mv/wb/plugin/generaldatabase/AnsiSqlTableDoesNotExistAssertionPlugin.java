@@ -52,7 +52,7 @@ public class AnsiSqlTableDoesNotExistAssertionPlugin implements AssertionPlugin
 
 		AssertionResponse result;
 
-		if (!db.databaseExists())
+		if (!CatalogSnapshotCache.databaseExists(db))
 		{
 			result = new ImmutableAssertionResponse(
 				false,
@@ -76,4 +76,10 @@ public class AnsiSqlTableDoesNotExistAssertionPlugin implements AssertionPlugin
 
 		return result;
 	}
+
+	@Override public long estimateCost(
+		Assertion assertion)
+	{
+		return CatalogSnapshotCache.ASSERTION_COST;
+	}
 }
@@ -0,0 +1,206 @@
+// Wildebeest Migration Framework
+// Copyright © 2013 - 2018, Matheson Ventures Pte Ltd
+//
+// This file is part of Wildebeest
+//
+// Wildebeest is free software: you can redistribute it and/or modify it under
+// the terms of the GNU General Public License v2 as published by the Free
+// Software Foundation.
+//
+// Wildebeest is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Wildebeest.  If not, see http://www.gnu.org/licenses/gpl-2.0.html
+
+
+package co.mv.wb.plugin.generaldatabase;
+
+import co.mv.wb.FaultException;
+import co.mv.wb.framework.ArgumentNullException;
+import co.mv.wb.framework.DatabaseHelper;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * The schemas and tables of a database as they were at one point in time, so that many existence checks can be
+ * answered from a single catalog query.
+ *
+ * @since 4.0
+ */
+public final class CatalogSnapshot
+{
+	private final boolean databaseExists;
+	private final boolean caseSensitive;
+	private final Set<String> schemaNames;
+	private final Set<List<String>> tableNames;
+
+	private CatalogSnapshot(
+		boolean databaseExists,
+		boolean caseSensitive,
+		Set<String> schemaNames,
+		Set<List<String>> tableNames)
+	{
+		this.databaseExists = databaseExists;
+		this.caseSensitive = caseSensitive;
+		this.schemaNames = schemaNames;
+		this.tableNames = tableNames;
+	}
+
+	/**
+	 * Creates a CatalogSnapshot for a database that does not exist.
+	 *
+	 * @return a CatalogSnapshot with no schemas or tables.
+	 * @since 4.0
+	 */
+	public static CatalogSnapshot noDatabase()
+	{
+		return new CatalogSnapshot(
+			false,
+			true,
+			Collections.emptySet(),
+			Collections.emptySet());
+	}
+
+	/**
+	 * Reads a CatalogSnapshot with the supplied query.  Each row of the query gives the name of a schema in it's first
+	 * column, and the name of a table in that schema in it's second.  The table name may be null for a schema that has
+	 * no tables.
+	 *
+	 * @param dataSource    the DataSource to query.
+	 * @param sql           the catalog query.
+	 * @param caseSensitive whether the database compares schema and table names case-sensitively.
+	 * @param parameters    the values for the parameters of the query, if any.
+	 * @return the CatalogSnapshot.
+	 * @since 4.0
+	 */
+	public static CatalogSnapshot read(
+		DataSource dataSource,
+		String sql,
+		boolean caseSensitive,
+		String... parameters)
+	{
+		if (dataSource == null) throw new ArgumentNullException("dataSource");
+		if (sql == null) throw new ArgumentNullException("sql");
+		if ("".equals(sql)) throw new IllegalArgumentException("sql cannot be empty");
+		if (parameters == null) throw new ArgumentNullException("parameters");
+
+		Set<String> schemaNames = new HashSet<>();
+		Set<List<String>> tableNames = new HashSet<>();
+
+		Connection conn = null;
+		PreparedStatement ps = null;
+		ResultSet rs = null;
+
+		try
+		{
+			conn = dataSource.getConnection();
+			ps = conn.prepareStatement(sql);
+			for (int i = 0; i < parameters.length; i++)
+			{
+				ps.setString(i + 1, parameters[i]);
+			}
+			rs = ps.executeQuery();
+
+			while (rs.next())
+			{
+				String schemaName = CatalogSnapshot.normalize(rs.getString(1), caseSensitive);
+				String tableName = rs.getString(2);
+
+				schemaNames.add(schemaName);
+
+				if (tableName != null)
+				{
+					tableNames.add(Arrays.asList(schemaName, CatalogSnapshot.normalize(tableName, caseSensitive)));
+				}
+			}
+		}
+		catch (SQLException e)
+		{
+			throw new FaultException(e);
+		}
+		finally
+		{
+			try
+			{
+				DatabaseHelper.release(rs);
+				DatabaseHelper.release(ps);
+				DatabaseHelper.release(conn);
+			}
+			catch (SQLException e)
+			{
+				throw new FaultException(e);
+			}
+		}
+
+		return new CatalogSnapshot(
+			true,
+			caseSensitive,
+			schemaNames,
+			tableNames);
+	}
+
+	/**
+	 * Returns whether the database existed when the snapshot was taken.
+	 *
+	 * @return true if the database existed.
+	 * @since 4.0
+	 */
+	public boolean databaseExists()
+	{
+		return this.databaseExists;
+	}
+
+	/**
+	 * Returns whether the schema existed when the snapshot was taken.
+	 *
+	 * @param schemaName the name of the schema.
+	 * @return true if the schema existed.
+	 * @since 4.0
+	 */
+	public boolean schemaExists(
+		String schemaName)
+	{
+		if (schemaName == null) throw new ArgumentNullException("schemaName");
+
+		return this.schemaNames.contains(CatalogSnapshot.normalize(schemaName, this.caseSensitive));
+	}
+
+	/**
+	 * Returns whether the table existed in the schema when the snapshot was taken.
+	 *
+	 * @param schemaName the name of the schema.
+	 * @param tableName  the name of the table.
+	 * @return true if the table existed.
+	 * @since 4.0
+	 */
+	public boolean tableExists(
+		String schemaName,
+		String tableName)
+	{
+		if (schemaName == null) throw new ArgumentNullException("schemaName");
+		if (tableName == null) throw new ArgumentNullException("tableName");
+
+		return this.tableNames.contains(Arrays.asList(
+			CatalogSnapshot.normalize(schemaName, this.caseSensitive),
+			CatalogSnapshot.normalize(tableName, this.caseSensitive)));
+	}
+
+	private static String normalize(
+		String name,
+		boolean caseSensitive)
+	{
+		return caseSensitive ? name : name.toLowerCase(Locale.ROOT);
+	}
+}
@@ -0,0 +1,144 @@
+// Wildebeest Migration Framework
+// Copyright © 2013 - 2018, Matheson Ventures Pte Ltd
+//
+// This file is part of Wildebeest
+//
+// Wildebeest is free software: you can redistribute it and/or modify it under
+// the terms of the GNU General Public License v2 as published by the Free
+// Software Foundation.
+//
+// Wildebeest is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Wildebeest.  If not, see http://www.gnu.org/licenses/gpl-2.0.html
+
+
+package co.mv.wb.plugin.generaldatabase;
+
+import co.mv.wb.AssertionScope;
+import co.mv.wb.framework.ArgumentNullException;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Holds a {@link CatalogSnapshot} for each {@link DatabaseInstance} that has an open {@link AssertionScope}, so that
+ * the existence assertions checked in the scope read the catalog once between them.  The snapshot is read when it is
+ * first needed, by whichever thread needs it first, and is discarded when the last scope open on the instance closes.
+ * Outside a scope there is no snapshot, and the existence assertions query the catalog themselves.
+ *
+ * @since 4.0
+ */
+public final class CatalogSnapshotCache
+{
+	/**
+	 * The estimated cost, in microseconds, of an assertion that is answered from the catalog snapshot.  The catalog is
+	 * read once for all of the assertions of a state, so each assertion costs little more than a lookup.
+	 *
+	 * @since 4.0
+	 */
+	public static final long ASSERTION_COST = 100;
+
+	private static final Map<DatabaseInstance, Scope> SCOPES = new IdentityHashMap<>();
+
+	private CatalogSnapshotCache()
+	{
+	}
+
+	/**
+	 * Opens an assertion scope on the supplied instance.
+	 *
+	 * @param instance the DatabaseInstance whose assertions are about to be checked.
+	 * @return the scope, which must be closed once the assertions have been checked.
+	 * @since 4.0
+	 */
+	public static AssertionScope open(
+		DatabaseInstance instance)
+	{
+		if (instance == null) throw new ArgumentNullException("instance");
+
+		synchronized (SCOPES)
+		{
+			SCOPES.computeIfAbsent(instance, x -> new Scope()).depth++;
+		}
+
+		return () -> CatalogSnapshotCache.close(instance);
+	}
+
+	/**
+	 * Gets the snapshot of the catalog of the supplied instance, reading it if this is the first use in the open
+	 * scope.
+	 *
+	 * @param instance the DatabaseInstance.
+	 * @return the snapshot of the instance's catalog, or empty if no assertion scope is open on the instance.
+	 * @since 4.0
+	 */
+	public static Optional<CatalogSnapshot> get(
+		DatabaseInstance instance)
+	{
+		if (instance == null) throw new ArgumentNullException("instance");
+
+		Scope scope;
+		synchronized (SCOPES)
+		{
+			scope = SCOPES.get(instance);
+		}
+
+		if (scope == null)
+		{
+			return Optional.empty();
+		}
+
+		// Threads checking assertions in parallel wait for the first to read the catalog
+		synchronized (scope)
+		{
+			if (scope.snapshot == null)
+			{
+				scope.snapshot = instance.readCatalog();
+			}
+
+			return Optional.of(scope.snapshot);
+		}
+	}
+
+	/**
+	 * Returns whether the database of the supplied instance exists, taken from the catalog snapshot when an assertion
+	 * scope is open, or asked of the instance otherwise.
+	 *
+	 * @param instance the DatabaseInstance.
+	 * @return true if the database exists.
+	 * @since 4.0
+	 */
+	public static boolean databaseExists(
+		DatabaseInstance instance)
+	{
+		if (instance == null) throw new ArgumentNullException("instance");
+
+		return CatalogSnapshotCache.get(instance)
+			.map(CatalogSnapshot::databaseExists)
+			.orElseGet(instance::databaseExists);
+	}
+
+	private static void close(
+		DatabaseInstance instance)
+	{
+		synchronized (SCOPES)
+		{
+			Scope scope = SCOPES.get(instance);
+
+			if (scope != null && --scope.depth == 0)
+			{
+				SCOPES.remove(instance);
+			}
+		}
+	}
+
+	private static final class Scope
+	{
+		private int depth;
+		private CatalogSnapshot snapshot;
+	}
+}
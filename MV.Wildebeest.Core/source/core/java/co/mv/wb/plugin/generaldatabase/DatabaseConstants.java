@@ -38,4 +38,12 @@ public class DatabaseConstants
 	 * @since 1.0
 	 */
 	public static final String DefaultStateTableName = "wb_state";
+
+	/**
+	 * The default number of idle connections that a database instance keeps open for reuse, for each of it's
+	 * DataSources.  This can be overridden per-instance by supplying a connectionPoolSize in the instance definition.
+	 *
+	 * @since 4.0
+	 */
+	public static final int DefaultConnectionPoolSize = 2;
 }
@@ -44,6 +44,8 @@ import java.util.UUID;
 )
 public class DatabaseDoesNotExistAssertion extends BaseAssertion
 {
+	private static final long serialVersionUID = 1L;
+
 	/**
 	 * Creates a new DatabaseDoesNotExistAssertion
 	 *
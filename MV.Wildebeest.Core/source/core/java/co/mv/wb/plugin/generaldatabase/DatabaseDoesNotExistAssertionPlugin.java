@@ -52,7 +52,7 @@ public class DatabaseDoesNotExistAssertionPlugin implements AssertionPlugin
 
 		AssertionResponse result;
 
-		if (db.databaseExists())
+		if (CatalogSnapshotCache.databaseExists(db))
 		{
 			result = new ImmutableAssertionResponse(false, "Database " + db.getDatabaseName() + " exists");
 		}
@@ -63,4 +63,10 @@ public class DatabaseDoesNotExistAssertionPlugin implements AssertionPlugin
 
 		return result;
 	}
+
+	@Override public long estimateCost(
+		Assertion assertion)
+	{
+		return CatalogSnapshotCache.ASSERTION_COST;
+	}
 }
@@ -44,6 +44,8 @@ import java.util.UUID;
 )
 public class DatabaseExistsAssertion extends BaseAssertion
 {
+	private static final long serialVersionUID = 1L;
+
 	/**
 	 * Creates a new DatabaseExistsAssertion.
 	 *
@@ -52,7 +52,7 @@ public class DatabaseExistsAssertionPlugin implements AssertionPlugin
 
 		AssertionResponse result;
 
-		if (db.databaseExists())
+		if (CatalogSnapshotCache.databaseExists(db))
 		{
 			result = new ImmutableAssertionResponse(true, "Database " + db.getDatabaseName() + " exists");
 		}
@@ -63,4 +63,10 @@ public class DatabaseExistsAssertionPlugin implements AssertionPlugin
 
 		return result;
 	}
+
+	@Override public long estimateCost(
+		Assertion assertion)
+	{
+		return CatalogSnapshotCache.ASSERTION_COST;
+	}
 }
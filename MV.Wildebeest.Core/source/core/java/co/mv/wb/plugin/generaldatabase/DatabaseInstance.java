@@ -16,17 +16,22 @@
 
 package co.mv.wb.plugin.generaldatabase;
 
+import co.mv.wb.Assertion;
+import co.mv.wb.AssertionScope;
 import co.mv.wb.Instance;
 import co.mv.wb.Resource;
+import co.mv.wb.framework.SqlDialect;
 
 import javax.sql.DataSource;
+import java.util.List;
 
 /**
- * A {@link Resource} {@link Instance} that is a database.
+ * A {@link Resource} {@link Instance} that is a database.  The DataSources of a DatabaseInstance pool their
+ * connections for the lifetime of the instance, and the pooled connections are released when the instance is closed.
  *
  * @since 1.0
  */
-public interface DatabaseInstance extends Instance
+public interface DatabaseInstance extends Instance, AutoCloseable
 {
 	/**
 	 * Gets the name of the database represented by this DatabaseInstance.
@@ -81,4 +86,70 @@ public interface DatabaseInstance extends Instance
 	 * @since 4.0
 	 */
 	boolean databaseExists();
+
+	/**
+	 * Gets the dialect of SQL spoken by the database represented by this DatabaseInstance, used to split SQL scripts
+	 * into the statements to execute.
+	 *
+	 * @return the dialect of SQL spoken by the database.
+	 * @since 4.0
+	 */
+	SqlDialect getSqlDialect();
+
+	/**
+	 * Reads the schemas and tables of the database represented by this DatabaseInstance, for existence assertions
+	 * to answer from.
+	 *
+	 * @return a snapshot of the database's catalog.
+	 * @since 4.0
+	 */
+	CatalogSnapshot readCatalog();
+
+	/**
+	 * Opens an assertion scope in which existence assertions share a single {@link CatalogSnapshot} of this database,
+	 * and the rows of {@link QueryAssertion}'s are counted together in one {@link RowCountBatch}.
+	 *
+	 * @param assertions the assertions that are about to be checked.
+	 * @return the new scope.
+	 * @since 4.0
+	 */
+	@Override default AssertionScope openAssertionScope(
+		List<Assertion> assertions)
+	{
+		AssertionScope catalog = CatalogSnapshotCache.open(this);
+		AssertionScope rows = RowCountBatch.open(this, assertions);
+
+		return () ->
+		{
+			try
+			{
+				rows.close();
+			}
+			finally
+			{
+				catalog.close();
+			}
+		};
+	}
+
+	/**
+	 * Closes any pooled connections to the database represented by this DatabaseInstance that are not in use, so that
+	 * the database can be dropped.
+	 *
+	 * @since 4.0
+	 */
+	void closeIdleAppConnections();
+
+	/**
+	 * Closes the connections pooled by this DatabaseInstance.  The instance may still be used afterwards, and opens new
+	 * connections as they are needed.
+	 *
+	 * @since 4.0
+	 */
+	@Override void close();
+
+	@Override default void closeConnections()
+	{
+		this.close();
+	}
 }
@@ -0,0 +1,88 @@
+// Wildebeest Migration Framework
+// Copyright © 2013 - 2018, Matheson Ventures Pte Ltd
+//
+// This file is part of Wildebeest
+//
+// Wildebeest is free software: you can redistribute it and/or modify it under
+// the terms of the GNU General Public License v2 as published by the Free
+// Software Foundation.
+//
+// Wildebeest is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Wildebeest.  If not, see http://www.gnu.org/licenses/gpl-2.0.html
+
+package co.mv.wb.plugin.generaldatabase;
+
+import co.mv.wb.InstanceSession;
+import co.mv.wb.framework.ArgumentNullException;
+import co.mv.wb.framework.PooledDataSource;
+
+/**
+ * An {@link InstanceSession} for a {@link DatabaseInstance}, which pins a connection from each of the instance's admin
+ * and app {@link PooledDataSource}'s.  Transactions, where enabled, are held on the app connection only, because
+ * administrative statements such as CREATE DATABASE cannot run inside a transaction.
+ *
+ * @since 4.0
+ */
+public class DatabaseInstanceSession implements InstanceSession
+{
+	private final PooledDataSource appDataSource;
+	private final InstanceSession adminSession;
+	private final InstanceSession appSession;
+	private final boolean transactional;
+
+	/**
+	 * Opens a new DatabaseInstanceSession on the current thread.
+	 *
+	 * @param adminDataSource the PooledDataSource for administrative operations.
+	 * @param appDataSource   the PooledDataSource for the database itself.
+	 * @param transactional   whether migrations against the database should be run in transactions.
+	 * @since 4.0
+	 */
+	public DatabaseInstanceSession(
+		PooledDataSource adminDataSource,
+		PooledDataSource appDataSource,
+		boolean transactional)
+	{
+		if (adminDataSource == null) throw new ArgumentNullException("adminDataSource");
+		if (appDataSource == null) throw new ArgumentNullException("appDataSource");
+
+		this.appDataSource = appDataSource;
+		this.adminSession = adminDataSource.openSession();
+		this.appSession = appDataSource.openSession();
+		this.transactional = transactional;
+	}
+
+	@Override public boolean beginTransaction()
+	{
+		return this.transactional && this.appSession.beginTransaction();
+	}
+
+	@Override public void commitTransaction()
+	{
+		this.appSession.commitTransaction();
+	}
+
+	@Override public void rollbackTransaction()
+	{
+		// The rolled back work may have included creating the state table
+		StateTableCache.forget(this.appDataSource);
+
+		this.appSession.rollbackTransaction();
+	}
+
+	@Override public void close()
+	{
+		try
+		{
+			this.appSession.close();
+		}
+		finally
+		{
+			this.adminSession.close();
+		}
+	}
+}
@@ -0,0 +1,36 @@
+// Wildebeest Migration Framework
+// Copyright © 2013 - 2018, Matheson Ventures Pte Ltd
+//
+// This file is part of Wildebeest
+//
+// Wildebeest is free software: you can redistribute it and/or modify it under
+// the terms of the GNU General Public License v2 as published by the Free
+// Software Foundation.
+//
+// Wildebeest is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Wildebeest.  If not, see http://www.gnu.org/licenses/gpl-2.0.html
+
+
+package co.mv.wb.plugin.generaldatabase;
+
+import co.mv.wb.Assertion;
+
+/**
+ * An {@link Assertion} that is checked by counting the rows returned by a SQL query against a database.
+ *
+ * @since 4.0
+ */
+public interface QueryAssertion extends Assertion
+{
+	/**
+	 * Gets the query whose rows are counted.
+	 *
+	 * @return the query whose rows are counted.
+	 * @since 4.0
+	 */
+	String getSql();
+}
@@ -0,0 +1,334 @@
+// Wildebeest Migration Framework
+// Copyright © 2013 - 2018, Matheson Ventures Pte Ltd
+//
+// This file is part of Wildebeest
+//
+// Wildebeest is free software: you can redistribute it and/or modify it under
+// the terms of the GNU General Public License v2 as published by the Free
+// Software Foundation.
+//
+// Wildebeest is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Wildebeest.  If not, see http://www.gnu.org/licenses/gpl-2.0.html
+
+
+package co.mv.wb.plugin.generaldatabase;
+
+import co.mv.wb.Assertion;
+import co.mv.wb.AssertionScope;
+import co.mv.wb.framework.ArgumentNullException;
+import co.mv.wb.framework.DatabaseHelper;
+import co.mv.wb.framework.SqlDialect;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Counts the rows of every {@link QueryAssertion} checked in an {@link AssertionScope} together, so that a state with
+ * many row assertions costs one round trip rather than one connection and query per assertion.  The counts are taken
+ * when the first of the assertions is checked, on one connection.  PostgreSQL and SQL Server receive every query in a
+ * single multi-statement batch.  Other databases receive the queries one after another on the same connection.
+ * <p>
+ * Rows are only counted up to {@link #MAX_ROWS}, which is enough to tell none, one and more than one apart, so the
+ * cost of a query does not grow with the size of the table it reads.  If the combined queries fail, nothing is
+ * remembered, and each assertion runs it's own query so that the failure is reported against the right assertion.
+ *
+ * @since 4.0
+ */
+public final class RowCountBatch
+{
+	/**
+	 * The number of rows at which counting stops.
+	 *
+	 * @since 4.0
+	 */
+	public static final int MAX_ROWS = 2;
+
+	private static final Map<DatabaseInstance, Scope> SCOPES = new IdentityHashMap<>();
+
+	private RowCountBatch()
+	{
+	}
+
+	/**
+	 * Opens an assertion scope on the supplied instance, in which the rows of the supplied assertions that are
+	 * QueryAssertions will be counted together.
+	 *
+	 * @param instance   the DatabaseInstance whose assertions are about to be checked.
+	 * @param assertions the assertions that are about to be checked.
+	 * @return the scope, which must be closed once the assertions have been checked.
+	 * @since 4.0
+	 */
+	public static AssertionScope open(
+		DatabaseInstance instance,
+		List<Assertion> assertions)
+	{
+		if (instance == null) throw new ArgumentNullException("instance");
+		if (assertions == null) throw new ArgumentNullException("assertions");
+
+		List<QueryAssertion> queries = assertions
+			.stream()
+			.filter(x -> x instanceof QueryAssertion)
+			.map(x -> (QueryAssertion)x)
+			.collect(Collectors.toList());
+
+		synchronized (SCOPES)
+		{
+			Scope scope = SCOPES.computeIfAbsent(instance, x -> new Scope());
+			scope.depth++;
+			scope.pending.addAll(queries);
+		}
+
+		return () -> RowCountBatch.close(instance);
+	}
+
+	/**
+	 * Counts the rows returned by the query of the supplied assertion, up to {@link #MAX_ROWS}.  Inside an assertion
+	 * scope the count is taken from the scope's batch.
+	 *
+	 * @param instance  the DatabaseInstance to query.
+	 * @param assertion the assertion whose query should be counted.
+	 * @return the number of rows, up to MAX_ROWS.
+	 * @throws SQLException if the query cannot be run.
+	 * @since 4.0
+	 */
+	public static int countRows(
+		DatabaseInstance instance,
+		QueryAssertion assertion) throws SQLException
+	{
+		if (instance == null) throw new ArgumentNullException("instance");
+		if (assertion == null) throw new ArgumentNullException("assertion");
+
+		Scope scope;
+		synchronized (SCOPES)
+		{
+			scope = SCOPES.get(instance);
+		}
+
+		if (scope != null)
+		{
+			// Threads checking assertions in parallel wait for the first to count the whole batch
+			synchronized (scope)
+			{
+				if (!scope.pending.isEmpty())
+				{
+					List<QueryAssertion> batch = new ArrayList<>(scope.pending);
+					scope.pending.clear();
+					scope.counts.putAll(RowCountBatch.tryCountAll(instance, batch));
+				}
+
+				Integer count = scope.counts.get(assertion.getAssertionId());
+				if (count != null)
+				{
+					return count;
+				}
+			}
+		}
+
+		return RowCountBatch.count(instance.getAppDataSource(), assertion.getSql());
+	}
+
+	private static Map<UUID, Integer> tryCountAll(
+		DatabaseInstance instance,
+		List<QueryAssertion> batch)
+	{
+		try
+		{
+			return instance.getSqlDialect() == SqlDialect.PostgreSql || instance.getSqlDialect() == SqlDialect.SqlServer
+				? RowCountBatch.countInOneBatch(instance.getAppDataSource(), batch)
+				: RowCountBatch.countOnOneConnection(instance.getAppDataSource(), batch);
+		}
+		catch (SQLException e)
+		{
+			// Each assertion will run it's own query, and report the failure against itself
+			return Collections.emptyMap();
+		}
+	}
+
+	private static Map<UUID, Integer> countInOneBatch(
+		DataSource dataSource,
+		List<QueryAssertion> batch) throws SQLException
+	{
+		StringBuilder sql = new StringBuilder();
+		for (QueryAssertion assertion : batch)
+		{
+			// The separator starts on a new line, so a trailing line comment cannot swallow it
+			sql.append(RowCountBatch.trimStatement(assertion.getSql())).append("\n;\n");
+		}
+
+		Map<UUID, Integer> result = new HashMap<>();
+
+		Connection conn = null;
+		Statement stmt = null;
+
+		try
+		{
+			conn = dataSource.getConnection();
+			stmt = conn.createStatement();
+			stmt.setMaxRows(MAX_ROWS);
+
+			int index = 0;
+			boolean isResultSet = stmt.execute(sql.toString());
+
+			while (isResultSet || stmt.getUpdateCount() != -1)
+			{
+				if (isResultSet)
+				{
+					// A query that returns more than one result set cannot be matched to it's assertion
+					if (index == batch.size())
+					{
+						return Collections.emptyMap();
+					}
+
+					try (ResultSet rs = stmt.getResultSet())
+					{
+						result.put(batch.get(index).getAssertionId(), RowCountBatch.count(rs));
+					}
+
+					index++;
+				}
+
+				isResultSet = stmt.getMoreResults();
+			}
+
+			if (index != batch.size())
+			{
+				return Collections.emptyMap();
+			}
+		}
+		finally
+		{
+			DatabaseHelper.release(stmt);
+			DatabaseHelper.release(conn);
+		}
+
+		return result;
+	}
+
+	private static Map<UUID, Integer> countOnOneConnection(
+		DataSource dataSource,
+		List<QueryAssertion> batch) throws SQLException
+	{
+		Map<UUID, Integer> result = new HashMap<>();
+
+		Connection conn = null;
+
+		try
+		{
+			conn = dataSource.getConnection();
+
+			for (QueryAssertion assertion : batch)
+			{
+				result.put(assertion.getAssertionId(), RowCountBatch.count(conn, assertion.getSql()));
+			}
+		}
+		finally
+		{
+			DatabaseHelper.release(conn);
+		}
+
+		return result;
+	}
+
+	private static int count(
+		DataSource dataSource,
+		String sql) throws SQLException
+	{
+		Connection conn = null;
+
+		try
+		{
+			conn = dataSource.getConnection();
+
+			return RowCountBatch.count(conn, sql);
+		}
+		finally
+		{
+			DatabaseHelper.release(conn);
+		}
+	}
+
+	private static int count(
+		Connection conn,
+		String sql) throws SQLException
+	{
+		PreparedStatement ps = null;
+		ResultSet rs = null;
+
+		try
+		{
+			ps = conn.prepareStatement(sql);
+			ps.setMaxRows(MAX_ROWS);
+			rs = ps.executeQuery();
+
+			return RowCountBatch.count(rs);
+		}
+		finally
+		{
+			DatabaseHelper.release(rs);
+			DatabaseHelper.release(ps);
+		}
+	}
+
+	private static int count(
+		ResultSet rs) throws SQLException
+	{
+		int result = 0;
+
+		while (result < MAX_ROWS && rs.next())
+		{
+			result++;
+		}
+
+		return result;
+	}
+
+	private static String trimStatement(
+		String sql)
+	{
+		String result = sql.trim();
+
+		while (result.endsWith(";"))
+		{
+			result = result.substring(0, result.length() - 1).trim();
+		}
+
+		return result;
+	}
+
+	private static void close(
+		DatabaseInstance instance)
+	{
+		synchronized (SCOPES)
+		{
+			Scope scope = SCOPES.get(instance);
+
+			if (scope != null && --scope.depth == 0)
+			{
+				SCOPES.remove(instance);
+			}
+		}
+	}
+
+	private static final class Scope
+	{
+		private int depth;
+		private final List<QueryAssertion> pending = new ArrayList<>();
+		private final Map<UUID, Integer> counts = new HashMap<>();
+	}
+}
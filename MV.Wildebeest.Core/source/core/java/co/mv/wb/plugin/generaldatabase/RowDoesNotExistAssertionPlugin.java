@@ -24,13 +24,8 @@ import co.mv.wb.Instance;
 import co.mv.wb.ModelExtensions;
 import co.mv.wb.PluginHandler;
 import co.mv.wb.framework.ArgumentNullException;
-import co.mv.wb.framework.DatabaseHelper;
 import co.mv.wb.plugin.base.ImmutableAssertionResponse;
 
-import javax.sql.DataSource;
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
 
 /**
@@ -60,49 +55,31 @@ public class RowDoesNotExistAssertionPlugin implements AssertionPlugin
 
 		AssertionResponse result;
 
-		DataSource ds = db.getAppDataSource();
-
-		Connection conn = null;
-		PreparedStatement ps = null;
-		ResultSet rs = null;
-
+		// Rows are counted only far enough to tell whether the assertion holds, together with the other row assertions
+		// being checked in the same scope
+		int rowCount;
 		try
 		{
-			try
-			{
-				conn = ds.getConnection();
-				ps = conn.prepareStatement(assertionT.getSql());
-				rs = ps.executeQuery();
-
-				int rowCount = 0;
-				while (rs.next())
-				{
-					rowCount++;
-				}
-
-				if (rowCount == 0)
-				{
-					result = new ImmutableAssertionResponse(true, "Row does not exist, as expected");
-				}
-				else
-				{
-					result = new ImmutableAssertionResponse(
-						false,
-						String.format("Expected to find no rows but found %d", rowCount));
-				}
-			}
-			finally
-			{
-				DatabaseHelper.release(rs);
-				DatabaseHelper.release(ps);
-				DatabaseHelper.release(conn);
-			}
+			rowCount = RowCountBatch.countRows(db, assertionT);
 		}
 		catch (SQLException e)
 		{
 			throw new AssertionFaultException(assertionT.getAssertionId(), e);
 		}
 
+		if (rowCount == 0)
+		{
+			result = new ImmutableAssertionResponse(true, "Row does not exist, as expected");
+		}
+		else
+		{
+			result = new ImmutableAssertionResponse(
+				false,
+				rowCount < RowCountBatch.MAX_ROWS
+					? String.format("Expected to find no rows but found %d", rowCount)
+					: "Expected to find no rows but found more than one");
+		}
+
 		return result;
 	}
 }
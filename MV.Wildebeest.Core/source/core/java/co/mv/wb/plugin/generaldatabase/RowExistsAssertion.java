@@ -46,8 +46,10 @@ import java.util.UUID;
 			"    ]]></sql>\n" +
 			"</assertion> "
 )
-public class RowExistsAssertion extends BaseAssertion implements Assertion
+public class RowExistsAssertion extends BaseAssertion implements QueryAssertion
 {
+	private static final long serialVersionUID = 1L;
+
 	private final String description;
 	private final String sql;
 
@@ -87,7 +89,7 @@ public class RowExistsAssertion extends BaseAssertion implements Assertion
 			Wildebeest.SqlServerDatabase);
 	}
 
-	public String getSql()
+	@Override public String getSql()
 	{
 		return this.sql;
 	}
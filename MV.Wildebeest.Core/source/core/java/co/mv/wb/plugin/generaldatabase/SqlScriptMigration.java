@@ -23,12 +23,21 @@ import co.mv.wb.Wildebeest;
 import co.mv.wb.framework.ArgumentNullException;
 import co.mv.wb.plugin.base.BaseMigration;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 /**
- * A {@link Migration} that performs a SQL script to transition between states.
+ * A {@link Migration} that performs a SQL script to transition between states.  The script is either given inline in
+ * the resource definition, or is held in a separate file that is read, one statement at a time, only when the
+ * migration is performed.
  *
  * @since 1.0
  */
@@ -36,7 +45,8 @@ import java.util.UUID;
 	pluginGroupUri = "co.mv.wb:GeneralDatabase",
 	uri = "co.mv.wb.generaldatabase:SqlScript",
 	description = "Migrates a database resource by applying a SQL script.  This migration can be used for any " +
-		"dialect of SQL, as long as the DBMS supports it.",
+		"dialect of SQL, as long as the DBMS supports it.  The script is given inline in a <sql> element, or in a " +
+		"file named by a <filename> element, relative to the resource file.",
 	example =
 		"<migration\n" +
 			"    type=\"SqlScript\"\n" +
@@ -58,14 +68,20 @@ import java.util.UUID;
 			"    ('HW', 'Hardware'),\n" +
 			"    ('SW', 'Software');\n" +
 			"\n" +
+			"    ]]></sql>\n" +
+			"    <batchSize>500</batchSize>\n" +
 			"</migration>"
 )
 public class SqlScriptMigration extends BaseMigration implements Migration
 {
+	private static final long serialVersionUID = 1L;
+
 	private final String sql;
+	private final File sqlFile;
+	private final int batchSize;
 
 	/**
-	 * Creates a new SqlScriptMigration.
+	 * Creates a new SqlScriptMigration that executes each statement in the script on its own.
 	 *
 	 * @param migrationId the ID of the migration
 	 * @param fromState   the ID of the source state that this migration applies to, or null if
@@ -80,17 +96,138 @@ public class SqlScriptMigration extends BaseMigration implements Migration
 		String fromState,
 		String toState,
 		String sql)
+	{
+		this(
+			migrationId,
+			fromState,
+			toState,
+			sql,
+			1);
+	}
+
+	/**
+	 * Creates a new SqlScriptMigration that sends consecutive DML statements in the script to the database in JDBC
+	 * batches.
+	 *
+	 * @param migrationId the ID of the migration
+	 * @param fromState   the ID of the source state that this migration applies to, or null if
+	 *                    this migration transitions from the non-existent state.
+	 * @param toState     the ID of the target state that the migration applies to, or null if
+	 *                    this migration transitions to the non-existent state.
+	 * @param sql         the SQL script that performs the migration from the fron-state to the
+	 *                    to-state.
+	 * @param batchSize   the maximum number of DML statements to send to the database in each batch, or 1 to
+	 *                    execute every statement on its own.
+	 * @since 4.0
+	 */
+	public SqlScriptMigration(
+		UUID migrationId,
+		String fromState,
+		String toState,
+		String sql,
+		int batchSize)
 	{
 		super(migrationId, fromState, toState);
 
 		if (sql == null) throw new ArgumentNullException("sql");
+		if (batchSize < 1) throw new IllegalArgumentException("batchSize must be at least 1");
 
 		this.sql = sql;
+		this.sqlFile = null;
+		this.batchSize = batchSize;
 	}
 
+	/**
+	 * Creates a new SqlScriptMigration whose SQL script is held in a file.
+	 *
+	 * @param migrationId the ID of the migration
+	 * @param fromState   the ID of the source state that this migration applies to, or null if
+	 *                    this migration transitions from the non-existent state.
+	 * @param toState     the ID of the target state that the migration applies to, or null if
+	 *                    this migration transitions to the non-existent state.
+	 * @param baseDir     the base directory for resolving the script file.
+	 * @param fileName    the filename of the SQL script, relative to the baseDir.
+	 * @param batchSize   the maximum number of DML statements to send to the database in each batch, or 1 to
+	 *                    execute every statement on its own.
+	 * @since 4.0
+	 */
+	public SqlScriptMigration(
+		UUID migrationId,
+		String fromState,
+		String toState,
+		File baseDir,
+		String fileName,
+		int batchSize)
+	{
+		super(migrationId, fromState, toState);
+
+		if (baseDir == null) throw new ArgumentNullException("baseDir");
+		if (fileName == null) throw new ArgumentNullException("fileName");
+		if ("".equals(fileName.trim())) throw new IllegalArgumentException("fileName cannot be empty");
+		if (batchSize < 1) throw new IllegalArgumentException("batchSize must be at least 1");
+
+		this.sql = null;
+		this.sqlFile = new File(baseDir, fileName);
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Gets the inline SQL script for this migration.  If the script is held in a file this method throws an
+	 * IllegalStateException; call getSqlFile() first to check where the script is held.
+	 *
+	 * @return the inline SQL script.
+	 * @since 1.0
+	 */
 	public String getSql()
 	{
-		return sql;
+		if (this.sql == null)
+		{
+			throw new IllegalStateException(
+				"sql not set.  The script for this migration is held in " + this.sqlFile.getPath());
+		}
+
+		return this.sql;
+	}
+
+	/**
+	 * Gets the file that holds the SQL script for this migration, if the script is not given inline.
+	 *
+	 * @return the file that holds the SQL script, or empty if the script is given inline.
+	 * @since 4.0
+	 */
+	public Optional<File> getSqlFile()
+	{
+		return Optional.ofNullable(this.sqlFile);
+	}
+
+	/**
+	 * Opens a Reader over the SQL script for this migration.  A script held in a file is read through a buffer as the
+	 * Reader is consumed, so it is never loaded into memory all at once.  The caller must close the Reader.
+	 *
+	 * @return a Reader over the SQL script.
+	 * @throws IOException if the script file cannot be opened.
+	 * @since 4.0
+	 */
+	public Reader openScript() throws IOException
+	{
+		if (this.sqlFile == null)
+		{
+			return new StringReader(this.sql);
+		}
+
+		return Files.newBufferedReader(this.sqlFile.toPath(), StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Gets the maximum number of DML statements to send to the database in each JDBC batch.  A batch size of 1 means
+	 * that every statement is executed on its own.
+	 *
+	 * @return the maximum number of statements in each batch.
+	 * @since 4.0
+	 */
+	public int getBatchSize()
+	{
+		return this.batchSize;
 	}
 
 	@Override public List<ResourceType> getApplicableTypes()
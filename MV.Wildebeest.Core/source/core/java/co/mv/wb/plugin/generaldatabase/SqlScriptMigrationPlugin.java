@@ -27,6 +27,9 @@ import co.mv.wb.event.EventSink;
 import co.mv.wb.framework.ArgumentNullException;
 import co.mv.wb.framework.DatabaseHelper;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.NoSuchFileException;
 import java.sql.SQLException;
 
 /**
@@ -59,15 +62,22 @@ public class SqlScriptMigrationPlugin implements MigrationPlugin
 			throw new IllegalArgumentException("instance must be a SqlServerDatabaseInstance");
 		}
 
-		try
+		try (Reader script = migrationT.openScript())
 		{
-			// Strip out any comments, and split the block of SQL into individual statements
-			DatabaseHelper.execute(
+			// Split the script into individual statements using the rules of the instance's SQL dialect
+			DatabaseHelper.executeScript(
 				instanceT.getAppDataSource(),
-				migrationT.getSql(),
-				true);
+				script,
+				instanceT.getSqlDialect(),
+				migrationT.getBatchSize());
 		}
-		catch (SQLException e)
+		catch (NoSuchFileException e)
+		{
+			throw new MigrationFailedException(
+				migration.getMigrationId(),
+				String.format("SQL script file %s not found", e.getFile()));
+		}
+		catch (IOException | SQLException e)
 		{
 			throw new MigrationFaultException(e);
 		}
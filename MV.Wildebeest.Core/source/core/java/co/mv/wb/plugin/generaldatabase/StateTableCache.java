@@ -0,0 +1,102 @@
+// Wildebeest Migration Framework
+// Copyright © 2013 - 2018, Matheson Ventures Pte Ltd
+//
+// This file is part of Wildebeest
+//
+// Wildebeest is free software: you can redistribute it and/or modify it under
+// the terms of the GNU General Public License v2 as published by the Free
+// Software Foundation.
+//
+// Wildebeest is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Wildebeest.  If not, see http://www.gnu.org/licenses/gpl-2.0.html
+
+package co.mv.wb.plugin.generaldatabase;
+
+import co.mv.wb.framework.ArgumentNullException;
+
+import javax.sql.DataSource;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Remembers which state tracking tables are known to exist in each database, so that the state helpers only need to
+ * check for, and if necessary create, a state table the first time it is used.  Databases are identified by the app
+ * DataSource of their {@link DatabaseInstance}, and are held weakly so that an entry lives no longer than its instance.
+ * <p>
+ * Anything that may remove a state table, such as dropping the database or rolling back a transaction that created
+ * the table, must call {@link #forget(DataSource)}.
+ *
+ * @since 4.0
+ */
+public final class StateTableCache
+{
+	private static final Map<DataSource, Set<String>> KNOWN_TABLES = Collections.synchronizedMap(new WeakHashMap<>());
+
+	private StateTableCache()
+	{
+	}
+
+	/**
+	 * Returns whether the state table is known to exist in the database.
+	 *
+	 * @param appDataSource  the DataSource for the database.
+	 * @param stateTableName the fully-qualified name of the state tracking table.
+	 * @return true if the table has already been found or created in the database.
+	 * @since 4.0
+	 */
+	public static boolean isKnown(
+		DataSource appDataSource,
+		String stateTableName)
+	{
+		if (appDataSource == null) throw new ArgumentNullException("appDataSource");
+		if (stateTableName == null) throw new ArgumentNullException("stateTableName");
+
+		synchronized (KNOWN_TABLES)
+		{
+			Set<String> tables = KNOWN_TABLES.get(appDataSource);
+
+			return tables != null && tables.contains(stateTableName);
+		}
+	}
+
+	/**
+	 * Records that the state table exists in the database.
+	 *
+	 * @param appDataSource  the DataSource for the database.
+	 * @param stateTableName the fully-qualified name of the state tracking table.
+	 * @since 4.0
+	 */
+	public static void markKnown(
+		DataSource appDataSource,
+		String stateTableName)
+	{
+		if (appDataSource == null) throw new ArgumentNullException("appDataSource");
+		if (stateTableName == null) throw new ArgumentNullException("stateTableName");
+
+		synchronized (KNOWN_TABLES)
+		{
+			KNOWN_TABLES.computeIfAbsent(appDataSource, ds -> new HashSet<>()).add(stateTableName);
+		}
+	}
+
+	/**
+	 * Forgets every state table recorded for the database, so that each is checked again the next time it is used.
+	 *
+	 * @param appDataSource the DataSource for the database.
+	 * @since 4.0
+	 */
+	public static void forget(
+		DataSource appDataSource)
+	{
+		if (appDataSource == null) throw new ArgumentNullException("appDataSource");
+
+		KNOWN_TABLES.remove(appDataSource);
+	}
+}
@@ -46,10 +46,12 @@ public class SqlScriptDomMigrationBuilder extends BaseDomMigrationBuilder
 		Migration result;
 
 		Optional<String> sql = this.tryGetString("sql");
+		Optional<String> filename = this.tryGetString("filename");
+		Optional<Integer> batchSize = this.tryGetInteger("batchSize");
 
 		// Validation
 		MessageList messages = new MessageList();
-		if (!sql.isPresent())
+		if (!sql.isPresent() && !filename.isPresent())
 		{
 			V.elementMissing(messages, migrationId, "sql", SqlScriptMigration.class);
 		}
@@ -59,11 +61,26 @@ public class SqlScriptDomMigrationBuilder extends BaseDomMigrationBuilder
 			throw new PluginBuildException(messages);
 		}
 
-		result = new SqlScriptMigration(
-			migrationId,
-			fromState,
-			toState,
-			sql.get());
+		if (sql.isPresent())
+		{
+			result = new SqlScriptMigration(
+				migrationId,
+				fromState,
+				toState,
+				sql.get(),
+				batchSize.orElse(1));
+		}
+		else
+		{
+			// The script is not read until the migration is performed
+			result = new SqlScriptMigration(
+				migrationId,
+				fromState,
+				toState,
+				baseDir,
+				filename.get(),
+				batchSize.orElse(1));
+		}
 
 		return result;
 	}
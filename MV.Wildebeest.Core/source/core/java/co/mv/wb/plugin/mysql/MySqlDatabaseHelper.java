@@ -19,11 +19,14 @@ package co.mv.wb.plugin.mysql;
 import co.mv.wb.FaultException;
 import co.mv.wb.framework.ArgumentNullException;
 import co.mv.wb.framework.DatabaseHelper;
+import co.mv.wb.plugin.generaldatabase.CatalogSnapshot;
+import co.mv.wb.plugin.generaldatabase.CatalogSnapshotCache;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Optional;
 
 /**
  * Functional helper methods for working with MySQL databases.
@@ -34,7 +37,7 @@ public class MySqlDatabaseHelper
 {
 	/**
 	 * Returns a boolean flag indicating whether or not a table exists for the database described by the supplied
-	 * instance.
+	 * instance.  Inside an assertion scope the answer is taken from the scope's {@link CatalogSnapshot}.
 	 *
 	 * @param instance  the MySqlDatabaseInstance to check.
 	 * @param tableName the name of the table to check for.
@@ -49,6 +52,12 @@ public class MySqlDatabaseHelper
 		if (tableName == null) throw new ArgumentNullException("tableName");
 		if ("".equals(tableName)) throw new IllegalArgumentException("tableName cannot be empty");
 
+		Optional<CatalogSnapshot> catalog = CatalogSnapshotCache.get(instance);
+		if (catalog.isPresent())
+		{
+			return catalog.get().tableExists(instance.getDatabaseName(), tableName);
+		}
+
 		StringBuilder query = new StringBuilder();
 		query
 			.append("SELECT TABLE_NAME FROM TABLES ")
@@ -92,4 +101,30 @@ public class MySqlDatabaseHelper
 
 		return result;
 	}
+
+	/**
+	 * Reads a {@link CatalogSnapshot} of every table in the database described by the supplied instance.  Table
+	 * names are compared case-insensitively, as information_schema compares them in the query used by
+	 * {@link #tableExists(MySqlDatabaseInstance, String)}.
+	 *
+	 * @param instance the MySqlDatabaseInstance to read.
+	 * @return the snapshot.
+	 * @since 4.0
+	 */
+	public static CatalogSnapshot readCatalog(
+		MySqlDatabaseInstance instance)
+	{
+		if (instance == null) throw new ArgumentNullException("instance");
+
+		if (!instance.databaseExists())
+		{
+			return CatalogSnapshot.noDatabase();
+		}
+
+		return CatalogSnapshot.read(
+			instance.getAdminDataSource(),
+			"SELECT TABLE_SCHEMA, TABLE_NAME FROM TABLES WHERE TABLE_SCHEMA = ?;",
+			false,
+			instance.getDatabaseName());
+	}
 }
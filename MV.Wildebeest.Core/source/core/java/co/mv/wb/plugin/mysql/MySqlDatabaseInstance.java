@@ -18,8 +18,14 @@ package co.mv.wb.plugin.mysql;
 
 import co.mv.wb.FaultException;
 import co.mv.wb.Instance;
+import co.mv.wb.InstanceSession;
 import co.mv.wb.framework.DatabaseHelper;
+import co.mv.wb.framework.PooledDataSource;
+import co.mv.wb.framework.SqlDialect;
 import co.mv.wb.plugin.generaldatabase.BaseDatabaseInstance;
+import co.mv.wb.plugin.generaldatabase.CatalogSnapshot;
+import co.mv.wb.plugin.generaldatabase.DatabaseConstants;
+import co.mv.wb.plugin.generaldatabase.DatabaseInstanceSession;
 import co.mv.wb.plugin.generaldatabase.JdbcDatabaseInstance;
 import com.mysql.cj.jdbc.MysqlDataSource;
 
@@ -41,6 +47,9 @@ public class MySqlDatabaseInstance extends BaseDatabaseInstance implements JdbcD
 	private final int port;
 	private final String adminUsername;
 	private final String adminPassword;
+	private final int connectionPoolSize;
+	private PooledDataSource adminDataSource;
+	private PooledDataSource appDataSource;
 
 	/**
 	 * Creates a new MySqlDatabaseInstance.
@@ -61,13 +70,50 @@ public class MySqlDatabaseInstance extends BaseDatabaseInstance implements JdbcD
 		String adminPassword,
 		String databaseName,
 		String stateTableName)
+	{
+		this(
+			hostName,
+			port,
+			adminUsername,
+			adminPassword,
+			databaseName,
+			stateTableName,
+			DatabaseConstants.DefaultConnectionPoolSize);
+	}
+
+	/**
+	 * Creates a new MySqlDatabaseInstance.
+	 *
+	 * @param hostName           the host name or IP address of the server.
+	 * @param port               the port number of the server.
+	 * @param adminUsername      the username for a user that has permission to administer the database.
+	 * @param adminPassword      the password for the admin user, in clear text.
+	 * @param databaseName       the name of the database for this instance of the resource.
+	 * @param stateTableName     the name to give the state tracking table.  This is optional and null
+	 *                           may be supplied.
+	 * @param connectionPoolSize the number of idle connections to keep open for reuse by each DataSource.
+	 * @since 4.0
+	 */
+	public MySqlDatabaseInstance(
+		String hostName,
+		int port,
+		String adminUsername,
+		String adminPassword,
+		String databaseName,
+		String stateTableName,
+		int connectionPoolSize)
 	{
 		super(databaseName, stateTableName);
 
+		if (connectionPoolSize < 0) throw new IllegalArgumentException("connectionPoolSize cannot be negative");
+
 		this.hostName = hostName;
 		this.port = port;
 		this.adminUsername = adminUsername;
 		this.adminPassword = adminPassword;
+		this.connectionPoolSize = connectionPoolSize;
+		this.adminDataSource = null;
+		this.appDataSource = null;
 	}
 
 	/**
@@ -115,6 +161,17 @@ public class MySqlDatabaseInstance extends BaseDatabaseInstance implements JdbcD
 		return this.adminPassword;
 	}
 
+	/**
+	 * Gets the number of idle connections that each DataSource for this instance keeps open for reuse.
+	 *
+	 * @return the number of idle connections kept open by each DataSource.
+	 * @since 4.0
+	 */
+	public int getConnectionPoolSize()
+	{
+		return this.connectionPoolSize;
+	}
+
 	/**
 	 * Returns a DataSource for the information schema in the target MySQL database.
 	 *
@@ -123,14 +180,24 @@ public class MySqlDatabaseInstance extends BaseDatabaseInstance implements JdbcD
 	 */
 	@Override public DataSource getAdminDataSource()
 	{
-		MysqlDataSource ds = new MysqlDataSource();
-		ds.setServerName(this.getHostName());
-		ds.setPort(this.getPort());
-		ds.setUser(this.getAdminUsername());
-		ds.setPassword(this.getAdminPassword());
-		ds.setDatabaseName("information_schema");
+		return this.adminPool();
+	}
+
+	private synchronized PooledDataSource adminPool()
+	{
+		if (this.adminDataSource == null)
+		{
+			MysqlDataSource ds = new MysqlDataSource();
+			ds.setServerName(this.getHostName());
+			ds.setPort(this.getPort());
+			ds.setUser(this.getAdminUsername());
+			ds.setPassword(this.getAdminPassword());
+			ds.setDatabaseName("information_schema");
 
-		return ds;
+			this.adminDataSource = new PooledDataSource(ds, this.connectionPoolSize);
+		}
+
+		return this.adminDataSource;
 	}
 
 	/**
@@ -141,14 +208,66 @@ public class MySqlDatabaseInstance extends BaseDatabaseInstance implements JdbcD
 	 */
 	@Override public DataSource getAppDataSource()
 	{
-		MysqlDataSource ds = new MysqlDataSource();
-		ds.setServerName(this.getHostName());
-		ds.setPort(this.getPort());
-		ds.setUser(this.getAdminUsername());
-		ds.setPassword(this.getAdminPassword());
-		ds.setDatabaseName(this.getDatabaseName());
+		return this.appPool();
+	}
+
+	private synchronized PooledDataSource appPool()
+	{
+		if (this.appDataSource == null)
+		{
+			MysqlDataSource ds = new MysqlDataSource();
+			ds.setServerName(this.getHostName());
+			ds.setPort(this.getPort());
+			ds.setUser(this.getAdminUsername());
+			ds.setPassword(this.getAdminPassword());
+			ds.setDatabaseName(this.getDatabaseName());
+
+			try
+			{
+				// Send batched SqlScript statements in as few round trips as possible, and stop at the first failure
+				ds.setRewriteBatchedStatements(true);
+				ds.setContinueBatchOnError(false);
+			}
+			catch (SQLException e)
+			{
+				throw new FaultException(e);
+			}
+
+			this.appDataSource = new PooledDataSource(ds, this.connectionPoolSize);
+		}
+
+		return this.appDataSource;
+	}
+
+	@Override public InstanceSession openSession()
+	{
+		return new DatabaseInstanceSession(
+			this.adminPool(),
+			this.appPool(),
+			false);
+	}
 
-		return ds;
+	@Override public synchronized void closeIdleAppConnections()
+	{
+		if (this.appDataSource != null)
+		{
+			this.appDataSource.closeIdleConnections();
+		}
+	}
+
+	@Override public synchronized void close()
+	{
+		if (this.adminDataSource != null)
+		{
+			this.adminDataSource.close();
+			this.adminDataSource = null;
+		}
+
+		if (this.appDataSource != null)
+		{
+			this.appDataSource.close();
+			this.appDataSource = null;
+		}
 	}
 
 	@Override public boolean databaseExists()
@@ -189,4 +308,14 @@ public class MySqlDatabaseInstance extends BaseDatabaseInstance implements JdbcD
 
 		return result;
 	}
+
+	@Override public SqlDialect getSqlDialect()
+	{
+		return SqlDialect.MySql;
+	}
+
+	@Override public CatalogSnapshot readCatalog()
+	{
+		return MySqlDatabaseHelper.readCatalog(this);
+	}
 }
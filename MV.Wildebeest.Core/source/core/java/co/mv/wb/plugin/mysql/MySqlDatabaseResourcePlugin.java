@@ -22,11 +22,13 @@ import co.mv.wb.Instance;
 import co.mv.wb.InvalidReferenceException;
 import co.mv.wb.ModelExtensions;
 import co.mv.wb.Resource;
+import co.mv.wb.ResourceLock;
 import co.mv.wb.ResourcePlugin;
 import co.mv.wb.State;
 import co.mv.wb.Wildebeest;
 import co.mv.wb.event.EventSink;
 import co.mv.wb.framework.ArgumentNullException;
+import co.mv.wb.plugin.generaldatabase.AdvisoryLock;
 import co.mv.wb.plugin.generaldatabase.Extensions;
 
 import java.sql.SQLException;
@@ -39,6 +41,8 @@ import java.util.UUID;
  */
 public class MySqlDatabaseResourcePlugin implements ResourcePlugin
 {
+	private static final int MAX_LOCK_NAME_LENGTH = 64;
+
 	/**
 	 * Creates a new MySqlDatabaseResourcePlugin
 	 */
@@ -76,7 +80,7 @@ public class MySqlDatabaseResourcePlugin implements ResourcePlugin
 		{
 			try
 			{
-				result = Wildebeest.findState(resource, declaredStateId.toString());
+				result = Wildebeest.findState(resource, declaredStateId);
 			}
 
 			// If the declared state ID is not known, throw
@@ -124,4 +128,26 @@ public class MySqlDatabaseResourcePlugin implements ResourcePlugin
 			throw new FaultException(e);
 		}
 	}
+
+	@Override
+	public ResourceLock lock(
+		Resource resource,
+		Instance instance)
+	{
+		if (resource == null) throw new ArgumentNullException("resource");
+		if (instance == null) throw new ArgumentNullException("instance");
+
+		MySqlDatabaseInstance db = ModelExtensions.as(instance, MySqlDatabaseInstance.class);
+		if (db == null)
+		{
+			throw new IllegalArgumentException("instance must be a MySqlDatabaseInstance");
+		}
+
+		// A server-wide named lock; a negative timeout waits for as long as it is held elsewhere
+		return AdvisoryLock.acquire(
+			db.getAdminDataSource(),
+			"SELECT GET_LOCK(?, -1)",
+			"SELECT RELEASE_LOCK(?)",
+			AdvisoryLock.lockName(db, MAX_LOCK_NAME_LENGTH));
+	}
 }
@@ -46,6 +46,8 @@ import java.util.UUID;
 )
 public class MySqlDropDatabaseMigration extends BaseMigration
 {
+	private static final long serialVersionUID = 1L;
+
 	/**
 	 * Creates a new MySqlDropDatabaseMigration.
 	 *
@@ -26,6 +26,7 @@ import co.mv.wb.PluginHandler;
 import co.mv.wb.event.EventSink;
 import co.mv.wb.framework.ArgumentNullException;
 import co.mv.wb.framework.DatabaseHelper;
+import co.mv.wb.plugin.generaldatabase.StateTableCache;
 
 import java.sql.SQLException;
 
@@ -66,6 +67,12 @@ public class MySqlDropDatabaseMigrationPlugin implements MigrationPlugin
 				String.format("database \"%s\" does not exist", instanceT.getDatabaseName()));
 		}
 
+		// Pooled connections to the database would stop it from being dropped
+		instanceT.closeIdleAppConnections();
+
+		// The state table is dropped along with the database
+		StateTableCache.forget(instanceT.getAppDataSource());
+
 		try
 		{
 			DatabaseHelper.execute(
@@ -21,6 +21,7 @@ import co.mv.wb.IndeterminateStateException;
 import co.mv.wb.framework.ArgumentNullException;
 import co.mv.wb.framework.DatabaseHelper;
 import co.mv.wb.framework.SqlParameters;
+import co.mv.wb.plugin.generaldatabase.StateTableCache;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
@@ -40,6 +41,8 @@ public class MySqlStateHelper
 	/**
 	 * Sets the tracked state for an instance.  Note that a MySqlDatabaseInstance may be migrated by multiple separate
 	 * resource definitions (to support composite resources).  The state set is for a specific resource definition.
+	 * The state is written with a single INSERT ... ON DUPLICATE KEY UPDATE statement, so a state row exists for the
+	 * resource at all times once it has first been set.
 	 *
 	 * @param resourceId     the ID of the resource for which we are tracking state.
 	 * @param appDataSource  the DataSource for interacting with the database.
@@ -64,26 +67,27 @@ public class MySqlStateHelper
 			appDataSource,
 			stateTableName);
 
-		DatabaseHelper.execute(
-			appDataSource,
-			String.format(
-				"DELETE FROM %s WHERE ResourceId = ?;",
-				stateTableName),
-			Arrays.asList(
-				new SqlParameters("resourceId", resourceId)
-			));
-
-		DatabaseHelper.execute(
-			appDataSource,
-			String.format(
-				"INSERT INTO %s(ResourceId, StateId, LastMigrationInstant) VALUES(?, ?, ?);",
-				// TODO: What is the correct syntax for indexed parameters?  Also note we'll still need to String.format to get the table name in place - not ideal but we can improve that later.
-				stateTableName),
-			Arrays.asList(
-				new SqlParameters("resourceId", resourceId),
-				new SqlParameters("stateId", stateId),
-				new SqlParameters("lastUpdatedInstant", DatabaseHelper.getInstant())
-			));
+		try
+		{
+			DatabaseHelper.execute(
+				appDataSource,
+				String.format(
+					"INSERT INTO %s(ResourceId, StateId, LastMigrationInstant) VALUES(?, ?, ?) " +
+						"ON DUPLICATE KEY UPDATE " +
+						"StateId = VALUES(StateId), LastMigrationInstant = VALUES(LastMigrationInstant);",
+					stateTableName),
+				Arrays.asList(
+					new SqlParameters("resourceId", resourceId),
+					new SqlParameters("stateId", stateId),
+					new SqlParameters("lastUpdatedInstant", DatabaseHelper.getInstant())
+				));
+		}
+		catch (SQLException e)
+		{
+			// The state table may have been removed, so check for it again next time
+			StateTableCache.forget(appDataSource);
+			throw e;
+		}
 	}
 
 	/**
@@ -163,7 +167,8 @@ public class MySqlStateHelper
 	}
 
 	/**
-	 * Creates the state tracking table in a MySqlDatabaseInstance.
+	 * Creates the state tracking table in a MySqlDatabaseInstance, if it does not already exist.  The catalog is
+	 * checked before any DDL is issued, and once the table is known to exist it is not checked again.
 	 *
 	 * @param appDataSource  the DataSource for interacting with the database.
 	 * @param stateTableName the name of the state tracking table in use for this instance.
@@ -178,13 +183,29 @@ public class MySqlStateHelper
 		if (stateTableName == null) throw new ArgumentNullException("stateTableName");
 		if ("".equals(stateTableName)) throw new IllegalArgumentException("stateTableName cannot be empty");
 
-		DatabaseHelper.execute(appDataSource, new StringBuilder()
-				.append("CREATE TABLE IF NOT EXISTS `").append(stateTableName).append("`(")
-				.append("`ResourceId` char(36) NOT NULL, ")
-				.append("`StateId` char(36) NOT NULL, ")
-				.append("`LastMigrationInstant` datetime NOT NULL, ")
-				.append("PRIMARY KEY (`ResourceId`)")
-				.append(");").toString(),
-			false);
+		if (StateTableCache.isKnown(appDataSource, stateTableName))
+		{
+			return;
+		}
+
+		boolean tableExists = DatabaseHelper.rowExists(
+			appDataSource,
+			String.format(
+				"SELECT 1 FROM information_schema.tables WHERE table_schema = DATABASE() AND table_name = '%s';",
+				stateTableName));
+
+		if (!tableExists)
+		{
+			DatabaseHelper.execute(appDataSource, new StringBuilder()
+					.append("CREATE TABLE IF NOT EXISTS `").append(stateTableName).append("`(")
+					.append("`ResourceId` char(36) NOT NULL, ")
+					.append("`StateId` char(36) NOT NULL, ")
+					.append("`LastMigrationInstant` datetime NOT NULL, ")
+					.append("PRIMARY KEY (`ResourceId`)")
+					.append(");").toString(),
+				false);
+		}
+
+		StateTableCache.markKnown(appDataSource, stateTableName);
 	}
 }
@@ -46,6 +46,8 @@ import java.util.UUID;
 )
 public class MySqlTableDoesNotExistAssertion extends BaseAssertion
 {
+	private static final long serialVersionUID = 1L;
+
 	private final String tableName;
 
 	/**
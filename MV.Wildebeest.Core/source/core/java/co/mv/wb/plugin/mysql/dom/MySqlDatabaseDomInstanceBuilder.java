@@ -22,6 +22,7 @@ import co.mv.wb.MessageList;
 import co.mv.wb.PluginBuildException;
 import co.mv.wb.V;
 import co.mv.wb.plugin.base.dom.BaseDomInstanceBuilder;
+import co.mv.wb.plugin.generaldatabase.DatabaseConstants;
 import co.mv.wb.plugin.mysql.MySqlDatabaseInstance;
 
 import java.util.Optional;
@@ -42,6 +43,7 @@ public class MySqlDatabaseDomInstanceBuilder extends BaseDomInstanceBuilder
 		Optional<String> adminPassword = this.tryGetString("adminPassword");
 		Optional<String> databaseName = this.tryGetString("databaseName");
 		Optional<String> stateTableName = this.tryGetString("stateTableName");
+		Optional<Integer> connectionPoolSize = this.tryGetInteger("connectionPoolSize");
 
 		MessageList messages = new MessageList();
 		if (!hostName.isPresent())
@@ -76,6 +78,7 @@ public class MySqlDatabaseDomInstanceBuilder extends BaseDomInstanceBuilder
 			adminUsername.get(),
 			adminPassword.get(),
 			databaseName.get(),
-			stateTableName.orElse(null));
+			stateTableName.orElse(null),
+			connectionPoolSize.orElse(DatabaseConstants.DefaultConnectionPoolSize));
 	}
 }
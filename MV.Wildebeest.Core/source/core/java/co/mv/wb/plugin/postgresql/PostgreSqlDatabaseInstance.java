@@ -16,10 +16,17 @@
 
 package co.mv.wb.plugin.postgresql;
 
+import co.mv.wb.InstanceSession;
 import co.mv.wb.framework.ArgumentNullException;
 import co.mv.wb.framework.DatabaseHelper;
+import co.mv.wb.framework.PooledDataSource;
+import co.mv.wb.framework.SqlDialect;
+import co.mv.wb.plugin.generaldatabase.AnsiSqlDatabaseHelper;
 import co.mv.wb.plugin.generaldatabase.AnsiSqlDatabaseInstance;
 import co.mv.wb.plugin.generaldatabase.BaseDatabaseInstance;
+import co.mv.wb.plugin.generaldatabase.CatalogSnapshot;
+import co.mv.wb.plugin.generaldatabase.DatabaseConstants;
+import co.mv.wb.plugin.generaldatabase.DatabaseInstanceSession;
 import co.mv.wb.plugin.generaldatabase.JdbcDatabaseInstance;
 import org.postgresql.ds.PGSimpleDataSource;
 
@@ -40,6 +47,10 @@ public class PostgreSqlDatabaseInstance
 	private final String adminUsername;
 	private final String adminPassword;
 	private final String metaSchemaName;
+	private final int connectionPoolSize;
+	private final boolean transactionalMigrations;
+	private PooledDataSource adminDataSource;
+	private PooledDataSource appDataSource;
 
 	public PostgreSqlDatabaseInstance(
 		String hostName,
@@ -49,18 +60,61 @@ public class PostgreSqlDatabaseInstance
 		String databaseName,
 		String metaSchemaName,
 		String stateTableName)
+	{
+		this(
+			hostName,
+			port,
+			adminUsername,
+			adminPassword,
+			databaseName,
+			metaSchemaName,
+			stateTableName,
+			DatabaseConstants.DefaultConnectionPoolSize,
+			false);
+	}
+
+	/**
+	 * Creates a new PostgreSqlDatabaseInstance.
+	 *
+	 * @param hostName                the host name or IP address of the server.
+	 * @param port                    the port number of the server.
+	 * @param adminUsername           the username for a user that has permission to administer the database.
+	 * @param adminPassword           the password for the admin user, in clear text.
+	 * @param databaseName            the name of the database for this instance of the resource.
+	 * @param metaSchemaName          the optional name of the schema to hold the state tracking table.
+	 * @param stateTableName          the optional name to give the state tracking table.
+	 * @param connectionPoolSize      the number of idle connections to keep open for reuse by each DataSource.
+	 * @param transactionalMigrations whether each migration step and it's state update should be committed in a single
+	 *                                transaction.
+	 * @since 4.0
+	 */
+	public PostgreSqlDatabaseInstance(
+		String hostName,
+		int port,
+		String adminUsername,
+		String adminPassword,
+		String databaseName,
+		String metaSchemaName,
+		String stateTableName,
+		int connectionPoolSize,
+		boolean transactionalMigrations)
 	{
 		super(databaseName, stateTableName);
 
 		if (hostName == null) throw new ArgumentNullException("hostName");
 		if (adminUsername == null) throw new ArgumentNullException("adminUsername");
 		if (adminPassword == null) throw new ArgumentNullException("adminPassword");
+		if (connectionPoolSize < 0) throw new IllegalArgumentException("connectionPoolSize cannot be negative");
 
 		this.hostName = hostName;
 		this.port = port;
 		this.adminUsername = adminUsername;
 		this.adminPassword = adminPassword;
 		this.metaSchemaName = metaSchemaName;
+		this.connectionPoolSize = connectionPoolSize;
+		this.transactionalMigrations = transactionalMigrations;
+		this.adminDataSource = null;
+		this.appDataSource = null;
 	}
 
 	@Override public final String getHostName()
@@ -98,28 +152,102 @@ public class PostgreSqlDatabaseInstance
 		return this.metaSchemaName != null;
 	}
 
+	/**
+	 * Gets the number of idle connections that each DataSource for this instance keeps open for reuse.
+	 *
+	 * @return the number of idle connections kept open by each DataSource.
+	 * @since 4.0
+	 */
+	public int getConnectionPoolSize()
+	{
+		return this.connectionPoolSize;
+	}
+
+	/**
+	 * Gets whether each migration step against this instance is run in a transaction, along with the update of the
+	 * state table, so that the step and it's new state are committed together.
+	 *
+	 * @return true if migration steps are run in transactions, otherwise false.
+	 * @since 4.0
+	 */
+	public boolean isTransactionalMigrations()
+	{
+		return this.transactionalMigrations;
+	}
+
 	@Override public DataSource getAdminDataSource()
 	{
-		PGSimpleDataSource ds = new PGSimpleDataSource();
-		ds.setServerName(this.getHostName());
-		ds.setPortNumber(this.getPort());
-		ds.setUser(this.getAdminUsername());
-		ds.setPassword(this.getAdminPassword());
-		ds.setDatabaseName("postgres");
+		return this.adminPool();
+	}
+
+	private synchronized PooledDataSource adminPool()
+	{
+		if (this.adminDataSource == null)
+		{
+			PGSimpleDataSource ds = new PGSimpleDataSource();
+			ds.setServerName(this.getHostName());
+			ds.setPortNumber(this.getPort());
+			ds.setUser(this.getAdminUsername());
+			ds.setPassword(this.getAdminPassword());
+			ds.setDatabaseName("postgres");
+
+			this.adminDataSource = new PooledDataSource(ds, this.connectionPoolSize);
+		}
 
-		return ds;
+		return this.adminDataSource;
 	}
 
 	@Override public DataSource getAppDataSource()
 	{
-		PGSimpleDataSource ds = new PGSimpleDataSource();
-		ds.setServerName(this.getHostName());
-		ds.setPortNumber(this.getPort());
-		ds.setUser(this.getAdminUsername());
-		ds.setPassword(this.getAdminPassword());
-		ds.setDatabaseName(this.getDatabaseName().toLowerCase());
+		return this.appPool();
+	}
+
+	private synchronized PooledDataSource appPool()
+	{
+		if (this.appDataSource == null)
+		{
+			PGSimpleDataSource ds = new PGSimpleDataSource();
+			ds.setServerName(this.getHostName());
+			ds.setPortNumber(this.getPort());
+			ds.setUser(this.getAdminUsername());
+			ds.setPassword(this.getAdminPassword());
+			ds.setDatabaseName(this.getDatabaseName().toLowerCase());
+
+			this.appDataSource = new PooledDataSource(ds, this.connectionPoolSize);
+		}
 
-		return ds;
+		return this.appDataSource;
+	}
+
+	@Override public InstanceSession openSession()
+	{
+		return new DatabaseInstanceSession(
+			this.adminPool(),
+			this.appPool(),
+			this.transactionalMigrations);
+	}
+
+	@Override public synchronized void closeIdleAppConnections()
+	{
+		if (this.appDataSource != null)
+		{
+			this.appDataSource.closeIdleConnections();
+		}
+	}
+
+	@Override public synchronized void close()
+	{
+		if (this.adminDataSource != null)
+		{
+			this.adminDataSource.close();
+			this.adminDataSource = null;
+		}
+
+		if (this.appDataSource != null)
+		{
+			this.appDataSource.close();
+			this.appDataSource = null;
+		}
 	}
 
 	@Override public boolean databaseExists()
@@ -128,4 +256,14 @@ public class PostgreSqlDatabaseInstance
 			this.getAdminDataSource(),
 			String.format("SELECT * FROM pg_database WHERE datname = '%s';", this.getDatabaseName().toLowerCase()));
 	}
+
+	@Override public SqlDialect getSqlDialect()
+	{
+		return SqlDialect.PostgreSql;
+	}
+
+	@Override public CatalogSnapshot readCatalog()
+	{
+		return AnsiSqlDatabaseHelper.readCatalog(this);
+	}
 }
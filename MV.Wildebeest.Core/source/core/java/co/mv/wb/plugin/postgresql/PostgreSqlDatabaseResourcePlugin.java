@@ -22,11 +22,13 @@ import co.mv.wb.Instance;
 import co.mv.wb.InvalidReferenceException;
 import co.mv.wb.ModelExtensions;
 import co.mv.wb.Resource;
+import co.mv.wb.ResourceLock;
 import co.mv.wb.ResourcePlugin;
 import co.mv.wb.State;
 import co.mv.wb.Wildebeest;
 import co.mv.wb.event.EventSink;
 import co.mv.wb.framework.ArgumentNullException;
+import co.mv.wb.plugin.generaldatabase.AdvisoryLock;
 import co.mv.wb.plugin.generaldatabase.AnsiSqlDatabaseInstance;
 import co.mv.wb.plugin.generaldatabase.Extensions;
 
@@ -62,17 +64,14 @@ public class PostgreSqlDatabaseResourcePlugin implements ResourcePlugin
 		String metaSchemaName = Extensions.getMetaSchemaName(db);
 		String stateTableName = Extensions.getStateTableName(db);
 
-		UUID declaredStateId = null;
-
-		if (db.databaseExists() && PostgreSqlStateHelper.hasStateId(
-			resource.getResourceId(), db.getAppDataSource(), metaSchemaName, stateTableName))
-		{
-			declaredStateId = PostgreSqlStateHelper.getStateId(
+		// The state table is read in a single probe, and is not created if it does not exist yet
+		UUID declaredStateId = db.databaseExists()
+			? PostgreSqlStateHelper.probeStateId(
 				resource.getResourceId(),
 				db.getAppDataSource(),
 				metaSchemaName,
-				stateTableName);
-		}
+				stateTableName)
+			: null;
 
 		// If we found a declared state, check that the state is actually defined
 		State result = null;
@@ -81,7 +80,7 @@ public class PostgreSqlDatabaseResourcePlugin implements ResourcePlugin
 		{
 			try
 			{
-				result = Wildebeest.findState(resource, declaredStateId.toString());
+				result = Wildebeest.findState(resource, declaredStateId);
 			}
 
 			// If the declared state ID is not known, throw
@@ -130,4 +129,26 @@ public class PostgreSqlDatabaseResourcePlugin implements ResourcePlugin
 			throw new FaultException(e);
 		}
 	}
+
+	@Override
+	public ResourceLock lock(
+		Resource resource,
+		Instance instance)
+	{
+		if (resource == null) throw new ArgumentNullException("resource");
+		if (instance == null) throw new ArgumentNullException("instance");
+
+		PostgreSqlDatabaseInstance db = ModelExtensions.as(instance, PostgreSqlDatabaseInstance.class);
+		if (db == null)
+		{
+			throw new IllegalArgumentException("instance must be a PostgreSqlDatabaseInstance");
+		}
+
+		// A session-level advisory lock, taken in the maintenance database because the database itself may not exist yet
+		return AdvisoryLock.acquire(
+			db.getAdminDataSource(),
+			"SELECT 1 FROM pg_advisory_lock(?)",
+			"SELECT pg_advisory_unlock(?)",
+			AdvisoryLock.lockKey(db));
+	}
 }
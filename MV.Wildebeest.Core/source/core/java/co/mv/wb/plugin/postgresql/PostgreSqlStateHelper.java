@@ -20,12 +20,15 @@ import co.mv.wb.FaultException;
 import co.mv.wb.IndeterminateStateException;
 import co.mv.wb.framework.ArgumentNullException;
 import co.mv.wb.framework.DatabaseHelper;
+import co.mv.wb.framework.SqlParameters;
+import co.mv.wb.plugin.generaldatabase.StateTableCache;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Arrays;
 import java.util.UUID;
 
 /**
@@ -38,7 +41,8 @@ public class PostgreSqlStateHelper
 	/**
 	 * Sets the tracked state for an instance.  Note that a PostgreSqlDatabaseInstance may be migrated by multiple
 	 * separate resource definitions (to support composite resources).  The state set is for a specific resource
-	 * definition.
+	 * definition.  The state is written with a single INSERT ... ON CONFLICT statement, so a state row exists for the
+	 * resource at all times once it has first been set.
 	 *
 	 * @param resourceId     the ID of the resource for which we are tracking state.
 	 * @param appDataSource  the DataSource for interacting with the database.
@@ -68,25 +72,28 @@ public class PostgreSqlStateHelper
 			metaSchemaName,
 			stateTableName);
 
-		DatabaseHelper.execute(
-			appDataSource,
-			String.format(
-				"DELETE FROM %s.%s WHERE ResourceId = '%s';",
-				metaSchemaName,
-				stateTableName,
-				resourceId),
-			false);
-
-		DatabaseHelper.execute(
-			appDataSource,
-			String.format(
-				"INSERT INTO %s.%s(ResourceId, StateId, LastMigrationInstant) VALUES('%s', '%s', '%s');",
-				metaSchemaName,
-				stateTableName,
-				resourceId,
-				stateId,
-				DatabaseHelper.getInstant()),
-			false);
+		try
+		{
+			DatabaseHelper.execute(
+				appDataSource,
+				String.format(
+					"INSERT INTO %s.%s(ResourceId, StateId, LastMigrationInstant) VALUES(?::uuid, ?::uuid, ?) " +
+						"ON CONFLICT (ResourceId) DO UPDATE SET " +
+						"StateId = EXCLUDED.StateId, LastMigrationInstant = EXCLUDED.LastMigrationInstant;",
+					metaSchemaName,
+					stateTableName),
+				Arrays.asList(
+					new SqlParameters("resourceId", resourceId),
+					new SqlParameters("stateId", stateId),
+					new SqlParameters("lastMigrationInstant", DatabaseHelper.getInstant())
+				));
+		}
+		catch (SQLException e)
+		{
+			// The state table may have been removed, so check for it again next time
+			StateTableCache.forget(appDataSource);
+			throw e;
+		}
 	}
 
 	/**
@@ -175,7 +182,60 @@ public class PostgreSqlStateHelper
 	}
 
 	/**
-	 * Creates the state tracking table in a PostgreSqlDatabaseInstance.
+	 * Reads the tracked state for the specified resource without creating the state tracking table.  If the table is
+	 * not yet known to exist, the catalog is checked first and null is returned when it is missing, so a read never
+	 * issues DDL.
+	 *
+	 * @param resourceId     the ID of the resource for which the state should be queried.
+	 * @param appDataSource  the DataSource for interacting with the database.
+	 * @param metaSchemaName the name of the meta-data tracking schema to use.
+	 * @param stateTableName the name of the state tracking table in use for this instance.
+	 * @return the ID of the tracked state for this resource if tracked, or null otherwise.
+	 * @throws IndeterminateStateException if multiple states are tracked for the specified resource.
+	 * @since 4.0
+	 */
+	public static UUID probeStateId(
+		UUID resourceId,
+		DataSource appDataSource,
+		String metaSchemaName,
+		String stateTableName) throws IndeterminateStateException
+	{
+		if (resourceId == null) throw new ArgumentNullException("resourceId");
+		if (appDataSource == null) throw new ArgumentNullException("appDataSource");
+		if (metaSchemaName == null) throw new ArgumentNullException("metaSchemaName");
+		if ("".equals(metaSchemaName)) throw new IllegalArgumentException("metaSchemaName cannot be empty");
+		if (stateTableName == null) throw new ArgumentNullException("stateTableName");
+		if ("".equals(stateTableName)) throw new IllegalArgumentException("stateTableName cannot be empty");
+
+		String qualifiedTableName = metaSchemaName + "." + stateTableName;
+
+		if (!StateTableCache.isKnown(appDataSource, qualifiedTableName))
+		{
+			try
+			{
+				if (!PostgreSqlStateHelper.stateTableExists(appDataSource, qualifiedTableName))
+				{
+					return null;
+				}
+			}
+			catch (SQLException e)
+			{
+				throw new FaultException(e);
+			}
+
+			StateTableCache.markKnown(appDataSource, qualifiedTableName);
+		}
+
+		return PostgreSqlStateHelper.stateIdScalarOptional(
+			resourceId,
+			appDataSource,
+			metaSchemaName,
+			stateTableName);
+	}
+
+	/**
+	 * Creates the state tracking table in a PostgreSqlDatabaseInstance, if it does not already exist.  The catalog is
+	 * checked before any DDL is issued, and once the table is known to exist it is not checked again.
 	 *
 	 * @param appDataSource  the DataSource for interacting with the database.
 	 * @param metaSchemaName the name of the meta-data tracking schema to use.
@@ -194,25 +254,37 @@ public class PostgreSqlStateHelper
 		if (stateTableName == null) throw new ArgumentNullException("stateTableName");
 		if ("".equals(stateTableName)) throw new IllegalArgumentException("stateTableName cannot be empty");
 
+		String qualifiedTableName = metaSchemaName + "." + stateTableName;
+
+		if (StateTableCache.isKnown(appDataSource, qualifiedTableName))
+		{
+			return;
+		}
+
 		try
 		{
-			DatabaseHelper.execute(
-				appDataSource,
-				String.format("CREATE SCHEMA IF NOT EXISTS %s;", metaSchemaName),
-				false);
+			if (!PostgreSqlStateHelper.stateTableExists(appDataSource, qualifiedTableName))
+			{
+				DatabaseHelper.execute(
+					appDataSource,
+					String.format("CREATE SCHEMA IF NOT EXISTS %s;", metaSchemaName),
+					false);
 
-			DatabaseHelper.execute(
-				appDataSource,
-				new StringBuilder()
-					.append("CREATE TABLE IF NOT EXISTS ")
-					.append(metaSchemaName).append(".")
-					.append(stateTableName).append("(")
-					.append("ResourceId UUID NOT NULL, ")
-					.append("StateId UUID NOT NULL, ")
-					.append("LastMigrationInstant timestamp NOT NULL, ")
-					.append("CONSTRAINT PK_").append(stateTableName).append(" PRIMARY KEY (ResourceId)")
-					.append(");").toString(),
-				false);
+				DatabaseHelper.execute(
+					appDataSource,
+					new StringBuilder()
+						.append("CREATE TABLE IF NOT EXISTS ")
+						.append(metaSchemaName).append(".")
+						.append(stateTableName).append("(")
+						.append("ResourceId UUID NOT NULL, ")
+						.append("StateId UUID NOT NULL, ")
+						.append("LastMigrationInstant timestamp NOT NULL, ")
+						.append("CONSTRAINT PK_").append(stateTableName).append(" PRIMARY KEY (ResourceId)")
+						.append(");").toString(),
+					false);
+			}
+
+			StateTableCache.markKnown(appDataSource, qualifiedTableName);
 		}
 		catch (SQLException e)
 		{
@@ -220,6 +292,15 @@ public class PostgreSqlStateHelper
 		}
 	}
 
+	private static boolean stateTableExists(
+		DataSource appDataSource,
+		String qualifiedTableName) throws SQLException
+	{
+		return DatabaseHelper.rowExists(
+			appDataSource,
+			String.format("SELECT 1 WHERE to_regclass('%s') IS NOT NULL;", qualifiedTableName));
+	}
+
 	/**
 	 * Data access method for retrieving the state ID for the specified resource, if it is tracked.  If not then this
 	 * method will return null.
@@ -274,6 +355,8 @@ public class PostgreSqlStateHelper
 		}
 		catch (SQLException e)
 		{
+			// The state table may have been removed, so check for it again next time
+			StateTableCache.forget(appDataSource);
 			throw new FaultException(e);
 		}
 		finally
@@ -22,6 +22,7 @@ import co.mv.wb.MessageList;
 import co.mv.wb.PluginBuildException;
 import co.mv.wb.V;
 import co.mv.wb.plugin.base.dom.BaseDomInstanceBuilder;
+import co.mv.wb.plugin.generaldatabase.DatabaseConstants;
 import co.mv.wb.plugin.postgresql.PostgreSqlDatabaseInstance;
 
 import java.util.Optional;
@@ -43,6 +44,8 @@ public class PostgreSqlDatabaseDomInstanceBuilder extends BaseDomInstanceBuilder
 		Optional<String> databaseName = this.tryGetString("databaseName");
 		Optional<String> metaSchemaName = this.tryGetString("metaSchemaName");
 		Optional<String> stateTableName = this.tryGetString("stateTableName");
+		Optional<Integer> connectionPoolSize = this.tryGetInteger("connectionPoolSize");
+		Optional<Boolean> transactionalMigrations = this.tryGetBoolean("transactionalMigrations");
 
 		MessageList messages = new MessageList();
 		if (!hostName.isPresent())
@@ -78,6 +81,8 @@ public class PostgreSqlDatabaseDomInstanceBuilder extends BaseDomInstanceBuilder
 			adminPassword.get(),
 			databaseName.get(),
 			metaSchemaName.orElse(null),
-			stateTableName.orElse(null));
+			stateTableName.orElse(null),
+			connectionPoolSize.orElse(DatabaseConstants.DefaultConnectionPoolSize),
+			transactionalMigrations.orElse(false));
 	}
 }
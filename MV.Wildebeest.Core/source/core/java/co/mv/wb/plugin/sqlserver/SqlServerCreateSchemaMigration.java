@@ -45,6 +45,8 @@ import java.util.UUID;
 )
 public class SqlServerCreateSchemaMigration extends BaseMigration
 {
+	private static final long serialVersionUID = 1L;
+
 	private final String schemaName;
 
 	/**
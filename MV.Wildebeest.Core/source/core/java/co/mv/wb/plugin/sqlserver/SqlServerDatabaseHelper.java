@@ -18,6 +18,10 @@ package co.mv.wb.plugin.sqlserver;
 
 import co.mv.wb.framework.ArgumentNullException;
 import co.mv.wb.framework.DatabaseHelper;
+import co.mv.wb.plugin.generaldatabase.CatalogSnapshot;
+import co.mv.wb.plugin.generaldatabase.CatalogSnapshotCache;
+
+import java.util.Optional;
 
 /**
  * Functional helper methods for working with SQL Server databases.
@@ -28,7 +32,7 @@ public class SqlServerDatabaseHelper
 {
 	/**
 	 * Returns an indication of whether or not the SQL Server database represented by the supplied instance contains
-	 * a given schema.
+	 * a given schema.  Inside an assertion scope the answer is taken from the scope's {@link CatalogSnapshot}.
 	 *
 	 * @param instance   the SqlServerDatabaseIntance to check.
 	 * @param schemaName the name of the schema to check for.
@@ -43,6 +47,12 @@ public class SqlServerDatabaseHelper
 		if (schemaName == null) throw new ArgumentNullException("schemaName");
 		if ("".equals(schemaName.trim())) throw new IllegalArgumentException("schemaName cannot be empty");
 
+		Optional<CatalogSnapshot> catalog = CatalogSnapshotCache.get(instance);
+		if (catalog.isPresent())
+		{
+			return catalog.get().schemaExists(schemaName);
+		}
+
 		return DatabaseHelper.rowExists(
 			instance.getAppDataSource(),
 			String.format(
@@ -51,7 +61,8 @@ public class SqlServerDatabaseHelper
 	}
 
 	/**
-	 * Returns an indication of whether or not a SQL Server database schema contains a given table.
+	 * Returns an indication of whether or not a SQL Server database schema contains a given table.  Inside an
+	 * assertion scope the answer is taken from the scope's {@link CatalogSnapshot}.
 	 *
 	 * @param instance   the SqlServerDatabseInstance to check.
 	 * @param schemaName the name of the schema that should contain the table.
@@ -70,10 +81,41 @@ public class SqlServerDatabaseHelper
 		if (tableName == null) throw new ArgumentNullException("tableName");
 		if ("".equals(tableName.trim())) throw new IllegalArgumentException("tableName cannot be empty");
 
+		Optional<CatalogSnapshot> catalog = CatalogSnapshotCache.get(instance);
+		if (catalog.isPresent())
+		{
+			return catalog.get().tableExists(schemaName, tableName);
+		}
+
 		return DatabaseHelper.rowExists(
 			instance.getAppDataSource(),
 			String.format(
 				"SELECT * FROM sys.objects WHERE object_id = OBJECT_ID('%s') AND TYPE IN (N'U')",
 				"[" + schemaName + "].[" + tableName + "]"));
 	}
+
+	/**
+	 * Reads a {@link CatalogSnapshot} of every schema and user table in the SQL Server database represented by the
+	 * supplied instance.  Names are compared case-insensitively, as they are under the default collation.
+	 *
+	 * @param instance the SqlServerDatabaseInstance to read.
+	 * @return the snapshot.
+	 * @since 4.0
+	 */
+	public static CatalogSnapshot readCatalog(
+		SqlServerDatabaseInstance instance)
+	{
+		if (instance == null) throw new ArgumentNullException("instance");
+
+		if (!instance.databaseExists())
+		{
+			return CatalogSnapshot.noDatabase();
+		}
+
+		return CatalogSnapshot.read(
+			instance.getAppDataSource(),
+			"SELECT s.name, o.name FROM sys.schemas s " +
+				"LEFT JOIN sys.objects o ON o.schema_id = s.schema_id AND o.type = N'U';",
+			false);
+	}
 }
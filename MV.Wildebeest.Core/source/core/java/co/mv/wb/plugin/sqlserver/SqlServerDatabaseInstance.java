@@ -18,9 +18,14 @@ package co.mv.wb.plugin.sqlserver;
 
 import co.mv.wb.FaultException;
 import co.mv.wb.Instance;
+import co.mv.wb.InstanceSession;
 import co.mv.wb.framework.ArgumentNullException;
 import co.mv.wb.framework.DatabaseHelper;
+import co.mv.wb.framework.PooledDataSource;
+import co.mv.wb.framework.SqlDialect;
+import co.mv.wb.plugin.generaldatabase.CatalogSnapshot;
 import co.mv.wb.plugin.generaldatabase.DatabaseConstants;
+import co.mv.wb.plugin.generaldatabase.DatabaseInstanceSession;
 import co.mv.wb.plugin.generaldatabase.DatabaseInstance;
 import co.mv.wb.plugin.generaldatabase.JdbcDatabaseInstance;
 import com.microsoft.sqlserver.jdbc.SQLServerDataSource;
@@ -46,6 +51,10 @@ public class SqlServerDatabaseInstance implements DatabaseInstance,
 	private final String adminPassword;
 	private String databaseName;
 	private String stateTableName;
+	private final int connectionPoolSize;
+	private final boolean transactionalMigrations;
+	private PooledDataSource adminDataSource;
+	private PooledDataSource appDataSource;
 
 	/**
 	 * Creates a new SqlServerDatabaseInstance.
@@ -71,11 +80,54 @@ public class SqlServerDatabaseInstance implements DatabaseInstance,
 		String adminPassword,
 		String databaseName,
 		String stateTableName)
+	{
+		this(
+			hostName,
+			instanceName,
+			port,
+			adminUsername,
+			adminPassword,
+			databaseName,
+			stateTableName,
+			DatabaseConstants.DefaultConnectionPoolSize,
+			false);
+	}
+
+	/**
+	 * Creates a new SqlServerDatabaseInstance.
+	 *
+	 * @param hostName                the host name of the server for this instance.
+	 * @param instanceName            the SQL Server instance name for this instance.  Null may be supplied
+	 *                                where no instance name needs to be specified.
+	 * @param port                    the port number of the server for this instance.
+	 * @param adminUsername           the username of the user that will be used to administer the database
+	 *                                represented by this instance.
+	 * @param adminPassword           the password of the user that will be used to administer the database
+	 *                                represented by this instance.
+	 * @param databaseName            the name of the database for this instance.
+	 * @param stateTableName          the optional name for the state tracking table.  If null is supplied for
+	 *                                this parameter, the default name will be used.
+	 * @param connectionPoolSize      the number of idle connections to keep open for reuse by each DataSource.
+	 * @param transactionalMigrations whether each migration step and it's state update should be committed in a single
+	 *                                transaction.
+	 * @since 4.0
+	 */
+	public SqlServerDatabaseInstance(
+		String hostName,
+		String instanceName,
+		int port,
+		String adminUsername,
+		String adminPassword,
+		String databaseName,
+		String stateTableName,
+		int connectionPoolSize,
+		boolean transactionalMigrations)
 	{
 		if (hostName == null) throw new ArgumentNullException("hostName");
 		if (adminUsername == null) throw new ArgumentNullException("adminUsername");
 		if (adminPassword == null) throw new ArgumentNullException("adminPassword");
 		if (databaseName == null) throw new ArgumentNullException("databaseName");
+		if (connectionPoolSize < 0) throw new IllegalArgumentException("connectionPoolSize cannot be negative");
 
 		if (stateTableName == null || stateTableName.trim().equals(""))
 		{
@@ -89,6 +141,10 @@ public class SqlServerDatabaseInstance implements DatabaseInstance,
 		this.adminPassword = adminPassword;
 		this.databaseName = databaseName;
 		this.stateTableName = stateTableName;
+		this.connectionPoolSize = connectionPoolSize;
+		this.transactionalMigrations = transactionalMigrations;
+		this.adminDataSource = null;
+		this.appDataSource = null;
 	}
 
 	@Override public final String getHostName()
@@ -126,6 +182,29 @@ public class SqlServerDatabaseInstance implements DatabaseInstance,
 		return this.stateTableName != null;
 	}
 
+	/**
+	 * Gets the number of idle connections that each DataSource for this instance keeps open for reuse.
+	 *
+	 * @return the number of idle connections kept open by each DataSource.
+	 * @since 4.0
+	 */
+	public int getConnectionPoolSize()
+	{
+		return this.connectionPoolSize;
+	}
+
+	/**
+	 * Gets whether each migration step against this instance is run in a transaction, along with the update of the
+	 * state table, so that the step and it's new state are committed together.
+	 *
+	 * @return true if migration steps are run in transactions, otherwise false.
+	 * @since 4.0
+	 */
+	public boolean isTransactionalMigrations()
+	{
+		return this.transactionalMigrations;
+	}
+
 	// </editor-fold>
 
 	/**
@@ -135,18 +214,28 @@ public class SqlServerDatabaseInstance implements DatabaseInstance,
 	 */
 	@Override public DataSource getAdminDataSource()
 	{
-		SQLServerDataSource result = new SQLServerDataSource();
-		result.setServerName(this.getHostName());
-		if (this.instanceName != null)
+		return this.adminPool();
+	}
+
+	private synchronized PooledDataSource adminPool()
+	{
+		if (this.adminDataSource == null)
 		{
-			result.setInstanceName(this.instanceName);
+			SQLServerDataSource result = new SQLServerDataSource();
+			result.setServerName(this.getHostName());
+			if (this.instanceName != null)
+			{
+				result.setInstanceName(this.instanceName);
+			}
+			result.setPortNumber(this.getPort());
+			result.setUser(this.getAdminUsername());
+			result.setPassword(this.getAdminPassword());
+			result.setDatabaseName("master");
+
+			this.adminDataSource = new PooledDataSource(result, this.connectionPoolSize);
 		}
-		result.setPortNumber(this.getPort());
-		result.setUser(this.getAdminUsername());
-		result.setPassword(this.getAdminPassword());
-		result.setDatabaseName("master");
 
-		return result;
+		return this.adminDataSource;
 	}
 
 	/**
@@ -156,18 +245,59 @@ public class SqlServerDatabaseInstance implements DatabaseInstance,
 	 */
 	@Override public DataSource getAppDataSource()
 	{
-		SQLServerDataSource result = new SQLServerDataSource();
-		result.setServerName(this.getHostName());
-		if (this.instanceName != null)
+		return this.appPool();
+	}
+
+	private synchronized PooledDataSource appPool()
+	{
+		if (this.appDataSource == null)
 		{
-			result.setInstanceName(this.instanceName);
+			SQLServerDataSource result = new SQLServerDataSource();
+			result.setServerName(this.getHostName());
+			if (this.instanceName != null)
+			{
+				result.setInstanceName(this.instanceName);
+			}
+			result.setPortNumber(this.getPort());
+			result.setUser(this.getAdminUsername());
+			result.setPassword(this.getAdminPassword());
+			result.setDatabaseName(this.getDatabaseName());
+
+			this.appDataSource = new PooledDataSource(result, this.connectionPoolSize);
 		}
-		result.setPortNumber(this.getPort());
-		result.setUser(this.getAdminUsername());
-		result.setPassword(this.getAdminPassword());
-		result.setDatabaseName(this.getDatabaseName());
 
-		return result;
+		return this.appDataSource;
+	}
+
+	@Override public InstanceSession openSession()
+	{
+		return new DatabaseInstanceSession(
+			this.adminPool(),
+			this.appPool(),
+			this.transactionalMigrations);
+	}
+
+	@Override public synchronized void closeIdleAppConnections()
+	{
+		if (this.appDataSource != null)
+		{
+			this.appDataSource.closeIdleConnections();
+		}
+	}
+
+	@Override public synchronized void close()
+	{
+		if (this.adminDataSource != null)
+		{
+			this.adminDataSource.close();
+			this.adminDataSource = null;
+		}
+
+		if (this.appDataSource != null)
+		{
+			this.appDataSource.close();
+			this.appDataSource = null;
+		}
 	}
 
 	@Override public boolean databaseExists()
@@ -211,4 +341,14 @@ public class SqlServerDatabaseInstance implements DatabaseInstance,
 
 		return result;
 	}
+
+	@Override public SqlDialect getSqlDialect()
+	{
+		return SqlDialect.SqlServer;
+	}
+
+	@Override public CatalogSnapshot readCatalog()
+	{
+		return SqlServerDatabaseHelper.readCatalog(this);
+	}
 }
@@ -22,11 +22,13 @@ import co.mv.wb.Instance;
 import co.mv.wb.InvalidReferenceException;
 import co.mv.wb.ModelExtensions;
 import co.mv.wb.Resource;
+import co.mv.wb.ResourceLock;
 import co.mv.wb.ResourcePlugin;
 import co.mv.wb.State;
 import co.mv.wb.Wildebeest;
 import co.mv.wb.event.EventSink;
 import co.mv.wb.framework.ArgumentNullException;
+import co.mv.wb.plugin.generaldatabase.AdvisoryLock;
 import co.mv.wb.plugin.generaldatabase.Extensions;
 
 import java.sql.Connection;
@@ -42,6 +44,8 @@ import java.util.UUID;
  */
 public class SqlServerDatabaseResourcePlugin implements ResourcePlugin
 {
+	private static final int MAX_LOCK_NAME_LENGTH = 255;
+
 	public SqlServerDatabaseResourcePlugin()
 	{
 	}
@@ -81,7 +85,7 @@ public class SqlServerDatabaseResourcePlugin implements ResourcePlugin
 		{
 			try
 			{
-				result = Wildebeest.findState(resource, declaredStateId.toString());
+				result = Wildebeest.findState(resource, declaredStateId);
 			}
 
 			// If the declared state ID is not known, throw
@@ -129,4 +133,30 @@ public class SqlServerDatabaseResourcePlugin implements ResourcePlugin
 			throw new FaultException(e);
 		}
 	}
+
+	@Override
+	public ResourceLock lock(
+		Resource resource,
+		Instance instance)
+	{
+		if (resource == null) throw new ArgumentNullException("resource");
+		if (instance == null) throw new ArgumentNullException("instance");
+
+		SqlServerDatabaseInstance db = ModelExtensions.as(instance, SqlServerDatabaseInstance.class);
+		if (db == null)
+		{
+			throw new IllegalArgumentException("instance must be a SqlServerDatabaseInstance");
+		}
+
+		// An application lock owned by the session rather than a transaction, so that it spans every migration step
+		return AdvisoryLock.acquire(
+			db.getAdminDataSource(),
+			"SET NOCOUNT ON; " +
+				"DECLARE @result INT; " +
+				"EXEC @result = sp_getapplock " +
+				"@Resource = ?, @LockMode = 'Exclusive', @LockOwner = 'Session', @LockTimeout = -1; " +
+				"SELECT CASE WHEN @result >= 0 THEN 1 ELSE 0 END;",
+			"EXEC sp_releaseapplock @Resource = ?, @LockOwner = 'Session'",
+			AdvisoryLock.lockName(db, MAX_LOCK_NAME_LENGTH));
+	}
 }
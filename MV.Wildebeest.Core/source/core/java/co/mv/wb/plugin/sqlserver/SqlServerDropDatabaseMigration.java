@@ -47,6 +47,8 @@ import java.util.UUID;
 )
 public class SqlServerDropDatabaseMigration extends BaseMigration
 {
+	private static final long serialVersionUID = 1L;
+
 	/**
 	 * Creates a new SqlServerCreateDatabseMigration.
 	 *
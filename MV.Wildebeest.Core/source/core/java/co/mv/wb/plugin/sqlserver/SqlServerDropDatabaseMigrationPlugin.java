@@ -26,6 +26,7 @@ import co.mv.wb.PluginHandler;
 import co.mv.wb.event.EventSink;
 import co.mv.wb.framework.ArgumentNullException;
 import co.mv.wb.framework.DatabaseHelper;
+import co.mv.wb.plugin.generaldatabase.StateTableCache;
 import com.microsoft.sqlserver.jdbc.SQLServerException;
 
 import java.sql.SQLException;
@@ -62,6 +63,12 @@ public class SqlServerDropDatabaseMigrationPlugin implements MigrationPlugin
 			throw new IllegalArgumentException("instance must be a SqlServerDatabaseInstance");
 		}
 
+		// Pooled connections to the database would stop it from being dropped
+		instanceT.closeIdleAppConnections();
+
+		// The state table is dropped along with the database
+		StateTableCache.forget(instanceT.getAppDataSource());
+
 		try
 		{
 			DatabaseHelper.execute(
@@ -47,6 +47,8 @@ import java.util.UUID;
 )
 public class SqlServerDropSchemaMigration extends BaseMigration
 {
+	private static final long serialVersionUID = 1L;
+
 	private final String schemaName;
 
 	/**
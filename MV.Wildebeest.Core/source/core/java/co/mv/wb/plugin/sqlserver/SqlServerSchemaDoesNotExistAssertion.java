@@ -46,6 +46,8 @@ import java.util.UUID;
 )
 public class SqlServerSchemaDoesNotExistAssertion extends BaseAssertion
 {
+	private static final long serialVersionUID = 1L;
+
 	private final String schemaName;
 
 	/**
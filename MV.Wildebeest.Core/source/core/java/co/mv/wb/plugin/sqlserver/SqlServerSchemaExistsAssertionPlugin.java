@@ -24,6 +24,7 @@ import co.mv.wb.ModelExtensions;
 import co.mv.wb.PluginHandler;
 import co.mv.wb.framework.ArgumentNullException;
 import co.mv.wb.plugin.base.ImmutableAssertionResponse;
+import co.mv.wb.plugin.generaldatabase.CatalogSnapshotCache;
 
 /**
  * Handler for {@link SqlServerSchemaExistsAssertion}.
@@ -52,7 +53,7 @@ public class SqlServerSchemaExistsAssertionPlugin implements AssertionPlugin
 
 		AssertionResponse result;
 
-		if (!db.databaseExists())
+		if (!CatalogSnapshotCache.databaseExists(db))
 		{
 			result = new ImmutableAssertionResponse(
 				false,
@@ -73,4 +74,10 @@ public class SqlServerSchemaExistsAssertionPlugin implements AssertionPlugin
 
 		return result;
 	}
+
+	@Override public long estimateCost(
+		Assertion assertion)
+	{
+		return CatalogSnapshotCache.ASSERTION_COST;
+	}
 }
@@ -20,12 +20,15 @@ import co.mv.wb.FaultException;
 import co.mv.wb.IndeterminateStateException;
 import co.mv.wb.framework.ArgumentNullException;
 import co.mv.wb.framework.DatabaseHelper;
+import co.mv.wb.framework.SqlParameters;
+import co.mv.wb.plugin.generaldatabase.StateTableCache;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Arrays;
 import java.util.UUID;
 
 /**
@@ -38,7 +41,8 @@ public class SqlServerStateHelper
 	/**
 	 * Sets the tracked state for an instance.  Note that a SqlServerDatabaseInstance may be migrated by multiple
 	 * separate resource definitions (to support composite resources).  The state set is for a specific resource
-	 * definition.
+	 * definition.  The state is written with a single MERGE statement, so a state row exists for the resource at all
+	 * times once it has first been set.
 	 *
 	 * @param resourceId     the ID of the resource for which we are tracking state.
 	 * @param appDataSource  the DataSource for interacting with the database.
@@ -63,23 +67,35 @@ public class SqlServerStateHelper
 			appDataSource,
 			stateTableName);
 
-		DatabaseHelper.execute(
-			appDataSource,
-			String.format(
-				"DELETE FROM %s WHERE ResourceId = '%s';",
-				stateTableName,
-				resourceId),
-			false);
-
-		DatabaseHelper.execute(
-			appDataSource,
-			String.format(
-				"INSERT INTO %s(ResourceId, StateId, LastMigrationInstant) VALUES('%s', '%s', '%s');",
-				stateTableName,
-				resourceId,
-				stateId,
-				DatabaseHelper.getInstant()),
-			false);
+		try
+		{
+			// The instant is passed as text so that its offset is kept in the datetimeoffset column.  HOLDLOCK stops
+			// two concurrent MERGEs from both inserting a row for the same resource.
+			DatabaseHelper.execute(
+				appDataSource,
+				String.format(
+					"MERGE %s WITH (HOLDLOCK) AS target " +
+						"USING (SELECT CAST(? AS uniqueidentifier) AS ResourceId, " +
+						"CAST(? AS uniqueidentifier) AS StateId, " +
+						"CAST(? AS datetimeoffset) AS LastMigrationInstant) AS source " +
+						"ON target.ResourceId = source.ResourceId " +
+						"WHEN MATCHED THEN UPDATE SET " +
+						"StateId = source.StateId, LastMigrationInstant = source.LastMigrationInstant " +
+						"WHEN NOT MATCHED THEN INSERT (ResourceId, StateId, LastMigrationInstant) " +
+						"VALUES (source.ResourceId, source.StateId, source.LastMigrationInstant);",
+					stateTableName),
+				Arrays.asList(
+					new SqlParameters("resourceId", resourceId),
+					new SqlParameters("stateId", stateId),
+					new SqlParameters("lastMigrationInstant", DatabaseHelper.getInstant().toString())
+				));
+		}
+		catch (SQLException e)
+		{
+			// The state table may have been removed, so check for it again next time
+			StateTableCache.forget(appDataSource);
+			throw e;
+		}
 	}
 
 
@@ -160,7 +176,8 @@ public class SqlServerStateHelper
 	}
 
 	/**
-	 * Creates the state tracking table in a SqlServerDatabaseInstance.
+	 * Creates the state tracking table in a SqlServerDatabaseInstance, if it does not already exist.  The catalog is
+	 * checked before any DDL is issued, and once the table is known to exist it is not checked again.
 	 *
 	 * @param appDataSource  the DataSource for interacting with the database.
 	 * @param stateTableName the name of the state tracking table in use for this instance.
@@ -175,17 +192,31 @@ public class SqlServerStateHelper
 		if (stateTableName == null) throw new ArgumentNullException("stateTableName");
 		if ("".equals(stateTableName)) throw new IllegalArgumentException("stateTableName cannot be empty");
 
-		DatabaseHelper.execute(
+		if (StateTableCache.isKnown(appDataSource, stateTableName))
+		{
+			return;
+		}
+
+		boolean tableExists = DatabaseHelper.rowExists(
 			appDataSource,
-			new StringBuilder()
-				.append("IF NOT EXISTS (SELECT * FROM sysobjects WHERE name = '").append(stateTableName).append
-				("' AND xtype='U')")
-				.append("CREATE TABLE ").append(stateTableName).append("(")
-				.append("ResourceId uniqueidentifier NOT NULL, ")
-				.append("StateId uniqueidentifier NOT NULL, ")
-				.append("LastMigrationInstant datetimeoffset NOT NULL, ")
-				.append("PRIMARY KEY (ResourceId)")
-				.append(");").toString(),
-			false);
+			String.format("SELECT 1 FROM sysobjects WHERE name = '%s' AND xtype = 'U';", stateTableName));
+
+		if (!tableExists)
+		{
+			DatabaseHelper.execute(
+				appDataSource,
+				new StringBuilder()
+					.append("IF NOT EXISTS (SELECT * FROM sysobjects WHERE name = '").append(stateTableName).append
+					("' AND xtype='U')")
+					.append("CREATE TABLE ").append(stateTableName).append("(")
+					.append("ResourceId uniqueidentifier NOT NULL, ")
+					.append("StateId uniqueidentifier NOT NULL, ")
+					.append("LastMigrationInstant datetimeoffset NOT NULL, ")
+					.append("PRIMARY KEY (ResourceId)")
+					.append(");").toString(),
+				false);
+		}
+
+		StateTableCache.markKnown(appDataSource, stateTableName);
 	}
 }
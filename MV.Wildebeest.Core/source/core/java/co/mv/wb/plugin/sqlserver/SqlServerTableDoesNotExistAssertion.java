@@ -46,6 +46,8 @@ import java.util.UUID;
 )
 public class SqlServerTableDoesNotExistAssertion extends BaseAssertion
 {
+	private static final long serialVersionUID = 1L;
+
 	private final String schemaName;
 	private final String tableName;
 
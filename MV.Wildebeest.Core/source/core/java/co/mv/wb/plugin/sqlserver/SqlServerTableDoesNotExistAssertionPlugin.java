@@ -25,6 +25,7 @@ import co.mv.wb.PluginHandler;
 import co.mv.wb.framework.ArgumentException;
 import co.mv.wb.framework.ArgumentNullException;
 import co.mv.wb.plugin.base.ImmutableAssertionResponse;
+import co.mv.wb.plugin.generaldatabase.CatalogSnapshotCache;
 
 /**
  * Handler for {@link SqlServerTableDoesNotExistAssertion}.
@@ -58,7 +59,7 @@ public class SqlServerTableDoesNotExistAssertionPlugin implements AssertionPlugi
 
 		AssertionResponse result;
 
-		if (!db.databaseExists())
+		if (!CatalogSnapshotCache.databaseExists(db))
 		{
 			result = new ImmutableAssertionResponse(
 				false,
@@ -80,4 +81,10 @@ public class SqlServerTableDoesNotExistAssertionPlugin implements AssertionPlugi
 
 		return result;
 	}
+
+	@Override public long estimateCost(
+		Assertion assertion)
+	{
+		return CatalogSnapshotCache.ASSERTION_COST;
+	}
 }
@@ -22,6 +22,7 @@ import co.mv.wb.MessageList;
 import co.mv.wb.PluginBuildException;
 import co.mv.wb.V;
 import co.mv.wb.plugin.base.dom.BaseDomInstanceBuilder;
+import co.mv.wb.plugin.generaldatabase.DatabaseConstants;
 import co.mv.wb.plugin.sqlserver.SqlServerDatabaseInstance;
 
 import java.util.Optional;
@@ -43,6 +44,8 @@ public class SqlServerDatabaseDomInstanceBuilder extends BaseDomInstanceBuilder
 		Optional<String> adminPassword = this.tryGetString("adminPassword");
 		Optional<String> databaseName = this.tryGetString("databaseName");
 		Optional<String> stateTableName = this.tryGetString("stateTableName");
+		Optional<Integer> connectionPoolSize = this.tryGetInteger("connectionPoolSize");
+		Optional<Boolean> transactionalMigrations = this.tryGetBoolean("transactionalMigrations");
 
 		// Validation
 		MessageList messages = new MessageList();
@@ -79,6 +82,8 @@ public class SqlServerDatabaseDomInstanceBuilder extends BaseDomInstanceBuilder
 			adminUsername.get(),
 			adminPassword.get(),
 			databaseName.get(),
-			stateTableName.orElse(null));
+			stateTableName.orElse(null),
+			connectionPoolSize.orElse(DatabaseConstants.DefaultConnectionPoolSize),
+			transactionalMigrations.orElse(false));
 	}
 }
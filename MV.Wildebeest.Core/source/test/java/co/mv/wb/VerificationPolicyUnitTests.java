@@ -0,0 +1,119 @@
+// Wildebeest Migration Framework
+// Copyright © 2013 - 2018, Matheson Ventures Pte Ltd
+//
+// This file is part of Wildebeest
+//
+// Wildebeest is free software: you can redistribute it and/or modify it under
+// the terms of the GNU General Public License v2 as published by the Free
+// Software Foundation.
+//
+// Wildebeest is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Wildebeest.  If not, see http://www.gnu.org/licenses/gpl-2.0.html
+
+
+package co.mv.wb;
+
+import co.mv.wb.framework.ArgumentException;
+import co.mv.wb.framework.ExpectException;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link VerificationPolicy}.
+ *
+ * @since 4.0
+ */
+public class VerificationPolicyUnitTests
+{
+	@Test
+	public void shouldVerify_everyStep_verifiesEachStep()
+	{
+		// Setup
+		VerificationPolicy policy = VerificationPolicy.everyStep();
+
+		// Execute and Verify
+		assertTrue("step 1", policy.shouldVerify(1, 3));
+		assertTrue("step 2", policy.shouldVerify(2, 3));
+		assertTrue("step 3", policy.shouldVerify(3, 3));
+	}
+
+	@Test
+	public void shouldVerify_finalStateOnly_verifiesLastStepOnly()
+	{
+		// Setup
+		VerificationPolicy policy = VerificationPolicy.finalStateOnly();
+
+		// Execute and Verify
+		assertFalse("step 1", policy.shouldVerify(1, 3));
+		assertFalse("step 2", policy.shouldVerify(2, 3));
+		assertTrue("step 3", policy.shouldVerify(3, 3));
+	}
+
+	@Test
+	public void shouldVerify_everyNSteps_verifiesEveryNthAndLastStep()
+	{
+		// Setup
+		VerificationPolicy policy = VerificationPolicy.everyNSteps(2);
+
+		// Execute and Verify
+		assertFalse("step 1", policy.shouldVerify(1, 5));
+		assertTrue("step 2", policy.shouldVerify(2, 5));
+		assertFalse("step 3", policy.shouldVerify(3, 5));
+		assertTrue("step 4", policy.shouldVerify(4, 5));
+		assertTrue("step 5", policy.shouldVerify(5, 5));
+	}
+
+	@Test
+	public void parse_knownPolicies_succeeds()
+	{
+		// Execute and Verify
+		assertSame("every-step", VerificationPolicy.everyStep(), VerificationPolicy.parse("every-step"));
+		assertSame("final-state", VerificationPolicy.finalStateOnly(), VerificationPolicy.parse("Final-State"));
+		assertSame("1", VerificationPolicy.everyStep(), VerificationPolicy.parse("1"));
+		assertEquals("5", "5", VerificationPolicy.parse(" 5 ").toString());
+	}
+
+	@Test
+	public void parse_unknownPolicy_throws()
+	{
+		// Execute and Verify
+		new ExpectException(ArgumentException.class)
+		{
+			@Override public void invoke() throws Exception
+			{
+				VerificationPolicy.parse("sometimes");
+			}
+
+			@Override public void verify(Exception e)
+			{
+				assertTrue("e.message", e.getMessage().contains("\"sometimes\" is not a verification policy"));
+			}
+		}.perform();
+	}
+
+	@Test
+	public void parse_zeroSteps_throws()
+	{
+		// Execute and Verify
+		new ExpectException(ArgumentException.class)
+		{
+			@Override public void invoke() throws Exception
+			{
+				VerificationPolicy.parse("0");
+			}
+
+			@Override public void verify(Exception e)
+			{
+				assertTrue("e.message", e.getMessage().contains("n must be at least 1"));
+			}
+		}.perform();
+	}
+}
@@ -0,0 +1,176 @@
+// Wildebeest Migration Framework
+// Copyright © 2013 - 2018, Matheson Ventures Pte Ltd
+//
+// This file is part of Wildebeest
+//
+// Wildebeest is free software: you can redistribute it and/or modify it under
+// the terms of the GNU General Public License v2 as published by the Free
+// Software Foundation.
+//
+// Wildebeest is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Wildebeest.  If not, see http://www.gnu.org/licenses/gpl-2.0.html
+
+
+package co.mv.wb.cli;
+
+import co.mv.wb.FileLoadException;
+import co.mv.wb.Instance;
+import co.mv.wb.InvalidReferenceException;
+import co.mv.wb.LoaderFault;
+import co.mv.wb.PluginBuildException;
+import co.mv.wb.Resource;
+import co.mv.wb.WildebeestApi;
+import co.mv.wb.XmlValidationException;
+import co.mv.wb.fixture.Fixtures;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+
+import static org.junit.Assert.assertSame;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for CachingWildebeestApi.
+ *
+ * @since 4.0
+ */
+public class CachingWildebeestApiUnitTests
+{
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test public void loadResource_unchangedFile_loadedOnce() throws
+		FileLoadException,
+		InvalidReferenceException,
+		IOException,
+		LoaderFault,
+		PluginBuildException,
+		XmlValidationException
+	{
+		// Setup
+		File resourceFile = this.write("resource.wbr", "<resource />");
+		Resource fakeResource = Fixtures.fakeResource();
+		WildebeestApi wildebeestApi = Fixtures.wildebeestApi().loadResourceReturns(fakeResource).get();
+		CachingWildebeestApi cachingApi = new CachingWildebeestApi(wildebeestApi);
+
+		// Execute
+		Resource first = cachingApi.loadResource(resourceFile);
+		Resource second = cachingApi.loadResource(new File(this.temporaryFolder.getRoot(), "./resource.wbr"));
+
+		// Verify
+		assertSame("first", fakeResource, first);
+		assertSame("second", fakeResource, second);
+		verify(wildebeestApi, times(1)).loadResource(any());
+	}
+
+	@Test public void loadInstance_fileChanged_loadedAgain() throws
+		FileLoadException,
+		IOException,
+		LoaderFault,
+		PluginBuildException,
+		XmlValidationException
+	{
+		// Setup
+		File instanceFile = this.write("instance.wbi", "<instance />");
+		Instance fakeInstance = Fixtures.fakeInstance();
+		WildebeestApi wildebeestApi = Fixtures.wildebeestApi().loadInstanceReturns(fakeInstance).get();
+		CachingWildebeestApi cachingApi = new CachingWildebeestApi(wildebeestApi);
+
+		cachingApi.loadInstance(instanceFile);
+
+		// Execute
+		Files.write(instanceFile.toPath(), "<instance type=\"changed\" />".getBytes(StandardCharsets.UTF_8));
+		cachingApi.loadInstance(instanceFile);
+		cachingApi.loadInstance(instanceFile);
+
+		// Verify
+		verify(wildebeestApi, times(2)).loadInstance(any());
+	}
+
+	@Test public void loadInstance_fileChangedDuringRequest_replacedInstanceClosedWhenRequestEnds() throws
+		FileLoadException,
+		IOException,
+		LoaderFault,
+		PluginBuildException,
+		XmlValidationException
+	{
+		// Setup
+		File instanceFile = this.write("instance.wbi", "<instance />");
+		Instance first = Fixtures.fakeInstance();
+		Instance second = Fixtures.fakeInstance();
+		WildebeestApi wildebeestApi = Fixtures.wildebeestApi().get();
+		when(wildebeestApi.loadInstance(any())).thenReturn(first, second);
+		CachingWildebeestApi cachingApi = new CachingWildebeestApi(wildebeestApi);
+
+		CachingWildebeestApi.Request request = cachingApi.beginRequest();
+		cachingApi.loadInstance(instanceFile);
+
+		// Execute
+		Files.write(instanceFile.toPath(), "<instance type=\"changed\" />".getBytes(StandardCharsets.UTF_8));
+		try (CachingWildebeestApi.Request laterRequest = cachingApi.beginRequest())
+		{
+			assertSame("instance", second, cachingApi.loadInstance(instanceFile));
+		}
+
+		// Verify
+		verify(wildebeestApi, never()).closeInstance(any());
+
+		request.close();
+
+		verify(wildebeestApi, times(1)).closeInstance(first);
+		verify(wildebeestApi, never()).closeInstance(second);
+	}
+
+	@Test public void loadInstances_fileChanged_replacedInstancesClosed() throws
+		FileLoadException,
+		IOException,
+		LoaderFault,
+		PluginBuildException,
+		XmlValidationException
+	{
+		// Setup
+		File instancesFile = this.write("instances.wbi", "<instances />");
+		Instance first = Fixtures.fakeInstance();
+		Instance second = Fixtures.fakeInstance();
+		WildebeestApi wildebeestApi = Fixtures.wildebeestApi().get();
+		when(wildebeestApi.loadInstances(any())).thenReturn(
+			Collections.singletonMap("a", first),
+			Collections.singletonMap("a", second));
+		CachingWildebeestApi cachingApi = new CachingWildebeestApi(wildebeestApi);
+
+		cachingApi.loadInstances(instancesFile);
+
+		// Execute
+		Files.write(instancesFile.toPath(), "<instances type=\"changed\" />".getBytes(StandardCharsets.UTF_8));
+		cachingApi.loadInstances(instancesFile);
+
+		// Verify
+		verify(wildebeestApi, times(1)).closeInstance(first);
+		verify(wildebeestApi, never()).closeInstance(second);
+	}
+
+	private File write(
+		String fileName,
+		String content) throws
+		IOException
+	{
+		File file = new File(this.temporaryFolder.getRoot(), fileName);
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+
+		return file;
+	}
+}
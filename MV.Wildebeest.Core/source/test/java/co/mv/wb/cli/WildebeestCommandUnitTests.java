@@ -20,14 +20,17 @@ import co.mv.wb.AssertionFailedException;
 import co.mv.wb.Asserts;
 import co.mv.wb.FileLoadException;
 import co.mv.wb.IndeterminateStateException;
+import co.mv.wb.Instance;
 import co.mv.wb.InvalidReferenceException;
 import co.mv.wb.LoaderFault;
 import co.mv.wb.MigrationFailedException;
 import co.mv.wb.MigrationNotPossibleException;
+import co.mv.wb.MigrationSummary;
 import co.mv.wb.PluginBuildException;
 import co.mv.wb.PluginNotFoundException;
 import co.mv.wb.TargetNotSpecifiedException;
 import co.mv.wb.UnknownStateSpecifiedException;
+import co.mv.wb.VerificationPolicy;
 import co.mv.wb.Wildebeest;
 import co.mv.wb.WildebeestApi;
 import co.mv.wb.XmlValidationException;
@@ -42,12 +45,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.PrintStream;
+import java.util.Collections;
+import java.util.Map;
 
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
 
 /**
  * Unit tests for WildebeestCommand.
@@ -135,6 +142,112 @@ public class WildebeestCommandUnitTests
 		verifyNoMoreInteractions(context.wildebeestApi);
 	}
 
+	@Test public void migrate_verifyFinalState_migrateOperationCalledWithPolicy() throws
+		AssertionFailedException,
+		FileLoadException,
+		IndeterminateStateException,
+		LoaderFault,
+		MigrationFailedException,
+		MigrationNotPossibleException,
+		PluginBuildException,
+		PluginNotFoundException,
+		TargetNotSpecifiedException,
+		UnknownStateSpecifiedException,
+		XmlValidationException,
+		InvalidReferenceException
+	{
+		// Setup
+		TestContext_WildebeestCommandUnit context = TestContext_WildebeestCommandUnit.create();
+
+		String[] args = new String[]
+			{
+				"migrate",
+				"--resource MySqlDatabase/database.wbresource.xml",
+				"--instance MySqlDatabase/staging_db.wbinstance.xml",
+				"--target-state Core Schema Loaded",
+				"--verify final-state"
+			};
+
+		// Execute
+		context.wildebeestCommand.run(args);
+
+		// Verify
+		verify(context.wildebeestApi).loadResource(any());
+
+		verify(context.wildebeestApi).loadInstance(any());
+
+		verify(context.wildebeestApi).migrate(
+			any(),
+			any(),
+			eq("Core Schema Loaded"),
+			eq(VerificationPolicy.finalStateOnly()));
+
+		verifyNoMoreInteractions(context.wildebeestApi);
+	}
+
+	@Test public void migrate_unknownVerificationPolicy_noOperationsCalled()
+	{
+		// Setup
+		TestContext_WildebeestCommandUnit context = TestContext_WildebeestCommandUnit.create();
+
+		String[] args = new String[]
+			{
+				"migrate",
+				"--resource MySqlDatabase/database.wbresource.xml",
+				"--instance MySqlDatabase/staging_db.wbinstance.xml",
+				"--verify sometimes"
+			};
+
+		// Execute
+		context.wildebeestCommand.run(args);
+
+		// Verify
+		verifyZeroInteractions(context.wildebeestApi);
+	}
+
+	@Test public void migrate_instancesSpecified_migrateAllOperationCalled() throws
+		FileLoadException,
+		InvalidReferenceException,
+		LoaderFault,
+		PluginBuildException,
+		XmlValidationException
+	{
+		// Setup
+		TestContext_WildebeestCommandUnit context = TestContext_WildebeestCommandUnit.create();
+
+		Map<String, Instance> instances = Collections.singletonMap("tenant-a", context.fakeInstance);
+		when(context.wildebeestApi.loadInstances(any())).thenReturn(instances);
+		when(context.wildebeestApi.migrateAll(any(), any(), any(), any(), anyInt())).thenReturn(new MigrationSummary(
+			Collections.singletonList("tenant-a"),
+			Collections.emptyMap()));
+
+		String[] args = new String[]
+			{
+				"migrate",
+				"--resource MySqlDatabase/database.wbresource.xml",
+				"--instances MySqlDatabase/tenants",
+				"--target-state Core Schema Loaded",
+				"--parallelism 8"
+			};
+
+		// Execute
+		context.wildebeestCommand.run(args);
+
+		// Verify
+		verify(context.wildebeestApi).loadResource(any());
+
+		verify(context.wildebeestApi).loadInstances(any());
+
+		verify(context.wildebeestApi).migrateAll(
+			eq(context.fakeResource),
+			eq(instances),
+			eq("Core Schema Loaded"),
+			eq(VerificationPolicy.everyStep()),
+			eq(8));
+
+		verifyNoMoreInteractions(context.wildebeestApi);
+	}
+
 	@Test public void migrate_missingInstanceArg_fails()
 	{
 		// Setup
@@ -0,0 +1,425 @@
+// Wildebeest Migration Framework
+// Copyright © 2013 - 2018, Matheson Ventures Pte Ltd
+//
+// This file is part of Wildebeest
+//
+// Wildebeest is free software: you can redistribute it and/or modify it under
+// the terms of the GNU General Public License v2 as published by the Free
+// Software Foundation.
+//
+// Wildebeest is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Wildebeest.  If not, see http://www.gnu.org/licenses/gpl-2.0.html
+
+
+package co.mv.wb.cli;
+
+import co.mv.wb.AssertionFailedException;
+import co.mv.wb.IndeterminateStateException;
+import co.mv.wb.Instance;
+import co.mv.wb.PluginNotFoundException;
+import co.mv.wb.Resource;
+import co.mv.wb.State;
+import co.mv.wb.WildebeestApi;
+import co.mv.wb.event.Events;
+import co.mv.wb.event.RedirectableEventSink;
+import co.mv.wb.fixture.Fixtures;
+import co.mv.wb.plugin.base.ImmutableState;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for WildebeestServer.
+ *
+ * @since 4.0
+ */
+public class WildebeestServerUnitTests
+{
+	private final List<WildebeestServer> servers = new ArrayList<>();
+
+	@After public void closeServers()
+	{
+		this.servers.forEach(WildebeestServer::close);
+	}
+
+	@Test public void plugins_get_respondsWithPluginDescription() throws
+		IOException
+	{
+		// Setup
+		WildebeestApi wildebeestApi = Fixtures.wildebeestApi().get();
+		when(wildebeestApi.describePlugins()).thenReturn("<plugins />");
+
+		WildebeestServer server = this.start(wildebeestApi, new RedirectableEventSink(event ->
+		{
+		}));
+
+		// Execute
+		Response response = WildebeestServerUnitTests.request(server, "GET", "/plugins", null);
+
+		// Verify
+		assertEquals("response.status", 200, response.status);
+		assertTrue("response.body", response.body.contains("<plugins />"));
+	}
+
+	@Test public void plugins_noToken_unauthorized() throws
+		IOException
+	{
+		// Setup
+		WildebeestApi wildebeestApi = Fixtures.wildebeestApi().get();
+		WildebeestServer server = this.start(wildebeestApi, new RedirectableEventSink(event ->
+		{
+		}));
+
+		// Execute
+		int status = WildebeestServerUnitTests.requestStatus(
+			server,
+			"GET /plugins HTTP/1.1",
+			"Host: 127.0.0.1");
+
+		// Verify
+		assertEquals("status", 401, status);
+		verifyZeroInteractions(wildebeestApi);
+	}
+
+	@Test public void plugins_wrongToken_unauthorized() throws
+		IOException
+	{
+		// Setup
+		WildebeestApi wildebeestApi = Fixtures.wildebeestApi().get();
+		WildebeestServer server = this.start(wildebeestApi, new RedirectableEventSink(event ->
+		{
+		}));
+
+		// Execute
+		int status = WildebeestServerUnitTests.requestStatus(
+			server,
+			"GET /plugins HTTP/1.1",
+			"Host: 127.0.0.1",
+			WildebeestServer.TOKEN_HEADER + ": " + server.getToken() + "x");
+
+		// Verify
+		assertEquals("status", 401, status);
+		verifyZeroInteractions(wildebeestApi);
+	}
+
+	@Test public void plugins_originHeader_forbidden() throws
+		IOException
+	{
+		// Setup
+		WildebeestApi wildebeestApi = Fixtures.wildebeestApi().get();
+		WildebeestServer server = this.start(wildebeestApi, new RedirectableEventSink(event ->
+		{
+		}));
+
+		// Execute
+		int status = WildebeestServerUnitTests.requestStatus(
+			server,
+			"GET /plugins HTTP/1.1",
+			"Host: 127.0.0.1",
+			"Origin: http://example.com",
+			WildebeestServer.TOKEN_HEADER + ": " + server.getToken());
+
+		// Verify
+		assertEquals("status", 403, status);
+		verifyZeroInteractions(wildebeestApi);
+	}
+
+	@Test public void plugins_nonLoopbackHost_forbidden() throws
+		IOException
+	{
+		// Setup
+		WildebeestApi wildebeestApi = Fixtures.wildebeestApi().get();
+		WildebeestServer server = this.start(wildebeestApi, new RedirectableEventSink(event ->
+		{
+		}));
+
+		// Execute
+		int status = WildebeestServerUnitTests.requestStatus(
+			server,
+			"GET /plugins HTTP/1.1",
+			"Host: attacker.example.com:" + server.getPort(),
+			WildebeestServer.TOKEN_HEADER + ": " + server.getToken());
+
+		// Verify
+		assertEquals("status", 403, status);
+		verifyZeroInteractions(wildebeestApi);
+	}
+
+	@Test public void plugins_localhostHost_ok() throws
+		IOException
+	{
+		// Setup
+		WildebeestApi wildebeestApi = Fixtures.wildebeestApi().get();
+		when(wildebeestApi.describePlugins()).thenReturn("<plugins />");
+
+		WildebeestServer server = this.start(wildebeestApi, new RedirectableEventSink(event ->
+		{
+		}));
+
+		// Execute
+		int status = WildebeestServerUnitTests.requestStatus(
+			server,
+			"GET /plugins HTTP/1.1",
+			"Host: localhost:" + server.getPort(),
+			WildebeestServer.TOKEN_HEADER + ": " + server.getToken());
+
+		// Verify
+		assertEquals("status", 200, status);
+	}
+
+	@Test public void migrate_formBody_badRequest() throws
+		IOException
+	{
+		// Setup
+		WildebeestApi wildebeestApi = Fixtures.wildebeestApi().get();
+		WildebeestServer server = this.start(wildebeestApi, new RedirectableEventSink(event ->
+		{
+		}));
+
+		// Execute
+		Response response = WildebeestServerUnitTests.request(
+			server,
+			"POST",
+			"/migrate",
+			"resource=resource.wbr&instance=instance.wbi");
+
+		// Verify
+		assertEquals("response.status", 400, response.status);
+		verifyZeroInteractions(wildebeestApi);
+	}
+
+	@Test public void state_postWithOptions_stateCalledAndEventsInResponse() throws
+		AssertionFailedException,
+		IndeterminateStateException,
+		IOException,
+		PluginNotFoundException
+	{
+		// Setup
+		Resource fakeResource = Fixtures.fakeResource();
+		Instance fakeInstance = Fixtures.fakeInstance();
+		State state = new ImmutableState(UUID.randomUUID(), "foo");
+
+		WildebeestApi wildebeestApi = Fixtures
+			.wildebeestApi()
+			.loadResourceReturns(fakeResource)
+			.loadInstanceReturns(fakeInstance)
+			.get();
+
+		// Events raised while the request is carried out are printed to it's response, not to the default sink
+		List<String> defaultEvents = new ArrayList<>();
+		RedirectableEventSink outputEventSink = new RedirectableEventSink(event -> defaultEvents.add(
+			event.getEventUri()));
+
+		doAnswer(invocation ->
+		{
+			outputEventSink.onEvent(Events.jumpStateStart(state));
+			return null;
+		}).when(wildebeestApi).state(any(), any());
+
+		WildebeestServer server = this.start(wildebeestApi, outputEventSink);
+
+		// Execute
+		Response response = WildebeestServerUnitTests.request(
+			server,
+			"POST",
+			"/state?resource=resource.wbr&instance=instance%20file.wbi",
+			null);
+
+		// Verify
+		assertEquals("response.status", 200, response.status);
+		assertTrue(
+			"response.body",
+			response.body.contains("Beginning jumpstate to state " + state.getStateId() + ":foo"));
+		assertTrue("defaultEvents.empty", defaultEvents.isEmpty());
+		verify(wildebeestApi).state(fakeResource, fakeInstance);
+	}
+
+	@Test public void migrate_get_methodNotAllowed() throws
+		IOException
+	{
+		// Setup
+		WildebeestApi wildebeestApi = Fixtures.wildebeestApi().get();
+		WildebeestServer server = this.start(wildebeestApi, new RedirectableEventSink(event ->
+		{
+		}));
+
+		// Execute
+		Response response = WildebeestServerUnitTests.request(
+			server,
+			"GET",
+			"/migrate?resource=resource.wbr&instance=instance.wbi",
+			null);
+
+		// Verify
+		assertEquals("response.status", 405, response.status);
+		verifyZeroInteractions(wildebeestApi);
+	}
+
+	@Test public void unknownCommand_notFound() throws
+		IOException
+	{
+		// Setup
+		WildebeestApi wildebeestApi = Fixtures.wildebeestApi().get();
+		WildebeestServer server = this.start(wildebeestApi, new RedirectableEventSink(event ->
+		{
+		}));
+
+		// Execute
+		Response response = WildebeestServerUnitTests.request(server, "POST", "/serve", null);
+
+		// Verify
+		assertEquals("response.status", 404, response.status);
+		verifyZeroInteractions(wildebeestApi);
+	}
+
+	@Test public void state_invalidOptionName_badRequest() throws
+		IOException
+	{
+		// Setup
+		WildebeestApi wildebeestApi = Fixtures.wildebeestApi().get();
+		WildebeestServer server = this.start(wildebeestApi, new RedirectableEventSink(event ->
+		{
+		}));
+
+		// Execute
+		Response response = WildebeestServerUnitTests.request(server, "GET", "/state?--resource=x", null);
+
+		// Verify
+		assertEquals("response.status", 400, response.status);
+		verifyZeroInteractions(wildebeestApi);
+	}
+
+	private WildebeestServer start(
+		WildebeestApi wildebeestApi,
+		RedirectableEventSink outputEventSink) throws
+		IOException
+	{
+		WildebeestServer server = WildebeestServer.start(
+			wildebeestApi,
+			outputEventSink,
+			WildebeestServer.DEFAULT_HOST,
+			0,
+			2);
+
+		this.servers.add(server);
+
+		return server;
+	}
+
+	private static Response request(
+		WildebeestServer server,
+		String method,
+		String path,
+		String body) throws
+		IOException
+	{
+		URL url = new URL("http", WildebeestServer.DEFAULT_HOST, server.getPort(), path);
+		HttpURLConnection conn = (HttpURLConnection)url.openConnection();
+
+		try
+		{
+			conn.setRequestMethod(method);
+			conn.setRequestProperty(WildebeestServer.TOKEN_HEADER, server.getToken());
+
+			if (body != null)
+			{
+				conn.setDoOutput(true);
+				conn.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
+
+				try (OutputStream output = conn.getOutputStream())
+				{
+					output.write(body.getBytes(StandardCharsets.UTF_8));
+				}
+			}
+
+			int status = conn.getResponseCode();
+			ByteArrayOutputStream content = new ByteArrayOutputStream();
+
+			try (InputStream input = status < 400 ? conn.getInputStream() : conn.getErrorStream())
+			{
+				byte[] buffer = new byte[4096];
+				int read;
+
+				while ((read = input.read(buffer)) != -1)
+				{
+					content.write(buffer, 0, read);
+				}
+			}
+
+			return new Response(status, new String(content.toByteArray(), StandardCharsets.UTF_8));
+		}
+		finally
+		{
+			conn.disconnect();
+		}
+	}
+
+	/**
+	 * Makes a request over a plain socket, as HttpURLConnection does not let the Host and Origin headers be set.
+	 */
+	private static int requestStatus(
+		WildebeestServer server,
+		String requestLine,
+		String... headers) throws
+		IOException
+	{
+		try (Socket socket = new Socket(WildebeestServer.DEFAULT_HOST, server.getPort()))
+		{
+			StringBuilder request = new StringBuilder(requestLine).append("\r\n");
+			for (String header : headers)
+			{
+				request.append(header).append("\r\n");
+			}
+			request.append("Connection: close\r\n\r\n");
+
+			socket.getOutputStream().write(request.toString().getBytes(StandardCharsets.US_ASCII));
+			socket.getOutputStream().flush();
+
+			BufferedReader reader = new BufferedReader(new InputStreamReader(
+				socket.getInputStream(),
+				StandardCharsets.US_ASCII));
+
+			// The status line is "HTTP/1.1 200 OK"
+			return Integer.parseInt(reader.readLine().split(" ")[1]);
+		}
+	}
+
+	private static final class Response
+	{
+		private final int status;
+		private final String body;
+
+		private Response(
+			int status,
+			String body)
+		{
+			this.status = status;
+			this.body = body;
+		}
+	}
+}
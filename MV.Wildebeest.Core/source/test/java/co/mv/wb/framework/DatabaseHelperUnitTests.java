@@ -0,0 +1,133 @@
+// Wildebeest Migration Framework
+// Copyright © 2013 - 2018, Matheson Ventures Pte Ltd
+//
+// This file is part of Wildebeest
+//
+// Wildebeest is free software: you can redistribute it and/or modify it under
+// the terms of the GNU General Public License v2 as published by the Free
+// Software Foundation.
+//
+// Wildebeest is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Wildebeest.  If not, see http://www.gnu.org/licenses/gpl-2.0.html
+
+package co.mv.wb.framework;
+
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link DatabaseHelper}.
+ *
+ * @since 4.0
+ */
+public class DatabaseHelperUnitTests
+{
+	@Test
+	public void executeScript_batched_groupsConsecutiveDmlStatements() throws IOException, SQLException
+	{
+		// Setup
+		Statement stmt = mock(Statement.class);
+		when(stmt.getUpdateCount()).thenReturn(-1);
+		DataSource dataSource = DatabaseHelperUnitTests.dataSource(stmt);
+
+		String script =
+			"CREATE TABLE t (id int);\n" +
+			"INSERT INTO t VALUES (1);\n" +
+			"insert into t values (2);\n" +
+			"/* three */ INSERT INTO t VALUES (3);\n" +
+			"CREATE INDEX ix ON t (id);\n" +
+			"UPDATE t SET id = 4;";
+
+		// Execute
+		DatabaseHelper.executeScript(
+			dataSource,
+			new StringReader(script),
+			SqlDialect.Ansi,
+			2);
+
+		// Verify
+		InOrder order = inOrder(stmt);
+		order.verify(stmt).execute("CREATE TABLE t (id int)");
+		order.verify(stmt).addBatch("INSERT INTO t VALUES (1)");
+		order.verify(stmt).addBatch("insert into t values (2)");
+		order.verify(stmt).executeBatch();
+		order.verify(stmt).addBatch("/* three */ INSERT INTO t VALUES (3)");
+		order.verify(stmt).executeBatch();
+		order.verify(stmt).execute("CREATE INDEX ix ON t (id)");
+		order.verify(stmt).addBatch("UPDATE t SET id = 4");
+		order.verify(stmt).executeBatch();
+		verify(dataSource, times(1)).getConnection();
+	}
+
+	@Test
+	public void executeScript_batchFails_reportsFailedStatement() throws IOException, SQLException
+	{
+		// Setup
+		Statement stmt = mock(Statement.class);
+		when(stmt.executeBatch()).thenThrow(new BatchUpdateException(
+			"duplicate key",
+			"23505",
+			0,
+			new int[] { 1, Statement.EXECUTE_FAILED, Statement.EXECUTE_FAILED }));
+		DataSource dataSource = DatabaseHelperUnitTests.dataSource(stmt);
+
+		String script =
+			"INSERT INTO t VALUES (1);\n" +
+			"INSERT INTO t VALUES (1);\n" +
+			"INSERT INTO t VALUES (2);\n";
+
+		// Execute and Verify
+		new ExpectException(SQLException.class)
+		{
+			@Override public void invoke() throws Exception
+			{
+				DatabaseHelper.executeScript(
+					dataSource,
+					new StringReader(script),
+					SqlDialect.Ansi,
+					100);
+			}
+
+			@Override public void verify(Exception e)
+			{
+				SQLException se = (SQLException)e;
+				assertTrue(
+					"e.message",
+					se.getMessage().startsWith("statement 2 of the script failed: duplicate key"));
+				assertEquals("e.sqlState", "23505", se.getSQLState());
+			}
+		}.perform();
+	}
+
+	private static DataSource dataSource(
+		Statement stmt) throws SQLException
+	{
+		Connection conn = mock(Connection.class);
+		when(conn.createStatement()).thenReturn(stmt);
+
+		DataSource result = mock(DataSource.class);
+		when(result.getConnection()).thenReturn(conn);
+
+		return result;
+	}
+}
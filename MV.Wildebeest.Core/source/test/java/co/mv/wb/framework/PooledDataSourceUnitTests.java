@@ -0,0 +1,403 @@
+// Wildebeest Migration Framework
+// Copyright © 2013 - 2018, Matheson Ventures Pte Ltd
+//
+// This file is part of Wildebeest
+//
+// Wildebeest is free software: you can redistribute it and/or modify it under
+// the terms of the GNU General Public License v2 as published by the Free
+// Software Foundation.
+//
+// Wildebeest is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Wildebeest.  If not, see http://www.gnu.org/licenses/gpl-2.0.html
+
+package co.mv.wb.framework;
+
+import co.mv.wb.InstanceSession;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link PooledDataSource}.
+ *
+ * @since 4.0
+ */
+public class PooledDataSourceUnitTests
+{
+	@Test
+	public void getConnection_afterClose_reusesPhysicalConnection() throws SQLException
+	{
+		// Setup
+		Connection physical = PooledDataSourceUnitTests.physicalConnection();
+		DataSource dataSource = mock(DataSource.class);
+		when(dataSource.getConnection()).thenReturn(physical);
+
+		PooledDataSource pool = new PooledDataSource(dataSource, 2);
+
+		// Execute
+		pool.getConnection().close();
+		Connection second = pool.getConnection();
+		second.createStatement();
+		second.close();
+
+		// Verify
+		verify(dataSource, times(1)).getConnection();
+		verify(physical, times(1)).createStatement();
+		verify(physical, never()).close();
+		assertEquals("idleCount", 1, pool.getIdleCount());
+	}
+
+	@Test
+	public void close_noPooling_closesPhysicalConnection() throws SQLException
+	{
+		// Setup
+		Connection physical = PooledDataSourceUnitTests.physicalConnection();
+		DataSource dataSource = mock(DataSource.class);
+		when(dataSource.getConnection()).thenReturn(physical);
+
+		PooledDataSource pool = new PooledDataSource(dataSource, 0);
+
+		// Execute
+		pool.getConnection().close();
+
+		// Verify
+		verify(physical, times(1)).close();
+		assertEquals("idleCount", 0, pool.getIdleCount());
+	}
+
+	@Test
+	public void close_openTransaction_rollsBackAndRestoresAutoCommit() throws SQLException
+	{
+		// Setup
+		Connection physical = PooledDataSourceUnitTests.physicalConnection();
+		DataSource dataSource = mock(DataSource.class);
+		when(dataSource.getConnection()).thenReturn(physical);
+
+		PooledDataSource pool = new PooledDataSource(dataSource, 2);
+		Connection conn = pool.getConnection();
+		when(physical.getAutoCommit()).thenReturn(false);
+
+		// Execute
+		conn.close();
+
+		// Verify
+		verify(physical, times(1)).rollback();
+		verify(physical, times(1)).setAutoCommit(true);
+		assertEquals("idleCount", 1, pool.getIdleCount());
+	}
+
+	@Test
+	public void use_afterClose_throws() throws SQLException
+	{
+		// Setup
+		Connection physical = PooledDataSourceUnitTests.physicalConnection();
+		DataSource dataSource = mock(DataSource.class);
+		when(dataSource.getConnection()).thenReturn(physical);
+
+		PooledDataSource pool = new PooledDataSource(dataSource, 2);
+		Connection conn = pool.getConnection();
+		conn.close();
+
+		// Execute and Verify
+		assertTrue("conn.isClosed", conn.isClosed());
+		new ExpectException(SQLException.class)
+		{
+			@Override public void invoke() throws Exception
+			{
+				conn.createStatement();
+			}
+
+			@Override public void verify(Exception e)
+			{
+				assertEquals("e.message", "connection is closed", e.getMessage());
+			}
+		}.perform();
+
+		// Closing again does not return the connection twice
+		conn.close();
+		assertEquals("idleCount", 1, pool.getIdleCount());
+	}
+
+	@Test
+	public void close_idleConnections_closesPhysicalConnections() throws SQLException
+	{
+		// Setup
+		Connection physical1 = PooledDataSourceUnitTests.physicalConnection();
+		Connection physical2 = PooledDataSourceUnitTests.physicalConnection();
+		DataSource dataSource = mock(DataSource.class);
+		when(dataSource.getConnection()).thenReturn(physical1, physical2);
+
+		PooledDataSource pool = new PooledDataSource(dataSource, 2);
+		Connection conn1 = pool.getConnection();
+		Connection conn2 = pool.getConnection();
+		conn1.close();
+
+		// Execute
+		pool.close();
+		conn2.close();
+
+		// Verify
+		verify(physical1, times(1)).close();
+		verify(physical2, times(1)).close();
+		assertEquals("idleCount", 0, pool.getIdleCount());
+	}
+
+	@Test
+	public void getConnection_inSession_sharesPhysicalConnection() throws SQLException
+	{
+		// Setup
+		Connection physical = PooledDataSourceUnitTests.physicalConnection();
+		DataSource dataSource = mock(DataSource.class);
+		when(dataSource.getConnection()).thenReturn(physical);
+
+		PooledDataSource pool = new PooledDataSource(dataSource, 2);
+
+		// Execute
+		try (InstanceSession session = pool.openSession())
+		{
+			try (InstanceSession nested = pool.openSession())
+			{
+				pool.getConnection().close();
+			}
+
+			pool.getConnection().close();
+			pool.getConnection().close();
+
+			// Verify the connection is held by the session
+			assertEquals("idleCount", 0, pool.getIdleCount());
+		}
+
+		// Verify
+		verify(dataSource, times(1)).getConnection();
+		verify(physical, never()).close();
+		assertEquals("idleCount", 1, pool.getIdleCount());
+	}
+
+	@Test
+	public void closeIdleConnections_inSession_closesSessionConnection() throws SQLException
+	{
+		// Setup
+		Connection physical1 = PooledDataSourceUnitTests.physicalConnection();
+		Connection physical2 = PooledDataSourceUnitTests.physicalConnection();
+		DataSource dataSource = mock(DataSource.class);
+		when(dataSource.getConnection()).thenReturn(physical1, physical2);
+
+		PooledDataSource pool = new PooledDataSource(dataSource, 2);
+
+		try (InstanceSession session = pool.openSession())
+		{
+			pool.getConnection().close();
+
+			// Execute
+			pool.closeIdleConnections();
+
+			pool.getConnection().createStatement();
+		}
+
+		// Verify
+		verify(physical1, times(1)).close();
+		verify(physical2, times(1)).createStatement();
+		assertEquals("idleCount", 1, pool.getIdleCount());
+	}
+
+	@Test
+	public void closeIdleConnections_connectionUsedInTransaction_throwsAndKeepsConnection() throws SQLException
+	{
+		// Setup
+		Connection physical = PooledDataSourceUnitTests.physicalConnection();
+		DataSource dataSource = mock(DataSource.class);
+		when(dataSource.getConnection()).thenReturn(physical);
+
+		PooledDataSource pool = new PooledDataSource(dataSource, 2);
+
+		try (InstanceSession session = pool.openSession())
+		{
+			session.beginTransaction();
+			pool.getConnection().createStatement();
+
+			// Execute
+			new ExpectException(IllegalStateException.class)
+			{
+				@Override public void invoke() throws Exception
+				{
+					pool.closeIdleConnections();
+				}
+
+				@Override public void verify(Exception e)
+				{
+				}
+			}.perform();
+
+			session.commitTransaction();
+		}
+
+		// Verify
+		verify(dataSource, times(1)).getConnection();
+		verify(physical, never()).close();
+		verify(physical, times(1)).commit();
+	}
+
+	@Test
+	public void closeIdleConnections_transactionNotYetUsed_closesSessionConnection() throws SQLException
+	{
+		// Setup
+		Connection physical1 = PooledDataSourceUnitTests.physicalConnection();
+		Connection physical2 = PooledDataSourceUnitTests.physicalConnection();
+		DataSource dataSource = mock(DataSource.class);
+		when(dataSource.getConnection()).thenReturn(physical1, physical2);
+
+		PooledDataSource pool = new PooledDataSource(dataSource, 2);
+
+		try (InstanceSession session = pool.openSession())
+		{
+			pool.getConnection().close();
+			session.beginTransaction();
+
+			// Execute
+			pool.closeIdleConnections();
+
+			pool.getConnection().createStatement();
+			session.commitTransaction();
+		}
+
+		// Verify
+		verify(physical1, times(1)).close();
+		verify(physical1, never()).commit();
+		verify(physical2, times(1)).setAutoCommit(false);
+		verify(physical2, times(1)).commit();
+	}
+
+	@Test
+	public void commitTransaction_inSession_commitsSessionConnection() throws SQLException
+	{
+		// Setup
+		Connection physical = PooledDataSourceUnitTests.physicalConnection();
+		DataSource dataSource = mock(DataSource.class);
+		when(dataSource.getConnection()).thenReturn(physical);
+
+		PooledDataSource pool = new PooledDataSource(dataSource, 2);
+
+		// Execute
+		try (InstanceSession session = pool.openSession())
+		{
+			assertTrue("beginTransaction", session.beginTransaction());
+
+			pool.getConnection().close();
+			pool.getConnection().close();
+
+			session.commitTransaction();
+		}
+
+		// Verify
+		verify(dataSource, times(1)).getConnection();
+		verify(physical, times(1)).setAutoCommit(false);
+		verify(physical, times(1)).commit();
+		verify(physical, never()).rollback();
+		verify(physical, times(1)).setAutoCommit(true);
+	}
+
+	@Test
+	public void beginTransaction_nestedSession_joinsOpenTransaction() throws SQLException
+	{
+		// Setup
+		Connection physical = PooledDataSourceUnitTests.physicalConnection();
+		DataSource dataSource = mock(DataSource.class);
+		when(dataSource.getConnection()).thenReturn(physical);
+
+		PooledDataSource pool = new PooledDataSource(dataSource, 2);
+
+		// Execute
+		try (InstanceSession session = pool.openSession())
+		{
+			assertTrue("beginTransaction", session.beginTransaction());
+			pool.getConnection().createStatement();
+
+			try (InstanceSession nested = pool.openSession())
+			{
+				assertFalse("nested.beginTransaction", nested.beginTransaction());
+				pool.getConnection().createStatement();
+			}
+
+			session.commitTransaction();
+		}
+
+		// Verify
+		verify(dataSource, times(1)).getConnection();
+		verify(physical, times(1)).setAutoCommit(false);
+		verify(physical, times(2)).createStatement();
+		verify(physical, times(1)).commit();
+		verify(physical, never()).rollback();
+	}
+
+	@Test
+	public void rollbackTransaction_inSession_rollsBackSessionConnection() throws SQLException
+	{
+		// Setup
+		Connection physical = PooledDataSourceUnitTests.physicalConnection();
+		DataSource dataSource = mock(DataSource.class);
+		when(dataSource.getConnection()).thenReturn(physical);
+
+		PooledDataSource pool = new PooledDataSource(dataSource, 2);
+
+		// Execute
+		try (InstanceSession session = pool.openSession())
+		{
+			pool.getConnection().close();
+
+			session.beginTransaction();
+			session.rollbackTransaction();
+		}
+
+		// Verify
+		verify(physical, times(1)).setAutoCommit(false);
+		verify(physical, times(1)).rollback();
+		verify(physical, never()).commit();
+		assertEquals("idleCount", 1, pool.getIdleCount());
+	}
+
+	@Test
+	public void commitTransaction_noConnectionUsed_doesNotConnect() throws SQLException
+	{
+		// Setup
+		DataSource dataSource = mock(DataSource.class);
+
+		PooledDataSource pool = new PooledDataSource(dataSource, 2);
+
+		// Execute
+		try (InstanceSession session = pool.openSession())
+		{
+			session.beginTransaction();
+			session.commitTransaction();
+		}
+
+		// Verify
+		verify(dataSource, never()).getConnection();
+	}
+
+	private static Connection physicalConnection() throws SQLException
+	{
+		Connection result = mock(Connection.class);
+		when(result.getAutoCommit()).thenReturn(true);
+		when(result.isReadOnly()).thenReturn(false);
+		when(result.getTransactionIsolation()).thenReturn(Connection.TRANSACTION_READ_COMMITTED);
+		when(result.getCatalog()).thenReturn("db");
+		when(result.isClosed()).thenReturn(false);
+
+		return result;
+	}
+}
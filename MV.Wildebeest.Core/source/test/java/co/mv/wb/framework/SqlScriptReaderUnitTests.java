@@ -0,0 +1,247 @@
+// Wildebeest Migration Framework
+// Copyright © 2013 - 2018, Matheson Ventures Pte Ltd
+//
+// This file is part of Wildebeest
+//
+// Wildebeest is free software: you can redistribute it and/or modify it under
+// the terms of the GNU General Public License v2 as published by the Free
+// Software Foundation.
+//
+// Wildebeest is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Wildebeest.  If not, see http://www.gnu.org/licenses/gpl-2.0.html
+
+package co.mv.wb.framework;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link SqlScriptReader}.
+ *
+ * @since 4.0
+ */
+public class SqlScriptReaderUnitTests
+{
+	@Test
+	public void nextStatement_ansi_splitsOnSemicolonsOutsideLiteralsAndComments() throws IOException
+	{
+		// Setup
+		String script =
+			"INSERT INTO t VALUES ('a;b', 'it''s');\n" +
+			"-- a comment; with a semicolon\n" +
+			"SELECT \"odd;name\" FROM t /* ; */;\n" +
+			"  \n" +
+			";\n" +
+			"/* comment only */;\n" +
+			"-- trailing comment only\n";
+
+		// Execute
+		List<String> statements = SqlScriptReaderUnitTests.readAll(script, SqlDialect.Ansi);
+
+		// Verify
+		assertEquals(
+			"statements",
+			Arrays.asList(
+				"INSERT INTO t VALUES ('a;b', 'it''s')",
+				"-- a comment; with a semicolon\nSELECT \"odd;name\" FROM t /* ; */"),
+			statements);
+	}
+
+	@Test
+	public void nextStatement_ansi_returnsFinalStatementWithoutTerminator() throws IOException
+	{
+		// Execute
+		List<String> statements = SqlScriptReaderUnitTests.readAll("SELECT 1; SELECT 2", SqlDialect.Ansi);
+
+		// Verify
+		assertEquals("statements", Arrays.asList("SELECT 1", "SELECT 2"), statements);
+	}
+
+	@Test
+	public void nextStatement_postgreSql_keepsDollarQuotedBodyTogether() throws IOException
+	{
+		// Setup
+		String function =
+			"CREATE FUNCTION f() RETURNS int AS $body$\n" +
+			"BEGIN\n" +
+			"  PERFORM 1; RETURN $$x;$$::text::int;\n" +
+			"END;\n" +
+			"$body$ LANGUAGE plpgsql";
+		String script =
+			function + ";\n" +
+			"SELECT $1, a$b$ FROM t;\n" +
+			"SELECT E'it\\'s;' /* outer /* inner; */ still; */;";
+
+		// Execute
+		List<String> statements = SqlScriptReaderUnitTests.readAll(script, SqlDialect.PostgreSql);
+
+		// Verify
+		assertEquals(
+			"statements",
+			Arrays.asList(
+				function,
+				"SELECT $1, a$b$ FROM t",
+				"SELECT E'it\\'s;' /* outer /* inner; */ still; */"),
+			statements);
+	}
+
+	@Test
+	public void nextStatement_mySql_honoursDelimiterCommands() throws IOException
+	{
+		// Setup
+		String procedure =
+			"CREATE PROCEDURE p()\n" +
+			"BEGIN\n" +
+			"  SELECT 'a\\';b', `c;d`; # comment;\n" +
+			"END";
+		String script =
+			"SET @x = 1;\n" +
+			"DELIMITER $$\n" +
+			procedure + "$$\n" +
+			"delimiter ;\n" +
+			"SELECT 1--1;\n" +
+			"/*!40101 SET NAMES utf8 */;";
+
+		// Execute
+		List<String> statements = SqlScriptReaderUnitTests.readAll(script, SqlDialect.MySql);
+
+		// Verify
+		assertEquals(
+			"statements",
+			Arrays.asList(
+				"SET @x = 1",
+				procedure,
+				"SELECT 1--1",
+				"/*!40101 SET NAMES utf8 */"),
+			statements);
+	}
+
+	@Test
+	public void nextStatement_sqlServer_splitsOnGoLinesOnly() throws IOException
+	{
+		// Setup
+		String procedure =
+			"CREATE PROCEDURE p AS\n" +
+			"BEGIN\n" +
+			"  SELECT [go;] FROM t;\n" +
+			"  SELECT 'GO';\n" +
+			"END;";
+		String script =
+			"CREATE SCHEMA s;\r\n" +
+			"GO\r\n" +
+			procedure + "\n" +
+			"  go  -- end of procedure\n" +
+			"GO\n" +
+			"INSERT INTO t DEFAULT VALUES;\n" +
+			"GO 2\n";
+
+		// Execute
+		List<String> statements = SqlScriptReaderUnitTests.readAll(script, SqlDialect.SqlServer);
+
+		// Verify
+		assertEquals(
+			"statements",
+			Arrays.asList(
+				"CREATE SCHEMA s;",
+				procedure,
+				"INSERT INTO t DEFAULT VALUES;",
+				"INSERT INTO t DEFAULT VALUES;"),
+			statements);
+	}
+
+	@Test
+	public void nextStatement_sqlServer_linesStartingWithGoAreNotAlwaysCommands() throws IOException
+	{
+		// Setup
+		String script =
+			"GOTO done\n" +
+			"GO-- end of batch\n" +
+			"SELECT 1\n" +
+			"go";
+
+		// Execute
+		List<String> statements = SqlScriptReaderUnitTests.readAll(script, SqlDialect.SqlServer);
+
+		// Verify
+		assertEquals("statements", Arrays.asList("GOTO done", "SELECT 1"), statements);
+	}
+
+	/**
+	 * Generated scripts often put a bulk INSERT on a single line of many megabytes.  Reading such a line must take
+	 * time in proportion to it's length in every dialect.
+	 */
+	@Test(timeout = 10000)
+	public void nextStatement_longSingleLineInsert_readsInLinearTime() throws IOException
+	{
+		// Setup
+		StringBuilder insert = new StringBuilder("INSERT INTO t (id, name, note) VALUES ");
+		for (int i = 0; i < 100000; i++)
+		{
+			if (i > 0)
+			{
+				insert.append(", ");
+			}
+			insert.append("(").append(i).append(", 'name ").append(i).append("', 'a-b/c')");
+		}
+
+		for (SqlDialect dialect : SqlDialect.values())
+		{
+			String script = dialect == SqlDialect.SqlServer
+				? insert + ";\nGO\nSELECT 1"
+				: insert + ";\nSELECT 1;";
+
+			// Execute
+			List<String> statements = SqlScriptReaderUnitTests.readAll(script, dialect);
+
+			// Verify
+			assertEquals(dialect + ".statements.size", 2, statements.size());
+			assertEquals(
+				dialect + ".statements[0]",
+				dialect == SqlDialect.SqlServer ? insert + ";" : insert.toString(),
+				statements.get(0));
+		}
+	}
+
+	@Test
+	public void isDml_skipsLeadingCommentsAndMatchesWholeKeywords()
+	{
+		// Execute and Verify
+		assertTrue("insert", SqlScriptReader.isDml("-- seed data\n  /* row 1 */ INSERT INTO t VALUES (1)"));
+		assertTrue("delete", SqlScriptReader.isDml("delete from t"));
+		assertFalse("insertion", SqlScriptReader.isDml("INSERTION"));
+		assertFalse("select", SqlScriptReader.isDml("SELECT * FROM t"));
+		assertFalse("conditional comment", SqlScriptReader.isDml("/*!40000 ALTER TABLE t DISABLE KEYS */"));
+	}
+
+	private static List<String> readAll(
+		String script,
+		SqlDialect dialect) throws IOException
+	{
+		List<String> result = new ArrayList<>();
+
+		try (SqlScriptReader reader = new SqlScriptReader(new StringReader(script), dialect))
+		{
+			String statement = reader.nextStatement();
+			while (statement != null)
+			{
+				result.add(statement);
+				statement = reader.nextStatement();
+			}
+		}
+
+		return result;
+	}
+}
@@ -62,4 +62,21 @@ public class UtilUnitTests
 		// Verify
 		Assert.assertEquals("result", "Text with extra spaces. In the start, middle and end", result);
 	}
+
+	/**
+	 * Tests that canonical lower-case UUIDs are recognised, and that anything else is not.
+	 *
+	 * @since 4.0
+	 */
+	@Test
+	public void isUUID_succeeds()
+	{
+		// Execute and Verify
+		Assert.assertTrue("lower-case", Util.isUUID("3d5a1f27-9c3e-4b6a-8f10-0a2b4c6d8e9f"));
+		Assert.assertFalse("upper-case", Util.isUUID("3D5A1F27-9C3E-4B6A-8F10-0A2B4C6D8E9F"));
+		Assert.assertFalse("name", Util.isUUID("production"));
+		Assert.assertFalse("too short", Util.isUUID("3d5a1f27-9c3e-4b6a-8f10-0a2b4c6d8e9"));
+		Assert.assertFalse("misplaced dash", Util.isUUID("3d5a1f279-c3e-4b6a-8f10-0a2b4c6d8e9f"));
+		Assert.assertFalse("non-hex", Util.isUUID("3d5a1f27-9c3e-4b6a-8f10-0a2b4c6d8e9g"));
+	}
 }
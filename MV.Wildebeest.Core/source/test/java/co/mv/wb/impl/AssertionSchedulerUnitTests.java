@@ -0,0 +1,133 @@
+// Wildebeest Migration Framework
+// Copyright © 2013 - 2018, Matheson Ventures Pte Ltd
+//
+// This file is part of Wildebeest
+//
+// Wildebeest is free software: you can redistribute it and/or modify it under
+// the terms of the GNU General Public License v2 as published by the Free
+// Software Foundation.
+//
+// Wildebeest is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Wildebeest.  If not, see http://www.gnu.org/licenses/gpl-2.0.html
+
+
+package co.mv.wb.impl;
+
+import co.mv.wb.Assertion;
+import co.mv.wb.AssertionPlugin;
+import co.mv.wb.plugin.fake.TagAssertion;
+import co.mv.wb.plugin.fake.TagAssertionPlugin;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for {@link AssertionScheduler}.
+ *
+ * @since 4.0
+ */
+public class AssertionSchedulerUnitTests
+{
+	@Test
+	public void order_declaredCosts_cheapestFirst()
+	{
+		// Setup
+		AssertionScheduler scheduler = new AssertionScheduler();
+
+		Assertion expensive = new TagAssertion(UUID.randomUUID(), 1, "Foo");
+		Assertion cheap = new TagAssertion(UUID.randomUUID(), 2, "Foo");
+		Assertion standard = new TagAssertion(UUID.randomUUID(), 3, "Foo");
+
+		List<Assertion> assertions = new ArrayList<>(Arrays.asList(expensive, cheap, standard));
+		List<AssertionPlugin> assertionPlugins = new ArrayList<>(Arrays.asList(
+			new CostedTagAssertionPlugin(5000),
+			new CostedTagAssertionPlugin(10),
+			new TagAssertionPlugin()));
+
+		// Execute
+		scheduler.order(assertions, assertionPlugins);
+
+		// Verify
+		assertEquals("assertions", Arrays.asList(cheap, standard, expensive), assertions);
+		assertEquals("assertionPlugins[0].cost", 10, assertionPlugins.get(0).estimateCost(cheap));
+		assertEquals("assertionPlugins[2].cost", 5000, assertionPlugins.get(2).estimateCost(expensive));
+	}
+
+	@Test
+	public void order_equalCosts_keepsExistingOrder()
+	{
+		// Setup
+		AssertionScheduler scheduler = new AssertionScheduler();
+
+		Assertion first = new TagAssertion(UUID.randomUUID(), 1, "Foo");
+		Assertion second = new TagAssertion(UUID.randomUUID(), 2, "Foo");
+		Assertion third = new TagAssertion(UUID.randomUUID(), 3, "Foo");
+
+		List<Assertion> assertions = new ArrayList<>(Arrays.asList(first, second, third));
+		List<AssertionPlugin> assertionPlugins = new ArrayList<>(Arrays.asList(
+			new TagAssertionPlugin(),
+			new TagAssertionPlugin(),
+			new TagAssertionPlugin()));
+
+		// Execute
+		scheduler.order(assertions, assertionPlugins);
+
+		// Verify
+		assertEquals("assertions", Arrays.asList(first, second, third), assertions);
+	}
+
+	@Test
+	public void order_recordedTimings_overrideDeclaredCosts()
+	{
+		// Setup
+		AssertionScheduler scheduler = new AssertionScheduler();
+
+		Assertion slow = new TagAssertion(UUID.randomUUID(), 1, "Foo");
+		Assertion fast = new TagAssertion(UUID.randomUUID(), 2, "Foo");
+
+		scheduler.record(slow, TimeUnit.MILLISECONDS.toNanos(300));
+		scheduler.record(fast, TimeUnit.MILLISECONDS.toNanos(400));
+		scheduler.record(fast, TimeUnit.MILLISECONDS.toNanos(20));
+
+		List<Assertion> assertions = new ArrayList<>(Arrays.asList(slow, fast));
+		List<AssertionPlugin> assertionPlugins = new ArrayList<>(Arrays.asList(
+			new CostedTagAssertionPlugin(10),
+			new CostedTagAssertionPlugin(10)));
+
+		// Execute
+		scheduler.order(assertions, assertionPlugins);
+
+		// Verify
+		assertEquals("assertions", Arrays.asList(fast, slow), assertions);
+		assertEquals("fast.cost", 210000, scheduler.estimateCost(fast, assertionPlugins.get(0)));
+		assertEquals("slow.cost", 300000, scheduler.estimateCost(slow, assertionPlugins.get(1)));
+	}
+
+	private static class CostedTagAssertionPlugin extends TagAssertionPlugin
+	{
+		private final long cost;
+
+		private CostedTagAssertionPlugin(
+			long cost)
+		{
+			this.cost = cost;
+		}
+
+		@Override
+		public long estimateCost(
+			Assertion assertion)
+		{
+			return this.cost;
+		}
+	}
+}
@@ -0,0 +1,231 @@
+// Wildebeest Migration Framework
+// Copyright © 2013 - 2018, Matheson Ventures Pte Ltd
+//
+// This file is part of Wildebeest
+//
+// Wildebeest is free software: you can redistribute it and/or modify it under
+// the terms of the GNU General Public License v2 as published by the Free
+// Software Foundation.
+//
+// Wildebeest is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Wildebeest.  If not, see http://www.gnu.org/licenses/gpl-2.0.html
+
+package co.mv.wb.impl;
+
+import co.mv.wb.InvalidReferenceException;
+import co.mv.wb.Migration;
+import co.mv.wb.MigrationNotPossibleException;
+import co.mv.wb.fixture.TestContext_ResourceAndInstance;
+import co.mv.wb.framework.ExpectException;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for {@link MigrationGraph}.
+ *
+ * @since 4.0
+ */
+public class MigrationGraphUnitTests
+{
+	@Test
+	public void findShortestPath_shortcutAvailable_returnsShortcut() throws
+		InvalidReferenceException,
+		MigrationNotPossibleException
+	{
+		// Setup
+		TestContext_ResourceAndInstance context = TestContext_ResourceAndInstance.Builder
+			.create()
+			.withDummyStates(4)
+			.withMigration(0, 1)
+			.withMigration(1, 2)
+			.withMigration(2, 3)
+			.withMigration(1, 3)
+			.build();
+
+		MigrationGraph graph = MigrationGraph.build(context.resource);
+
+		// Execute
+		List<Migration> path = graph.findShortestPath(
+			context.getStateId(0),
+			context.getStateId(3));
+
+		// Verify
+		assertEquals(
+			"path",
+			Arrays.asList(
+				context.resource.getMigrations().get(0),
+				context.resource.getMigrations().get(3)),
+			path);
+	}
+
+	@Test
+	public void findShortestPath_fromAndToNonExistent_succeeds() throws
+		InvalidReferenceException,
+		MigrationNotPossibleException
+	{
+		// Setup
+		TestContext_ResourceAndInstance context = TestContext_ResourceAndInstance.Builder
+			.create()
+			.withDummyStates(2)
+			.withMigration(null, 0)
+			.withMigration(0, 1)
+			.withMigration(1, null)
+			.build();
+
+		MigrationGraph graph = MigrationGraph.build(context.resource);
+
+		// Execute
+		List<Migration> createPath = graph.findShortestPath(null, context.getStateId(1));
+		List<Migration> dropPath = graph.findShortestPath(context.getStateId(0), null);
+
+		// Verify
+		assertEquals(
+			"createPath",
+			Arrays.asList(
+				context.resource.getMigrations().get(0),
+				context.resource.getMigrations().get(1)),
+			createPath);
+		assertEquals(
+			"dropPath",
+			Arrays.asList(
+				context.resource.getMigrations().get(1),
+				context.resource.getMigrations().get(2)),
+			dropPath);
+	}
+
+	@Test
+	public void findShortestPath_circular_succeeds() throws
+		InvalidReferenceException,
+		MigrationNotPossibleException
+	{
+		// Setup
+		TestContext_ResourceAndInstance context = TestContext_ResourceAndInstance.Builder
+			.create()
+			.withDummyStates(4)
+			.withMigration(0, 1)
+			.withMigration(1, 2)
+			.withMigration(2, 0)
+			.withMigration(2, 3)
+			.build();
+
+		MigrationGraph graph = MigrationGraph.build(context.resource);
+
+		// Execute
+		List<Migration> path = graph.findShortestPath(
+			context.getStateId(1),
+			context.getStateId(3));
+
+		// Verify
+		assertEquals(
+			"path",
+			Arrays.asList(
+				context.resource.getMigrations().get(1),
+				context.resource.getMigrations().get(3)),
+			path);
+	}
+
+	@Test
+	public void findShortestPath_ambiguous_throws() throws InvalidReferenceException
+	{
+		// Setup
+		TestContext_ResourceAndInstance context = TestContext_ResourceAndInstance.Builder
+			.create()
+			.withDummyStates(4)
+			.withMigration(0, 1)
+			.withMigration(0, 2)
+			.withMigration(1, 3)
+			.withMigration(2, 3)
+			.build();
+
+		MigrationGraph graph = MigrationGraph.build(context.resource);
+
+		// Execute and Verify
+		new ExpectException(MigrationNotPossibleException.class)
+		{
+			@Override public void invoke() throws Exception
+			{
+				graph.findShortestPath(
+					context.getStateId(0),
+					context.getStateId(3));
+			}
+
+			@Override public void verify(Exception e)
+			{
+				assertEquals("e.message", "multiple shortest paths to the target state", e.getMessage());
+			}
+		}.perform();
+	}
+
+	@Test
+	public void findShortestPath_noPath_throws() throws InvalidReferenceException
+	{
+		// Setup
+		TestContext_ResourceAndInstance context = TestContext_ResourceAndInstance.Builder
+			.create()
+			.withDummyStates(3)
+			.withMigration(0, 1)
+			.withMigration(2, 1)
+			.build();
+
+		MigrationGraph graph = MigrationGraph.build(context.resource);
+
+		// Execute and Verify
+		new ExpectException(MigrationNotPossibleException.class)
+		{
+			@Override public void invoke() throws Exception
+			{
+				graph.findShortestPath(
+					context.getStateId(0),
+					context.getStateId(2));
+			}
+
+			@Override public void verify(Exception e)
+			{
+				assertEquals("e.message", "no path to the target state", e.getMessage());
+			}
+		}.perform();
+	}
+
+	/**
+	 * A long chain of states, deeper than a recursive search could comfortably handle.
+	 */
+	@Test
+	public void findShortestPath_manyStates_succeeds() throws
+		InvalidReferenceException,
+		MigrationNotPossibleException
+	{
+		// Setup
+		int count = 2000;
+
+		TestContext_ResourceAndInstance.Builder builder = TestContext_ResourceAndInstance.Builder
+			.create()
+			.withDummyStates(count);
+
+		for (int i = 0; i < count - 1; i++)
+		{
+			builder.withMigration(i, i + 1);
+		}
+
+		TestContext_ResourceAndInstance context = builder.build();
+
+		MigrationGraph graph = MigrationGraph.build(context.resource);
+
+		// Execute
+		List<Migration> path = graph.findShortestPath(
+			context.getStateId(0),
+			context.getStateId(count - 1));
+
+		// Verify
+		assertEquals("path.size", count - 1, path.size());
+		assertEquals("path[0]", context.resource.getMigrations().get(0), path.get(0));
+		assertEquals("path[last]", context.resource.getMigrations().get(count - 2), path.get(count - 2));
+	}
+}
@@ -0,0 +1,297 @@
+// Wildebeest Migration Framework
+// Copyright © 2013 - 2018, Matheson Ventures Pte Ltd
+//
+// This file is part of Wildebeest
+//
+// Wildebeest is free software: you can redistribute it and/or modify it under
+// the terms of the GNU General Public License v2 as published by the Free
+// Software Foundation.
+//
+// Wildebeest is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Wildebeest.  If not, see http://www.gnu.org/licenses/gpl-2.0.html
+
+package co.mv.wb.impl;
+
+import co.mv.wb.About;
+import co.mv.wb.FileLoadException;
+import co.mv.wb.InvalidReferenceException;
+import co.mv.wb.LoaderFault;
+import co.mv.wb.Migration;
+import co.mv.wb.MigrationNotPossibleException;
+import co.mv.wb.PluginBuildException;
+import co.mv.wb.Resource;
+import co.mv.wb.ResourceType;
+import co.mv.wb.Wildebeest;
+import co.mv.wb.WildebeestApi;
+import co.mv.wb.XmlValidationException;
+import co.mv.wb.event.LoggingEventSink;
+import co.mv.wb.plugin.base.ImmutableState;
+import co.mv.wb.plugin.base.ResourceImpl;
+import co.mv.wb.plugin.fake.SetTagMigration;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Date;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Unit tests for {@link ResourceCache}.
+ *
+ * @since 4.0
+ */
+public class ResourceCacheUnitTests
+{
+	private static final Logger LOG = LoggerFactory.getLogger(ResourceCacheUnitTests.class);
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void loadResource_unchangedFile_loadsFromCache() throws
+		FileLoadException,
+		InvalidReferenceException,
+		IOException,
+		LoaderFault,
+		PluginBuildException,
+		XmlValidationException
+	{
+		// Setup
+		File cacheDir = this.temporaryFolder.newFolder("cache");
+		File resourceFile = this.copyResource("PostgreSqlDatabase/database.wbresource.xml");
+		WildebeestApi wildebeestApi = Wildebeest
+			.wildebeestApi(new LoggingEventSink(LOG))
+			.withResourceCache(cacheDir)
+			.get();
+
+		// Execute
+		Resource parsed = wildebeestApi.loadResource(resourceFile);
+		Resource cached = wildebeestApi.loadResource(resourceFile);
+
+		// Verify
+		CompiledResource compiled = new ResourceCache(cacheDir).get(new ResourceCache(cacheDir).key(resourceFile));
+		assertNotNull("compiled", compiled);
+
+		assertNotSame("cached", parsed, cached);
+		assertEquals("cached.resourceId", parsed.getResourceId(), cached.getResourceId());
+		assertEquals("cached.type", parsed.getType(), cached.getType());
+		assertEquals("cached.name", parsed.getName(), cached.getName());
+		assertEquals("cached.states.size", parsed.getStates().size(), cached.getStates().size());
+		assertEquals("cached.migrations.size", parsed.getMigrations().size(), cached.getMigrations().size());
+		for (int i = 0; i < parsed.getStates().size(); i++)
+		{
+			assertEquals(
+				String.format("cached.states[%d].assertions.size", i),
+				parsed.getStates().get(i).getAssertions().size(),
+				cached.getStates().get(i).getAssertions().size());
+		}
+		assertEquals(
+			"cached.migrations[0].class",
+			parsed.getMigrations().get(0).getClass(),
+			cached.getMigrations().get(0).getClass());
+		assertTrue(
+			"cached.stateIndex",
+			cached.getStateIndex().byId(cached.getStates().get(0).getStateId()).isPresent());
+	}
+
+	@Test
+	public void loadResource_changedFile_reloadsResource() throws
+		FileLoadException,
+		InvalidReferenceException,
+		IOException,
+		LoaderFault,
+		PluginBuildException,
+		XmlValidationException
+	{
+		// Setup
+		File cacheDir = this.temporaryFolder.newFolder("cache");
+		File resourceFile = this.copyResource("PostgreSqlDatabase/database.wbresource.xml");
+		WildebeestApi wildebeestApi = Wildebeest
+			.wildebeestApi(new LoggingEventSink(LOG))
+			.withResourceCache(cacheDir)
+			.get();
+
+		String originalKey = new ResourceCache(cacheDir).key(resourceFile);
+		wildebeestApi.loadResource(resourceFile);
+
+		String xml = new String(Files.readAllBytes(resourceFile.toPath()), StandardCharsets.UTF_8);
+		Files.write(
+			resourceFile.toPath(),
+			xml.replace("Product Catalogue Database", "Renamed Database").getBytes(StandardCharsets.UTF_8));
+
+		// Execute
+		Resource resource = wildebeestApi.loadResource(resourceFile);
+
+		// Verify
+		assertNotEquals("key", originalKey, new ResourceCache(cacheDir).key(resourceFile));
+		assertEquals("resource.name", "Renamed Database", resource.getName());
+	}
+
+	@Test
+	public void put_compiledResource_storesMigrationGraph() throws
+		InvalidReferenceException,
+		IOException,
+		MigrationNotPossibleException
+	{
+		// Setup
+		UUID stateId = UUID.randomUUID();
+		ResourceImpl resource = new ResourceImpl(
+			UUID.randomUUID(),
+			new ResourceType("Fake", "Fake"),
+			"Resource",
+			null);
+		resource.getStates().add(new ImmutableState(stateId, "Foo"));
+		resource.getMigrations().add(new SetTagMigration(
+			UUID.randomUUID(),
+			null,
+			stateId.toString(),
+			"Foo"));
+
+		ResourceCache cache = new ResourceCache(this.temporaryFolder.newFolder("cache"));
+
+		// Execute
+		cache.put("key", new CompiledResource(resource, MigrationGraph.build(resource)));
+		CompiledResource compiled = cache.get("key");
+
+		// Verify
+		assertNotNull("compiled", compiled);
+		assertTrue("compiled.migrationGraph", compiled.getMigrationGraph().isPresent());
+
+		MigrationGraph graph = compiled.getMigrationGraph().get();
+		assertTrue("graph.isCurrentFor", graph.isCurrentFor(compiled.getResource()));
+		assertEquals(
+			"graph.shortestPath.size",
+			1,
+			graph.findShortestPath(null, stateId).size());
+
+		compiled.getResource().getMigrations().add(new SetTagMigration(
+			UUID.randomUUID(),
+			stateId.toString(),
+			null,
+			"Bar"));
+		assertFalse("graph.isCurrentFor", graph.isCurrentFor(compiled.getResource()));
+	}
+
+	@Test
+	public void put_unserializableResource_isNotCached() throws
+		IOException
+	{
+		// Setup
+		ResourceImpl resource = new ResourceImpl(
+			UUID.randomUUID(),
+			new ResourceType("Fake", "Fake"),
+			"Resource",
+			null);
+		resource.getMigrations().add(mock(Migration.class));
+
+		File cacheDir = this.temporaryFolder.newFolder("cache");
+		ResourceCache cache = new ResourceCache(cacheDir);
+
+		// Execute
+		cache.put("key", new CompiledResource(resource, null));
+
+		// Verify
+		assertNull("compiled", cache.get("key"));
+		assertEquals("cacheDir.files", 0, cacheDir.listFiles().length);
+	}
+
+	@Test
+	public void get_corruptEntry_returnsNull() throws
+		IOException
+	{
+		// Setup
+		File cacheDir = this.temporaryFolder.newFolder("cache");
+		Files.write(new File(cacheDir, "key.wbc").toPath(), "not a cache entry".getBytes(StandardCharsets.UTF_8));
+
+		ResourceCache cache = new ResourceCache(cacheDir);
+
+		// Execute and Verify
+		assertNull("compiled", cache.get("key"));
+	}
+
+	@Test
+	public void get_entryWithDisallowedClass_returnsNull() throws
+		IOException
+	{
+		// Setup
+		File cacheDir = this.temporaryFolder.newFolder("cache");
+		try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(new File(cacheDir, "key.wbc"))))
+		{
+			out.writeInt(1);
+			out.writeUTF("key");
+			out.writeObject(new Date());
+		}
+
+		ResourceCache cache = new ResourceCache(cacheDir);
+
+		// Execute and Verify
+		assertNull("compiled", cache.get("key"));
+	}
+
+	@Test
+	public void buildFingerprint_identifiesVersionAndCode() throws
+		URISyntaxException
+	{
+		// Setup
+		File wildebeestClasses = new File(Wildebeest.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+
+		// Execute
+		String fingerprint = ResourceCache.buildFingerprint();
+
+		// Verify
+		assertTrue("fingerprint.version", fingerprint.startsWith(new About().getVersionFullDotted()));
+		assertTrue("fingerprint.code", fingerprint.contains(wildebeestClasses.getPath()));
+		assertEquals("fingerprint.stable", fingerprint, ResourceCache.buildFingerprint());
+	}
+
+	@Test
+	public void isAllowedClass_variousClasses_onlyAllowsKnownClasses()
+	{
+		// Execute and Verify
+		assertTrue("ResourceImpl", ResourceCache.isAllowedClass(ResourceImpl.class.getName()));
+		assertTrue("ArrayList", ResourceCache.isAllowedClass("java.util.ArrayList"));
+		assertTrue("int[]", ResourceCache.isAllowedClass("[I"));
+		assertTrue("String[][]", ResourceCache.isAllowedClass("[[Ljava.lang.String;"));
+		assertFalse("Date", ResourceCache.isAllowedClass("java.util.Date"));
+		assertFalse("Object[]", ResourceCache.isAllowedClass("[Ljava.lang.Object;"));
+		assertFalse("PriorityQueue", ResourceCache.isAllowedClass("java.util.PriorityQueue"));
+		assertFalse(
+			"InvokerTransformer",
+			ResourceCache.isAllowedClass("org.apache.commons.collections.functors.InvokerTransformer"));
+		assertFalse("malformed array", ResourceCache.isAllowedClass("[X"));
+	}
+
+	private File copyResource(
+		String filename) throws
+		IOException
+	{
+		File source = new File(filename);
+		File target = new File(this.temporaryFolder.newFolder(), source.getName());
+
+		Files.copy(source.toPath(), target.toPath());
+
+		return target;
+	}
+}
@@ -0,0 +1,410 @@
+// Wildebeest Migration Framework
+// Copyright © 2013 - 2018, Matheson Ventures Pte Ltd
+//
+// This file is part of Wildebeest
+//
+// Wildebeest is free software: you can redistribute it and/or modify it under
+// the terms of the GNU General Public License v2 as published by the Free
+// Software Foundation.
+//
+// Wildebeest is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Wildebeest.  If not, see http://www.gnu.org/licenses/gpl-2.0.html
+
+
+package co.mv.wb.impl;
+
+import co.mv.wb.Assertion;
+import co.mv.wb.AssertionFailedException;
+import co.mv.wb.AssertionPlugin;
+import co.mv.wb.AssertionResponse;
+import co.mv.wb.AssertionResult;
+import co.mv.wb.IndeterminateStateException;
+import co.mv.wb.Instance;
+import co.mv.wb.InvalidReferenceException;
+import co.mv.wb.Migration;
+import co.mv.wb.MigrationFailedException;
+import co.mv.wb.MigrationNotPossibleException;
+import co.mv.wb.PluginHandler;
+import co.mv.wb.PluginNotFoundException;
+import co.mv.wb.Resource;
+import co.mv.wb.State;
+import co.mv.wb.TargetNotSpecifiedException;
+import co.mv.wb.UnknownStateSpecifiedException;
+import co.mv.wb.Wildebeest;
+import co.mv.wb.WildebeestApi;
+import co.mv.wb.event.EventSink;
+import co.mv.wb.event.Events;
+import co.mv.wb.event.LoggingEventSink;
+import co.mv.wb.fixture.TestContext_ResourceAndInstance;
+import co.mv.wb.framework.ExpectException;
+import co.mv.wb.plugin.fake.FakeConstants;
+import co.mv.wb.plugin.fake.FakeInstance;
+import co.mv.wb.plugin.fake.FakeResourcePlugin;
+import co.mv.wb.plugin.fake.SetTagMigrationPlugin;
+import co.mv.wb.plugin.fake.TagAssertion;
+import co.mv.wb.plugin.fake.TagAssertionPlugin;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for the assertState operation of WildebeestApiImpl.
+ *
+ * @since 4.0
+ */
+public class WildebeestApiImplAssertStateUnitTests
+{
+	private static final Logger LOG = LoggerFactory.getLogger(WildebeestApiImplAssertStateUnitTests.class);
+
+	@Test
+	public void assertState_parallel_performsAssertionsConcurrentlyAndReportsInSeqNumOrder() throws
+		AssertionFailedException,
+		IndeterminateStateException,
+		PluginNotFoundException
+	{
+		// Setup
+		TestContext_ResourceAndInstance context = TestContext_ResourceAndInstance.Builder
+			.create()
+			.withFooBarStatesAndMigrations()
+			.withInitialState(0, "Foo")
+			.build();
+
+		State foo = context.resource.getStates().get(0);
+		Assertion third = new TagAssertion(UUID.randomUUID(), 3, "Bar");
+		Assertion first = new TagAssertion(UUID.randomUUID(), 1, "Foo");
+		Assertion second = new TagAssertion(UUID.randomUUID(), 2, "Foo");
+		foo.getAssertions().addAll(Arrays.asList(third, first, second));
+
+		List<String> events = Collections.synchronizedList(new ArrayList<>());
+
+		// Each assertion waits until all three are running, so they can only pass when performed concurrently
+		WildebeestApi wildebeestApi = Wildebeest
+			.wildebeestApi(event -> events.add(event.getEventUri()))
+			.withResourcePlugin(FakeConstants.Fake, new FakeResourcePlugin())
+			.withAssertionPlugin(new BarrierTagAssertionPlugin(new CyclicBarrier(3)))
+			.withMigrationPlugin(new SetTagMigrationPlugin(context.resource))
+			.withAssertionParallelism(4)
+			.get();
+
+		// Execute
+		List<AssertionResult> results;
+		try
+		{
+			results = wildebeestApi.assertState(
+				context.resource,
+				context.instance);
+		}
+		finally
+		{
+			wildebeestApi.close();
+		}
+
+		// Verify
+		assertEquals("results.size", 3, results.size());
+		assertEquals("results[0].assertionId", first.getAssertionId(), results.get(0).getAssertionId());
+		assertEquals("results[0].result", true, results.get(0).getResult());
+		assertEquals("results[1].assertionId", second.getAssertionId(), results.get(1).getAssertionId());
+		assertEquals("results[1].result", true, results.get(1).getResult());
+		assertEquals("results[2].assertionId", third.getAssertionId(), results.get(2).getAssertionId());
+		assertEquals("results[2].result", false, results.get(2).getResult());
+		assertEquals(
+			"events",
+			Arrays.asList(
+				Events.EVENT_URI_ASSERTION_START,
+				Events.EVENT_URI_ASSERTION_START,
+				Events.EVENT_URI_ASSERTION_START,
+				Events.EVENT_URI_ASSERTION_COMPLETE,
+				Events.EVENT_URI_ASSERTION_COMPLETE,
+				Events.EVENT_URI_ASSSERTION_FAILED),
+			events);
+	}
+
+	@Test
+	public void assertState_sequential_reportsInSeqNumOrder() throws
+		AssertionFailedException,
+		IndeterminateStateException,
+		PluginNotFoundException
+	{
+		// Setup
+		TestContext_ResourceAndInstance context = TestContext_ResourceAndInstance.Builder
+			.create()
+			.withFooBarStatesAndMigrations()
+			.withInitialState(0, "Foo")
+			.build();
+
+		State foo = context.resource.getStates().get(0);
+		Assertion second = new TagAssertion(UUID.randomUUID(), 2, "Bar");
+		Assertion first = new TagAssertion(UUID.randomUUID(), 1, "Foo");
+		foo.getAssertions().addAll(Arrays.asList(second, first));
+
+		List<String> events = new ArrayList<>();
+
+		WildebeestApi wildebeestApi = Wildebeest
+			.wildebeestApi(event -> events.add(event.getEventUri()))
+			.withResourcePlugin(FakeConstants.Fake, new FakeResourcePlugin())
+			.withAssertionPlugin(new TagAssertionPlugin())
+			.withMigrationPlugin(new SetTagMigrationPlugin(context.resource))
+			.get();
+
+		// Execute
+		List<AssertionResult> results = wildebeestApi.assertState(
+			context.resource,
+			context.instance);
+
+		// Verify
+		assertEquals("results.size", 2, results.size());
+		assertEquals("results[0].assertionId", first.getAssertionId(), results.get(0).getAssertionId());
+		assertEquals("results[1].assertionId", second.getAssertionId(), results.get(1).getAssertionId());
+		assertEquals(
+			"events",
+			Arrays.asList(
+				Events.EVENT_URI_ASSERTION_START,
+				Events.EVENT_URI_ASSERTION_COMPLETE,
+				Events.EVENT_URI_ASSERTION_START,
+				Events.EVENT_URI_ASSSERTION_FAILED),
+			events);
+	}
+
+	@Test
+	public void assertState_sameAssertionAddedTwice_performsItOnce() throws
+		AssertionFailedException,
+		IndeterminateStateException,
+		PluginNotFoundException
+	{
+		// Setup
+		TestContext_ResourceAndInstance context = TestContext_ResourceAndInstance.Builder
+			.create()
+			.withFooBarStatesAndMigrations()
+			.withInitialState(0, "Foo")
+			.build();
+
+		TagAssertion assertion = new TagAssertion(UUID.randomUUID(), 1, "Foo");
+		context.resource.getStates().get(0).getAssertions().addAll(Arrays.asList(assertion, assertion));
+
+		WildebeestApi wildebeestApi = Wildebeest
+			.wildebeestApi(new LoggingEventSink(LOG))
+			.withResourcePlugin(FakeConstants.Fake, new FakeResourcePlugin())
+			.withAssertionPlugin(new TagAssertionPlugin())
+			.withMigrationPlugin(new SetTagMigrationPlugin(context.resource))
+			.get();
+
+		// Execute
+		List<AssertionResult> results = wildebeestApi.assertState(
+			context.resource,
+			context.instance);
+
+		// Verify
+		assertEquals("results.size", 1, results.size());
+		assertEquals("assertion.calledNTimes", 1, assertion.getCalledNTimes());
+	}
+
+	@Test
+	public void state_failedAssertion_stopsAtFirstFailure() throws
+		AssertionFailedException,
+		IndeterminateStateException,
+		PluginNotFoundException
+	{
+		// Setup
+		TestContext_ResourceAndInstance context = TestContext_ResourceAndInstance.Builder
+			.create()
+			.withFooBarStatesAndMigrations()
+			.withInitialState(0, "Foo")
+			.build();
+
+		TagAssertion failing = new TagAssertion(UUID.randomUUID(), 1, "Bar");
+		TagAssertion passing = new TagAssertion(UUID.randomUUID(), 2, "Foo");
+		context.resource.getStates().get(0).getAssertions().addAll(Arrays.asList(failing, passing));
+
+		WildebeestApi wildebeestApi = Wildebeest
+			.wildebeestApi(new LoggingEventSink(LOG))
+			.withResourcePlugin(FakeConstants.Fake, new FakeResourcePlugin())
+			.withAssertionPlugin(new TagAssertionPlugin())
+			.withMigrationPlugin(new SetTagMigrationPlugin(context.resource))
+			.get();
+
+		// Execute and Verify
+		new ExpectException(AssertionFailedException.class)
+		{
+			@Override public void invoke() throws Exception
+			{
+				wildebeestApi.state(
+					context.resource,
+					context.instance);
+			}
+
+			@Override public void verify(Exception e)
+			{
+				List<AssertionResult> results = ((AssertionFailedException)e).getAssertionResults();
+				assertEquals("results.size", 1, results.size());
+				assertEquals("results[0].assertionId", failing.getAssertionId(), results.get(0).getAssertionId());
+			}
+		}.perform();
+
+		assertEquals("failing.calledNTimes", 1, failing.getCalledNTimes());
+		assertEquals("passing.calledNTimes", 0, passing.getCalledNTimes());
+	}
+
+	@Test
+	public void assertState_sameStateTwiceInOneOperation_checksAssertionsOnce() throws
+		AssertionFailedException,
+		IndeterminateStateException,
+		InvalidReferenceException,
+		MigrationFailedException,
+		MigrationNotPossibleException,
+		PluginNotFoundException,
+		TargetNotSpecifiedException,
+		UnknownStateSpecifiedException
+	{
+		// Setup
+		TestContext_ResourceAndInstance context = TestContext_ResourceAndInstance.Builder
+			.create()
+			.withFooBarStatesAndMigrations()
+			.withInitialState(0, "Foo")
+			.build();
+
+		TagAssertion fooAssertion = new TagAssertion(UUID.randomUUID(), 1, "Foo");
+		TagAssertion barAssertion = new TagAssertion(UUID.randomUUID(), 1, "Bar");
+		context.resource.getStates().get(0).getAssertions().add(fooAssertion);
+		context.resource.getStates().get(1).getAssertions().add(barAssertion);
+
+		// The migration verifies the state it starts from twice more before changing anything
+		VerifyingSetTagMigrationPlugin migrationPlugin = new VerifyingSetTagMigrationPlugin(context.resource);
+
+		WildebeestApi wildebeestApi = Wildebeest
+			.wildebeestApi(new LoggingEventSink(LOG))
+			.withResourcePlugin(FakeConstants.Fake, new FakeResourcePlugin())
+			.withAssertionPlugin(new TagAssertionPlugin())
+			.withMigrationPlugin(migrationPlugin)
+			.get();
+
+		migrationPlugin.wildebeestApi = wildebeestApi;
+
+		// Execute
+		wildebeestApi.migrate(
+			context.resource,
+			context.instance,
+			"bar");
+
+		// Verify
+		assertEquals("fooAssertion.calledNTimes", 1, fooAssertion.getCalledNTimes());
+		assertEquals("barAssertion.calledNTimes", 1, barAssertion.getCalledNTimes());
+		assertEquals("migrationPlugin.verified", 2, migrationPlugin.verified);
+	}
+
+	@Test
+	public void assertState_separateOperations_checksAssertionsEachTime() throws
+		AssertionFailedException,
+		IndeterminateStateException,
+		PluginNotFoundException
+	{
+		// Setup
+		TestContext_ResourceAndInstance context = TestContext_ResourceAndInstance.Builder
+			.create()
+			.withFooBarStatesAndMigrations()
+			.withInitialState(0, "Foo")
+			.build();
+
+		TagAssertion fooAssertion = new TagAssertion(UUID.randomUUID(), 1, "Foo");
+		context.resource.getStates().get(0).getAssertions().add(fooAssertion);
+
+		WildebeestApi wildebeestApi = Wildebeest
+			.wildebeestApi(new LoggingEventSink(LOG))
+			.withResourcePlugin(FakeConstants.Fake, new FakeResourcePlugin())
+			.withAssertionPlugin(new TagAssertionPlugin())
+			.withMigrationPlugin(new SetTagMigrationPlugin(context.resource))
+			.get();
+
+		// Execute
+		wildebeestApi.assertState(context.resource, context.instance);
+		wildebeestApi.assertState(context.resource, context.instance);
+
+		// Verify
+		assertEquals("fooAssertion.calledNTimes", 2, fooAssertion.getCalledNTimes());
+	}
+
+	@PluginHandler(uri = "co.mv.wb.fake:SetTag")
+	private static class VerifyingSetTagMigrationPlugin extends SetTagMigrationPlugin
+	{
+		private WildebeestApi wildebeestApi;
+		private Resource resource;
+		private int verified;
+
+		private VerifyingSetTagMigrationPlugin(
+			Resource resource)
+		{
+			super(resource);
+
+			this.resource = resource;
+		}
+
+		@Override
+		public void perform(
+			EventSink eventSink,
+			Migration migration,
+			Instance instance)
+		{
+			try
+			{
+				if (((FakeInstance)instance).hasStateId())
+				{
+					this.wildebeestApi.assertState(this.resource, instance);
+					this.wildebeestApi.assertState(this.resource, instance);
+					this.verified += 2;
+				}
+			}
+			catch (Exception e)
+			{
+				throw new RuntimeException(e);
+			}
+
+			super.perform(eventSink, migration, instance);
+		}
+	}
+
+	@PluginHandler(
+		uri = "co.mv.wb.fake:TagAssertion"
+	)
+	private static class BarrierTagAssertionPlugin implements AssertionPlugin
+	{
+		private final CyclicBarrier barrier;
+		private final TagAssertionPlugin inner;
+
+		private BarrierTagAssertionPlugin(
+			CyclicBarrier barrier)
+		{
+			this.barrier = barrier;
+			this.inner = new TagAssertionPlugin();
+		}
+
+		@Override
+		public AssertionResponse perform(
+			Assertion assertion,
+			Instance instance)
+		{
+			try
+			{
+				this.barrier.await(10, TimeUnit.SECONDS);
+			}
+			catch (Exception e)
+			{
+				throw new RuntimeException(e);
+			}
+
+			return this.inner.perform(assertion, instance);
+		}
+	}
+}
@@ -0,0 +1,165 @@
+// Wildebeest Migration Framework
+// Copyright © 2013 - 2018, Matheson Ventures Pte Ltd
+//
+// This file is part of Wildebeest
+//
+// Wildebeest is free software: you can redistribute it and/or modify it under
+// the terms of the GNU General Public License v2 as published by the Free
+// Software Foundation.
+//
+// Wildebeest is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Wildebeest.  If not, see http://www.gnu.org/licenses/gpl-2.0.html
+
+
+package co.mv.wb.impl;
+
+import co.mv.wb.AssertionPlugin;
+import co.mv.wb.Wildebeest;
+import co.mv.wb.WildebeestApi;
+import co.mv.wb.event.Event;
+import co.mv.wb.fixture.TestContext_ResourceAndInstance;
+import co.mv.wb.plugin.fake.FakeConstants;
+import co.mv.wb.plugin.fake.FakeInstance;
+import co.mv.wb.plugin.fake.FakeResourcePlugin;
+import co.mv.wb.plugin.fake.SetTagMigrationPlugin;
+import co.mv.wb.plugin.fake.TagAssertion;
+import co.mv.wb.plugin.fake.TagAssertionPlugin;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static co.mv.wb.Asserts.assertFakeInstance;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for sharing one WildebeestApiImpl between threads.
+ *
+ * @since 4.0
+ */
+public class WildebeestApiImplConcurrencyUnitTests
+{
+	private static final int InstanceCount = 16;
+	private static final int ThreadCount = 4;
+
+	@Test
+	public void migrate_differentInstancesConcurrently_allMigratedWithDistinctRunIds() throws
+		ExecutionException,
+		InterruptedException
+	{
+		// Setup
+		TestContext_ResourceAndInstance context = TestContext_ResourceAndInstance.Builder
+			.create()
+			.withFooBarStatesAndMigrations()
+			.build();
+		context.resource.getStates().get(0).getAssertions().add(new TagAssertion(UUID.randomUUID(), 0, "Foo"));
+		context.resource.getStates().get(1).getAssertions().add(new TagAssertion(UUID.randomUUID(), 0, "Bar"));
+
+		List<Event> events = Collections.synchronizedList(new ArrayList<>());
+
+		WildebeestApi wildebeestApi = Wildebeest
+			.wildebeestApi(events::add)
+			.withResourcePlugin(FakeConstants.Fake, new FakeResourcePlugin())
+			.withAssertionPlugin(new TagAssertionPlugin())
+			.withMigrationPlugin(new SetTagMigrationPlugin(context.resource))
+			.get();
+
+		List<FakeInstance> instances = new ArrayList<>();
+		List<Callable<Void>> migrations = new ArrayList<>();
+		for (int i = 0; i < InstanceCount; i++)
+		{
+			FakeInstance instance = new FakeInstance();
+			instances.add(instance);
+			migrations.add(() ->
+			{
+				wildebeestApi.migrate(context.resource, instance, "bar");
+				return null;
+			});
+		}
+
+		// Execute
+		ExecutorService executor = Executors.newFixedThreadPool(ThreadCount);
+		try
+		{
+			for (Future<Void> migration : executor.invokeAll(migrations))
+			{
+				migration.get();
+			}
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+
+		// Verify
+		for (int i = 0; i < InstanceCount; i++)
+		{
+			assertFakeInstance("Bar", instances.get(i), "instances[" + i + "]");
+		}
+
+		List<Event> raised = new ArrayList<>(events);
+		assertTrue("events.all.runId", raised.stream().allMatch(e -> e.getRunId().isPresent()));
+
+		Map<UUID, Long> eventCounts = raised
+			.stream()
+			.collect(Collectors.groupingBy(e -> e.getRunId().get(), Collectors.counting()));
+		assertEquals("eventCounts.size", InstanceCount, eventCounts.size());
+		assertEquals(
+			"eventCounts.values.distinct",
+			1,
+			new HashSet<>(eventCounts.values()).size());
+	}
+
+	@Test
+	public void builderGet_calledTwice_returnsIndependentApis()
+	{
+		// Setup
+		WildebeestApiBuilder builder = Wildebeest
+			.wildebeestApi(event -> { })
+			.withResourcePlugin(FakeConstants.Fake, new FakeResourcePlugin())
+			.withAssertionPlugin(new TagAssertionPlugin());
+
+		// Execute
+		WildebeestApi first = builder.get();
+		WildebeestApi second = builder.get();
+
+		// Verify
+		assertNotSame("second", first, second);
+	}
+
+	@Test
+	public void pluginRegistry_sourceModifiedAfterConstruction_unchanged()
+	{
+		// Setup
+		List<AssertionPlugin> assertionPlugins = new ArrayList<>();
+		assertionPlugins.add(new TagAssertionPlugin());
+
+		PluginRegistry registry = new PluginRegistry(
+			Collections.emptyList(),
+			Collections.emptyMap(),
+			assertionPlugins,
+			Collections.emptyMap());
+
+		// Execute
+		assertionPlugins.clear();
+
+		// Verify
+		assertEquals("registry.assertionPlugins.size", 1, registry.getAssertionPlugins().size());
+	}
+}
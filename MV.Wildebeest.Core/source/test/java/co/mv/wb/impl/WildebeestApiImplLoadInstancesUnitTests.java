@@ -0,0 +1,186 @@
+// Wildebeest Migration Framework
+// Copyright © 2013 - 2018, Matheson Ventures Pte Ltd
+//
+// This file is part of Wildebeest
+//
+// Wildebeest is free software: you can redistribute it and/or modify it under
+// the terms of the GNU General Public License v2 as published by the Free
+// Software Foundation.
+//
+// Wildebeest is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Wildebeest.  If not, see http://www.gnu.org/licenses/gpl-2.0.html
+
+
+package co.mv.wb.impl;
+
+import co.mv.wb.FileLoadException;
+import co.mv.wb.Instance;
+import co.mv.wb.LoaderFault;
+import co.mv.wb.PluginBuildException;
+import co.mv.wb.Wildebeest;
+import co.mv.wb.WildebeestApi;
+import co.mv.wb.XmlValidationException;
+import co.mv.wb.event.LoggingEventSink;
+import co.mv.wb.framework.ExpectException;
+import co.mv.wb.plugin.postgresql.PostgreSqlDatabaseInstance;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for loading sets of instances through WildebeestApiImpl.
+ *
+ * @since 4.0
+ */
+public class WildebeestApiImplLoadInstancesUnitTests
+{
+	private static final Logger LOG = LoggerFactory.getLogger(WildebeestApiImplLoadInstancesUnitTests.class);
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void loadInstances_instancesFile_keyedByNameOrPosition() throws
+		FileLoadException,
+		IOException,
+		LoaderFault,
+		PluginBuildException,
+		XmlValidationException
+	{
+		// Setup
+		File instancesFile = this.write(
+			"tenants.xml",
+			"<instances>" +
+				WildebeestApiImplLoadInstancesUnitTests.instanceXml("tenant-a", "TenantA") +
+				WildebeestApiImplLoadInstancesUnitTests.instanceXml(null, "TenantB") +
+				"</instances>");
+
+		try (WildebeestApi wildebeestApi = WildebeestApiImplLoadInstancesUnitTests.wildebeestApi())
+		{
+			// Execute
+			Map<String, Instance> instances = wildebeestApi.loadInstances(instancesFile);
+
+			// Verify
+			assertEquals("instances.keys", Arrays.asList("tenant-a", "tenants.xml#2"), new ArrayList<>(instances.keySet()));
+			assertEquals(
+				"instances[tenant-a].databaseName",
+				"TenantA",
+				((PostgreSqlDatabaseInstance)instances.get("tenant-a")).getDatabaseName());
+			assertEquals(
+				"instances[tenants.xml#2].databaseName",
+				"TenantB",
+				((PostgreSqlDatabaseInstance)instances.get("tenants.xml#2")).getDatabaseName());
+		}
+	}
+
+	@Test
+	public void loadInstances_directory_keyedByFileName() throws
+		FileLoadException,
+		IOException,
+		LoaderFault,
+		PluginBuildException,
+		XmlValidationException
+	{
+		// Setup
+		this.write("b.wbinstance.xml", WildebeestApiImplLoadInstancesUnitTests.instanceXml(null, "TenantB"));
+		this.write("a.wbinstance.xml", WildebeestApiImplLoadInstancesUnitTests.instanceXml(null, "TenantA"));
+		this.write("notes.txt", "not an instance");
+
+		try (WildebeestApi wildebeestApi = WildebeestApiImplLoadInstancesUnitTests.wildebeestApi())
+		{
+			// Execute
+			Map<String, Instance> instances = wildebeestApi.loadInstances(this.temporaryFolder.getRoot());
+
+			// Verify
+			assertEquals(
+				"instances.keys",
+				Arrays.asList("a.wbinstance.xml", "b.wbinstance.xml"),
+				new ArrayList<>(instances.keySet()));
+			assertEquals(
+				"instances[a.wbinstance.xml].databaseName",
+				"TenantA",
+				((PostgreSqlDatabaseInstance)instances.get("a.wbinstance.xml")).getDatabaseName());
+		}
+	}
+
+	@Test
+	public void loadInstances_duplicateNames_throws() throws
+		IOException
+	{
+		// Setup
+		File instancesFile = this.write(
+			"tenants.xml",
+			"<instances>" +
+				WildebeestApiImplLoadInstancesUnitTests.instanceXml("tenant-a", "TenantA") +
+				WildebeestApiImplLoadInstancesUnitTests.instanceXml("tenant-a", "TenantB") +
+				"</instances>");
+
+		try (WildebeestApi wildebeestApi = WildebeestApiImplLoadInstancesUnitTests.wildebeestApi())
+		{
+			// Execute and Verify
+			new ExpectException(XmlValidationException.class)
+			{
+				@Override public void invoke() throws Exception
+				{
+					wildebeestApi.loadInstances(instancesFile);
+				}
+
+				@Override public void verify(Exception e)
+				{
+					assertTrue("e.message", e.getMessage().contains("InstanceName"));
+				}
+			}.perform();
+		}
+	}
+
+	private File write(
+		String fileName,
+		String content) throws
+		IOException
+	{
+		File file = new File(this.temporaryFolder.getRoot(), fileName);
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+
+		return file;
+	}
+
+	private static WildebeestApi wildebeestApi()
+	{
+		return Wildebeest
+			.wildebeestApi(new LoggingEventSink(LOG))
+			.withFactoryPluginGroups()
+			.withFactoryResourcePlugins()
+			.withFactoryMigrationPlugins()
+			.get();
+	}
+
+	private static String instanceXml(
+		String name,
+		String databaseName)
+	{
+		return "<instance type=\"co.mv.wb.PostgreSqlDatabase\"" + (name == null ? "" : " name=\"" + name + "\"") + ">" +
+			"<hostName>127.0.0.1</hostName>" +
+			"<port>15432</port>" +
+			"<adminUsername>postgres</adminUsername>" +
+			"<adminPassword>Password123!</adminPassword>" +
+			"<databaseName>" + databaseName + "</databaseName>" +
+			"</instance>";
+	}
+}
@@ -17,18 +17,36 @@
 package co.mv.wb.impl;
 
 import co.mv.wb.AssertionFailedException;
+import co.mv.wb.FaultException;
+import co.mv.wb.FileLoadException;
 import co.mv.wb.IndeterminateStateException;
+import co.mv.wb.Instance;
+import co.mv.wb.InstanceSession;
 import co.mv.wb.InvalidReferenceException;
+import co.mv.wb.LoaderFault;
 import co.mv.wb.MigrationFailedException;
 import co.mv.wb.MigrationNotPossibleException;
+import co.mv.wb.MigrationSummary;
+import co.mv.wb.PluginBuildException;
 import co.mv.wb.PluginNotFoundException;
+import co.mv.wb.Resource;
+import co.mv.wb.ResourceLock;
+import co.mv.wb.State;
 import co.mv.wb.TargetNotSpecifiedException;
 import co.mv.wb.UnknownStateSpecifiedException;
+import co.mv.wb.VerificationPolicy;
 import co.mv.wb.Wildebeest;
 import co.mv.wb.WildebeestApi;
+import co.mv.wb.XmlValidationException;
+import co.mv.wb.event.Events;
 import co.mv.wb.event.LoggingEventSink;
 import co.mv.wb.fixture.TestContext_ResourceAndInstance;
 import co.mv.wb.framework.ExpectException;
+import co.mv.wb.framework.PooledDataSource;
+import co.mv.wb.plugin.base.ImmutableState;
+import co.mv.wb.plugin.base.ResourceImpl;
+import co.mv.wb.plugin.composite.ExternalResourceMigration;
+import co.mv.wb.plugin.composite.ExternalResourceMigrationPlugin;
 import co.mv.wb.plugin.fake.FakeConstants;
 import co.mv.wb.plugin.fake.FakeInstance;
 import co.mv.wb.plugin.fake.FakeResourcePlugin;
@@ -40,8 +58,32 @@ import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
 import static co.mv.wb.Asserts.assertFakeInstance;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 /**
  * Unit tests for WildebeestApiImpl.
@@ -355,4 +397,492 @@ public class WildebeestApiImplMigrateUnitTests
 			}
 		}.perform();
 	}
+
+	/**
+	 * A migration over two steps probes the current state once up front and once after each step, rather than before
+	 * every assertion.
+	 *
+	 * @since 4.0
+	 */
+	@Test
+	public void migrate_multipleSteps_probesCurrentStateOncePerStep() throws
+		AssertionFailedException,
+		IndeterminateStateException,
+		InvalidReferenceException,
+		MigrationFailedException,
+		MigrationNotPossibleException,
+		PluginNotFoundException,
+		TargetNotSpecifiedException,
+		UnknownStateSpecifiedException
+	{
+		// Setup
+		TestContext_ResourceAndInstance context = TestContext_ResourceAndInstance.Builder
+			.create()
+			.withFooBarStatesAndMigrations()
+			.build();
+
+		FakeResourcePlugin resourcePlugin = spy(new FakeResourcePlugin());
+
+		WildebeestApi wildebeestApi = Wildebeest
+			.wildebeestApi(new LoggingEventSink(LOG))
+			.withResourcePlugin(FakeConstants.Fake, resourcePlugin)
+			.withMigrationPlugin(new SetTagMigrationPlugin(context.resource))
+			.get();
+
+		// Execute
+		wildebeestApi.migrate(
+			context.resource,
+			context.instance,
+			"bar");
+
+		// Verify
+		assertFakeInstance(
+			"Bar",
+			context.instance,
+			"instance");
+		verify(resourcePlugin, times(3)).currentState(context.resource, context.instance);
+		verify(resourcePlugin, times(2)).setStateId(any(), any(), any(), any());
+	}
+
+	/**
+	 * Querying the state of an instance probes the current state once, even though the state is also needed to assert
+	 * it.
+	 *
+	 * @since 4.0
+	 */
+	@Test
+	public void state_existingState_probesCurrentStateOnce() throws
+		AssertionFailedException,
+		IndeterminateStateException,
+		InvalidReferenceException,
+		MigrationFailedException,
+		MigrationNotPossibleException,
+		PluginNotFoundException,
+		TargetNotSpecifiedException,
+		UnknownStateSpecifiedException
+	{
+		// Setup
+		TestContext_ResourceAndInstance context = TestContext_ResourceAndInstance.Builder
+			.create()
+			.withFooBarStatesAndMigrations()
+			.build();
+
+		FakeResourcePlugin resourcePlugin = spy(new FakeResourcePlugin());
+
+		WildebeestApi wildebeestApi = Wildebeest
+			.wildebeestApi(new LoggingEventSink(LOG))
+			.withResourcePlugin(FakeConstants.Fake, resourcePlugin)
+			.withMigrationPlugin(new SetTagMigrationPlugin(context.resource))
+			.get();
+
+		wildebeestApi.migrate(
+			context.resource,
+			context.instance,
+			"foo");
+
+		reset(resourcePlugin);
+
+		// Execute
+		wildebeestApi.state(
+			context.resource,
+			context.instance);
+
+		// Verify
+		verify(resourcePlugin, times(1)).currentState(context.resource, context.instance);
+	}
+
+	/**
+	 * Migrating with the final-state policy skips the assertions of the intermediate states, and still verifies the
+	 * target state.
+	 *
+	 * @since 4.0
+	 */
+	@Test
+	public void migrate_finalStateOnly_verifiesTargetStateOnly() throws
+		AssertionFailedException,
+		IndeterminateStateException,
+		InvalidReferenceException,
+		MigrationFailedException,
+		MigrationNotPossibleException,
+		PluginNotFoundException,
+		TargetNotSpecifiedException,
+		UnknownStateSpecifiedException
+	{
+		// Setup
+		TestContext_ResourceAndInstance context = TestContext_ResourceAndInstance.Builder
+			.create()
+			.withFooBarStatesAndMigrations()
+			.build();
+
+		TagAssertion fooAssertion = new TagAssertion(UUID.randomUUID(), 0, "Foo");
+		TagAssertion barAssertion = new TagAssertion(UUID.randomUUID(), 0, "Bar");
+		context.resource.getStates().get(0).getAssertions().add(fooAssertion);
+		context.resource.getStates().get(1).getAssertions().add(barAssertion);
+
+		WildebeestApi wildebeestApi = Wildebeest
+			.wildebeestApi(new LoggingEventSink(LOG))
+			.withResourcePlugin(FakeConstants.Fake, new FakeResourcePlugin())
+			.withAssertionPlugin(new TagAssertionPlugin())
+			.withMigrationPlugin(new SetTagMigrationPlugin(context.resource))
+			.get();
+
+		// Execute
+		wildebeestApi.migrate(
+			context.resource,
+			context.instance,
+			"bar",
+			VerificationPolicy.finalStateOnly());
+
+		// Verify
+		assertFakeInstance(
+			"Bar",
+			context.instance,
+			"instance");
+		assertEquals("fooAssertion.calledNTimes", 0, fooAssertion.getCalledNTimes());
+		assertEquals("barAssertion.calledNTimes", 1, barAssertion.getCalledNTimes());
+	}
+
+	/**
+	 * Migrating with the default policy verifies every state along the path.
+	 *
+	 * @since 4.0
+	 */
+	@Test
+	public void migrate_defaultPolicy_verifiesEveryStep() throws
+		AssertionFailedException,
+		IndeterminateStateException,
+		InvalidReferenceException,
+		MigrationFailedException,
+		MigrationNotPossibleException,
+		PluginNotFoundException,
+		TargetNotSpecifiedException,
+		UnknownStateSpecifiedException
+	{
+		// Setup
+		TestContext_ResourceAndInstance context = TestContext_ResourceAndInstance.Builder
+			.create()
+			.withFooBarStatesAndMigrations()
+			.build();
+
+		TagAssertion fooAssertion = new TagAssertion(UUID.randomUUID(), 0, "Foo");
+		TagAssertion barAssertion = new TagAssertion(UUID.randomUUID(), 0, "Bar");
+		context.resource.getStates().get(0).getAssertions().add(fooAssertion);
+		context.resource.getStates().get(1).getAssertions().add(barAssertion);
+
+		WildebeestApi wildebeestApi = Wildebeest
+			.wildebeestApi(new LoggingEventSink(LOG))
+			.withResourcePlugin(FakeConstants.Fake, new FakeResourcePlugin())
+			.withAssertionPlugin(new TagAssertionPlugin())
+			.withMigrationPlugin(new SetTagMigrationPlugin(context.resource))
+			.get();
+
+		// Execute
+		wildebeestApi.migrate(
+			context.resource,
+			context.instance,
+			"bar");
+
+		// Verify
+		assertEquals("fooAssertion.calledNTimes", 1, fooAssertion.getCalledNTimes());
+		assertEquals("barAssertion.calledNTimes", 1, barAssertion.getCalledNTimes());
+	}
+
+	/**
+	 * Migrating a set of instances migrates every instance that can be migrated, and records the failure of an
+	 * instance that cannot without affecting the others.
+	 *
+	 * @since 4.0
+	 */
+	@Test
+	public void migrateAll_oneInstanceFails_othersMigrated()
+	{
+		// Setup
+		TestContext_ResourceAndInstance context = TestContext_ResourceAndInstance.Builder
+			.create()
+			.withFooBarStatesAndMigrations()
+			.build();
+
+		UUID fooStateId = context.resource.getStates().get(0).getStateId();
+		context.resource.getStates().get(0).getAssertions().add(new TagAssertion(UUID.randomUUID(), 0, "Foo"));
+
+		FakeInstance tenantA = new FakeInstance();
+		FakeInstance tenantB = new FakeInstance(fooStateId);
+		tenantB.setTag("Corrupt");
+		FakeInstance tenantC = new FakeInstance();
+
+		Map<String, Instance> instances = new LinkedHashMap<>();
+		instances.put("tenant-a", tenantA);
+		instances.put("tenant-b", tenantB);
+		instances.put("tenant-c", tenantC);
+
+		WildebeestApi wildebeestApi = Wildebeest
+			.wildebeestApi(new LoggingEventSink(LOG))
+			.withResourcePlugin(FakeConstants.Fake, new FakeResourcePlugin())
+			.withAssertionPlugin(new TagAssertionPlugin())
+			.withMigrationPlugin(new SetTagMigrationPlugin(context.resource))
+			.get();
+
+		// Execute
+		MigrationSummary summary = wildebeestApi.migrateAll(
+			context.resource,
+			instances,
+			"bar",
+			VerificationPolicy.everyStep(),
+			2);
+
+		// Verify
+		assertEquals("summary.instanceCount", 3, summary.getInstanceCount());
+		assertEquals("summary.succeeded", Arrays.asList("tenant-a", "tenant-c"), summary.getSucceeded());
+		assertEquals("summary.failed.keys", Collections.singleton("tenant-b"), summary.getFailed().keySet());
+		assertTrue(
+			"summary.failed[tenant-b]",
+			summary.getFailed().get("tenant-b") instanceof AssertionFailedException);
+		assertFakeInstance("Bar", tenantA, "tenantA");
+		assertFakeInstance("Corrupt", tenantB, "tenantB");
+		assertFakeInstance("Bar", tenantC, "tenantC");
+	}
+
+	/**
+	 * An External step on an instance that runs migrations in transactions migrates the external resource within the
+	 * transaction of the step, which is committed once.
+	 *
+	 * @since 4.0
+	 */
+	@Test
+	public void migrate_externalStepOnTransactionalInstance_nestedMigrationJoinsTransaction() throws
+		AssertionFailedException,
+		FileLoadException,
+		IndeterminateStateException,
+		InvalidReferenceException,
+		LoaderFault,
+		MigrationFailedException,
+		MigrationNotPossibleException,
+		PluginBuildException,
+		PluginNotFoundException,
+		SQLException,
+		TargetNotSpecifiedException,
+		UnknownStateSpecifiedException,
+		XmlValidationException
+	{
+		// Setup
+		TestContext_ResourceAndInstance external = TestContext_ResourceAndInstance.Builder
+			.create()
+			.withFooBarStatesAndMigrations()
+			.build();
+
+		State fooState = external.resource.getStates().get(0);
+		State doneState = new ImmutableState(UUID.randomUUID(), "done");
+
+		Resource resource = new ResourceImpl(
+			UUID.randomUUID(),
+			FakeConstants.Fake,
+			"Composite",
+			null);
+		resource.getStates().add(fooState);
+		resource.getStates().add(doneState);
+		resource.getMigrations().add(new ExternalResourceMigration(
+			UUID.randomUUID(),
+			fooState.getStateId().toString(),
+			doneState.getStateId().toString(),
+			null,
+			"external.wbresource.xml",
+			"bar"));
+
+		// Each session on the instance holds a connection, so that the transactions on it can be observed
+		Connection physical = mock(Connection.class);
+		when(physical.getAutoCommit()).thenReturn(true);
+		when(physical.getTransactionIsolation()).thenReturn(Connection.TRANSACTION_READ_COMMITTED);
+		DataSource dataSource = mock(DataSource.class);
+		when(dataSource.getConnection()).thenReturn(physical);
+		PooledDataSource pool = new PooledDataSource(dataSource, 1);
+
+		FakeInstance instance = new FakeInstance(fooState.getStateId())
+		{
+			@Override public InstanceSession openSession()
+			{
+				InstanceSession result = pool.openSession();
+
+				try
+				{
+					pool.getConnection().close();
+				}
+				catch (SQLException e)
+				{
+					throw new FaultException(e);
+				}
+
+				return result;
+			}
+		};
+
+		// The plugin migrates the external resource through the WildebeestApi under test, on the same thread
+		AtomicReference<WildebeestApi> wildebeestApiRef = new AtomicReference<>();
+		WildebeestApi externalApi = mock(WildebeestApi.class);
+		when(externalApi.loadResource(any())).thenReturn(external.resource);
+		doAnswer(invocation ->
+		{
+			wildebeestApiRef.get().migrate(
+				(Resource)invocation.getArguments()[0],
+				(Instance)invocation.getArguments()[1],
+				(String)invocation.getArguments()[2]);
+			return null;
+		}).when(externalApi).migrate(any(), any(), any());
+
+		WildebeestApi wildebeestApi = Wildebeest
+			.wildebeestApi(new LoggingEventSink(LOG))
+			.withResourcePlugin(FakeConstants.Fake, new FakeResourcePlugin())
+			.withMigrationPlugin(new SetTagMigrationPlugin(external.resource))
+			.withMigrationPlugin(new ExternalResourceMigrationPlugin(externalApi))
+			.get();
+		wildebeestApiRef.set(wildebeestApi);
+
+		// Execute
+		wildebeestApi.migrate(
+			resource,
+			instance,
+			"done");
+
+		// Verify
+		assertEquals("instance.stateId", doneState.getStateId(), instance.getStateId());
+		assertEquals("instance.tag", "Bar", instance.getTag());
+		verify(physical, times(1)).setAutoCommit(false);
+		verify(physical, times(1)).commit();
+		verify(physical, never()).rollback();
+	}
+
+	/**
+	 * Migrating a set of instances closes the pooled connections of each instance once it has been migrated, rather
+	 * than holding them open until the WildebeestApi is closed.
+	 *
+	 * @since 4.0
+	 */
+	@Test
+	public void migrateAll_pooledInstances_connectionsClosedAfterMigration() throws SQLException
+	{
+		// Setup
+		TestContext_ResourceAndInstance context = TestContext_ResourceAndInstance.Builder
+			.create()
+			.withFooBarStatesAndMigrations()
+			.build();
+
+		List<PooledDataSource> pools = new ArrayList<>();
+		List<Connection> physicals = new ArrayList<>();
+		Map<String, Instance> instances = new LinkedHashMap<>();
+
+		for (int i = 0; i < 3; i++)
+		{
+			Connection physical = mock(Connection.class);
+			when(physical.getAutoCommit()).thenReturn(true);
+			when(physical.getTransactionIsolation()).thenReturn(Connection.TRANSACTION_READ_COMMITTED);
+			DataSource dataSource = mock(DataSource.class);
+			when(dataSource.getConnection()).thenReturn(physical);
+			PooledDataSource pool = new PooledDataSource(dataSource, 2);
+
+			pools.add(pool);
+			physicals.add(physical);
+			instances.put("tenant-" + i, new FakeInstance()
+			{
+				@Override public InstanceSession openSession()
+				{
+					InstanceSession result = pool.openSession();
+
+					try
+					{
+						pool.getConnection().close();
+					}
+					catch (SQLException e)
+					{
+						throw new FaultException(e);
+					}
+
+					return result;
+				}
+
+				@Override public void closeConnections()
+				{
+					pool.closeIdleConnections();
+				}
+			});
+		}
+
+		WildebeestApi wildebeestApi = Wildebeest
+			.wildebeestApi(new LoggingEventSink(LOG))
+			.withResourcePlugin(FakeConstants.Fake, new FakeResourcePlugin())
+			.withMigrationPlugin(new SetTagMigrationPlugin(context.resource))
+			.get();
+
+		// Execute
+		MigrationSummary summary = wildebeestApi.migrateAll(
+			context.resource,
+			instances,
+			"bar",
+			VerificationPolicy.everyStep(),
+			2);
+
+		// Verify
+		assertEquals("summary.succeeded.size", 3, summary.getSucceeded().size());
+		for (int i = 0; i < 3; i++)
+		{
+			assertEquals("pools[" + i + "].idleCount", 0, pools.get(i).getIdleCount());
+			verify(physicals.get(i), times(1)).close();
+		}
+	}
+
+	@Test
+	public void migrate_peerMigratedWhileWaitingForLock_stateReadAfterLockAndNothingToDo() throws
+		AssertionFailedException,
+		IndeterminateStateException,
+		InvalidReferenceException,
+		MigrationFailedException,
+		MigrationNotPossibleException,
+		PluginNotFoundException,
+		TargetNotSpecifiedException,
+		UnknownStateSpecifiedException
+	{
+		// Setup
+		TestContext_ResourceAndInstance context = TestContext_ResourceAndInstance.Builder
+			.create()
+			.withFooBarStatesAndMigrations()
+			.withInitialState(0, "Foo")
+			.build();
+
+		UUID barStateId = context.resource.getStates().get(1).getStateId();
+		AtomicInteger locksHeld = new AtomicInteger(0);
+
+		// While this process waits for the lock, a peer migrates the instance to the target state
+		FakeResourcePlugin resourcePlugin = new FakeResourcePlugin()
+		{
+			@Override public ResourceLock lock(
+				Resource resource,
+				Instance instance)
+			{
+				FakeInstance fake = (FakeInstance)instance;
+				fake.setStateId(barStateId);
+				fake.setTag("Bar");
+				locksHeld.incrementAndGet();
+
+				return locksHeld::decrementAndGet;
+			}
+		};
+
+		List<String> eventUris = new ArrayList<>();
+
+		WildebeestApi wildebeestApi = Wildebeest
+			.wildebeestApi(event -> eventUris.add(event.getEventUri()))
+			.withResourcePlugin(FakeConstants.Fake, resourcePlugin)
+			.withAssertionPlugin(new TagAssertionPlugin())
+			.withMigrationPlugin(new SetTagMigrationPlugin(context.resource))
+			.get();
+
+		// Execute
+		wildebeestApi.migrate(
+			context.resource,
+			context.instance,
+			"bar");
+
+		// Verify
+		assertFalse("eventUris.migrationStart", eventUris.contains(Events.EVENT_URI_MIGRATION_START));
+		assertFakeInstance("Bar", context.instance, "instance");
+		assertEquals("locksHeld", 0, locksHeld.get());
+	}
 }
@@ -0,0 +1,104 @@
+// Wildebeest Migration Framework
+// Copyright © 2013 - 2018, Matheson Ventures Pte Ltd
+//
+// This file is part of Wildebeest
+//
+// Wildebeest is free software: you can redistribute it and/or modify it under
+// the terms of the GNU General Public License v2 as published by the Free
+// Software Foundation.
+//
+// Wildebeest is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Wildebeest.  If not, see http://www.gnu.org/licenses/gpl-2.0.html
+
+package co.mv.wb.impl;
+
+import org.junit.Test;
+import org.xml.sax.SAXException;
+
+import javax.xml.transform.stream.StreamSource;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Unit tests for {@link XmlSchemaCache}.
+ *
+ * @since 4.0
+ */
+public class XmlSchemaCacheUnitTests
+{
+	@Test
+	public void getSchema_calledTwice_returnsSameSchema()
+	{
+		// Execute and Verify
+		assertSame(
+			"schema",
+			XmlSchemaCache.getSchema("resource.xsd"),
+			XmlSchemaCache.getSchema("resource.xsd"));
+	}
+
+	@Test
+	public void validate_concurrentValidAndInvalid_succeeds() throws
+		ExecutionException,
+		IOException,
+		InterruptedException
+	{
+		// Setup
+		String validXml = readAllText("PostgreSqlDatabase/database.wbresource.xml");
+		String invalidXml = readAllText("InvalidXml/InvalidSampleResources.xml");
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		List<Future<Boolean>> results = new ArrayList<>();
+
+		// Execute
+		try
+		{
+			for (int i = 0; i < 40; i++)
+			{
+				String xml = i % 2 == 0 ? validXml : invalidXml;
+
+				results.add(executor.submit(() ->
+				{
+					try
+					{
+						XmlSchemaCache.validate(new StreamSource(new StringReader(xml)), "resource.xsd");
+						return true;
+					}
+					catch (SAXException e)
+					{
+						return false;
+					}
+				}));
+			}
+
+			// Verify
+			for (int i = 0; i < results.size(); i++)
+			{
+				assertEquals(String.format("results[%d]", i), i % 2 == 0, results.get(i).get());
+			}
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+
+	private static String readAllText(String filename) throws IOException
+	{
+		return new String(Files.readAllBytes(new File(filename).toPath()));
+	}
+}
@@ -0,0 +1,80 @@
+// Wildebeest Migration Framework
+// Copyright © 2013 - 2018, Matheson Ventures Pte Ltd
+//
+// This file is part of Wildebeest
+//
+// Wildebeest is free software: you can redistribute it and/or modify it under
+// the terms of the GNU General Public License v2 as published by the Free
+// Software Foundation.
+//
+// Wildebeest is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Wildebeest.  If not, see http://www.gnu.org/licenses/gpl-2.0.html
+
+package co.mv.wb.plugin.base;
+
+import co.mv.wb.Resource;
+import co.mv.wb.State;
+import co.mv.wb.StateIndex;
+import co.mv.wb.plugin.fake.FakeConstants;
+import org.junit.Test;
+
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Unit tests for {@link ResourceImpl}.
+ *
+ * @since 4.0
+ */
+public class ResourceImplUnitTests
+{
+	@Test
+	public void getStateIndex_byIdNameAndRef_succeeds()
+	{
+		// Setup
+		Resource resource = new ResourceImpl(UUID.randomUUID(), FakeConstants.Fake, "Resource", null);
+		State foo = new ImmutableState(UUID.randomUUID(), "foo");
+		State unnamed = new ImmutableState(UUID.randomUUID());
+		resource.getStates().add(foo);
+		resource.getStates().add(unnamed);
+
+		// Execute
+		StateIndex index = resource.getStateIndex();
+
+		// Verify
+		assertSame("byId", unnamed, index.byId(unnamed.getStateId()).get());
+		assertSame("byName", foo, index.byName("foo").get());
+		assertSame("byRef(id)", foo, index.byRef(foo.getStateId().toString()).get());
+		assertSame("byRef(name)", foo, index.byRef("foo").get());
+		assertFalse("byRef(unknown)", index.byRef("bar").isPresent());
+		assertSame("reused", index, resource.getStateIndex());
+	}
+
+	@Test
+	public void getStateIndex_statesModified_rebuilt()
+	{
+		// Setup
+		Resource resource = new ResourceImpl(UUID.randomUUID(), FakeConstants.Fake, "Resource", null);
+		State foo = new ImmutableState(UUID.randomUUID(), "foo");
+		State bar = new ImmutableState(UUID.randomUUID(), "bar");
+		resource.getStates().add(foo);
+		assertFalse("before add", resource.getStateIndex().byName("bar").isPresent());
+
+		// Execute
+		resource.getStates().add(bar);
+		State barAfterAdd = resource.getStateIndex().byName("bar").orElse(null);
+		resource.getStates().set(0, new ImmutableState(foo.getStateId(), "renamed"));
+
+		// Verify
+		assertSame("after add", bar, barAfterAdd);
+		assertFalse("after set", resource.getStateIndex().byName("foo").isPresent());
+		assertEquals("after set", "renamed", resource.getStateIndex().byId(foo.getStateId()).get().getName().get());
+	}
+}
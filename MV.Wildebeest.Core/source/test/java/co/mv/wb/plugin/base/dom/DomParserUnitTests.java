@@ -0,0 +1,195 @@
+// Wildebeest Migration Framework
+// Copyright © 2013 - 2018, Matheson Ventures Pte Ltd
+//
+// This file is part of Wildebeest
+//
+// Wildebeest is free software: you can redistribute it and/or modify it under
+// the terms of the GNU General Public License v2 as published by the Free
+// Software Foundation.
+//
+// Wildebeest is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Wildebeest.  If not, see http://www.gnu.org/licenses/gpl-2.0.html
+
+
+package co.mv.wb.plugin.base.dom;
+
+import co.mv.wb.Instance;
+import co.mv.wb.InvalidReferenceException;
+import co.mv.wb.LoaderFault;
+import co.mv.wb.PluginBuildException;
+import co.mv.wb.Resource;
+import co.mv.wb.XmlValidationException;
+import co.mv.wb.framework.ExpectException;
+import co.mv.wb.impl.ResourceTypeServiceBuilder;
+import co.mv.wb.impl.XmlSchemaCache;
+import co.mv.wb.plugin.postgresql.PostgreSqlDatabaseInstance;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for parsing and validating descriptors in one pass with {@link DomParser}, and loading the parsed
+ * documents.
+ *
+ * @since 4.0
+ */
+public class DomParserUnitTests
+{
+	private static final String VALID_INSTANCE_XML =
+		"<instance type=\"co.mv.wb.PostgreSqlDatabase\">" +
+			"<hostName>127.0.0.1</hostName>" +
+			"<port>15432</port>" +
+			"<adminUsername>postgres</adminUsername>" +
+			"<adminPassword>Password123!</adminPassword>" +
+			"<databaseName>ProdCat</databaseName>" +
+			"</instance>";
+
+	@Test
+	public void parse_validInstance_loadedFromDocument() throws
+		IOException,
+		LoaderFault,
+		PluginBuildException,
+		XmlValidationException
+	{
+		// Execute
+		Document instanceXd = DomParserUnitTests.parse(VALID_INSTANCE_XML, "instance.xsd");
+		Instance instance = DomPlugins
+			.instanceLoader(instanceXd)
+			.load();
+
+		// Verify
+		assertTrue("instance", instance instanceof PostgreSqlDatabaseInstance);
+		assertEquals(
+			"instance.databaseName",
+			"ProdCat",
+			((PostgreSqlDatabaseInstance)instance).getDatabaseName());
+	}
+
+	@Test
+	public void parse_instanceNotMatchingSchema_throwsXmlValidationException()
+	{
+		// Execute and Verify
+		new ExpectException(XmlValidationException.class)
+		{
+			@Override public void invoke() throws Exception
+			{
+				DomParserUnitTests.parse(
+					"<instance type=\"co.mv.wb.PostgreSqlDatabase\"><unknownElement /></instance>",
+					"instance.xsd");
+			}
+
+			@Override public void verify(Exception e)
+			{
+				assertTrue("e.message", e.getMessage().contains("unknownElement"));
+			}
+		}.perform();
+	}
+
+	@Test
+	public void parse_malformedXml_throwsXmlValidationException()
+	{
+		// Execute and Verify
+		new ExpectException(XmlValidationException.class)
+		{
+			@Override public void invoke() throws Exception
+			{
+				DomParserUnitTests.parse(
+					"<instance type=\"co.mv.wb.PostgreSqlDatabase\"><hostName>127.0.0.1</instance>",
+					"instance.xsd");
+			}
+
+			@Override public void verify(Exception e)
+			{
+				assertNotNull("e.message", e.getMessage());
+			}
+		}.perform();
+	}
+
+	@Test
+	public void parse_validResource_loadedFromDocument() throws
+		InvalidReferenceException,
+		IOException,
+		LoaderFault,
+		PluginBuildException,
+		XmlValidationException
+	{
+		// Setup
+		File resourceFile = new File("PostgreSqlDatabase/database.wbresource.xml").getAbsoluteFile();
+
+		// Execute
+		Document resourceXd;
+		try (InputStream resourceStream = new FileInputStream(resourceFile))
+		{
+			resourceXd = DomParser.parse(
+				new InputSource(resourceStream),
+				XmlSchemaCache.getSchema("resource.xsd"));
+		}
+
+		Resource resource = DomPlugins
+			.resourceLoader(
+				ResourceTypeServiceBuilder
+					.create()
+					.withFactoryResourceTypes()
+					.build(),
+				resourceXd)
+			.load(resourceFile.getParentFile());
+
+		// Verify
+		assertEquals(
+			"resource.resourceId",
+			UUID.fromString("38d0eabd-ab40-4c37-96a7-fcacb43bd059"),
+			resource.getResourceId());
+		assertEquals("resource.name", "Product Catalogue Database", resource.getName());
+		assertTrue("resource.states", !resource.getStates().isEmpty());
+	}
+
+	@Test
+	public void parse_resourceNotMatchingSchema_throwsXmlValidationException()
+	{
+		// Execute and Verify
+		new ExpectException(XmlValidationException.class)
+		{
+			@Override public void invoke() throws Exception
+			{
+				try (InputStream resourceStream = new FileInputStream("InvalidXml/InvalidSampleResources.xml"))
+				{
+					DomParser.parse(
+						new InputSource(resourceStream),
+						XmlSchemaCache.getSchema("resource.xsd"));
+				}
+			}
+
+			@Override public void verify(Exception e)
+			{
+				assertNotNull("e.message", e.getMessage());
+			}
+		}.perform();
+	}
+
+	private static Document parse(
+		String xml,
+		String schemaName) throws
+		IOException,
+		LoaderFault,
+		XmlValidationException
+	{
+		return DomParser.parse(
+			new InputSource(new StringReader(xml)),
+			XmlSchemaCache.getSchema(schemaName));
+	}
+}
@@ -0,0 +1,165 @@
+// Wildebeest Migration Framework
+// Copyright © 2013 - 2018, Matheson Ventures Pte Ltd
+//
+// This file is part of Wildebeest
+//
+// Wildebeest is free software: you can redistribute it and/or modify it under
+// the terms of the GNU General Public License v2 as published by the Free
+// Software Foundation.
+//
+// Wildebeest is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Wildebeest.  If not, see http://www.gnu.org/licenses/gpl-2.0.html
+
+package co.mv.wb.plugin.base.dom;
+
+import co.mv.wb.Assertion;
+import co.mv.wb.InvalidReferenceException;
+import co.mv.wb.LoaderFault;
+import co.mv.wb.Migration;
+import co.mv.wb.PluginBuildException;
+import co.mv.wb.Resource;
+import co.mv.wb.ResourceTypeService;
+import co.mv.wb.State;
+import co.mv.wb.framework.ArgumentNullException;
+import co.mv.wb.impl.ResourceTypeServiceBuilder;
+import co.mv.wb.plugin.generaldatabase.SqlScriptMigration;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Unit tests for {@link StaxResourceLoader}, which verify that it loads the same model as {@link DomResourceLoader}.
+ *
+ * @since 4.0
+ */
+public class StaxResourceLoaderTests
+{
+	@Test
+	public void load_mySqlResources_matchesDomResourceLoader() throws
+		InvalidReferenceException,
+		IOException,
+		LoaderFault,
+		PluginBuildException
+	{
+		this.load_matchesDomResourceLoader("MySqlDatabase/database.wbresource.xml");
+		this.load_matchesDomResourceLoader("MySqlDatabase/database.wbresources.uses.assertionGroup.xml");
+		this.load_matchesDomResourceLoader("MySqlDatabase/database.wbresources.uses.singleAssertionRef.xml");
+	}
+
+	@Test
+	public void load_postgreSqlResources_matchesDomResourceLoader() throws
+		InvalidReferenceException,
+		IOException,
+		LoaderFault,
+		PluginBuildException
+	{
+		this.load_matchesDomResourceLoader("PostgreSqlDatabase/database.wbresource.xml");
+		this.load_matchesDomResourceLoader("PostgreSqlDatabase/database.wbresources.uses.assertionGroup.xml");
+		this.load_matchesDomResourceLoader("PostgreSqlDatabase/database.wbresources.uses.singleAssertionRef.xml");
+	}
+
+	@Test
+	public void load_sqlServerResources_matchesDomResourceLoader() throws
+		InvalidReferenceException,
+		IOException,
+		LoaderFault,
+		PluginBuildException
+	{
+		this.load_matchesDomResourceLoader("SqlServerDatabase/database.wbresource.xml");
+		this.load_matchesDomResourceLoader("SqlServerDatabase/database.wbresources.uses.assertionGroup.xml");
+		this.load_matchesDomResourceLoader("SqlServerDatabase/database.wbresources.uses.singleAssertionRef.xml");
+	}
+
+	private void load_matchesDomResourceLoader(
+		String filename) throws
+		InvalidReferenceException,
+		IOException,
+		LoaderFault,
+		PluginBuildException
+	{
+		if (filename == null) throw new ArgumentNullException("filename");
+
+		// Setup
+		File resourceFile = new File(filename);
+		ResourceTypeService resourceTypeService = ResourceTypeServiceBuilder
+			.create()
+			.withFactoryResourceTypes()
+			.build();
+
+		// Execute
+		Resource expected = DomPlugins
+			.resourceLoader(resourceTypeService, new String(Files.readAllBytes(resourceFile.toPath())))
+			.load(resourceFile.getParentFile());
+		Resource actual = DomPlugins
+			.streamingResourceLoader(resourceTypeService, resourceFile)
+			.load(resourceFile.getParentFile());
+
+		// Verify
+		assertNotNull(filename, actual);
+		assertEquals(filename + ".resourceId", expected.getResourceId(), actual.getResourceId());
+		assertEquals(filename + ".type", expected.getType(), actual.getType());
+		assertEquals(filename + ".name", expected.getName(), actual.getName());
+		assertEquals(filename + ".states.size", expected.getStates().size(), actual.getStates().size());
+
+		for (int i = 0; i < expected.getStates().size(); i++)
+		{
+			State expectedState = expected.getStates().get(i);
+			State actualState = actual.getStates().get(i);
+			String name = String.format("%s.states[%d]", filename, i);
+
+			assertEquals(name + ".stateId", expectedState.getStateId(), actualState.getStateId());
+			assertEquals(name + ".name", expectedState.getName(), actualState.getName());
+			assertEquals(name + ".description", expectedState.getDescription(), actualState.getDescription());
+			assertEquals(
+				name + ".assertions.size",
+				expectedState.getAssertions().size(),
+				actualState.getAssertions().size());
+
+			for (int j = 0; j < expectedState.getAssertions().size(); j++)
+			{
+				Assertion expectedAssertion = expectedState.getAssertions().get(j);
+				Assertion actualAssertion = actualState.getAssertions().get(j);
+
+				assertEquals(
+					String.format("%s.assertions[%d].assertionId", name, j),
+					expectedAssertion.getAssertionId(),
+					actualAssertion.getAssertionId());
+				assertEquals(
+					String.format("%s.assertions[%d].class", name, j),
+					expectedAssertion.getClass(),
+					actualAssertion.getClass());
+			}
+		}
+
+		assertEquals(filename + ".migrations.size", expected.getMigrations().size(), actual.getMigrations().size());
+
+		for (int i = 0; i < expected.getMigrations().size(); i++)
+		{
+			Migration expectedMigration = expected.getMigrations().get(i);
+			Migration actualMigration = actual.getMigrations().get(i);
+			String name = String.format("%s.migrations[%d]", filename, i);
+
+			assertEquals(name + ".migrationId", expectedMigration.getMigrationId(), actualMigration.getMigrationId());
+			assertEquals(name + ".class", expectedMigration.getClass(), actualMigration.getClass());
+			assertEquals(name + ".fromState", expectedMigration.getFromState(), actualMigration.getFromState());
+			assertEquals(name + ".toState", expectedMigration.getToState(), actualMigration.getToState());
+
+			if (expectedMigration instanceof SqlScriptMigration)
+			{
+				assertEquals(
+					name + ".sql",
+					((SqlScriptMigration)expectedMigration).getSql(),
+					((SqlScriptMigration)actualMigration).getSql());
+			}
+		}
+	}
+}
@@ -26,7 +26,7 @@ import java.util.UUID;
  *
  * @since 1.0
  */
-public final class FakeInstance implements Instance
+public class FakeInstance implements Instance
 {
 	private UUID stateId = null;
 	private String tag = null;
@@ -54,7 +54,7 @@ public class FakeResourcePlugin implements ResourcePlugin
 		try
 		{
 			result = fake.hasStateId()
-				? Wildebeest.findState(resource, fake.getStateId().toString())
+				? Wildebeest.findState(resource, fake.getStateId())
 				: null;
 		}
 		catch (InvalidReferenceException e)
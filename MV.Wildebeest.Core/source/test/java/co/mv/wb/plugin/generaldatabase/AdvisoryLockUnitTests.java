@@ -0,0 +1,130 @@
+// Wildebeest Migration Framework
+// Copyright © 2013 - 2018, Matheson Ventures Pte Ltd
+//
+// This file is part of Wildebeest
+//
+// Wildebeest is free software: you can redistribute it and/or modify it under
+// the terms of the GNU General Public License v2 as published by the Free
+// Software Foundation.
+//
+// Wildebeest is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Wildebeest.  If not, see http://www.gnu.org/licenses/gpl-2.0.html
+
+
+package co.mv.wb.plugin.generaldatabase;
+
+import co.mv.wb.FaultException;
+import co.mv.wb.framework.ExpectException;
+import co.mv.wb.framework.PooledDataSource;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link AdvisoryLock}.
+ *
+ * @since 4.0
+ */
+public class AdvisoryLockUnitTests
+{
+	private static final String ACQUIRE_SQL = "SELECT acquire(?);";
+	private static final String RELEASE_SQL = "SELECT release(?);";
+
+	@Test
+	public void close_released_returnsConnectionToPool() throws SQLException
+	{
+		// Setup
+		Connection physical = AdvisoryLockUnitTests.physicalConnection();
+		PreparedStatement releaseStatement = mock(PreparedStatement.class);
+		when(physical.prepareStatement(RELEASE_SQL)).thenReturn(releaseStatement);
+
+		PooledDataSource pool = AdvisoryLockUnitTests.pool(physical);
+
+		AdvisoryLock lock = AdvisoryLock.acquire(pool, ACQUIRE_SQL, RELEASE_SQL, 42L);
+
+		// Execute
+		lock.close();
+
+		// Verify
+		verify(releaseStatement, times(1)).setObject(1, 42L);
+		verify(releaseStatement, times(1)).execute();
+		verify(physical, never()).abort(any(Executor.class));
+		verify(physical, never()).close();
+		assertEquals("idleCount", 1, pool.getIdleCount());
+	}
+
+	@Test
+	public void close_releaseFails_discardsConnection() throws SQLException
+	{
+		// Setup
+		Connection physical = AdvisoryLockUnitTests.physicalConnection();
+		when(physical.prepareStatement(RELEASE_SQL)).thenThrow(new SQLException("connection reset"));
+
+		PooledDataSource pool = AdvisoryLockUnitTests.pool(physical);
+
+		AdvisoryLock lock = AdvisoryLock.acquire(pool, ACQUIRE_SQL, RELEASE_SQL, 42L);
+
+		// Execute
+		new ExpectException(FaultException.class)
+		{
+			@Override public void invoke() throws Exception
+			{
+				lock.close();
+			}
+
+			@Override public void verify(Exception e)
+			{
+			}
+		}.perform();
+
+		// Verify
+		verify(physical, times(1)).abort(any(Executor.class));
+		assertEquals("idleCount", 0, pool.getIdleCount());
+	}
+
+	private static PooledDataSource pool(
+		Connection physical) throws SQLException
+	{
+		DataSource dataSource = mock(DataSource.class);
+		when(dataSource.getConnection()).thenReturn(physical);
+
+		return new PooledDataSource(dataSource, 2);
+	}
+
+	private static Connection physicalConnection() throws SQLException
+	{
+		ResultSet acquireResult = mock(ResultSet.class);
+		when(acquireResult.next()).thenReturn(true);
+		when(acquireResult.getInt(1)).thenReturn(1);
+
+		PreparedStatement acquireStatement = mock(PreparedStatement.class);
+		when(acquireStatement.executeQuery()).thenReturn(acquireResult);
+
+		Connection result = mock(Connection.class);
+		when(result.getAutoCommit()).thenReturn(true);
+		when(result.isReadOnly()).thenReturn(false);
+		when(result.getTransactionIsolation()).thenReturn(Connection.TRANSACTION_READ_COMMITTED);
+		when(result.getCatalog()).thenReturn("db");
+		when(result.isClosed()).thenReturn(false);
+		when(result.prepareStatement(ACQUIRE_SQL)).thenReturn(acquireStatement);
+
+		return result;
+	}
+}
@@ -0,0 +1,166 @@
+// Wildebeest Migration Framework
+// Copyright © 2013 - 2018, Matheson Ventures Pte Ltd
+//
+// This file is part of Wildebeest
+//
+// Wildebeest is free software: you can redistribute it and/or modify it under
+// the terms of the GNU General Public License v2 as published by the Free
+// Software Foundation.
+//
+// Wildebeest is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Wildebeest.  If not, see http://www.gnu.org/licenses/gpl-2.0.html
+
+
+package co.mv.wb.plugin.generaldatabase;
+
+import co.mv.wb.AssertionScope;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link CatalogSnapshot} and {@link CatalogSnapshotCache}.
+ *
+ * @since 4.0
+ */
+public class CatalogSnapshotCacheUnitTests
+{
+	@Test
+	public void tableExists_manyChecksInScope_readsCatalogOnce() throws SQLException
+	{
+		// Setup
+		DataSource appDataSource = CatalogSnapshotCacheUnitTests.catalog(
+			new String[] {"public", "customer"},
+			new String[] {"public", "orders"},
+			new String[] {"sales", null});
+
+		AnsiSqlDatabaseInstance db = mock(AnsiSqlDatabaseInstance.class);
+		when(db.databaseExists()).thenReturn(true);
+		when(db.getAppDataSource()).thenReturn(appDataSource);
+		when(db.readCatalog()).thenAnswer(x -> AnsiSqlDatabaseHelper.readCatalog(db));
+
+		// Execute and Verify
+		try (AssertionScope scope = CatalogSnapshotCache.open(db))
+		{
+			for (int i = 0; i < 100; i++)
+			{
+				assertTrue("public.customer", AnsiSqlDatabaseHelper.tableExists(db, "public", "customer"));
+				assertTrue("PUBLIC.ORDERS", AnsiSqlDatabaseHelper.tableExists(db, "PUBLIC", "ORDERS"));
+				assertFalse("public.invoice", AnsiSqlDatabaseHelper.tableExists(db, "public", "invoice"));
+				assertTrue("databaseExists", CatalogSnapshotCache.databaseExists(db));
+			}
+		}
+
+		verify(db, times(1)).readCatalog();
+		verify(db, times(1)).databaseExists();
+		verify(appDataSource, times(1)).getConnection();
+	}
+
+	@Test
+	public void get_outsideScope_isEmpty()
+	{
+		// Setup
+		DatabaseInstance db = mock(DatabaseInstance.class);
+		when(db.readCatalog()).thenReturn(CatalogSnapshot.noDatabase());
+
+		// Execute
+		AssertionScope scope = CatalogSnapshotCache.open(db);
+		boolean presentInScope = CatalogSnapshotCache.get(db).isPresent();
+		scope.close();
+		boolean presentAfterScope = CatalogSnapshotCache.get(db).isPresent();
+
+		// Verify
+		assertTrue("presentInScope", presentInScope);
+		assertFalse("presentAfterScope", presentAfterScope);
+	}
+
+	@Test
+	public void get_nestedScopes_keepsSnapshotUntilOutermostCloses()
+	{
+		// Setup
+		DatabaseInstance db = mock(DatabaseInstance.class);
+		when(db.readCatalog()).thenReturn(CatalogSnapshot.noDatabase());
+
+		// Execute
+		try (AssertionScope outer = CatalogSnapshotCache.open(db))
+		{
+			try (AssertionScope inner = CatalogSnapshotCache.open(db))
+			{
+				CatalogSnapshotCache.get(db);
+			}
+
+			CatalogSnapshotCache.get(db);
+		}
+
+		// Verify
+		verify(db, times(1)).readCatalog();
+	}
+
+	@Test
+	public void read_caseInsensitive_matchesAnyCase() throws SQLException
+	{
+		// Setup
+		DataSource dataSource = CatalogSnapshotCacheUnitTests.catalog(
+			new String[] {"dbo", "Customer"},
+			new String[] {"Sales", null});
+
+		// Execute
+		CatalogSnapshot snapshot = CatalogSnapshot.read(dataSource, "SELECT", false);
+
+		// Verify
+		assertTrue("databaseExists", snapshot.databaseExists());
+		assertTrue("dbo.customer", snapshot.tableExists("dbo", "customer"));
+		assertTrue("SALES", snapshot.schemaExists("SALES"));
+		assertFalse("sales.customer", snapshot.tableExists("sales", "customer"));
+		assertFalse("audit", snapshot.schemaExists("audit"));
+	}
+
+	@Test
+	public void noDatabase_hasNothing()
+	{
+		// Execute
+		CatalogSnapshot snapshot = CatalogSnapshot.noDatabase();
+
+		// Verify
+		assertFalse("databaseExists", snapshot.databaseExists());
+		assertFalse("schemaExists", snapshot.schemaExists("dbo"));
+		assertFalse("tableExists", snapshot.tableExists("dbo", "customer"));
+	}
+
+	private static DataSource catalog(
+		String[]... rows) throws SQLException
+	{
+		ResultSet rs = mock(ResultSet.class);
+		int[] row = {-1};
+		when(rs.next()).thenAnswer(x -> ++row[0] < rows.length);
+		when(rs.getString(1)).thenAnswer(x -> rows[row[0]][0]);
+		when(rs.getString(2)).thenAnswer(x -> rows[row[0]][1]);
+
+		PreparedStatement ps = mock(PreparedStatement.class);
+		when(ps.executeQuery()).thenReturn(rs);
+
+		Connection conn = mock(Connection.class);
+		when(conn.prepareStatement(anyString())).thenReturn(ps);
+
+		DataSource result = mock(DataSource.class);
+		when(result.getConnection()).thenReturn(conn);
+
+		return result;
+	}
+}
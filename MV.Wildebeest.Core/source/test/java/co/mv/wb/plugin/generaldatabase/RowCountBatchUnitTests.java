@@ -0,0 +1,224 @@
+// Wildebeest Migration Framework
+// Copyright © 2013 - 2018, Matheson Ventures Pte Ltd
+//
+// This file is part of Wildebeest
+//
+// Wildebeest is free software: you can redistribute it and/or modify it under
+// the terms of the GNU General Public License v2 as published by the Free
+// Software Foundation.
+//
+// Wildebeest is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Wildebeest.  If not, see http://www.gnu.org/licenses/gpl-2.0.html
+
+
+package co.mv.wb.plugin.generaldatabase;
+
+import co.mv.wb.Assertion;
+import co.mv.wb.AssertionFaultException;
+import co.mv.wb.AssertionResponse;
+import co.mv.wb.AssertionScope;
+import co.mv.wb.framework.ExpectException;
+import co.mv.wb.framework.SqlDialect;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link RowCountBatch}.
+ *
+ * @since 4.0
+ */
+public class RowCountBatchUnitTests
+{
+	@Test
+	public void countRows_postgreSqlScope_countsEveryQueryInOneBatch() throws SQLException
+	{
+		// Setup
+		RowExistsAssertion exists = new RowExistsAssertion(UUID.randomUUID(), "exists", 1, "SELECT 1;");
+		RowExistsAssertion tooMany = new RowExistsAssertion(UUID.randomUUID(), "tooMany", 2, "SELECT 2 -- two");
+		RowDoesNotExistAssertion absent = new RowDoesNotExistAssertion(UUID.randomUUID(), "absent", 3, "SELECT 3");
+
+		Statement stmt = mock(Statement.class);
+		ResultSet one = RowCountBatchUnitTests.rows(1);
+		ResultSet many = RowCountBatchUnitTests.rows(1000);
+		ResultSet none = RowCountBatchUnitTests.rows(0);
+		when(stmt.execute(anyString())).thenReturn(true);
+		when(stmt.getResultSet()).thenReturn(one, many, none);
+		when(stmt.getMoreResults()).thenReturn(true, true, false);
+		when(stmt.getUpdateCount()).thenReturn(-1);
+
+		Connection conn = mock(Connection.class);
+		when(conn.createStatement()).thenReturn(stmt);
+		DatabaseInstance db = RowCountBatchUnitTests.database(SqlDialect.PostgreSql, conn);
+
+		// Execute
+		AssertionResponse existsResponse;
+		AssertionResponse tooManyResponse;
+		AssertionResponse absentResponse;
+
+		try (AssertionScope scope = RowCountBatch.open(db, Arrays.<Assertion>asList(exists, tooMany, absent)))
+		{
+			existsResponse = new RowExistsAssertionPlugin().perform(exists, db);
+			tooManyResponse = new RowExistsAssertionPlugin().perform(tooMany, db);
+			absentResponse = new RowDoesNotExistAssertionPlugin().perform(absent, db);
+		}
+
+		// Verify
+		assertTrue("existsResponse.result", existsResponse.getResult());
+		assertFalse("tooManyResponse.result", tooManyResponse.getResult());
+		assertEquals(
+			"tooManyResponse.message",
+			"Expected to find exactly one row, but found more than one",
+			tooManyResponse.getMessage());
+		assertTrue("absentResponse.result", absentResponse.getResult());
+		verify(db.getAppDataSource(), times(1)).getConnection();
+		verify(stmt).setMaxRows(RowCountBatch.MAX_ROWS);
+		verify(stmt, times(1)).execute("SELECT 1\n;\nSELECT 2 -- two\n;\nSELECT 3\n;\n");
+		verify(many, times(RowCountBatch.MAX_ROWS)).next();
+		verify(conn, never()).prepareStatement(anyString());
+	}
+
+	@Test
+	public void countRows_mySqlScope_countsEveryQueryOnOneConnection() throws SQLException
+	{
+		// Setup
+		RowExistsAssertion first = new RowExistsAssertion(UUID.randomUUID(), "first", 1, "SELECT 1;");
+		RowDoesNotExistAssertion second = new RowDoesNotExistAssertion(UUID.randomUUID(), "second", 2, "SELECT 2;");
+
+		PreparedStatement ps = mock(PreparedStatement.class);
+		when(ps.executeQuery()).thenAnswer(x -> RowCountBatchUnitTests.rows(1));
+
+		Connection conn = mock(Connection.class);
+		when(conn.prepareStatement(anyString())).thenReturn(ps);
+		DatabaseInstance db = RowCountBatchUnitTests.database(SqlDialect.MySql, conn);
+
+		// Execute
+		int firstCount;
+		int secondCount;
+
+		try (AssertionScope scope = RowCountBatch.open(db, Arrays.<Assertion>asList(first, second)))
+		{
+			firstCount = RowCountBatch.countRows(db, first);
+			secondCount = RowCountBatch.countRows(db, second);
+		}
+
+		// Verify
+		assertEquals("firstCount", 1, firstCount);
+		assertEquals("secondCount", 1, secondCount);
+		verify(db.getAppDataSource(), times(1)).getConnection();
+		verify(ps, times(2)).setMaxRows(RowCountBatch.MAX_ROWS);
+		verify(ps, times(2)).executeQuery();
+	}
+
+	@Test
+	public void countRows_batchFails_reportsFaultAgainstFailingAssertion() throws SQLException
+	{
+		// Setup
+		RowExistsAssertion good = new RowExistsAssertion(UUID.randomUUID(), "good", 1, "SELECT 1;");
+		RowExistsAssertion bad = new RowExistsAssertion(UUID.randomUUID(), "bad", 2, "SELECT nonsense;");
+
+		Statement stmt = mock(Statement.class);
+		when(stmt.execute(anyString())).thenThrow(new SQLException("syntax error"));
+
+		PreparedStatement goodPs = mock(PreparedStatement.class);
+		when(goodPs.executeQuery()).thenAnswer(x -> RowCountBatchUnitTests.rows(1));
+		PreparedStatement badPs = mock(PreparedStatement.class);
+		when(badPs.executeQuery()).thenThrow(new SQLException("syntax error"));
+
+		Connection conn = mock(Connection.class);
+		when(conn.createStatement()).thenReturn(stmt);
+		when(conn.prepareStatement("SELECT 1;")).thenReturn(goodPs);
+		when(conn.prepareStatement("SELECT nonsense;")).thenReturn(badPs);
+		DatabaseInstance db = RowCountBatchUnitTests.database(SqlDialect.SqlServer, conn);
+
+		try (AssertionScope scope = RowCountBatch.open(db, Arrays.<Assertion>asList(good, bad)))
+		{
+			// Execute
+			AssertionResponse goodResponse = new RowExistsAssertionPlugin().perform(good, db);
+
+			// Verify
+			assertTrue("goodResponse.result", goodResponse.getResult());
+
+			new ExpectException(AssertionFaultException.class)
+			{
+				@Override public void invoke() throws Exception
+				{
+					new RowExistsAssertionPlugin().perform(bad, db);
+				}
+
+				@Override public void verify(Exception e)
+				{
+					assertEquals("assertionId", bad.getAssertionId(), ((AssertionFaultException)e).getAssertionId());
+				}
+			}.perform();
+		}
+	}
+
+	@Test
+	public void countRows_outsideScope_runsOwnCappedQuery() throws SQLException
+	{
+		// Setup
+		RowExistsAssertion assertion = new RowExistsAssertion(UUID.randomUUID(), "assertion", 1, "SELECT 1;");
+
+		PreparedStatement ps = mock(PreparedStatement.class);
+		ResultSet rs = RowCountBatchUnitTests.rows(50);
+		when(ps.executeQuery()).thenReturn(rs);
+
+		Connection conn = mock(Connection.class);
+		when(conn.prepareStatement(anyString())).thenReturn(ps);
+		DatabaseInstance db = RowCountBatchUnitTests.database(SqlDialect.PostgreSql, conn);
+
+		// Execute
+		int count = RowCountBatch.countRows(db, assertion);
+
+		// Verify
+		assertEquals("count", RowCountBatch.MAX_ROWS, count);
+		verify(ps).setMaxRows(RowCountBatch.MAX_ROWS);
+		verify(rs, times(RowCountBatch.MAX_ROWS)).next();
+	}
+
+	private static DatabaseInstance database(
+		SqlDialect dialect,
+		Connection conn) throws SQLException
+	{
+		DataSource appDataSource = mock(DataSource.class);
+		when(appDataSource.getConnection()).thenReturn(conn);
+
+		DatabaseInstance result = mock(DatabaseInstance.class);
+		when(result.getAppDataSource()).thenReturn(appDataSource);
+		when(result.getSqlDialect()).thenReturn(dialect);
+
+		return result;
+	}
+
+	private static ResultSet rows(
+		int count) throws SQLException
+	{
+		ResultSet result = mock(ResultSet.class);
+		int[] row = {0};
+		when(result.next()).thenAnswer(x -> row[0]++ < count);
+
+		return result;
+	}
+}
@@ -0,0 +1,142 @@
+// Wildebeest Migration Framework
+// Copyright © 2013 - 2018, Matheson Ventures Pte Ltd
+//
+// This file is part of Wildebeest
+//
+// Wildebeest is free software: you can redistribute it and/or modify it under
+// the terms of the GNU General Public License v2 as published by the Free
+// Software Foundation.
+//
+// Wildebeest is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Wildebeest.  If not, see http://www.gnu.org/licenses/gpl-2.0.html
+
+package co.mv.wb.plugin.generaldatabase.dom;
+
+import co.mv.wb.InvalidReferenceException;
+import co.mv.wb.LoaderFault;
+import co.mv.wb.ModelExtensions;
+import co.mv.wb.PluginBuildException;
+import co.mv.wb.Resource;
+import co.mv.wb.Wildebeest;
+import co.mv.wb.fixture.Fixtures;
+import co.mv.wb.impl.ResourceTypeServiceBuilder;
+import co.mv.wb.plugin.base.dom.DomPlugins;
+import co.mv.wb.plugin.base.dom.DomResourceLoader;
+import co.mv.wb.plugin.generaldatabase.SqlScriptMigration;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Unit tests for the DOM persistence services for {@link SqlScriptMigration}.
+ *
+ * @since 4.0
+ */
+public class SqlScriptDomServiceUnitTests
+{
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void sqlScriptMigrationLoadWithInlineSqlSucceeds() throws
+		LoaderFault,
+		PluginBuildException,
+		InvalidReferenceException
+	{
+		// Setup
+		UUID migrationId = UUID.randomUUID();
+		UUID toStateId = UUID.randomUUID();
+
+		String xml = Fixtures
+			.resourceXmlBuilder()
+			.resource(Wildebeest.PostgreSqlDatabase.getUri(), UUID.randomUUID(), "Foo")
+			.migration("SqlScript", migrationId, UUID.randomUUID().toString(), toStateId.toString())
+			.withInnerXml("<sql>SELECT 1;</sql><batchSize>50</batchSize>")
+			.render();
+
+		// Execute
+		SqlScriptMigration migration = SqlScriptDomServiceUnitTests.load(xml, new File("."));
+
+		// Verify
+		Assert.assertEquals("migration.sql", "SELECT 1;", migration.getSql());
+		Assert.assertEquals("migration.sqlFile", Optional.empty(), migration.getSqlFile());
+		Assert.assertEquals("migration.batchSize", 50, migration.getBatchSize());
+	}
+
+	@Test
+	public void sqlScriptMigrationLoadWithFilenameReadsScriptOnlyWhenOpened() throws
+		IOException,
+		LoaderFault,
+		PluginBuildException,
+		InvalidReferenceException
+	{
+		// Setup
+		File baseDir = this.temporaryFolder.getRoot();
+		UUID migrationId = UUID.randomUUID();
+
+		String xml = Fixtures
+			.resourceXmlBuilder()
+			.resource(Wildebeest.PostgreSqlDatabase.getUri(), UUID.randomUUID(), "Foo")
+			.migration("SqlScript", migrationId, UUID.randomUUID().toString(), UUID.randomUUID().toString())
+			.withInnerXml("<filename>scripts/seed.sql</filename>")
+			.render();
+
+		// Execute
+		SqlScriptMigration migration = SqlScriptDomServiceUnitTests.load(xml, baseDir);
+
+		// The script file does not need to exist until the migration is performed
+		File scriptFile = new File(new File(baseDir, "scripts"), "seed.sql");
+		Files.createDirectories(scriptFile.getParentFile().toPath());
+		Files.write(scriptFile.toPath(), "INSERT INTO t VALUES (1);\nINSERT INTO t VALUES (2);".getBytes(
+			StandardCharsets.UTF_8));
+
+		// Verify
+		Assert.assertEquals("migration.sqlFile", Optional.of(new File(baseDir, "scripts/seed.sql")), migration.getSqlFile());
+		Assert.assertEquals("migration.batchSize", 1, migration.getBatchSize());
+		try (Reader script = migration.openScript())
+		{
+			Assert.assertEquals(
+				"script",
+				"INSERT INTO t VALUES (1);\nINSERT INTO t VALUES (2);",
+				new BufferedReader(script).lines().collect(Collectors.joining("\n")));
+		}
+	}
+
+	private static SqlScriptMigration load(
+		String xml,
+		File baseDir) throws
+		LoaderFault,
+		PluginBuildException,
+		InvalidReferenceException
+	{
+		DomResourceLoader loader = DomPlugins.resourceLoader(
+			ResourceTypeServiceBuilder
+				.create()
+				.withFactoryResourceTypes()
+				.build(),
+			xml);
+
+		Resource resource = loader.load(baseDir);
+
+		Assert.assertEquals("resource.migrations.size", 1, resource.getMigrations().size());
+		SqlScriptMigration result = ModelExtensions.as(resource.getMigrations().get(0), SqlScriptMigration.class);
+		Assert.assertNotNull("resource.migrations[0] expected to be of type SqlScriptMigration", result);
+
+		return result;
+	}
+}
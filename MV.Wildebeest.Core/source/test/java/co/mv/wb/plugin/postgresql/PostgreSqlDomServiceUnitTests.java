@@ -29,6 +29,7 @@ import co.mv.wb.impl.ResourceTypeServiceBuilder;
 import co.mv.wb.plugin.base.dom.DomInstanceLoader;
 import co.mv.wb.plugin.base.dom.DomPlugins;
 import co.mv.wb.plugin.base.dom.DomResourceLoader;
+import co.mv.wb.plugin.generaldatabase.DatabaseConstants;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -105,6 +106,64 @@ public class PostgreSqlDomServiceUnitTests
 			"WildebeestTest",
 			instanceT,
 			"instance");
+		Assert.assertEquals(
+			"instance.connectionPoolSize",
+			DatabaseConstants.DefaultConnectionPoolSize,
+			instanceT.getConnectionPoolSize());
+	}
+
+	@Test
+	public void postgreSqlDatabaseInstanceLoadWithConnectionPoolSizeSucceeds() throws
+		LoaderFault,
+		PluginBuildException
+	{
+		// Setup
+		StringBuilder xml = new StringBuilder();
+		xml.append("<instance type=\"").append(Wildebeest.PostgreSqlDatabase.getUri()).append("\">\n")
+			.append("<hostName>127.0.0.1</hostName>\n")
+			.append("<port>5432</port>\n")
+			.append("<adminUsername>wb</adminUsername>\n")
+			.append("<adminPassword>password</adminPassword>\n")
+			.append("<databaseName>WildebeestTest</databaseName>\n")
+			.append("<connectionPoolSize>5</connectionPoolSize>\n")
+			.append("</instance>");
+
+		DomInstanceLoader loader = DomPlugins.instanceLoader(xml.toString());
+
+		// Execute
+		Instance instance = loader.load();
+
+		// Verify
+		PostgreSqlDatabaseInstance instanceT = ModelExtensions.as(instance, PostgreSqlDatabaseInstance.class);
+		Assert.assertNotNull("instance must be of type PostgreSqlDatabaseInstance", instanceT);
+		Assert.assertEquals("instance.connectionPoolSize", 5, instanceT.getConnectionPoolSize());
+	}
+
+	@Test
+	public void postgreSqlDatabaseInstanceLoadWithTransactionalMigrationsSucceeds() throws
+		LoaderFault,
+		PluginBuildException
+	{
+		// Setup
+		StringBuilder xml = new StringBuilder();
+		xml.append("<instance type=\"").append(Wildebeest.PostgreSqlDatabase.getUri()).append("\">\n")
+			.append("<hostName>127.0.0.1</hostName>\n")
+			.append("<port>5432</port>\n")
+			.append("<adminUsername>wb</adminUsername>\n")
+			.append("<adminPassword>password</adminPassword>\n")
+			.append("<databaseName>WildebeestTest</databaseName>\n")
+			.append("<transactionalMigrations>true</transactionalMigrations>\n")
+			.append("</instance>");
+
+		DomInstanceLoader loader = DomPlugins.instanceLoader(xml.toString());
+
+		// Execute
+		Instance instance = loader.load();
+
+		// Verify
+		PostgreSqlDatabaseInstance instanceT = ModelExtensions.as(instance, PostgreSqlDatabaseInstance.class);
+		Assert.assertNotNull("instance must be of type PostgreSqlDatabaseInstance", instanceT);
+		Assert.assertTrue("instance.transactionalMigrations", instanceT.isTransactionalMigrations());
 	}
 
 	private static void assertPostgreSqlDatabaseInstance(
@@ -0,0 +1,180 @@
+// Wildebeest Migration Framework
+// Copyright © 2013 - 2018, Matheson Ventures Pte Ltd
+//
+// This file is part of Wildebeest
+//
+// Wildebeest is free software: you can redistribute it and/or modify it under
+// the terms of the GNU General Public License v2 as published by the Free
+// Software Foundation.
+//
+// Wildebeest is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+// A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Wildebeest.  If not, see http://www.gnu.org/licenses/gpl-2.0.html
+
+package co.mv.wb.plugin.postgresql;
+
+import co.mv.wb.IndeterminateStateException;
+import co.mv.wb.plugin.generaldatabase.StateTableCache;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.contains;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link PostgreSqlStateHelper}.
+ *
+ * @since 4.0
+ */
+public class PostgreSqlStateHelperUnitTests
+{
+	@Test
+	public void hasStateId_calledTwice_bootstrapsStateTableOnce() throws IndeterminateStateException, SQLException
+	{
+		// Setup
+		Connection conn = PostgreSqlStateHelperUnitTests.emptyDatabase();
+		DataSource appDataSource = mock(DataSource.class);
+		when(appDataSource.getConnection()).thenReturn(conn);
+
+		// Execute
+		boolean first = PostgreSqlStateHelper.hasStateId(UUID.randomUUID(), appDataSource, "wb", "wb_state");
+		boolean second = PostgreSqlStateHelper.hasStateId(UUID.randomUUID(), appDataSource, "wb", "wb_state");
+
+		// Verify
+		assertFalse("first", first);
+		assertFalse("second", second);
+		assertTrue("known", StateTableCache.isKnown(appDataSource, "wb.wb_state"));
+		verify(conn, times(1)).prepareStatement("SELECT 1 WHERE to_regclass('wb.wb_state') IS NOT NULL;");
+		verify(conn, times(1)).prepareStatement("CREATE SCHEMA IF NOT EXISTS wb;");
+		verify(conn, times(1)).prepareStatement(startsWith("CREATE TABLE IF NOT EXISTS wb.wb_state("));
+		verify(conn, times(2)).prepareStatement(startsWith("SELECT StateId FROM wb.wb_state"));
+	}
+
+	@Test
+	public void hasStateId_tableExists_issuesNoDdl() throws IndeterminateStateException, SQLException
+	{
+		// Setup
+		Connection conn = PostgreSqlStateHelperUnitTests.emptyDatabase();
+		ResultSet found = mock(ResultSet.class);
+		when(found.next()).thenReturn(true);
+		PreparedStatement probe = mock(PreparedStatement.class);
+		when(probe.executeQuery()).thenReturn(found);
+		when(conn.prepareStatement(contains("to_regclass"))).thenReturn(probe);
+
+		DataSource appDataSource = mock(DataSource.class);
+		when(appDataSource.getConnection()).thenReturn(conn);
+
+		// Execute
+		PostgreSqlStateHelper.hasStateId(UUID.randomUUID(), appDataSource, "wb", "wb_state");
+
+		// Verify
+		verify(conn, never()).prepareStatement(startsWith("CREATE"));
+	}
+
+	@Test
+	public void probeStateId_tableMissing_returnsNullWithoutDdl() throws IndeterminateStateException, SQLException
+	{
+		// Setup
+		Connection conn = PostgreSqlStateHelperUnitTests.emptyDatabase();
+		DataSource appDataSource = mock(DataSource.class);
+		when(appDataSource.getConnection()).thenReturn(conn);
+
+		// Execute
+		UUID stateId = PostgreSqlStateHelper.probeStateId(UUID.randomUUID(), appDataSource, "wb", "wb_state");
+
+		// Verify
+		assertNull("stateId", stateId);
+		assertFalse("known", StateTableCache.isKnown(appDataSource, "wb.wb_state"));
+		verify(conn, times(1)).prepareStatement(anyString());
+		verify(conn, never()).prepareStatement(startsWith("CREATE"));
+	}
+
+	@Test
+	public void probeStateId_tableKnown_readsStateInOneQuery() throws IndeterminateStateException, SQLException
+	{
+		// Setup
+		UUID expected = UUID.randomUUID();
+		ResultSet found = mock(ResultSet.class);
+		when(found.next()).thenReturn(true, false);
+		when(found.getObject(1)).thenReturn(expected);
+		PreparedStatement select = mock(PreparedStatement.class);
+		when(select.executeQuery()).thenReturn(found);
+
+		Connection conn = PostgreSqlStateHelperUnitTests.emptyDatabase();
+		when(conn.prepareStatement(startsWith("SELECT StateId FROM wb.wb_state"))).thenReturn(select);
+
+		DataSource appDataSource = mock(DataSource.class);
+		when(appDataSource.getConnection()).thenReturn(conn);
+		StateTableCache.markKnown(appDataSource, "wb.wb_state");
+
+		// Execute
+		UUID stateId = PostgreSqlStateHelper.probeStateId(UUID.randomUUID(), appDataSource, "wb", "wb_state");
+
+		// Verify
+		assertEquals("stateId", expected, stateId);
+		verify(conn, times(1)).prepareStatement(anyString());
+	}
+
+	@Test
+	public void setStateId_upsertsStateInOneParameterisedStatement() throws SQLException
+	{
+		// Setup
+		Connection conn = PostgreSqlStateHelperUnitTests.emptyDatabase();
+		PreparedStatement upsert = mock(PreparedStatement.class);
+		when(conn.prepareStatement(startsWith("INSERT INTO wb.wb_state"))).thenReturn(upsert);
+
+		DataSource appDataSource = mock(DataSource.class);
+		when(appDataSource.getConnection()).thenReturn(conn);
+		StateTableCache.markKnown(appDataSource, "wb.wb_state");
+
+		UUID resourceId = UUID.randomUUID();
+		UUID stateId = UUID.randomUUID();
+
+		// Execute
+		PostgreSqlStateHelper.setStateId(resourceId, appDataSource, "wb", "wb_state", stateId);
+
+		// Verify
+		verify(conn, times(1)).prepareStatement(anyString());
+		verify(conn, times(1)).prepareStatement(contains(" ON CONFLICT (ResourceId) DO UPDATE SET "));
+		verify(upsert).setObject(1, resourceId.toString());
+		verify(upsert).setObject(2, stateId.toString());
+		verify(upsert).setTimestamp(eq(3), any(Timestamp.class));
+		verify(upsert, times(1)).execute();
+	}
+
+	private static Connection emptyDatabase() throws SQLException
+	{
+		ResultSet rs = mock(ResultSet.class);
+		when(rs.next()).thenReturn(false);
+
+		PreparedStatement ps = mock(PreparedStatement.class);
+		when(ps.executeQuery()).thenReturn(rs);
+
+		Connection result = mock(Connection.class);
+		when(result.prepareStatement(anyString())).thenReturn(ps);
+
+		return result;
+	}
+}